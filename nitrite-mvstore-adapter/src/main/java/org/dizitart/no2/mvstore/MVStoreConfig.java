@@ -125,6 +125,11 @@ public class MVStoreConfig implements StoreConfig {
         eventListeners = new HashSet<>();
     }
 
+    @Override
+    public boolean isEncrypted() {
+        return encryptionKey != null;
+    }
+
     @Override
     public void addStoreEventListener(StoreEventListener listener) {
         eventListeners.add(listener);
@@ -23,7 +23,9 @@ import org.dizitart.no2.store.NitriteStore;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -101,6 +103,13 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
         return RecordStream.fromIterable(mvMap.keySet());
     }
 
+    @Override
+    public RecordStream<Key> keys(Key from, boolean reverse) {
+        // MVMap cursors walk the b-tree leaves directly, cheaper than a
+        // fresh root-to-leaf descent for every higherKey / lowerKey call
+        return () -> reverse ? mvMap.keyIteratorReverse(from) : mvMap.keyIterator(from);
+    }
+
     @Override
     public void put(Key key, Value value) {
         notNull(value, "value cannot be null");
@@ -118,6 +127,42 @@ class NitriteMVMap<Key, Value> implements NitriteMap<Key, Value> {
         return mvMap.sizeAsLong();
     }
 
+    @Override
+    public long countKeys(Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        // the position of a key comes from the sizes of the b-tree pages,
+        // a range is counted without visiting its keys
+        long start = from == null ? 0 : position(from, !fromInclusive);
+        long end = to == null ? mvMap.sizeAsLong() : position(to, toInclusive);
+        return Math.max(0, end - start);
+    }
+
+    @Override
+    public List<Key> splitKeys(int partitions) {
+        // the key at a position is found from the sizes of the b-tree pages
+        List<Key> splitKeys = new ArrayList<>();
+        long size = mvMap.sizeAsLong();
+        if (partitions < 2 || size < partitions) {
+            return splitKeys;
+        }
+
+        for (int i = 1; i < partitions; i++) {
+            Key key = mvMap.getKey(size * i / partitions);
+            if (key != null) {
+                splitKeys.add(key);
+            }
+        }
+        return splitKeys;
+    }
+
+    // the number of keys before the key, or up to and including it
+    private long position(Key key, boolean inclusive) {
+        long index = mvMap.getKeyIndex(key);
+        if (index < 0) {
+            return -(index + 1);
+        }
+        return inclusive ? index + 1 : index;
+    }
+
     @Override
     public Value putIfAbsent(Key key, Value value) {
         notNull(value, "value cannot be null");
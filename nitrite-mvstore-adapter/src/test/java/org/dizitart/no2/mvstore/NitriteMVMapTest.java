@@ -18,10 +18,13 @@
 package org.dizitart.no2.mvstore;
 
 import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashSet;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
@@ -61,5 +64,45 @@ public class NitriteMVMapTest {
         assertTrue((new NitriteMVMap<>(objectObjectMap, null)).isEmpty());
         verify(objectObjectMap).isEmpty();
     }
-}
 
+    @Test
+    public void testCountKeys() {
+        MVStore mvStore = MVStore.open(null);
+        try {
+            MVMap<Integer, String> mvMap = mvStore.openMap("test");
+            for (int i = 0; i < 100; i++) {
+                mvMap.put(i * 2, "v" + i);
+            }
+
+            NitriteMVMap<Integer, String> nitriteMVMap = new NitriteMVMap<>(mvMap, null);
+            assertEquals(100, nitriteMVMap.countKeys(null, false, null, false));
+            assertEquals(5, nitriteMVMap.countKeys(10, true, 18, true));
+            assertEquals(3, nitriteMVMap.countKeys(10, false, 18, false));
+            assertEquals(5, nitriteMVMap.countKeys(9, true, 19, true));
+            assertEquals(95, nitriteMVMap.countKeys(10, true, null, false));
+            assertEquals(5, nitriteMVMap.countKeys(null, false, 10, false));
+            assertEquals(0, nitriteMVMap.countKeys(20, true, 10, true));
+        } finally {
+            mvStore.close();
+        }
+    }
+
+    @Test
+    public void testSplitKeys() {
+        MVStore mvStore = MVStore.open(null);
+        try {
+            MVMap<Integer, String> mvMap = mvStore.openMap("test");
+            NitriteMVMap<Integer, String> nitriteMVMap = new NitriteMVMap<>(mvMap, null);
+            assertTrue(nitriteMVMap.splitKeys(4).isEmpty());
+
+            for (int i = 0; i < 100; i++) {
+                mvMap.put(i * 2, "v" + i);
+            }
+            assertEquals(Arrays.asList(50, 100, 150), nitriteMVMap.splitKeys(4));
+            assertEquals(Arrays.asList(66, 132), nitriteMVMap.splitKeys(3));
+            assertTrue(nitriteMVMap.splitKeys(1).isEmpty());
+        } finally {
+            mvStore.close();
+        }
+    }
+}
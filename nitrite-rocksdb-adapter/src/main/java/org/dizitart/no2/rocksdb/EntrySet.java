@@ -4,8 +4,11 @@ import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.rocksdb.formatter.ObjectFormatter;
 import org.rocksdb.*;
 
+import java.lang.ref.Cleaner;
 import java.util.Iterator;
 
+import static org.dizitart.no2.rocksdb.Constants.CLEANER;
+
 /**
  * @since 4.0
  * @author Anindya Chatterjee
@@ -34,8 +37,9 @@ class EntrySet<K, V> implements Iterable<Pair<K, V>> {
         return new EntryIterator();
     }
 
-    private class EntryIterator implements Iterator<Pair<K, V>> {
+    private class EntryIterator implements Iterator<Pair<K, V>>, AutoCloseable {
         private final RocksIterator rawEntryIterator;
+        private final Cleaner.Cleanable cleanable;
 
         public EntryIterator() {
             rawEntryIterator = rocksDB.newIterator(columnFamilyHandle);
@@ -44,6 +48,7 @@ class EntrySet<K, V> implements Iterable<Pair<K, V>> {
             } else {
                 rawEntryIterator.seekToFirst();
             }
+            cleanable = CLEANER.register(this, new CleaningAction(rawEntryIterator));
         }
 
         @Override
@@ -71,5 +76,10 @@ class EntrySet<K, V> implements Iterable<Pair<K, V>> {
             }
             return new Pair<>(key, value);
         }
+
+        @Override
+        public void close() {
+            cleanable.clean();
+        }
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dizitart.no2.rocksdb.formatter;
+
+import com.esotericsoftware.kryo.kryo5.Kryo;
+import com.esotericsoftware.kryo.kryo5.io.Input;
+import com.esotericsoftware.kryo.kryo5.io.Output;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.exceptions.NitriteIOException;
+import org.dizitart.no2.index.CompoundIndexKey;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order-preserving key serializer for the compound index {@link CompoundIndexKey} layout.
+ * The encoding sorts bytewise like {@link CompoundIndexKey#compareTo}: value by value, then by
+ * the bracket marker, then by the trailing id.
+ *
+ * <p>The byte layout is {@code ([0x01][value])* [end]}, every value encoded like the value of
+ * an {@link IndexEntryKeySerializer} key, and the {@code end} one of:
+ * <ul>
+ *   <li>{@code 0x00} - a lower bracket, which sorts before any further value of the rows
+ *       starting with the values of the bracket;</li>
+ *   <li>{@code 0x02 [id]} - an exact row, the id as a sign-flipped big-endian long;</li>
+ *   <li>{@code 0xFF} - an upper bracket, which sorts after any further value.</li>
+ * </ul>
+ *
+ * @since 4.5
+ */
+public class CompoundIndexKeySerializer extends KryoKeySerializer<CompoundIndexKey> {
+    private static final int VALUE = 0x01;
+    private static final int BOUND_LOWER = 0x00;
+    private static final int BOUND_EXACT = 0x02;
+    private static final int BOUND_UPPER = 0xFF;
+
+    private final IndexEntryKeySerializer valueSerializer = new IndexEntryKeySerializer();
+
+    @Override
+    public void write(Kryo kryo, Output output, CompoundIndexKey object) {
+        writeKey(kryo, output, object);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompoundIndexKey read(Kryo kryo, Input input, Class<? extends CompoundIndexKey> type) {
+        return readKey(kryo, input, (Class<CompoundIndexKey>) type);
+    }
+
+    @Override
+    public void writeKey(Kryo kryo, Output output, CompoundIndexKey object) {
+        for (int i = 0; i < object.size(); i++) {
+            output.writeByte(VALUE);
+            valueSerializer.writeValue(output, object.getValue(i));
+        }
+
+        switch (object.getBound()) {
+            case CompoundIndexKey.LOWER:
+                output.writeByte(BOUND_LOWER);
+                break;
+            case CompoundIndexKey.UPPER:
+                output.writeByte(BOUND_UPPER);
+                break;
+            default:
+                output.writeByte(BOUND_EXACT);
+                valueSerializer.writeOrderedLong(output, object.getNitriteId().getIdValue());
+                break;
+        }
+    }
+
+    @Override
+    public CompoundIndexKey readKey(Kryo kryo, Input input, Class<CompoundIndexKey> type) {
+        List<DBValue> values = new ArrayList<>();
+        while (true) {
+            int marker = input.readByte() & 0xFF;
+            switch (marker) {
+                case VALUE:
+                    values.add(valueSerializer.readValue(input));
+                    break;
+                case BOUND_LOWER:
+                    return CompoundIndexKey.lowerBound(values.toArray(new DBValue[0]));
+                case BOUND_UPPER:
+                    return CompoundIndexKey.upperBound(values.toArray(new DBValue[0]));
+                case BOUND_EXACT:
+                    long id = valueSerializer.readOrderedLong(input);
+                    return CompoundIndexKey.exact(values.toArray(new DBValue[0]), NitriteId.createId(id));
+                default:
+                    throw new NitriteIOException("Unknown compound index key marker: " + marker);
+            }
+        }
+    }
+}
@@ -108,7 +108,7 @@ public class IndexEntryKeySerializer extends KryoKeySerializer<IndexEntryKey> {
         }
     }
 
-    private void writeValue(Output output, DBValue dbValue) {
+    void writeValue(Output output, DBValue dbValue) {
         Comparable<?> value = dbValue instanceof DBNull ? null : dbValue.getValue();
         if (value == null) {
             output.writeByte(TAG_NULL);
@@ -133,7 +133,7 @@ public class IndexEntryKeySerializer extends KryoKeySerializer<IndexEntryKey> {
         }
     }
 
-    private DBValue readValue(Input input) {
+    DBValue readValue(Input input) {
         int tag = input.readByte() & 0xFF;
         switch (tag) {
             case TAG_NULL:
@@ -159,14 +159,14 @@ public class IndexEntryKeySerializer extends KryoKeySerializer<IndexEntryKey> {
      * Writes a long as 8 big-endian bytes with the sign bit flipped, so an unsigned byte
      * comparison reproduces the signed numeric order.
      */
-    private void writeOrderedLong(Output output, long value) {
+    void writeOrderedLong(Output output, long value) {
         long v = value ^ Long.MIN_VALUE;
         for (int shift = 56; shift >= 0; shift -= 8) {
             output.writeByte((int) ((v >>> shift) & 0xFF));
         }
     }
 
-    private long readOrderedLong(Input input) {
+    long readOrderedLong(Input input) {
         long v = 0;
         for (int i = 0; i < 8; i++) {
             v = (v << 8) | (input.readByte() & 0xFFL);
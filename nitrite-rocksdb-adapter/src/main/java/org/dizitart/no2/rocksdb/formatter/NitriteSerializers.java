@@ -11,6 +11,7 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.index.CompoundIndexKey;
 import org.dizitart.no2.index.IndexEntryKey;
 import org.dizitart.no2.common.Fields;
 import org.dizitart.no2.common.meta.Attributes;
@@ -19,6 +20,7 @@ import org.dizitart.no2.common.util.SpatialKey;
 import org.dizitart.no2.index.BoundingBox;
 import org.dizitart.no2.index.IndexDescriptor;
 import org.dizitart.no2.index.IndexMeta;
+import org.dizitart.no2.index.IndexStatistics;
 import org.dizitart.no2.store.UserCredential;
 
 import java.util.ArrayList;
@@ -101,6 +103,18 @@ public class NitriteSerializers {
             kryo.writeObject(output, object.getIndexDescriptor());
             output.writeString(object.getIndexMap());
             output.writeBoolean(object.getIsDirty().get());
+            output.writeBoolean(object.isSingleValued());
+            kryo.writeObjectOrNull(output, object.getStatistics(), IndexStatistics.class);
+
+            Map<String, String> numberTypes = object.getNumberTypes();
+            output.writeInt(numberTypes == null ? -1 : numberTypes.size());
+            if (numberTypes != null) {
+                for (Map.Entry<String, String> entry : numberTypes.entrySet()) {
+                    output.writeString(entry.getKey());
+                    output.writeString(entry.getValue());
+                }
+            }
+            output.writeBoolean(object.isNullKeys());
         }
 
         @Override
@@ -112,6 +126,27 @@ public class NitriteSerializers {
             indexMeta.setIndexDescriptor(indexDescriptor);
             indexMeta.setIndexMap(indexMap);
             indexMeta.setIsDirty(new AtomicBoolean(isDirty));
+            if (!input.end()) {
+                // index meta written before single valued indexes were tracked ends here
+                indexMeta.setSingleValued(input.readBoolean());
+            }
+            if (!input.end()) {
+                // and before statistics were introduced here
+                indexMeta.setStatistics(kryo.readObjectOrNull(input, IndexStatistics.class));
+            }
+            if (!input.end()) {
+                // and before number types were tracked here
+                int size = input.readInt();
+                if (size >= 0) {
+                    Map<String, String> numberTypes = new HashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        numberTypes.put(input.readString(), input.readString());
+                    }
+                    indexMeta.setNumberTypes(numberTypes);
+                }
+            }
+            // an index meta written before null keys were tracked may hold them
+            indexMeta.setNullKeys(input.end() || input.readBoolean());
             return indexMeta;
         }
     }
@@ -230,6 +265,7 @@ public class NitriteSerializers {
         kryoObjectFormatter.registerSerializer(Document.class, new DocumentSerializer());
         kryoObjectFormatter.registerSerializer(IndexMeta.class, new IndexMetaSerializer());
         kryoObjectFormatter.registerSerializer(IndexDescriptor.class, new IndexDescriptorSerializer());
+        kryoObjectFormatter.registerSerializer(IndexStatistics.class, new JavaSerializer());
         kryoObjectFormatter.registerSerializer(UserCredential.class, new UserCredentialSerializer());
         kryoObjectFormatter.registerSerializer(Attributes.class, new AttributesSerializer());
         kryoObjectFormatter.registerSerializer(Fields.class, new FieldsSerializer());
@@ -240,6 +276,7 @@ public class NitriteSerializers {
         // preserving the null-first index order.
         kryoObjectFormatter.registerSerializer(DBNull.class, new JavaSerializer());
         kryoObjectFormatter.registerSerializer(IndexEntryKey.class, new IndexEntryKeySerializer());
+        kryoObjectFormatter.registerSerializer(CompoundIndexKey.class, new CompoundIndexKeySerializer());
         kryoObjectFormatter.registerSerializer(BoundingBox.class, new BoundingBoxSerializer());
         kryoObjectFormatter.registerSerializer(SpatialKey.class, new SpatialKeySerializer());
     }
@@ -23,6 +23,8 @@ import org.dizitart.no2.exceptions.NitriteSecurityException;
 import org.dizitart.no2.migration.Migration;
 import org.dizitart.no2.common.module.NitriteModule;
 
+import java.util.concurrent.Executor;
+
 /**
  * The NitriteBuilder class provides a fluent API to configure and create a
  * Nitrite database instance.
@@ -82,6 +84,42 @@ public class NitriteBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of documents a sort without index support holds
+     * in memory. Larger results are sorted in runs of this size which are
+     * written to temporary files and merged, which keeps large sorts within
+     * a bounded heap. It can be overridden per query with
+     * {@link org.dizitart.no2.collection.FindOptions#sortBufferSize(Integer)}.
+     * <p>
+     * By default, the sort is done entirely in memory. An encrypted store
+     * always sorts in memory, as the runs are not encrypted.
+     *
+     * @param sortBufferSize the sort buffer size
+     * @return the NitriteBuilder instance
+     */
+    public NitriteBuilder sortBufferSize(int sortBufferSize) {
+        this.nitriteConfig.sortBufferSize(sortBufferSize);
+        return this;
+    }
+
+    /**
+     * Sets the executor which reads the results of
+     * {@link org.dizitart.no2.collection.NitriteCollection#findAsync} and of its repository
+     * counterpart. The records are read in batches of the demand
+     * of the subscriber, each batch is a task on the executor, which can be an executor
+     * of virtual threads.
+     * <p>
+     * By default, the common pool of Nitrite is used.
+     *
+     * @param asyncExecutor the executor
+     * @return the NitriteBuilder instance
+     * @since 4.5
+     */
+    public NitriteBuilder asyncExecutor(Executor asyncExecutor) {
+        this.nitriteConfig.asyncExecutor(asyncExecutor);
+        return this;
+    }
+
     /**
      * Registers an {@link EntityConverter} with the Nitrite database.
      * An {@link EntityConverter} is used to convert between an entity and a
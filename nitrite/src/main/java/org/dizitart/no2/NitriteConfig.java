@@ -21,6 +21,7 @@ import lombok.Getter;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.dizitart.no2.common.Constants;
+import org.dizitart.no2.common.concurrent.ThreadPoolManager;
 import org.dizitart.no2.common.mapper.EntityConverter;
 import org.dizitart.no2.common.mapper.NitriteMapper;
 import org.dizitart.no2.common.module.NitriteModule;
@@ -33,6 +34,7 @@ import org.dizitart.no2.migration.Migration;
 import org.dizitart.no2.store.NitriteStore;
 
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  * NitriteConfig is a configuration class for Nitrite database.
@@ -85,6 +87,20 @@ public class NitriteConfig implements AutoCloseable {
      */
     private boolean repositoryTypeValidationDisabled = false;
 
+    @Getter
+    /**
+     * The maximum number of documents a blocking sort holds in memory before
+     * it spills sorted runs to disk. A non-positive value, the default, always
+     * sorts in memory.
+     */
+    private int sortBufferSize = 0;
+
+    /**
+     * The executor which reads the results of asynchronous finds, or
+     * <code>null</code> for the common pool of Nitrite.
+     */
+    private Executor asyncExecutor;
+
     /**
      * Instantiates a new {@link NitriteConfig}.
      */
@@ -123,6 +139,49 @@ public class NitriteConfig implements AutoCloseable {
         this.repositoryTypeValidationDisabled = true;
     }
 
+    /**
+     * Sets the maximum number of documents a blocking sort holds in memory
+     * before it spills sorted runs to disk.
+     *
+     * @param sortBufferSize the sort buffer size, non-positive to always sort in memory.
+     * @throws InvalidOperationException if the sort buffer size is attempted to be
+     *                                   changed after database initialization.
+     */
+    public void sortBufferSize(int sortBufferSize) {
+        if (configured) {
+            throw new InvalidOperationException("Cannot change sort buffer size after database" +
+                    " initialization");
+        }
+        this.sortBufferSize = sortBufferSize;
+    }
+
+    /**
+     * Sets the executor which reads the results of asynchronous finds, e.g. an
+     * executor of virtual threads.
+     *
+     * @param asyncExecutor the executor, <code>null</code> for the common pool.
+     * @throws InvalidOperationException if the executor is attempted to be
+     *                                   changed after database initialization.
+     * @since 4.5
+     */
+    public void asyncExecutor(Executor asyncExecutor) {
+        if (configured) {
+            throw new InvalidOperationException("Cannot change async executor after database" +
+                    " initialization");
+        }
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Gets the executor which reads the results of asynchronous finds.
+     *
+     * @return the executor
+     * @since 4.5
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor == null ? ThreadPoolManager.commonPool() : asyncExecutor;
+    }
+
     /**
      * Registers an {@link EntityConverter} with the Nitrite database.
      *
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection;
+
+/**
+ * Computes a value over a stream of documents, one document at a time,
+ * without holding on to the documents.
+ *
+ * @param <R> the type of the result
+ * @see Accumulators
+ * @see Aggregation
+ * @since 4.5
+ */
+public interface Accumulator<R> {
+    /**
+     * Adds a document to the accumulated value. The document may be the
+     * instance stored in the collection, it must not be modified.
+     *
+     * @param document the document
+     */
+    void accumulate(Document document);
+
+    /**
+     * Gets the accumulated value.
+     *
+     * @return the result
+     */
+    R getResult();
+
+    /**
+     * Creates a new accumulator of the same kind with an empty state,
+     * e.g. for every group of a {@link Aggregation#groupBy(String, Accumulator)}.
+     *
+     * @return the new accumulator
+     */
+    Accumulator<R> create();
+}
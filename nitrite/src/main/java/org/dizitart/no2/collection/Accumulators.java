@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.common.DBValue;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notEmpty;
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
+/**
+ * The standard {@link Accumulator}s.
+ * <p>
+ * The numeric accumulators skip the documents where the field is missing
+ * or not a number, {@link #min(String)} and {@link #max(String)} skip the
+ * documents where it is missing or not comparable. Values are compared in
+ * the order of the index keys, so numbers of different types compare by
+ * their numeric value.
+ *
+ * @since 4.5
+ */
+public final class Accumulators {
+    private Accumulators() {
+    }
+
+    /**
+     * Counts the documents.
+     *
+     * @return the accumulator
+     */
+    public static Accumulator<Long> count() {
+        return new CountAccumulator();
+    }
+
+    /**
+     * Sums the numeric values of a field. The sum is a {@link Long} as
+     * long as all values are integral, a {@link Double} otherwise.
+     *
+     * @param field the field
+     * @return the accumulator
+     */
+    public static Accumulator<Number> sum(String field) {
+        return new SumAccumulator(validate(field));
+    }
+
+    /**
+     * Averages the numeric values of a field. The average of no value is
+     * <code>null</code>.
+     *
+     * @param field the field
+     * @return the accumulator
+     */
+    public static Accumulator<Double> average(String field) {
+        return new AverageAccumulator(validate(field));
+    }
+
+    /**
+     * Finds the smallest value of a field.
+     *
+     * @param field the field
+     * @return the accumulator
+     */
+    public static Accumulator<Object> min(String field) {
+        return new ExtremeAccumulator(validate(field), false);
+    }
+
+    /**
+     * Finds the largest value of a field.
+     *
+     * @param field the field
+     * @return the accumulator
+     */
+    public static Accumulator<Object> max(String field) {
+        return new ExtremeAccumulator(validate(field), true);
+    }
+
+    private static String validate(String field) {
+        notNull(field, "field cannot be null");
+        notEmpty(field, "field cannot be empty");
+        return field;
+    }
+
+    private static class CountAccumulator implements Accumulator<Long> {
+        private long count;
+
+        @Override
+        public void accumulate(Document document) {
+            count++;
+        }
+
+        @Override
+        public Long getResult() {
+            return count;
+        }
+
+        @Override
+        public Accumulator<Long> create() {
+            return new CountAccumulator();
+        }
+    }
+
+    private static class SumAccumulator implements Accumulator<Number> {
+        private final String field;
+        private long longSum;
+        private double doubleSum;
+        private boolean integral = true;
+
+        SumAccumulator(String field) {
+            this.field = field;
+        }
+
+        @Override
+        public void accumulate(Document document) {
+            Object value = document.get(field);
+            if (!(value instanceof Number)) return;
+
+            Number number = (Number) value;
+            if (integral && isIntegral(number)) {
+                longSum += number.longValue();
+            } else {
+                if (integral) {
+                    doubleSum = longSum;
+                    integral = false;
+                }
+                doubleSum += number.doubleValue();
+            }
+        }
+
+        @Override
+        public Number getResult() {
+            return integral ? (Number) longSum : (Number) doubleSum;
+        }
+
+        @Override
+        public Accumulator<Number> create() {
+            return new SumAccumulator(field);
+        }
+
+        private static boolean isIntegral(Number number) {
+            return number instanceof Long || number instanceof Integer
+                || number instanceof Short || number instanceof Byte;
+        }
+    }
+
+    private static class AverageAccumulator implements Accumulator<Double> {
+        private final String field;
+        private double sum;
+        private long count;
+
+        AverageAccumulator(String field) {
+            this.field = field;
+        }
+
+        @Override
+        public void accumulate(Document document) {
+            Object value = document.get(field);
+            if (value instanceof Number) {
+                sum += ((Number) value).doubleValue();
+                count++;
+            }
+        }
+
+        @Override
+        public Double getResult() {
+            return count == 0 ? null : sum / count;
+        }
+
+        @Override
+        public Accumulator<Double> create() {
+            return new AverageAccumulator(field);
+        }
+    }
+
+    private static class ExtremeAccumulator implements Accumulator<Object> {
+        private final String field;
+        private final boolean max;
+        private Object extreme;
+        private DBValue extremeKey;
+
+        ExtremeAccumulator(String field, boolean max) {
+            this.field = field;
+            this.max = max;
+        }
+
+        @Override
+        public void accumulate(Document document) {
+            Object value = document.get(field);
+            if (!(value instanceof Comparable)) return;
+
+            DBValue key = new DBValue((Comparable<?>) value);
+            if (extremeKey == null) {
+                extreme = value;
+                extremeKey = key;
+                return;
+            }
+
+            int cmp = key.compareTo(extremeKey);
+            if (max ? cmp > 0 : cmp < 0) {
+                extreme = value;
+                extremeKey = key;
+            }
+        }
+
+        @Override
+        public Object getResult() {
+            return extreme;
+        }
+
+        @Override
+        public Accumulator<Object> create() {
+            return new ExtremeAccumulator(field, max);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection;
+
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.RecordStream;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notEmpty;
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
+/**
+ * Aggregates the documents selected by a filter. Every operation streams
+ * the documents through {@link Accumulator}s, one document at a time.
+ * <p>
+ * The aggregation of a {@link NitriteCollection} answers some operations
+ * from its indices without reading the documents, e.g. {@link #min(String)}
+ * and {@link #max(String)} of an indexed field, or a {@link #countBy(String)}
+ * on an indexed field.
+ *
+ * <pre>
+ * {@code
+ * Aggregation aggregation = collection.aggregate(where("status").eq("open"));
+ * long count = aggregation.count();
+ * Number total = aggregation.sum("amount");
+ * Map<Object, Long> byRegion = aggregation.countBy("region");
+ * Map<Object, Double> avgByRegion = aggregation.groupBy("region", Accumulators.average("amount"));
+ * }
+ * </pre>
+ *
+ * @see NitriteCollection#aggregate(org.dizitart.no2.filters.Filter)
+ * @since 4.5
+ */
+public class Aggregation {
+    private final RecordStream<Document> documents;
+
+    /**
+     * Instantiates a new {@link Aggregation} over a stream of documents.
+     *
+     * @param documents the documents to aggregate
+     */
+    public Aggregation(RecordStream<Document> documents) {
+        this.documents = documents;
+    }
+
+    /**
+     * Counts the documents.
+     *
+     * @return the count
+     */
+    public long count() {
+        return accumulate(Accumulators.count());
+    }
+
+    /**
+     * Sums the numeric values of a field.
+     *
+     * @param field the field
+     * @return the sum, a {@link Long} if all values are integral, a {@link Double} otherwise
+     * @see Accumulators#sum(String)
+     */
+    public Number sum(String field) {
+        return accumulate(Accumulators.sum(field));
+    }
+
+    /**
+     * Averages the numeric values of a field.
+     *
+     * @param field the field
+     * @return the average, or <code>null</code> if no document has a numeric value
+     * @see Accumulators#average(String)
+     */
+    public Double average(String field) {
+        return accumulate(Accumulators.average(field));
+    }
+
+    /**
+     * Finds the smallest value of a field.
+     *
+     * @param field the field
+     * @return the smallest value, or <code>null</code> if no document has a value
+     * @see Accumulators#min(String)
+     */
+    public Object min(String field) {
+        return accumulate(Accumulators.min(field));
+    }
+
+    /**
+     * Finds the largest value of a field.
+     *
+     * @param field the field
+     * @return the largest value, or <code>null</code> if no document has a value
+     * @see Accumulators#max(String)
+     */
+    public Object max(String field) {
+        return accumulate(Accumulators.max(field));
+    }
+
+    /**
+     * Streams all documents through an accumulator.
+     *
+     * @param <R>         the type of the result
+     * @param accumulator the accumulator
+     * @return the accumulated value
+     */
+    public <R> R accumulate(Accumulator<R> accumulator) {
+        notNull(accumulator, "accumulator cannot be null");
+        Accumulator<R> state = accumulator.create();
+        for (Document document : documents) {
+            state.accumulate(document);
+        }
+        return state.getResult();
+    }
+
+    /**
+     * Counts the documents by the value of a field. When answered from an
+     * index the groups are in the order of the index keys.
+     *
+     * @param field the field to group by
+     * @return the count of every value
+     * @see #groupBy(String, Accumulator)
+     */
+    public Map<Object, Long> countBy(String field) {
+        return groupBy(field, Accumulators.count());
+    }
+
+    /**
+     * Groups the documents by the value of a field and accumulates every
+     * group. Documents without the field are grouped under <code>null</code>,
+     * and numbers of different types are grouped by their numeric value.
+     * The groups are in the order of their first document.
+     *
+     * @param <R>         the type of the result
+     * @param field       the field to group by
+     * @param accumulator the accumulator of every group
+     * @return the accumulated value of every group
+     */
+    public <R> Map<Object, R> groupBy(String field, Accumulator<R> accumulator) {
+        notNull(field, "field cannot be null");
+        notEmpty(field, "field cannot be empty");
+        notNull(accumulator, "accumulator cannot be null");
+
+        Map<Object, Object> keys = new HashMap<>();
+        Map<Object, Accumulator<R>> groups = new LinkedHashMap<>();
+        for (Document document : documents) {
+            Object value = document.get(field);
+            Object groupKey = groupKey(value);
+            Accumulator<R> group = groups.get(groupKey);
+            if (group == null) {
+                group = accumulator.create();
+                groups.put(groupKey, group);
+                keys.put(groupKey, value);
+            }
+            group.accumulate(document);
+        }
+
+        Map<Object, R> result = new LinkedHashMap<>();
+        for (Map.Entry<Object, Accumulator<R>> entry : groups.entrySet()) {
+            result.put(keys.get(entry.getKey()), entry.getValue().getResult());
+        }
+        return result;
+    }
+
+    private static Object groupKey(Object value) {
+        if (value instanceof Number && value instanceof Comparable) {
+            // the key of a number is its numeric value, as in an index
+            return new DBValue((Comparable<?>) value);
+        }
+        return value;
+    }
+}
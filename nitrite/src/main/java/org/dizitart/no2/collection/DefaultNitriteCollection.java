@@ -16,6 +16,7 @@
 
 package org.dizitart.no2.collection;
 
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.events.CollectionEventInfo;
 import org.dizitart.no2.collection.events.CollectionEventListener;
@@ -40,6 +41,7 @@ import org.dizitart.no2.store.NitriteStore;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.Flow;
 import java.util.concurrent.locks.Lock;
 
 import static org.dizitart.no2.collection.UpdateOptions.updateOptions;
@@ -178,6 +180,24 @@ class DefaultNitriteCollection implements NitriteCollection {
         }
     }
 
+    @Override
+    @IgnoreJRERequirement
+    public Flow.Publisher<Document> findAsync(Filter filter, FindOptions findOptions) {
+        checkOpened();
+        return findAsync(filter, findOptions, nitriteConfig.getAsyncExecutor());
+    }
+
+    @Override
+    public Aggregation aggregate(Filter filter) {
+        try {
+            readLock.lock();
+            checkOpened();
+            return collectionOperations.aggregate(filter);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     public void createIndex(IndexOptions indexOptions, String... fields) {
         notNull(fields, "fields cannot be null");
 
@@ -196,6 +216,16 @@ class DefaultNitriteCollection implements NitriteCollection {
         }
     }
 
+    public void analyze() {
+        try {
+            readLock.lock();
+            checkOpened();
+            collectionOperations.analyze();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     public void rebuildIndex(String... fields) {
         notNull(fields, "fields cannot be null");
 
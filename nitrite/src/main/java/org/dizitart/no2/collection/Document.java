@@ -17,6 +17,7 @@
 package org.dizitart.no2.collection;
 
 import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.common.FieldPath;
 import org.dizitart.no2.common.tuples.Pair;
 
 import java.io.Serializable;
@@ -108,6 +109,20 @@ public interface Document extends Iterable<Pair<String, Object>>, Cloneable, Ser
      */
     Object get(String key);
 
+    /**
+     * Returns the value of a field whose name is already split into the
+     * keys of its embedded documents, or null if this document contains
+     * no such field. It returns the same value as {@link #get(String)}
+     * with the name of the path.
+     *
+     * @param fieldPath the field path
+     * @return the object
+     * @since 4.5
+     */
+    default Object getByPath(FieldPath fieldPath) {
+        return get(fieldPath.getName());
+    }
+
     /**
      * Returns the value of type {@code <T>} to which the specified
      * key is associated, or null if this document contains no mapping
@@ -65,4 +65,16 @@ public interface DocumentCursor extends RecordStream<Document> {
      * @since 2.1.0
      */
     RecordStream<Document> join(DocumentCursor foreignCursor, Lookup lookup);
+
+    /**
+     * Gets the continuation token of the last document returned by this cursor,
+     * for a find with {@link FindOptions#keyset(boolean)} enabled. The next page
+     * of the find starts after this document, if the token is passed to
+     * {@link FindOptions#continuationToken(String)}.
+     *
+     * @return the continuation token, or <code>null</code> if no document is returned yet
+     * @throws org.dizitart.no2.exceptions.InvalidOperationException if the find is not keyset paginated
+     * @since 4.5
+     */
+    String getContinuationToken();
 }
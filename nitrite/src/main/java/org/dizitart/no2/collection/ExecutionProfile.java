@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * The runtime statistics of a find operation, collected when it runs
+ * with {@link FindOptions#analyze(boolean)} enabled.
+ * <p>
+ * Every stream stage of the query records the number of records it
+ * produced and the wall time spent pulling them, which includes the time
+ * of its input stages. The statistics grow while the cursor is iterated,
+ * so they are complete only once the cursor has been fully consumed.
+ * <p>
+ * A profile is not thread-safe, like the cursor it belongs to.
+ *
+ * @since 4.5
+ */
+public class ExecutionProfile {
+    private final List<Stage> stages;
+    private long indexKeysVisited;
+
+    /**
+     * Instantiates a new {@link ExecutionProfile}.
+     */
+    public ExecutionProfile() {
+        this.stages = new ArrayList<>();
+    }
+
+    /**
+     * The kind of work a stage performs.
+     */
+    public enum StageType {
+        /**
+         * Produces the ids, or the keys of covered queries, from an index.
+         */
+        INDEX_SCAN,
+        /**
+         * Reads the documents of the ids produced by an index scan.
+         */
+        FETCH,
+        /**
+         * Reads the documents of the whole collection.
+         */
+        COLLECTION_SCAN,
+        /**
+         * Reads a document by its id.
+         */
+        ID_LOOKUP,
+        /**
+         * Drops the documents rejected by the collection scan filter.
+         */
+        FILTER,
+        /**
+         * Concatenates and de-duplicates the results of an or query.
+         */
+        UNION,
+        /**
+         * Sorts the documents without index support.
+         */
+        SORT,
+        /**
+         * Applies the skip and limit.
+         */
+        BOUND
+    }
+
+    /**
+     * The statistics of a single stream stage.
+     */
+    @Getter
+    public static class Stage {
+        /**
+         * Gets the kind of the stage.
+         */
+        private final StageType type;
+
+        /**
+         * Gets the name of the stream of the stage.
+         */
+        private final String name;
+
+        /**
+         * Gets the stages whose records are the input of this stage.
+         */
+        private final List<Stage> inputs;
+
+        /**
+         * Gets the number of records produced.
+         */
+        private long records;
+
+        /**
+         * Gets the wall time in nanoseconds spent in this stage and its inputs.
+         */
+        private long elapsedNanos;
+
+        Stage(StageType type, String name, List<Stage> inputs) {
+            this.type = type;
+            this.name = name;
+            this.inputs = Collections.unmodifiableList(inputs);
+        }
+
+        /**
+         * Gets the number of records received from the inputs.
+         *
+         * @return the input record count
+         */
+        public long getInputRecords() {
+            long count = 0;
+            for (Stage input : inputs) {
+                count += input.records;
+            }
+            return count;
+        }
+
+        /**
+         * Gets the wall time in nanoseconds spent in this stage alone.
+         *
+         * @return the self time in nanoseconds
+         */
+        public long getSelfNanos() {
+            long nanos = elapsedNanos;
+            for (Stage input : inputs) {
+                nanos -= input.elapsedNanos;
+            }
+            return Math.max(0, nanos);
+        }
+
+        /**
+         * Records that the stage produced a record.
+         */
+        public void recordProduced() {
+            records++;
+        }
+
+        /**
+         * Records that the stage produced a number of records at once.
+         *
+         * @param count the number of records
+         */
+        public void recordsProduced(long count) {
+            records += count;
+        }
+
+        /**
+         * Adds wall time spent in the stage.
+         *
+         * @param nanos the time in nanoseconds
+         */
+        public void addElapsed(long nanos) {
+            elapsedNanos += nanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(records=" + records + ", inputRecords=" + getInputRecords()
+                + ", elapsedNanos=" + elapsedNanos + ", selfNanos=" + getSelfNanos() + ")";
+        }
+    }
+
+    /**
+     * Adds a stage to the profile. Stages are added from the source of the
+     * records to the output of the cursor.
+     *
+     * @param type   the stage type
+     * @param name   the name of the stage
+     * @param inputs the input stages
+     * @return the stage
+     */
+    public Stage addStage(StageType type, String name, List<Stage> inputs) {
+        Stage stage = new Stage(type, name, inputs);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Gets all stages, from the source of the records to the output of the cursor.
+     *
+     * @return the stages
+     */
+    public List<Stage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Records that an index scan visited an index key.
+     */
+    public void keyVisited() {
+        indexKeysVisited++;
+    }
+
+    /**
+     * Gets the number of index keys visited by all index scans.
+     *
+     * @return the index key count
+     */
+    public long getIndexKeysVisited() {
+        return indexKeysVisited;
+    }
+
+    /**
+     * Gets the number of ids, or of covered index entries, produced by all index scans.
+     *
+     * @return the id count
+     */
+    public long getIdsProduced() {
+        return sumRecords(StageType.INDEX_SCAN);
+    }
+
+    /**
+     * Gets the number of documents read from the collection.
+     *
+     * @return the document count
+     */
+    public long getDocumentsFetched() {
+        return sumRecords(StageType.FETCH) + sumRecords(StageType.COLLECTION_SCAN)
+            + sumRecords(StageType.ID_LOOKUP);
+    }
+
+    /**
+     * Gets the number of documents rejected by the collection scan filter.
+     *
+     * @return the rejected document count
+     */
+    public long getDocumentsRejected() {
+        long count = 0;
+        for (Stage stage : stages) {
+            if (stage.type == StageType.FILTER) {
+                count += stage.getInputRecords() - stage.records;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of documents given to blocking sorts.
+     *
+     * @return the sort input size
+     */
+    public long getSortInputSize() {
+        long count = 0;
+        for (Stage stage : stages) {
+            if (stage.type == StageType.SORT) {
+                count += stage.getInputRecords();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the total wall time in nanoseconds spent producing the results,
+     * i.e. the time of the output stages which feed no other stage.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        Set<Stage> inputs = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Stage stage : stages) {
+            inputs.addAll(stage.inputs);
+        }
+
+        long nanos = 0;
+        for (Stage stage : stages) {
+            if (!inputs.contains(stage)) {
+                nanos += stage.elapsedNanos;
+            }
+        }
+        return nanos;
+    }
+
+    private long sumRecords(StageType type) {
+        long count = 0;
+        for (Stage stage : stages) {
+            if (stage.type == type) {
+                count += stage.records;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutionProfile(indexKeysVisited=" + indexKeysVisited
+            + ", idsProduced=" + getIdsProduced()
+            + ", documentsFetched=" + getDocumentsFetched()
+            + ", documentsRejected=" + getDocumentsRejected()
+            + ", sortInputSize=" + getSortInputSize()
+            + ", elapsedNanos=" + getElapsedNanos()
+            + ", stages=" + stages + ")";
+    }
+}
@@ -59,9 +59,46 @@ public class FindOptions {
     /**
      * Specifies the {@link Collator}.
      */
-    @Setter(AccessLevel.PUBLIC)
     private Collator collator;
 
+    /**
+     * Indicates if the {@link Collator} was set by the caller. Unlike the
+     * default collator, it keeps the results from being returned in the
+     * order of an index.
+     * */
+    @Setter(AccessLevel.NONE)
+    private boolean customCollator = false;
+
+    /**
+     * Gets the maximum number of documents a blocking sort holds in memory
+     * before it spills sorted runs to disk. If not set, the database wide
+     * setting of {@link org.dizitart.no2.NitriteConfig} is used.
+     * */
+    private Integer sortBufferSize;
+
+    /**
+     * Indicates if the find operation should collect runtime statistics
+     * into the {@link ExecutionProfile} of its {@link FindPlan}.
+     * */
+    private boolean analyze = false;
+
+    /**
+     * Gets the number of id ranges an unindexed collection scan is split
+     * into and filtered in parallel. If not set, the scan is sequential.
+     * */
+    private Integer parallelism;
+
+    /**
+     * Indicates if the results are ordered for keyset pagination, i.e. by the
+     * sort fields and then by the ids of the documents.
+     * */
+    private boolean keyset = false;
+
+    /**
+     * Gets the continuation token of the page the find operation resumes after.
+     * */
+    private String continuationToken;
+
     /**
      * Instantiates a new FindOptions.
      */
@@ -69,6 +106,20 @@ public class FindOptions {
         this.collator = Collator.getInstance();
     }
 
+    /**
+     * Sets the {@link Collator} the strings are sorted with. If not set, the
+     * collator of the default locale is used, and an index on the sort fields
+     * may return the strings in their natural order instead.
+     *
+     * @param collator the collator
+     * @return the find options
+     */
+    public FindOptions collator(Collator collator) {
+        this.collator = collator;
+        this.customCollator = collator != null;
+        return this;
+    }
+
     /**
      * Order by find options.
      *
@@ -162,6 +213,99 @@ public class FindOptions {
         return this;
     }
 
+    /**
+     * Sets the maximum number of documents a blocking sort holds in memory.
+     * When a sort without index support has more documents to order, it
+     * writes sorted runs of this size to temporary files and merges them,
+     * so the sort does not need to keep the whole result on the heap.
+     * <p>
+     * A non-positive value always sorts in memory, and so does a sort
+     * over an encrypted store, as the runs are not encrypted.
+     *
+     * @param sortBufferSize the sort buffer size
+     * @return the find options
+     */
+    public FindOptions sortBufferSize(Integer sortBufferSize) {
+        this.sortBufferSize = sortBufferSize;
+        return this;
+    }
+
+    /**
+     * Enables the collection of runtime statistics for the find operation.
+     * Every stream stage of the query then counts the records it produces
+     * and measures the time spent, and the index scans count the index keys
+     * they visit. The statistics are available from
+     * {@link FindPlan#getExecutionProfile()} of the cursor once it is iterated.
+     *
+     * @param analyze if the statistics should be collected
+     * @return the find options
+     */
+    public FindOptions analyze(boolean analyze) {
+        this.analyze = analyze;
+        return this;
+    }
+
+    /**
+     * Enables a parallel collection scan. When the find operation has to
+     * filter the documents of the whole collection, because no index serves
+     * the filter, the collection is split into <code>parallelism</code>
+     * ranges of ids which are filtered in parallel on the common
+     * {@link java.util.concurrent.ForkJoinPool}. The documents are returned
+     * in the same order as by a sequential scan, and a sort or a limit
+     * applies to them as usual.
+     * <p>
+     * A parallel scan pays off for large collections and expensive filters,
+     * like a regex or an element match. The ranges are scanned a few at a
+     * time ahead of the cursor, and the scan stops once a limit is reached.
+     * It is used only if the collection is large enough to split. A value
+     * less than 2 scans sequentially.
+     *
+     * @param parallelism the number of ranges filtered in parallel
+     * @return the find options
+     */
+    public FindOptions parallelism(Integer parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Enables keyset pagination. The documents are ordered by the sort fields
+     * and then by their ids, so that every document has a unique position, and
+     * the cursor provides a {@link DocumentCursor#getContinuationToken()} for the
+     * last document it returned. The next page is read by passing the token to
+     * {@link #continuationToken(String)} with the same filter and sort order,
+     * usually with a {@link #limit(Long)} as page size.
+     * <p>
+     * Unlike {@link #skip(Long)}, a page does not read the documents of the
+     * pages before it. If the first sort field is indexed, the index scan starts
+     * at the sort value of the token.
+     * <p>
+     * Strings are ordered by their natural order as in an index, a find with
+     * keyset pagination and a {@link #collator(Collator)} set by the caller
+     * fails with a {@link org.dizitart.no2.exceptions.ValidationException}.
+     *
+     * @param keyset if the results are paginated by keyset
+     * @return the find options
+     */
+    public FindOptions keyset(boolean keyset) {
+        this.keyset = keyset;
+        return this;
+    }
+
+    /**
+     * Resumes a keyset paginated find after the last document of the page the
+     * token was taken from. It enables {@link #keyset(boolean)}. The find must
+     * have the same sort order as the find the token was taken from.
+     *
+     * @param continuationToken the continuation token, or <code>null</code> for the first page
+     * @return the find options
+     */
+    public FindOptions continuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+        this.keyset = true;
+        return this;
+    }
+
     /**
      * Then order by find options.
      *
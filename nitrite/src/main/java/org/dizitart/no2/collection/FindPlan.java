@@ -88,16 +88,63 @@ public class FindPlan {
      * */
     private Collator collator;
 
+    /**
+     * Gets the maximum number of documents a blocking sort holds in memory
+     * before it spills sorted runs to disk. A non-positive value sorts
+     * entirely in memory.
+     * */
+    private Integer sortBufferSize;
+
+    /**
+     * Gets the number of id ranges the collection scan is split into
+     * and filtered in parallel, if set.
+     * */
+    private Integer parallelism;
+
+    /**
+     * Gets the sort order of a keyset paginated find, whose documents
+     * with the same sort values are ordered by their ids.
+     * */
+    private List<Pair<String, SortOrder>> keysetSortOrder;
+
     /**
      * Gets the sub plans.
      * */
     private List<FindPlan> subPlans;
 
+    /**
+     * Gets the plans of other indices whose matching ids are
+     * intersected with the ids of the index scan.
+     * */
+    private List<FindPlan> intersectedPlans;
+
+    /**
+     * Indicates if the index keys alone answer the query, so that a
+     * projection of the index fields is built without reading the documents.
+     * */
+    private boolean covered;
+
+    /**
+     * Gets the runtime statistics of the plan, if the find operation
+     * runs with {@link FindOptions#analyze(boolean)} enabled.
+     * */
+    private ExecutionProfile executionProfile;
+
+    /**
+     * Gets the relevance score of every id found by a full-text index
+     * scan, best first. It is set when the text index is scanned, i.e.
+     * when the result of the find is iterated.
+     *
+     * @since 4.5
+     * */
+    private Map<NitriteId, Double> textScores;
+
     /**
      * Instantiates a new {@link FindPlan}.
      */
     public FindPlan() {
         this.subPlans = new ArrayList<>();
+        this.intersectedPlans = new ArrayList<>();
         this.blockingSortOrder = new ArrayList<>();
     }
 }
@@ -16,12 +16,15 @@
 
 package org.dizitart.no2.collection;
 
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 import org.dizitart.no2.collection.events.CollectionEventListener;
 import org.dizitart.no2.collection.events.EventAware;
 import org.dizitart.no2.collection.events.EventType;
 import org.dizitart.no2.common.PersistentCollection;
 import org.dizitart.no2.common.WriteResult;
+import org.dizitart.no2.common.concurrent.ThreadPoolManager;
 import org.dizitart.no2.common.event.EventBus;
+import org.dizitart.no2.common.streams.RecordPublisher;
 import org.dizitart.no2.exceptions.InvalidIdException;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.exceptions.ValidationException;
@@ -30,6 +33,8 @@ import org.dizitart.no2.filters.Filter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 import static org.dizitart.no2.common.util.ValidationUtils.containsNull;
 import static org.dizitart.no2.common.util.ValidationUtils.notNull;
@@ -248,6 +253,97 @@ public interface NitriteCollection extends PersistentCollection<Document> {
      */
     DocumentCursor find(Filter filter, FindOptions findOptions);
 
+    /**
+     * Applies a filter on the collection and publishes the selected documents
+     * to reactive subscribers. The query runs on the executor configured with
+     * {@link org.dizitart.no2.NitriteBuilder#asyncExecutor(Executor)} when a
+     * subscriber first requests documents, and the documents are read in
+     * batches of the demand of the subscriber. A cancelled subscription stops
+     * reading.
+     * <p>
+     * {@link Flow} is only available from Android API level 30, unlike the
+     * rest of the collection API.
+     *
+     * @param filter      the filter to apply to select documents from collection.
+     * @param findOptions specifies pagination, sort options for the query.
+     * @return a publisher of the selected documents.
+     * @since 4.5
+     */
+    @IgnoreJRERequirement
+    default Flow.Publisher<Document> findAsync(Filter filter, FindOptions findOptions) {
+        return findAsync(filter, findOptions, ThreadPoolManager.commonPool());
+    }
+
+    /**
+     * Applies a filter on the collection and publishes the selected documents
+     * to reactive subscribers, reading them on the given executor.
+     *
+     * @param filter      the filter to apply to select documents from collection.
+     * @param findOptions specifies pagination, sort options for the query.
+     * @param executor    the executor which runs the query and reads the documents.
+     * @return a publisher of the selected documents.
+     * @see #findAsync(Filter, FindOptions)
+     * @since 4.5
+     */
+    @IgnoreJRERequirement
+    default Flow.Publisher<Document> findAsync(Filter filter, FindOptions findOptions, Executor executor) {
+        return new RecordPublisher<>(() -> find(filter, findOptions), executor);
+    }
+
+    /**
+     * Prepares a query to be executed many times with different values
+     * for its {@link org.dizitart.no2.filters.QueryParameter}s. The plan of
+     * the query is reused across the executions until an index is created or
+     * dropped.
+     *
+     * @param filter the filter with parameters.
+     * @return the prepared query.
+     * @since 4.5
+     */
+    default PreparedQuery prepare(Filter filter) {
+        return prepare(filter, null);
+    }
+
+    /**
+     * Prepares a query to be executed many times with different values
+     * for its {@link org.dizitart.no2.filters.QueryParameter}s. The plan of
+     * the query is reused across the executions until an index is created or
+     * dropped.
+     *
+     * @param filter      the filter with parameters.
+     * @param findOptions specifies pagination, sort options for the cursor.
+     * @return the prepared query.
+     * @since 4.5
+     */
+    default PreparedQuery prepare(Filter filter, FindOptions findOptions) {
+        notNull(filter, "filter cannot be null");
+        return new PreparedQuery(this, filter, findOptions);
+    }
+
+    /**
+     * Returns an aggregation over all documents in the collection.
+     *
+     * @return the aggregation.
+     * @since 4.5
+     */
+    default Aggregation aggregate() {
+        return aggregate(Filter.ALL);
+    }
+
+    /**
+     * Returns an aggregation over the documents selected by a filter. The
+     * aggregation streams the documents through accumulators, and answers
+     * some operations from the indices of the collection alone.
+     *
+     * @param filter the filter to apply to select documents from collection.
+     * @return the aggregation.
+     * @see Aggregation
+     * @since 4.5
+     */
+    default Aggregation aggregate(Filter filter) {
+        return new Aggregation(find(filter));
+    }
+
     /**
      * Gets a single element from the collection by its id. If no element
      * is found, it will return {@code null}.
@@ -17,6 +17,7 @@
 package org.dizitart.no2.collection;
 
 import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.common.FieldPath;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.InvalidIdException;
@@ -27,7 +28,6 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.text.MessageFormat;
 import java.util.*;
 
 import static org.dizitart.no2.collection.NitriteId.*;
@@ -75,8 +75,7 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
         // if field name contains field separator, split the fields, and put the value
         // accordingly associated with th embedded field.
         if (isEmbedded(field)) {
-            String regex = MessageFormat.format("\\{0}", NitriteConfig.getFieldSeparator());
-            String[] splits = field.split(regex);
+            String[] splits = FieldPath.splitKeys(field);
             deepPut(splits, value);
         } else {
             super.put(field, value);
@@ -95,6 +94,16 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
         return super.get(field);
     }
 
+    @Override
+    public Object getByPath(FieldPath fieldPath) {
+        notNull(fieldPath, "fieldPath cannot be null");
+        if (fieldPath.isEmbedded() && !containsKey(fieldPath.getName())) {
+            // the path is already split, scan it without splitting the name again
+            return getByKeys(fieldPath.getKeys());
+        }
+        return super.get(fieldPath.getName());
+    }
+
     @Override
     public <T> T get(String field, Class<T> type) {
         notNull(type, "type cannot be null");
@@ -146,8 +155,7 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
         if (isEmbedded(field)) {
             // if the field is an embedded field,
             // run a deep scan and remove the last field
-            String regex = MessageFormat.format("\\{0}", NitriteConfig.getFieldSeparator());
-            String[] splits = field.split(regex);
+            String[] splits = FieldPath.splitKeys(field);
             deepRemove(splits);
         } else {
             // remove the field from this document
@@ -422,49 +430,49 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
     }
 
     private Object getByEmbeddedKey(String embeddedKey) {
-        String regex = MessageFormat.format("\\{0}", NitriteConfig.getFieldSeparator());
-
         // split the key
-        String[] path = embeddedKey.split(regex);
-        if (path.length < 1) {
+        return getByKeys(Arrays.asList(FieldPath.splitKeys(embeddedKey)));
+    }
+
+    private Object getByKeys(List<String> path) {
+        if (path.size() < 1) {
             return null;
         }
 
-        String key = path[0];
+        String key = path.get(0);
         if (isNullOrEmpty(key)) {
             throw new ValidationException("Invalid key provided");
         }
 
         // get current level value and scan to next level using remaining keys
-        return recursiveGet(get(key), Arrays.copyOfRange(path, 1, path.length));
+        return recursiveGet(get(key), path, 1);
     }
 
     @SuppressWarnings("unchecked")
-    private Object recursiveGet(Object object, String[] remainingPath) {
+    private Object recursiveGet(Object object, List<String> path, int position) {
         if (object == null) {
             return null;
         }
 
-        if (remainingPath.length == 0) {
+        if (position == path.size()) {
             return object;
         }
 
         if (object instanceof Document) {
             // if the current level value is document, scan to the next level with remaining keys
-            String key = remainingPath[0];
+            String key = path.get(position);
             if (isNullOrEmpty(key)) {
                 throw new ValidationException("Invalid key provided");
             }
 
-            return recursiveGet(((Document) object).get(key),
-                Arrays.copyOfRange(remainingPath, 1, remainingPath.length));
+            return recursiveGet(((Document) object).get(key), path, position + 1);
         }
 
         if (object.getClass().isArray()) {
             // if the current level value is an array
 
             // get the first key
-            String accessor = remainingPath[0];
+            String accessor = path.get(position);
             if (isNullOrEmpty(accessor)) {
                 throw new ValidationException("Invalid key provided");
             }
@@ -485,13 +493,13 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
 
                 // get the value at the index from the array
                 // if there are remaining keys, scan to the next level
-                return recursiveGet(array[index], Arrays.copyOfRange(remainingPath, 1, remainingPath.length));
+                return recursiveGet(array[index], path, position + 1);
             } else {
                 // if the current key is not an integer, then decompose the
                 // object array into a list and scan each of the element of the
                 // list using remaining keys and return a list of all returned
                 // elements from each of the list items.
-                return decompose(listOf(array), remainingPath);
+                return decompose(listOf(array), path, position);
             }
         }
 
@@ -499,7 +507,7 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
             // if the current level value is an iterable
 
             // get the first key
-            String accessor = remainingPath[0];
+            String accessor = path.get(position);
 
             // convert current value to object iterable
             Iterable<Object> iterable = (Iterable<Object>) object;
@@ -520,13 +528,13 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
 
                 // get the value at the index from the list
                 // if there are remaining keys, scan to the next level
-                return recursiveGet(collection.get(index), Arrays.copyOfRange(remainingPath, 1, remainingPath.length));
+                return recursiveGet(collection.get(index), path, position + 1);
             } else {
                 // if the current key is not an integer, then decompose the
                 // list and scan each of the element of the
                 // list using remaining keys and return a list of all returned
                 // elements from each of the list items.
-                return decompose(collection, remainingPath);
+                return decompose(collection, path, position);
             }
         }
 
@@ -535,14 +543,14 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
     }
 
     @SuppressWarnings("unchecked")
-    private List<Object> decompose(List<Object> collection, String[] remainingPath) {
+    private List<Object> decompose(List<Object> collection, List<String> path, int position) {
         Set<Object> items = new HashSet<>();
 
         // iterate each item
         for (Object item : collection) {
 
             // scan the item using remaining keys
-            Object result = recursiveGet(item, remainingPath);
+            Object result = recursiveGet(item, path, position);
 
             if (result != null) {
                 if (result instanceof Iterable) {
@@ -573,6 +581,16 @@ class NitriteDocument extends LinkedHashMap<String, Object> implements Document
     }
 
     private boolean isInteger(String value) {
+        if (isNullOrEmpty(value)) {
+            return false;
+        }
+
+        char first = value.charAt(0);
+        if (first != '-' && first != '+' && !Character.isDigit(first)) {
+            // a field name, avoid the cost of a failed parse
+            return false;
+        }
+
         try {
             // try parse the string as an integer
             Integer.parseInt(value);
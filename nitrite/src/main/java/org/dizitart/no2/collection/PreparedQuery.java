@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection;
+
+import lombok.Getter;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.filters.QueryParameter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A query prepared once and executed many times, each time with new values
+ * for its {@link QueryParameter}s.
+ * <p>
+ * Every execution binds the values into a copy of the filter, so a prepared
+ * query can be shared between threads. As all executions have the same
+ * filter shape, the collection plans it once and reuses the plan until an
+ * index is created or dropped.
+ *
+ * @see NitriteCollection#prepare(Filter, FindOptions)
+ * @since 4.5
+ */
+public class PreparedQuery {
+    private final NitriteCollection collection;
+
+    /**
+     * Gets the filter with parameters.
+     */
+    @Getter
+    private final Filter filter;
+
+    /**
+     * Gets the find options.
+     */
+    @Getter
+    private final FindOptions findOptions;
+
+    PreparedQuery(NitriteCollection collection, Filter filter, FindOptions findOptions) {
+        this.collection = collection;
+        this.filter = filter;
+        this.findOptions = findOptions;
+    }
+
+    /**
+     * Executes the query without any parameter value.
+     *
+     * @return a cursor to all selected documents.
+     */
+    public DocumentCursor find() {
+        return find(Collections.emptyMap());
+    }
+
+    /**
+     * Executes the query with the given parameter values.
+     *
+     * @param values the values of the parameters by name.
+     * @return a cursor to all selected documents.
+     * @throws org.dizitart.no2.exceptions.FilterException if a parameter has no value.
+     */
+    public DocumentCursor find(Map<String, ?> values) {
+        return collection.find(QueryParameter.bind(filter, values), findOptions);
+    }
+}
@@ -64,6 +64,7 @@ public class CollectionOperations implements AutoCloseable {
 
     public void createIndex(Fields fields, String indexType) {
         indexOperations.createIndex(fields, indexType);
+        readOperations.invalidatePlans();
     }
 
     public IndexDescriptor findIndex(Fields fields) {
@@ -74,6 +75,11 @@ public class CollectionOperations implements AutoCloseable {
         indexOperations.buildIndex(indexDescriptor, true);
     }
 
+    public void analyze() {
+        indexOperations.analyze();
+        readOperations.invalidatePlans();
+    }
+
     public Collection<IndexDescriptor> listIndexes() {
         return indexOperations.listIndexes();
     }
@@ -88,10 +94,12 @@ public class CollectionOperations implements AutoCloseable {
 
     public void dropIndex(Fields fields) {
         indexOperations.dropIndex(fields);
+        readOperations.invalidatePlans();
     }
 
     public void dropAllIndices() {
         indexOperations.dropAllIndices();
+        readOperations.invalidatePlans();
     }
 
     public WriteResult insert(Document[] documents) {
@@ -114,6 +122,11 @@ public class CollectionOperations implements AutoCloseable {
         return readOperations.find(filter, findOptions);
     }
 
+    public Aggregation aggregate(Filter filter) {
+        return new IndexedAggregation(filter == null ? Filter.ALL : filter,
+            readOperations, indexOperations, nitriteConfig, processorChain);
+    }
+
     public Document getById(NitriteId nitriteId) {
         return readOperations.getById(nitriteId);
     }
@@ -121,6 +134,7 @@ public class CollectionOperations implements AutoCloseable {
     public void dropCollection() {
         indexOperations.dropAllIndices();
         dropNitriteMap();
+        readOperations.invalidatePlans();
     }
 
     public long getSize() {
@@ -145,6 +159,7 @@ public class CollectionOperations implements AutoCloseable {
     public void clear() {
         nitriteMap.clear();
         indexOperations.clear();
+        readOperations.invalidatePlans();
     }
 
     public void initialize() {
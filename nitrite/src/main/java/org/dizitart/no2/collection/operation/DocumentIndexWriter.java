@@ -95,6 +95,9 @@ class DocumentIndexWriter {
                 indexOperations.buildIndex(indexDescriptor, true);
             } else if (nitriteIndexer != null) {
                 nitriteIndexer.writeIndexEntry(fieldValues, indexDescriptor, nitriteConfig);
+                indexOperations.trackMultiValued(fields, fieldValues);
+                indexOperations.trackNumberTypes(fields, fieldValues);
+                indexOperations.trackNullKeys(fields, fieldValues);
             }
         }
     }
@@ -17,15 +17,23 @@
 
 package org.dizitart.no2.collection.operation;
 
+import org.dizitart.no2.collection.ExecutionProfile;
 import org.dizitart.no2.collection.FindOptions;
 import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.FilterException;
+import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.filters.*;
 import org.dizitart.no2.index.IndexDescriptor;
+import org.dizitart.no2.index.IndexScanner;
+import org.dizitart.no2.index.IndexStatistics;
+import org.dizitart.no2.index.IndexType;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
 
 import static org.dizitart.no2.common.Constants.DOC_ID;
 import static org.dizitart.no2.common.util.Iterables.firstOrNull;
@@ -37,17 +45,81 @@ import static org.dizitart.no2.filters.Filter.or;
  * @author Anindya Chatterjee
  */
 class FindOptimizer {
+    // relative cost of reading one document during a full collection scan
+    private static final double COLLECTION_SCAN_COST = 1.0;
+    // relative cost of walking one index entry and fetching its document by id
+    private static final double INDEX_LOOKUP_COST = 3.0;
+    // relative cost of walking one index entry without fetching the document
+    private static final double INDEX_KEY_COST = 0.5;
+    // assumed selectivity of a filter on a non-leading field of a compound index
+    private static final double EQUALITY_SELECTIVITY = 0.1;
+    private static final double RANGE_SELECTIVITY = 0.3;
+
+    private final Function<IndexDescriptor, IndexStatistics> statisticsProvider;
+    private final LongSupplier documentCount;
+    private final Predicate<IndexDescriptor> orderedIndex;
+
+    FindOptimizer() {
+        this(null, null, null);
+    }
+
+    FindOptimizer(Function<IndexDescriptor, IndexStatistics> statisticsProvider,
+                  LongSupplier documentCount) {
+        this(statisticsProvider, documentCount, null);
+    }
+
+    /**
+     * Instantiates a new {@link FindOptimizer}.
+     *
+     * @param statisticsProvider the statistics of the analyzed indexes
+     * @param documentCount      the size of the collection
+     * @param orderedIndex       checks if an index can be walked in key order to serve a sort,
+     *                           if <code>null</code> an index is only used for sorting when
+     *                           the filter selects it
+     */
+    FindOptimizer(Function<IndexDescriptor, IndexStatistics> statisticsProvider,
+                  LongSupplier documentCount,
+                  Predicate<IndexDescriptor> orderedIndex) {
+        this.statisticsProvider = statisticsProvider;
+        this.documentCount = documentCount;
+        this.orderedIndex = orderedIndex;
+    }
 
     public FindPlan optimize(Filter filter,
                              FindOptions findOptions,
                              Collection<IndexDescriptor> indexDescriptors) {
         FindPlan findPlan = createFilterPlan(indexDescriptors, filter);
+        return applyOptions(findPlan, findOptions, indexDescriptors);
+    }
+
+    /**
+     * Plans the filter only, the find options are applied by
+     * {@link #applyOptions(FindPlan, FindOptions, Collection)}.
+     */
+    FindPlan planFilter(Filter filter, Collection<IndexDescriptor> indexDescriptors) {
+        return createFilterPlan(indexDescriptors, filter);
+    }
+
+    /**
+     * Applies the sort, pagination and collation of the find options to a filter plan.
+     */
+    FindPlan applyOptions(FindPlan findPlan, FindOptions findOptions,
+                          Collection<IndexDescriptor> indexDescriptors) {
+        planForIndexOrder(findOptions, findPlan, indexDescriptors);
         readSortOption(findOptions, findPlan);
         readLimitOption(findOptions, findPlan);
 
         if (findOptions != null) {
             findPlan.setCollator(findOptions.collator());
             findPlan.setDistinct(findOptions.distinct());
+            findPlan.setSortBufferSize(findOptions.sortBufferSize());
+            findPlan.setParallelism(findOptions.parallelism());
+            if (findOptions.analyze()) {
+                findPlan.setExecutionProfile(new ExecutionProfile());
+            }
+            if (findOptions.keyset()) {
+                readKeysetOption(findOptions, findPlan);
+            }
         }
         return findPlan;
     }
@@ -127,7 +199,8 @@ class FindOptimizer {
 
         // if no id filter found or no index only filter found, scan for matching index
         if (findPlan.getByIdFilter() == null && indexScanFilters.isEmpty()) {
-            planForIndexScanningFilters(findPlan, indexScanFilters, indexDescriptors, filters);
+            planForIndexScanningFilters(findPlan, indexScanFilters, indexDescriptors,
+                withPrefixRanges(filters));
         }
 
         // plan for column scan filters
@@ -152,6 +225,46 @@ class FindOptimizer {
         return findPlan;
     }
 
+    /**
+     * Adds the range of the keys starting with the prefix of every prefix filter, e.g.
+     * an anchored regex, so that an index on its field can scan the range. The ranges
+     * are only used for the index scan, the prefix filters still run as post-filters.
+     */
+    private List<Filter> withPrefixRanges(List<Filter> filters) {
+        List<Filter> rangeFilters = null;
+        for (Filter filter : filters) {
+            if (filter instanceof PrefixFilter && ((PrefixFilter) filter).getPrefix() != null) {
+                if (rangeFilters == null) {
+                    rangeFilters = new ArrayList<>(filters);
+                }
+
+                String field = ((PrefixFilter) filter).getField();
+                String prefix = ((PrefixFilter) filter).getPrefix();
+                rangeFilters.add(FluentFilter.where(field).gte(prefix));
+                String upperBound = prefixUpperBound(prefix);
+                if (upperBound != null) {
+                    rangeFilters.add(FluentFilter.where(field).lt(upperBound));
+                }
+            }
+        }
+        return rangeFilters == null ? filters : rangeFilters;
+    }
+
+    /**
+     * Gets the smallest string greater than every string starting with the prefix,
+     * or <code>null</code> if there is none.
+     */
+    static String prefixUpperBound(String prefix) {
+        int length = prefix.length();
+        while (length > 0 && prefix.charAt(length - 1) == Character.MAX_VALUE) {
+            length--;
+        }
+        if (length == 0) {
+            return null;
+        }
+        return prefix.substring(0, length - 1) + (char) (prefix.charAt(length - 1) + 1);
+    }
+
     private void planForIdFilter(FindPlan findPlan, List<Filter> filters) {
         for (Filter filter : filters) {
             if (filter instanceof EqualsFilter) {
@@ -254,6 +367,17 @@ class FindOptimizer {
                     // match not found, so can't consider this index
                     break;
                 }
+
+                if (!isTerminal && !hasFilterOn(filters, fieldNames.get(fieldIdx + 1))) {
+                    // nothing cascades below the last filtered field of a compound
+                    // index, so it can take both bounds of a range, e.g. of a prefix
+                    List<ComparableFilter> bounds = filtersOn(filters, fieldName);
+                    if (bounds.size() == 2 && isBoundedRange(bounds)) {
+                        indexedFilters.remove(indexedFilters.size() - 1);
+                        indexedFilters.addAll(bounds);
+                    }
+                    break;
+                }
             }
 
             if (!indexedFilters.isEmpty()) {
@@ -267,10 +391,27 @@ class FindOptimizer {
         // index scan filter set - see https://github.com/nitrite/nitrite-java/issues/1266
         IndexDescriptor bestDescriptor = null;
         List<ComparableFilter> bestFilters = null;
-        for (Map.Entry<IndexDescriptor, List<ComparableFilter>> entry : indexFilterMap.entrySet()) {
-            if (bestFilters == null || entry.getValue().size() > bestFilters.size()) {
-                bestDescriptor = entry.getKey();
-                bestFilters = entry.getValue();
+        boolean costBased = hasStatistics(indexFilterMap.keySet());
+        if (costBased) {
+            // every candidate is analyzed, pick the cheapest plan by estimated rows,
+            // a full collection scan included
+            long documents = documentCount.getAsLong();
+            double bestCost = documents * COLLECTION_SCAN_COST;
+            for (Map.Entry<IndexDescriptor, List<ComparableFilter>> entry : indexFilterMap.entrySet()) {
+                double rows = estimateRows(entry.getKey(), entry.getValue(), documents);
+                double cost = rows * INDEX_LOOKUP_COST;
+                if (bestFilters == null ? cost <= bestCost : cost < bestCost) {
+                    bestCost = cost;
+                    bestDescriptor = entry.getKey();
+                    bestFilters = entry.getValue();
+                }
+            }
+        } else {
+            for (Map.Entry<IndexDescriptor, List<ComparableFilter>> entry : indexFilterMap.entrySet()) {
+                if (bestFilters == null || entry.getValue().size() > bestFilters.size()) {
+                    bestDescriptor = entry.getKey();
+                    bestFilters = entry.getValue();
+                }
             }
         }
 
@@ -278,7 +419,182 @@ class FindOptimizer {
             // maintain the order in set
             indexScanFilters.addAll(bestFilters);
             findPlan.setIndexDescriptor(bestDescriptor);
+            planForIndexIntersection(findPlan, indexFilterMap, bestFilters, costBased);
+        }
+    }
+
+    private void planForIndexIntersection(FindPlan findPlan,
+                                          Map<IndexDescriptor, List<ComparableFilter>> indexFilterMap,
+                                          List<ComparableFilter> electedFilters, boolean costBased) {
+        // other single field indices on the remaining filters are scanned as well and their
+        // id sets intersected with the elected index, so that the documents they rule out
+        // are never fetched
+        IndexDescriptor elected = findPlan.getIndexDescriptor();
+        if (!costBased && IndexType.UNIQUE.equals(elected.getIndexType()) && isPointLookup(electedFilters)) {
+            // at most one document to fetch, nothing to gain
+            return;
+        }
+
+        List<Map.Entry<IndexDescriptor, List<ComparableFilter>>> candidates = new ArrayList<>();
+        for (Map.Entry<IndexDescriptor, List<ComparableFilter>> entry : indexFilterMap.entrySet()) {
+            if (entry.getKey().equals(elected) || entry.getKey().isCompoundIndex()) continue;
+            if (!Collections.disjoint(entry.getValue(), electedFilters)) continue;
+            if (costBased || isPointLookup(entry.getValue()) || isBoundedRange(entry.getValue())) {
+                candidates.add(entry);
+            }
+        }
+
+        if (candidates.isEmpty()) return;
+
+        long documents = costBased ? documentCount.getAsLong() : 0;
+        if (costBased) {
+            // the most selective index first
+            candidates.sort(Comparator.comparingDouble(entry ->
+                estimateRows(entry.getKey(), entry.getValue(), documents)));
+        }
+
+        double rows = costBased ? estimateRows(elected, electedFilters, documents) : 0;
+        Set<String> intersectedFields = new HashSet<>();
+        for (Map.Entry<IndexDescriptor, List<ComparableFilter>> entry : candidates) {
+            String field = entry.getKey().getFields().getFieldNames().get(0);
+            if (intersectedFields.contains(field)) continue;
+
+            if (costBased) {
+                // worth it only if walking its keys costs less than fetching the
+                // documents it can rule out
+                double keys = estimateRows(entry.getKey(), entry.getValue(), documents);
+                double selectivity = documents == 0 ? 1.0 : keys / documents;
+                if (selectivity >= 1.0 || keys * INDEX_KEY_COST >= rows * (1 - selectivity) * INDEX_LOOKUP_COST) {
+                    continue;
+                }
+                rows *= selectivity;
+            }
+
+            FindPlan intersectedPlan = new FindPlan();
+            intersectedPlan.setIndexDescriptor(entry.getKey());
+            intersectedPlan.setIndexScanFilter(new IndexScanFilter(entry.getValue()));
+            findPlan.getIntersectedPlans().add(intersectedPlan);
+            intersectedFields.add(field);
+        }
+    }
+
+    private boolean hasFilterOn(List<Filter> filters, String fieldName) {
+        return !filtersOn(filters, fieldName).isEmpty();
+    }
+
+    private List<ComparableFilter> filtersOn(List<Filter> filters, String fieldName) {
+        List<ComparableFilter> fieldFilters = new ArrayList<>();
+        for (Filter filter : filters) {
+            if (filter instanceof ComparableFilter
+                && ((ComparableFilter) filter).getField().equals(fieldName)) {
+                fieldFilters.add((ComparableFilter) filter);
+            }
+        }
+        return fieldFilters;
+    }
+
+    private boolean isPointLookup(List<ComparableFilter> filters) {
+        for (ComparableFilter filter : filters) {
+            if (!(filter instanceof EqualsFilter)) return false;
+        }
+        return !filters.isEmpty();
+    }
+
+    private boolean isBoundedRange(List<ComparableFilter> filters) {
+        boolean lower = false, upper = false;
+        for (ComparableFilter filter : filters) {
+            if (!(filter instanceof SortingAwareFilter)) return false;
+            SortingAwareFilter.ComparisonMode mode = ((SortingAwareFilter) filter).getComparisonMode();
+            if (mode == SortingAwareFilter.ComparisonMode.Greater
+                || mode == SortingAwareFilter.ComparisonMode.GreaterEqual) {
+                lower = true;
+            } else {
+                upper = true;
+            }
+        }
+        return lower && upper;
+    }
+
+    /**
+     * Checks if the plans depend on the filter values, i.e. if any index is analyzed.
+     */
+    boolean usesStatistics(Collection<IndexDescriptor> indexDescriptors) {
+        if (statisticsProvider == null || documentCount == null) {
+            return false;
+        }
+
+        for (IndexDescriptor indexDescriptor : indexDescriptors) {
+            if (statisticsProvider.apply(indexDescriptor) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasStatistics(Collection<IndexDescriptor> candidates) {
+        if (statisticsProvider == null || documentCount == null || candidates.isEmpty()) {
+            return false;
+        }
+
+        for (IndexDescriptor indexDescriptor : candidates) {
+            if (statisticsProvider.apply(indexDescriptor) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double estimateRows(IndexDescriptor indexDescriptor, List<ComparableFilter> filters,
+                                long documents) {
+        IndexStatistics statistics = statisticsProvider.apply(indexDescriptor);
+        String leadingField = indexDescriptor.getFields().getFieldNames().get(0);
+
+        List<ComparableFilter> leadingFilters = new ArrayList<>();
+        double selectivity = 1.0;
+        for (ComparableFilter filter : filters) {
+            if (filter.getField().equals(leadingField)) {
+                leadingFilters.add(filter);
+            } else {
+                // the histogram only covers the leading field of the index
+                selectivity *= filter instanceof EqualsFilter ? EQUALITY_SELECTIVITY : RANGE_SELECTIVITY;
+            }
         }
+
+        if (statistics.getEntryCount() > 0) {
+            selectivity *= estimateEntries(statistics, leadingFilters) / statistics.getEntryCount();
+        }
+
+        // the statistics may be stale, so scale to the current size of the collection
+        return Math.min(selectivity, 1.0) * documents;
+    }
+
+    private double estimateEntries(IndexStatistics statistics, List<ComparableFilter> filters) {
+        if (filters.size() == 1) {
+            return filters.get(0).estimateEntries(statistics);
+        }
+
+        SortingAwareFilter lower = null, upper = null;
+        double estimate = statistics.getEntryCount();
+        for (ComparableFilter filter : filters) {
+            if (filter instanceof SortingAwareFilter) {
+                SortingAwareFilter.ComparisonMode mode = ((SortingAwareFilter) filter).getComparisonMode();
+                if (mode == SortingAwareFilter.ComparisonMode.Greater
+                    || mode == SortingAwareFilter.ComparisonMode.GreaterEqual) {
+                    lower = (SortingAwareFilter) filter;
+                } else {
+                    upper = (SortingAwareFilter) filter;
+                }
+            }
+            estimate = Math.min(estimate, filter.estimateEntries(statistics));
+        }
+
+        if (lower != null && upper != null) {
+            // a bounded range, e.g. between
+            estimate = Math.min(estimate, statistics.estimateRange(
+                lower.getValue(), lower.getComparisonMode() == SortingAwareFilter.ComparisonMode.GreaterEqual,
+                upper.getValue(), upper.getComparisonMode() == SortingAwareFilter.ComparisonMode.LesserEqual));
+        }
+        return estimate;
     }
 
     private void planForCollectionScanningFilters(FindPlan findPlan, Set<ComparableFilter> indexScanFilters,
@@ -293,7 +609,8 @@ class FindOptimizer {
             // ignore the elected filters for index scan and
             // insert rest of the filters for column scan
             // NOTE: for byId filter, index scan filters will always be empty
-            if (!(filter instanceof ComparableFilter) || !indexScanFilters.contains(filter)) {
+            if (!(filter instanceof ComparableFilter) || (!indexScanFilters.contains(filter)
+                && !isIntersected(findPlan, filter))) {
                 // ignore the byId filter (if any) for column scan
                 if (filter != findPlan.getByIdFilter()) {
                     columnScanFilters.add(filter);
@@ -308,6 +625,15 @@ class FindOptimizer {
         }
     }
 
+    private boolean isIntersected(FindPlan findPlan, Filter filter) {
+        for (FindPlan intersectedPlan : findPlan.getIntersectedPlans()) {
+            if (intersectedPlan.getIndexScanFilter().getFilters().contains(filter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void validateCollectionScanFilters(Collection<Filter> filters) {
         for (Filter filter : filters) {
             if (filter instanceof IndexOnlyFilter) {
@@ -318,6 +644,134 @@ class FindOptimizer {
         }
     }
 
+    /**
+     * Replaces the plan with an ordered walk of an index on the sort fields, if that
+     * avoids a blocking sort. Every filter of the plan is then applied as a post-filter
+     * of the walk. A collection scan is always replaced, as it reads every document
+     * anyway. A plan on another index is replaced only if its rows are estimated and
+     * the walk is expected to reach the limit of the find in fewer documents.
+     */
+    private void planForIndexOrder(FindOptions findOptions, FindPlan findPlan,
+                                   Collection<IndexDescriptor> indexDescriptors) {
+        if (orderedIndex == null || findOptions == null || findOptions.orderBy() == null
+            || findPlan.getByIdFilter() != null || !findPlan.getSubPlans().isEmpty()) {
+            return;
+        }
+
+        if (findOptions.customCollator()) {
+            // the keys of an index are not ordered by the collator
+            return;
+        }
+
+        List<Pair<String, SortOrder>> sortSpec = findOptions.orderBy().getSortingOrders();
+        if (sortSpec.isEmpty()) return;
+
+        IndexDescriptor planned = findPlan.getIndexDescriptor();
+        if (planned != null && coversSort(planned, sortSpec)) {
+            // readSortOption uses it already
+            return;
+        }
+
+        IndexDescriptor sortIndex = null;
+        for (IndexDescriptor indexDescriptor : indexDescriptors) {
+            if (coversSort(indexDescriptor, sortSpec) && orderedIndex.test(indexDescriptor)) {
+                sortIndex = indexDescriptor;
+                break;
+            }
+        }
+        if (sortIndex == null) return;
+
+        List<Filter> postFilters = new ArrayList<>();
+        if (planned != null) {
+            if (!isWalkCheaper(findOptions, findPlan)) return;
+
+            postFilters.addAll(findPlan.getIndexScanFilter().getFilters());
+            for (FindPlan intersectedPlan : findPlan.getIntersectedPlans()) {
+                postFilters.addAll(intersectedPlan.getIndexScanFilter().getFilters());
+            }
+        }
+        if (findPlan.getCollectionScanFilter() != null) {
+            postFilters.add(findPlan.getCollectionScanFilter());
+        }
+
+        // an empty not-in filter excludes no key, it walks all the keys of the index
+        // in order, the null key included, so no document is left out
+        List<ComparableFilter> walkFilters = new ArrayList<>();
+        for (Pair<String, SortOrder> pair : sortSpec) {
+            walkFilters.add((ComparableFilter) FluentFilter.where(pair.getFirst()).notIn());
+        }
+
+        findPlan.setIndexDescriptor(sortIndex);
+        findPlan.setIndexScanFilter(new IndexScanFilter(walkFilters));
+        findPlan.getIntersectedPlans().clear();
+        if (postFilters.isEmpty()) {
+            findPlan.setCollectionScanFilter(null);
+        } else if (postFilters.size() == 1) {
+            findPlan.setCollectionScanFilter(postFilters.get(0));
+        } else {
+            findPlan.setCollectionScanFilter(and(postFilters.toArray(new Filter[0])));
+        }
+    }
+
+    private boolean canMergeInIndexOrder(FindOptions findOptions, FindPlan findPlan,
+                                         List<Pair<String, SortOrder>> sortSpec) {
+        if (orderedIndex == null || findPlan.getSubPlans().isEmpty() || sortSpec.isEmpty()
+            || findOptions.customCollator()) {
+            return false;
+        }
+
+        IndexDescriptor indexDescriptor = findPlan.getSubPlans().get(0).getIndexDescriptor();
+        for (FindPlan subPlan : findPlan.getSubPlans()) {
+            if (subPlan.getByIdFilter() != null || !subPlan.getSubPlans().isEmpty()
+                || !subPlan.getIntersectedPlans().isEmpty()
+                || subPlan.getIndexDescriptor() == null
+                || !subPlan.getIndexDescriptor().equals(indexDescriptor)) {
+                return false;
+            }
+            if (subPlan.getIndexScanFilter() == null || !IndexScanner.canScanEntries(
+                subPlan.getIndexScanFilter().getFilters(), indexDescriptor.getFields().getFieldNames())) {
+                // the index can not walk the entries of the sub plan, the union is sorted instead
+                return false;
+            }
+        }
+        return coversSort(indexDescriptor, sortSpec) && orderedIndex.test(indexDescriptor);
+    }
+
+    private boolean coversSort(IndexDescriptor indexDescriptor, List<Pair<String, SortOrder>> sortSpec) {
+        List<String> indexedFieldNames = indexDescriptor.getFields().getFieldNames();
+        if (indexedFieldNames.size() < sortSpec.size()) return false;
+
+        for (int i = 0; i < sortSpec.size(); i++) {
+            if (!indexedFieldNames.get(i).equals(sortSpec.get(i).getFirst())) return false;
+        }
+        return true;
+    }
+
+    private boolean isWalkCheaper(FindOptions findOptions, FindPlan findPlan) {
+        IndexDescriptor planned = findPlan.getIndexDescriptor();
+        if (findOptions.limit() == null || statisticsProvider == null || documentCount == null
+            || statisticsProvider.apply(planned) == null) {
+            // without a limit both plans fetch every matching document
+            return false;
+        }
+
+        for (ComparableFilter filter : findPlan.getIndexScanFilter().getFilters()) {
+            if (filter instanceof IndexOnlyFilter || filter instanceof TextFilter) {
+                // can not run as a post-filter
+                return false;
+            }
+        }
+
+        long documents = documentCount.getAsLong();
+        double rows = estimateRows(planned, findPlan.getIndexScanFilter().getFilters(), documents);
+        if (rows < 1.0) return false;
+
+        // the matching documents are assumed to be spread evenly over the sort order
+        long wanted = findOptions.limit() + (findOptions.skip() == null ? 0 : findOptions.skip());
+        double walked = Math.min(documents, (double) wanted * documents / rows);
+        return walked * INDEX_LOOKUP_COST < rows * INDEX_LOOKUP_COST;
+    }
+
     private void readSortOption(FindOptions findOptions, FindPlan findPlan) {
         IndexDescriptor indexDescriptor = findPlan.getIndexDescriptor();
         if (findOptions != null && findOptions.orderBy() != null) {
@@ -364,6 +818,17 @@ class FindOptimizer {
                 } else {
                     findPlan.setBlockingSortOrder(findSortSpec);
                 }
+            } else if (canMergeInIndexOrder(findOptions, findPlan, findSortSpec)) {
+                // every sub plan of the or filter scans the same index in the sort order,
+                // their results are merged in that order
+                Map<String, Boolean> indexScanOrder = new HashMap<>();
+                for (Pair<String, SortOrder> pair : findSortSpec) {
+                    indexScanOrder.put(pair.getFirst(), pair.getSecond() != SortOrder.Ascending);
+                }
+                findPlan.setIndexScanOrder(indexScanOrder);
+                for (FindPlan subPlan : findPlan.getSubPlans()) {
+                    subPlan.setIndexScanOrder(indexScanOrder);
+                }
             } else {
                 // no find options, so consider the index sorting order
                 findPlan.setBlockingSortOrder(findSortSpec);
@@ -371,6 +836,28 @@ class FindOptimizer {
         }
     }
 
+    private void readKeysetOption(FindOptions findOptions, FindPlan findPlan) {
+        if (findOptions.orderBy() == null || findOptions.orderBy().getSortingOrders().isEmpty()) {
+            throw new ValidationException("Keyset pagination requires a sort order");
+        }
+        if (findOptions.customCollator()) {
+            throw new ValidationException("Keyset pagination orders strings as an index does, it can not use a collator");
+        }
+
+        List<Pair<String, SortOrder>> sortOrder = findOptions.orderBy().getSortingOrders();
+        findPlan.setKeysetSortOrder(sortOrder);
+        // strings are compared as in an index, on every page, not by the default collator
+        findPlan.setCollator(null);
+
+        if (!findPlan.getBlockingSortOrder().isEmpty()) {
+            // the id breaks the ties of the sort, an index scan order is
+            // completed by a KeysetOrderStream instead
+            List<Pair<String, SortOrder>> blockingSortOrder = new ArrayList<>(sortOrder);
+            blockingSortOrder.add(new Pair<>(DOC_ID, SortOrder.Ascending));
+            findPlan.setBlockingSortOrder(blockingSortOrder);
+        }
+    }
+
     private void readLimitOption(FindOptions findOptions, FindPlan findPlan) {
         if (findOptions != null) {
             findPlan.setLimit(findOptions.limit());
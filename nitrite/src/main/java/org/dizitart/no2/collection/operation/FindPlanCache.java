@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.filters.*;
+import org.dizitart.no2.index.IndexDescriptor;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A cache of filter plans keyed by the shape of the filter, i.e. its logical
+ * structure and the type and field of every leaf, but not the values. Queries
+ * which differ only by their values share one plan, which is rebound to the
+ * filters of each query before it is executed.
+ * <p>
+ * A plan is only valid for the set of indices it was built for, the cache is
+ * therefore cleared whenever the index set changes.
+ *
+ * @since 4.5
+ */
+class FindPlanCache {
+    static final int MAX_ENTRIES = 256;
+
+    private final Map<String, CachedPlan> plans;
+    private Collection<IndexDescriptor> indexDescriptors;
+
+    FindPlanCache() {
+        this.plans = new LinkedHashMap<String, CachedPlan>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPlan> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    /**
+     * Gets the plan of a filter from the cache, or creates and caches it
+     * with the planner. The returned plan is always a fresh copy bound to
+     * the filters of <code>filter</code>, so it can be modified freely.
+     */
+    FindPlan getOrCreate(Filter filter, Collection<IndexDescriptor> indexDescriptors,
+                         Function<Filter, FindPlan> planner) {
+        List<Filter> nodes = new ArrayList<>();
+        StringBuilder shape = new StringBuilder();
+        describe(filter, nodes, shape);
+        String key = shape.toString();
+
+        CachedPlan cachedPlan;
+        synchronized (plans) {
+            if (this.indexDescriptors != indexDescriptors) {
+                plans.clear();
+                this.indexDescriptors = indexDescriptors;
+            }
+            cachedPlan = plans.get(key);
+        }
+
+        if (cachedPlan == null) {
+            FindPlan findPlan = planner.apply(filter);
+            if (!isCacheable(findPlan, nodes)) {
+                return findPlan;
+            }
+
+            cachedPlan = new CachedPlan(nodes, findPlan);
+            synchronized (plans) {
+                if (this.indexDescriptors == indexDescriptors) {
+                    plans.put(key, cachedPlan);
+                }
+            }
+        }
+        return cachedPlan.bind(nodes);
+    }
+
+    /**
+     * Removes all cached plans.
+     */
+    void invalidate() {
+        synchronized (plans) {
+            plans.clear();
+            indexDescriptors = null;
+        }
+    }
+
+    int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    private static void describe(Filter filter, List<Filter> nodes, StringBuilder shape) {
+        nodes.add(filter);
+        if (filter instanceof LogicalFilter) {
+            shape.append(filter instanceof OrFilter ? "Or(" : "And(");
+            for (Filter child : ((LogicalFilter) filter).getFilters()) {
+                describe(child, nodes, shape);
+                shape.append(',');
+            }
+            shape.append(')');
+        } else if (filter instanceof FieldBasedFilter) {
+            shape.append(filter.getClass().getName())
+                .append(':').append(((FieldBasedFilter) filter).getField());
+            if (filter instanceof PrefixFilter && ((PrefixFilter) filter).getPrefix() != null) {
+                // only a filter with a prefix can be planned on an index
+                shape.append(":prefix");
+            }
+        } else {
+            // a negation is never planned on an index, it is a leaf of the shape
+            shape.append(filter == null ? "null" : filter.getClass().getName());
+        }
+    }
+
+    private static boolean isCacheable(FindPlan findPlan, List<Filter> nodes) {
+        if (!findPlan.getSubPlans().isEmpty()) {
+            // the sub plans of an or filter are ordered by the hash of their
+            // filters, the plan of another query of the same shape may differ
+            return false;
+        }
+
+        // the planner drops a leaf equal to another one, which would not
+        // hold for the values of another query of the same shape
+        Set<Filter> leaves = new HashSet<>();
+        for (Filter node : nodes) {
+            if (node instanceof FieldBasedFilter && !leaves.add(node)) {
+                return false;
+            }
+        }
+
+        // a range the planner derived from the prefix of a filter can not
+        // be bound to the values of another query
+        Set<Filter> bound = Collections.newSetFromMap(new IdentityHashMap<>());
+        bound.addAll(nodes);
+        return isBound(findPlan, bound);
+    }
+
+    private static boolean isBound(FindPlan findPlan, Set<Filter> nodes) {
+        if (findPlan.getIndexScanFilter() != null) {
+            for (Filter filter : findPlan.getIndexScanFilter().getFilters()) {
+                if (!nodes.contains(filter)) {
+                    return false;
+                }
+            }
+        }
+
+        for (FindPlan intersectedPlan : findPlan.getIntersectedPlans()) {
+            if (!isBound(intersectedPlan, nodes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class CachedPlan {
+        private final List<Filter> nodes;
+        private final FindPlan findPlan;
+
+        CachedPlan(List<Filter> nodes, FindPlan findPlan) {
+            this.nodes = nodes;
+            this.findPlan = findPlan;
+        }
+
+        FindPlan bind(List<Filter> filters) {
+            Map<Filter, Filter> bindings = new IdentityHashMap<>();
+            for (int i = 0; i < nodes.size(); i++) {
+                bindings.put(nodes.get(i), filters.get(i));
+            }
+            return copy(findPlan, bindings);
+        }
+
+        private static FindPlan copy(FindPlan findPlan, Map<Filter, Filter> bindings) {
+            FindPlan copy = new FindPlan();
+            copy.setIndexDescriptor(findPlan.getIndexDescriptor());
+            if (findPlan.getByIdFilter() != null) {
+                copy.setByIdFilter((FieldBasedFilter) rebind(findPlan.getByIdFilter(), bindings));
+            }
+
+            if (findPlan.getIndexScanFilter() != null) {
+                List<ComparableFilter> filters = new ArrayList<>();
+                for (ComparableFilter filter : findPlan.getIndexScanFilter().getFilters()) {
+                    filters.add((ComparableFilter) rebind(filter, bindings));
+                }
+                copy.setIndexScanFilter(new IndexScanFilter(filters));
+            }
+
+            if (findPlan.getCollectionScanFilter() != null) {
+                copy.setCollectionScanFilter(rebind(findPlan.getCollectionScanFilter(), bindings));
+            }
+
+            for (FindPlan intersectedPlan : findPlan.getIntersectedPlans()) {
+                copy.getIntersectedPlans().add(copy(intersectedPlan, bindings));
+            }
+            return copy;
+        }
+
+        private static Filter rebind(Filter filter, Map<Filter, Filter> bindings) {
+            Filter bound = bindings.get(filter);
+            if (bound != null) {
+                return bound;
+            }
+
+            // a composite built by the planner out of the filters of the query
+            if (filter instanceof LogicalFilter) {
+                List<Filter> children = ((LogicalFilter) filter).getFilters();
+                Filter[] filters = new Filter[children.size()];
+                for (int i = 0; i < children.size(); i++) {
+                    filters[i] = rebind(children.get(i), bindings);
+                }
+                return filter instanceof OrFilter ? Filter.or(filters) : Filter.and(filters);
+            }
+            return filter;
+        }
+    }
+}
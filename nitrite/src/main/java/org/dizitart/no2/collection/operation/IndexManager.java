@@ -19,8 +19,10 @@ package org.dizitart.no2.collection.operation;
 
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.index.CompoundIndex;
 import org.dizitart.no2.index.IndexDescriptor;
 import org.dizitart.no2.index.IndexMeta;
+import org.dizitart.no2.index.IndexStatistics;
 import org.dizitart.no2.index.NitriteIndexer;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
@@ -28,8 +30,13 @@ import org.dizitart.no2.store.NitriteStore;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
 import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
 import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMetaMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextLengthMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextPositionMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextStatisticsMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveUniqueIndexMapName;
 
 /**
  * @since 4.0
@@ -41,6 +48,10 @@ public class IndexManager implements AutoCloseable {
     private final String collectionName;
     private final NitriteMap<Fields, IndexMeta> indexMetaMap;
     private Collection<IndexDescriptor> indexDescriptorCache;
+    private Map<Fields, IndexStatistics> indexStatisticsCache;
+    private Set<Fields> singleValuedCache;
+    private Map<Fields, Map<String, String>> numberTypesCache;
+    private Set<Fields> nullKeysCache;
 
     public IndexManager(String collectionName, NitriteConfig nitriteConfig) {
         this.collectionName = collectionName;
@@ -81,6 +92,34 @@ public class IndexManager implements AutoCloseable {
         return null;
     }
 
+    public boolean isSingleValued(Fields fields) {
+        if (singleValuedCache == null) {
+            updateIndexDescriptorCache();
+        }
+        return singleValuedCache.contains(fields);
+    }
+
+    public IndexStatistics getIndexStatistics(Fields fields) {
+        if (indexStatisticsCache == null) {
+            updateIndexDescriptorCache();
+        }
+        return indexStatisticsCache.get(fields);
+    }
+
+    public Map<String, String> getNumberTypes(Fields fields) {
+        if (numberTypesCache == null) {
+            updateIndexDescriptorCache();
+        }
+        return numberTypesCache.get(fields);
+    }
+
+    public boolean hasNullKeys(Fields fields) {
+        if (nullKeysCache == null) {
+            updateIndexDescriptorCache();
+        }
+        return nullKeysCache.contains(fields);
+    }
+
     public void markIndexDirty(IndexDescriptor indexDescriptor) {
         Fields fields = indexDescriptor.getFields();
         markDirty(fields, true);
@@ -93,9 +132,9 @@ public class IndexManager implements AutoCloseable {
             Iterable<IndexMeta> indexMetas = indexMetaMap.values();
             for (IndexMeta indexMeta : indexMetas) {
                 if (indexMeta != null && indexMeta.getIndexDescriptor() != null) {
-                    String indexMapName = indexMeta.getIndexMap();
-                    NitriteMap<?, ?> indexMap = nitriteStore.openMap(indexMapName, Object.class, Object.class);
-                    indexMap.close();
+                    for (NitriteMap<?, ?> indexMap : openIndexMaps(indexMeta)) {
+                        indexMap.close();
+                    }
                 }
             }
 
@@ -110,15 +149,40 @@ public class IndexManager implements AutoCloseable {
             Iterable<IndexMeta> indexMetas = indexMetaMap.values();
             for (IndexMeta indexMeta : indexMetas) {
                 if (indexMeta != null && indexMeta.getIndexDescriptor() != null) {
-                    String indexMapName = indexMeta.getIndexMap();
-                    NitriteMap<?, ?> indexMap = nitriteStore.openMap(indexMapName, Object.class, Object.class);
-                    indexMap.clear();
-                    indexMap.close();
+                    for (NitriteMap<?, ?> indexMap : openIndexMaps(indexMeta)) {
+                        indexMap.clear();
+                        indexMap.close();
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Opens the maps backing an index: the map of the index meta and, for an index
+     * stored in the composite-key or the direct unique layout, the map of that layout,
+     * as well as the statistics maps of a text index.
+     */
+    private List<NitriteMap<?, ?>> openIndexMaps(IndexMeta indexMeta) {
+        List<NitriteMap<?, ?>> indexMaps = new ArrayList<>();
+        indexMaps.add(nitriteStore.openMap(indexMeta.getIndexMap(), Object.class, Object.class));
+
+        IndexDescriptor indexDescriptor = indexMeta.getIndexDescriptor();
+        String[] mapNames = {
+            deriveCompositeIndexMapName(indexDescriptor),
+            deriveUniqueIndexMapName(indexDescriptor),
+            deriveTextLengthMapName(indexDescriptor),
+            deriveTextStatisticsMapName(indexDescriptor),
+            deriveTextPositionMapName(indexDescriptor),
+        };
+        for (String mapName : mapNames) {
+            if (nitriteStore.hasMap(mapName)) {
+                indexMaps.add(nitriteStore.openMap(mapName, Object.class, Object.class));
+            }
+        }
+        return indexMaps;
+    }
+
     /**
      * Is dirty index boolean.
      *
@@ -159,6 +223,8 @@ public class IndexManager implements AutoCloseable {
         indexMeta.setIndexDescriptor(index);
         indexMeta.setIsDirty(new AtomicBoolean(false));
         indexMeta.setIndexMap(deriveIndexMapName(index));
+        indexMeta.setSingleValued(true);
+        indexMeta.setNumberTypes(new HashMap<>());
 
         indexMetaMap.put(fields, indexMeta);
 
@@ -174,15 +240,76 @@ public class IndexManager implements AutoCloseable {
     void dropIndexDescriptor(Fields fields) {
         IndexMeta meta = indexMetaMap.get(fields);
         if (meta != null && meta.getIndexDescriptor() != null) {
-            String indexMapName = meta.getIndexMap();
-            NitriteMap<?, ?> indexMap = nitriteStore.openMap(indexMapName, Object.class, Object.class);
-            indexMap.drop();
+            for (NitriteMap<?, ?> indexMap : openIndexMaps(meta)) {
+                indexMap.drop();
+            }
         }
 
         indexMetaMap.remove(fields);
         updateIndexDescriptorCache();
     }
 
+    /**
+     * Stores the statistics of an index.
+     *
+     * @param fields     the fields
+     * @param statistics the index statistics
+     */
+    void updateIndexStatistics(Fields fields, IndexStatistics statistics) {
+        IndexMeta meta = indexMetaMap.get(fields);
+        if (meta != null && meta.getIndexDescriptor() != null) {
+            meta.setStatistics(statistics);
+            indexMetaMap.put(fields, meta);
+            updateIndexDescriptorCache();
+        }
+    }
+
+    /**
+     * Records whether an index holds a single key per document.
+     *
+     * @param fields       the fields
+     * @param singleValued if the index is single valued
+     */
+    void updateSingleValued(Fields fields, boolean singleValued) {
+        IndexMeta meta = indexMetaMap.get(fields);
+        if (meta != null && meta.getIndexDescriptor() != null && meta.isSingleValued() != singleValued) {
+            meta.setSingleValued(singleValued);
+            indexMetaMap.put(fields, meta);
+            updateIndexDescriptorCache();
+        }
+    }
+
+    /**
+     * Records the number type of every numeric field of an index.
+     *
+     * @param fields      the fields
+     * @param numberTypes the class name of the numbers of each field
+     */
+    void updateNumberTypes(Fields fields, Map<String, String> numberTypes) {
+        IndexMeta meta = indexMetaMap.get(fields);
+        if (meta != null && meta.getIndexDescriptor() != null
+            && !Objects.equals(meta.getNumberTypes(), numberTypes)) {
+            meta.setNumberTypes(numberTypes);
+            indexMetaMap.put(fields, meta);
+            updateIndexDescriptorCache();
+        }
+    }
+
+    /**
+     * Records whether an index may hold a null key.
+     *
+     * @param fields   the fields
+     * @param nullKeys if the index may hold a null key
+     */
+    void updateNullKeys(Fields fields, boolean nullKeys) {
+        IndexMeta meta = indexMetaMap.get(fields);
+        if (meta != null && meta.getIndexDescriptor() != null && meta.isNullKeys() != nullKeys) {
+            meta.setNullKeys(nullKeys);
+            indexMetaMap.put(fields, meta);
+            updateIndexDescriptorCache();
+        }
+    }
+
     void dropIndexMeta() {
         indexMetaMap.drop();
     }
@@ -207,6 +334,16 @@ public class IndexManager implements AutoCloseable {
 
     private void initialize() {
         updateIndexDescriptorCache();
+        migrateLegacyIndexes();
+    }
+
+    private void migrateLegacyIndexes() {
+        // compound indexes written by Nitrite < 4.5 are rewritten on open
+        for (IndexDescriptor indexDescriptor : indexDescriptorCache) {
+            if (indexDescriptor.isCompoundIndex()) {
+                CompoundIndex.migrateLegacyIndex(indexDescriptor, nitriteStore);
+            }
+        }
     }
 
     private void markDirty(Fields fields, boolean dirty) {
@@ -223,6 +360,32 @@ public class IndexManager implements AutoCloseable {
 
     private void updateIndexDescriptorCache() {
         indexDescriptorCache = listIndexDescriptors();
+
+        Map<Fields, IndexStatistics> statistics = new HashMap<>();
+        Set<Fields> singleValued = new HashSet<>();
+        Map<Fields, Map<String, String>> numberTypes = new HashMap<>();
+        Set<Fields> nullKeys = new HashSet<>();
+        for (IndexMeta indexMeta : indexMetaMap.values()) {
+            if (indexMeta == null || indexMeta.getIndexDescriptor() == null) continue;
+
+            Fields fields = indexMeta.getIndexDescriptor().getFields();
+            if (indexMeta.getStatistics() != null) {
+                statistics.put(fields, indexMeta.getStatistics());
+            }
+            if (indexMeta.isSingleValued()) {
+                singleValued.add(fields);
+            }
+            if (indexMeta.getNumberTypes() != null) {
+                numberTypes.put(fields, indexMeta.getNumberTypes());
+            }
+            if (indexMeta.isNullKeys()) {
+                nullKeys.add(fields);
+            }
+        }
+        indexStatisticsCache = statistics;
+        singleValuedCache = singleValued;
+        numberTypesCache = numberTypes;
+        nullKeysCache = nullKeys;
     }
 
     private void validateIndexRequest(Fields fields, String indexType) {
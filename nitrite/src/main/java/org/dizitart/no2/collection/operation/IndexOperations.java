@@ -6,20 +6,30 @@ import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.collection.events.CollectionEventInfo;
 import org.dizitart.no2.collection.events.CollectionEventListener;
 import org.dizitart.no2.collection.events.EventType;
+import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.event.EventBus;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.util.DocumentUtils;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.index.ComparableIndexer;
 import org.dizitart.no2.index.IndexDescriptor;
+import org.dizitart.no2.index.IndexStatistics;
 import org.dizitart.no2.index.NitriteIndexer;
 import org.dizitart.no2.store.NitriteMap;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -32,6 +42,10 @@ import static org.dizitart.no2.common.concurrent.ThreadPoolManager.runAsync;
  * @since 1.0
  */
 class IndexOperations implements AutoCloseable {
+    // the number types an index key, held as a double, is converted back to
+    private static final Set<Class<?>> RESTORABLE_NUMBERS = new HashSet<>(Arrays.asList(
+        Double.class, Float.class, Long.class, Integer.class, Short.class, Byte.class));
+
     private final String collectionName;
     private final NitriteConfig nitriteConfig;
     private final NitriteMap<NitriteId, Document> nitriteMap;
@@ -144,6 +158,89 @@ class IndexOperations implements AutoCloseable {
         indexBuildTracker.clear();
     }
 
+    void analyze() {
+        long documentCount = nitriteMap.size();
+        for (IndexDescriptor indexDescriptor : listIndexes()) {
+            // histograms only make sense for indexes ordered by value
+            NitriteIndexer nitriteIndexer = nitriteConfig.findIndexer(indexDescriptor.getIndexType());
+            if (!(nitriteIndexer instanceof ComparableIndexer)
+                || getBuildFlag(indexDescriptor.getFields()).get()) {
+                continue;
+            }
+
+            // the index map is already sorted by key, it is walked twice as the
+            // depth of the histogram buckets depends on the number of entries
+            RecordStream<Pair<DBValue, Long>> keyCounts = keyCounts((ComparableIndexer) nitriteIndexer,
+                indexDescriptor);
+            long entryCount = 0;
+            for (Pair<DBValue, Long> keyCount : keyCounts) {
+                entryCount += keyCount.getSecond();
+            }
+
+            IndexStatistics statistics = IndexStatistics.create(documentCount, entryCount, keyCounts);
+            indexManager.updateIndexStatistics(indexDescriptor.getFields(), statistics);
+        }
+    }
+
+    IndexStatistics getIndexStatistics(IndexDescriptor indexDescriptor) {
+        return indexManager.getIndexStatistics(indexDescriptor.getFields());
+    }
+
+    boolean isSingleValued(IndexDescriptor indexDescriptor) {
+        return indexManager.isSingleValued(indexDescriptor.getFields());
+    }
+
+    void trackMultiValued(Fields fields, FieldValues fieldValues) {
+        // once an array shows up the index keys no longer describe the documents
+        if (indexManager.isSingleValued(fields) && isMultiValued(fieldValues)) {
+            indexManager.updateSingleValued(fields, false);
+        }
+    }
+
+    boolean hasNullKeys(IndexDescriptor indexDescriptor) {
+        return indexManager.hasNullKeys(indexDescriptor.getFields());
+    }
+
+    void trackNullKeys(Fields fields, FieldValues fieldValues) {
+        // the flag is not cleared by a remove, only by a rebuild
+        if (!indexManager.hasNullKeys(fields) && hasNullKey(fieldValues)) {
+            indexManager.updateNullKeys(fields, true);
+        }
+    }
+
+    Map<String, String> getNumberTypes(IndexDescriptor indexDescriptor) {
+        return indexManager.getNumberTypes(indexDescriptor.getFields());
+    }
+
+    void trackNumberTypes(Fields fields, FieldValues fieldValues) {
+        Map<String, String> numberTypes = indexManager.getNumberTypes(fields);
+        if (numberTypes == null) {
+            // not tracked by an older index, numbers are read from the documents
+            return;
+        }
+
+        Map<String, String> updated = null;
+        for (Pair<String, Object> fieldValue : fieldValues.getValues()) {
+            if (!(fieldValue.getSecond() instanceof Number)) continue;
+
+            String numberType = RESTORABLE_NUMBERS.contains(fieldValue.getSecond().getClass())
+                ? fieldValue.getSecond().getClass().getName() : Number.class.getName();
+            String current = numberTypes.get(fieldValue.getFirst());
+            if (current == null) {
+                if (updated == null) updated = new HashMap<>(numberTypes);
+                updated.put(fieldValue.getFirst(), numberType);
+            } else if (!current.equals(numberType) && !current.equals(Number.class.getName())) {
+                // numbers of different types, only the documents can tell them apart
+                if (updated == null) updated = new HashMap<>(numberTypes);
+                updated.put(fieldValue.getFirst(), Number.class.getName());
+            }
+        }
+
+        if (updated != null) {
+            indexManager.updateNumberTypes(fields, updated);
+        }
+    }
+
     boolean isIndexing(Fields field) {
         // has an index will only return true, if there is an index on
         // the value and indexing is not running on it
@@ -182,6 +279,9 @@ class IndexOperations implements AutoCloseable {
             alert(EventType.IndexStart, fields);
             // first put dirty marker
             indexManager.beginIndexing(fields);
+            indexManager.updateSingleValued(fields, true);
+            indexManager.updateNumberTypes(fields, new HashMap<>());
+            indexManager.updateNullKeys(fields, false);
 
             String indexType = indexDescriptor.getIndexType();
             NitriteIndexer nitriteIndexer = nitriteConfig.findIndexer(indexType);
@@ -195,6 +295,9 @@ class IndexOperations implements AutoCloseable {
                 Document document = entry.getSecond();
                 FieldValues fieldValues = DocumentUtils.getValues(document, indexDescriptor.getFields());
                 nitriteIndexer.writeIndexEntry(fieldValues, indexDescriptor, nitriteConfig);
+                trackMultiValued(fields, fieldValues);
+                trackNumberTypes(fields, fieldValues);
+                trackNullKeys(fields, fieldValues);
             }
         } finally {
             // remove dirty marker to denote indexing completed successfully
@@ -205,6 +308,57 @@ class IndexOperations implements AutoCloseable {
         }
     }
 
+    private boolean isMultiValued(FieldValues fieldValues) {
+        for (Pair<String, Object> fieldValue : fieldValues.getValues()) {
+            Object value = fieldValue.getSecond();
+            if (value instanceof Iterable || (value != null && value.getClass().isArray())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasNullKey(FieldValues fieldValues) {
+        for (Pair<String, Object> fieldValue : fieldValues.getValues()) {
+            Object value = fieldValue.getSecond();
+            if (value == null) {
+                return true;
+            }
+
+            // every element of an array is a key of its own
+            Iterable<?> elements = value instanceof Iterable ? (Iterable<?>) value
+                : value instanceof Object[] ? Arrays.asList((Object[]) value) : null;
+            if (elements != null) {
+                for (Object element : elements) {
+                    if (element == null) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private RecordStream<Pair<DBValue, Long>> keyCounts(ComparableIndexer comparableIndexer,
+                                                        IndexDescriptor indexDescriptor) {
+        return () -> {
+            RecordStream<Pair<DBValue, Collection<NitriteId>>> keys = comparableIndexer
+                .streamKeysByFilter(indexDescriptor, Collections.emptyList(), false, nitriteConfig);
+            Iterator<Pair<DBValue, Collection<NitriteId>>> iterator = keys == null
+                ? Collections.emptyIterator() : keys.iterator();
+            return new Iterator<Pair<DBValue, Long>>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Pair<DBValue, Long> next() {
+                    Pair<DBValue, Collection<NitriteId>> entry = iterator.next();
+                    return new Pair<>(entry.getFirst(), (long) entry.getSecond().size());
+                }
+            };
+        };
+    }
+
     private void alert(EventType eventType, Fields field) {
         CollectionEventInfo<Fields> eventInfo = new CollectionEventInfo<>();
         eventInfo.setItem(field);
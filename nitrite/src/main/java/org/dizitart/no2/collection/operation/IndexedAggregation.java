@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.collection.Aggregation;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBNull;
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.processors.ProcessorChain;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.filters.AndFilter;
+import org.dizitart.no2.filters.ComparableFilter;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.index.ComparableIndexer;
+import org.dizitart.no2.index.IndexDescriptor;
+import org.dizitart.no2.index.NitriteIndexer;
+
+import java.util.*;
+
+/**
+ * An {@link Aggregation} of a collection, which answers the operations on an
+ * indexed field from the index keys when the filter selects nothing but a
+ * range of that field. The documents are read only for the typed value of a
+ * numeric key, as the index holds every number as a double.
+ *
+ * @since 4.5
+ */
+class IndexedAggregation extends Aggregation {
+    private final Filter filter;
+    private final ReadOperations readOperations;
+    private final IndexOperations indexOperations;
+    private final NitriteConfig nitriteConfig;
+    private final ProcessorChain processorChain;
+
+    IndexedAggregation(Filter filter,
+                       ReadOperations readOperations,
+                       IndexOperations indexOperations,
+                       NitriteConfig nitriteConfig,
+                       ProcessorChain processorChain) {
+        super(readOperations.streamDocuments(filter));
+        this.filter = filter;
+        this.readOperations = readOperations;
+        this.indexOperations = indexOperations;
+        this.nitriteConfig = nitriteConfig;
+        this.processorChain = processorChain;
+    }
+
+    @Override
+    public long count() {
+        return readOperations.count(filter);
+    }
+
+    @Override
+    public Object min(String field) {
+        RecordStream<Pair<DBValue, Collection<NitriteId>>> keys = streamKeys(field, false);
+        return keys == null ? super.min(field) : firstValue(field, keys);
+    }
+
+    @Override
+    public Object max(String field) {
+        RecordStream<Pair<DBValue, Collection<NitriteId>>> keys = streamKeys(field, true);
+        return keys == null ? super.max(field) : firstValue(field, keys);
+    }
+
+    @Override
+    public Map<Object, Long> countBy(String field) {
+        RecordStream<Pair<DBValue, Collection<NitriteId>>> keys = streamKeys(field, false);
+        if (keys == null) {
+            return super.countBy(field);
+        }
+
+        Map<Object, Long> counts = new LinkedHashMap<>();
+        for (Pair<DBValue, Collection<NitriteId>> entry : keys) {
+            Object value = valueOf(field, entry);
+            counts.merge(value, (long) entry.getSecond().size(), Long::sum);
+        }
+        return counts;
+    }
+
+    private Object firstValue(String field, RecordStream<Pair<DBValue, Collection<NitriteId>>> keys) {
+        for (Pair<DBValue, Collection<NitriteId>> entry : keys) {
+            if (!(entry.getFirst() instanceof DBNull)) {
+                return valueOf(field, entry);
+            }
+        }
+        return null;
+    }
+
+    private Object valueOf(String field, Pair<DBValue, Collection<NitriteId>> entry) {
+        DBValue key = entry.getFirst();
+        if (key instanceof DBNull) {
+            return null;
+        }
+        if (key.getValue() instanceof Number) {
+            // the key has lost the type of the number, only the document has it
+            NitriteId nitriteId = entry.getSecond().iterator().next();
+            Document document = readOperations.getById(nitriteId);
+            if (document != null) {
+                return document.get(field);
+            }
+        }
+        return key.getValue();
+    }
+
+    /**
+     * Finds the keys of an index on the field within the range of the filter, or
+     * returns <code>null</code> if the index keys do not answer the aggregation.
+     * That needs documents read as they are stored, a filter on nothing but the
+     * field, and a built index on the field whose keys never come from an array.
+     */
+    private RecordStream<Pair<DBValue, Collection<NitriteId>>> streamKeys(String field, boolean reverse) {
+        if (field == null || (processorChain != null && !processorChain.isEmpty())) {
+            return null;
+        }
+
+        List<ComparableFilter> keyFilters = keyFilters(readOperations.prepare(filter), field);
+        if (keyFilters == null) {
+            return null;
+        }
+
+        for (IndexDescriptor indexDescriptor : indexOperations.listIndexes()) {
+            if (!field.equals(indexDescriptor.getFields().getFieldNames().get(0))
+                || indexOperations.isIndexing(indexDescriptor.getFields())
+                || !indexOperations.isSingleValued(indexDescriptor)) {
+                continue;
+            }
+
+            NitriteIndexer indexer = nitriteConfig.findIndexer(indexDescriptor.getIndexType());
+            if (indexer instanceof ComparableIndexer) {
+                RecordStream<Pair<DBValue, Collection<NitriteId>>> keys = ((ComparableIndexer) indexer)
+                    .streamKeysByFilter(indexDescriptor, keyFilters, reverse, nitriteConfig);
+                if (keys != null) {
+                    return keys;
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<ComparableFilter> keyFilters(Filter filter, String field) {
+        if (filter == Filter.ALL) {
+            return Collections.emptyList();
+        }
+
+        List<Filter> filters = filter instanceof AndFilter
+            ? ((AndFilter) filter).getFilters()
+            : Collections.singletonList(filter);
+        List<ComparableFilter> keyFilters = new ArrayList<>();
+        for (Filter f : filters) {
+            if (!(f instanceof ComparableFilter) || !field.equals(((ComparableFilter) f).getField())) {
+                return null;
+            }
+            keyFilters.add((ComparableFilter) f);
+        }
+        return keyFilters;
+    }
+}
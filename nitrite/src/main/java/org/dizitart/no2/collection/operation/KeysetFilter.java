@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.streams.KeysetToken;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.filters.FluentFilter;
+
+/**
+ * Selects the documents which come after the position of a continuation
+ * token in the order of a keyset paginated find.
+ *
+ * @since 4.5
+ */
+class KeysetFilter implements Filter {
+    private final KeysetToken token;
+
+    KeysetFilter(KeysetToken token) {
+        this.token = token;
+    }
+
+    @Override
+    public boolean apply(Pair<NitriteId, Document> element) {
+        return token.compareTo(element.getFirst(), element.getSecond()) > 0;
+    }
+
+    /**
+     * Creates a range filter on the first sort field, which starts an index
+     * scan at the value of the token. It returns <code>null</code> if the
+     * value is <code>null</code>, which sorts before every other value.
+     */
+    Filter createSeekFilter() {
+        Object value = token.getValues().get(0);
+        if (!(value instanceof Comparable)) {
+            return null;
+        }
+
+        Pair<String, SortOrder> first = token.getSortOrder().get(0);
+        if (first.getSecond() == SortOrder.Ascending) {
+            return FluentFilter.where(first.getFirst()).gte((Comparable<?>) value);
+        } else {
+            return FluentFilter.where(first.getFirst()).lte((Comparable<?>) value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "(after " + token.getValues() + ", " + token.getNitriteId() + ")";
+    }
+}
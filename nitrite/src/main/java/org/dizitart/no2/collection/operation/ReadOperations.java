@@ -18,10 +18,16 @@ package org.dizitart.no2.collection.operation;
 
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.*;
+import org.dizitart.no2.collection.ExecutionProfile.StageType;
+import org.dizitart.no2.common.Fields;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.common.streams.*;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.FilterException;
+import org.dizitart.no2.exceptions.ValidationException;
 import org.dizitart.no2.filters.*;
+import org.dizitart.no2.index.ComparableIndexer;
 import org.dizitart.no2.index.IndexDescriptor;
 import org.dizitart.no2.index.NitriteIndexer;
 import org.dizitart.no2.common.processors.ProcessorChain;
@@ -29,9 +35,15 @@ import org.dizitart.no2.store.NitriteMap;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
+import static org.dizitart.no2.common.Constants.DOC_ID;
 import static org.dizitart.no2.common.tuples.Pair.pair;
 
 /**
@@ -43,6 +55,7 @@ class ReadOperations {
     private final NitriteConfig nitriteConfig;
     private final NitriteMap<NitriteId, Document> nitriteMap;
     private final FindOptimizer findOptimizer;
+    private final FindPlanCache findPlanCache;
     private final IndexOperations indexOperations;
     private final ProcessorChain processorChain;
 
@@ -55,19 +68,126 @@ class ReadOperations {
         this.nitriteConfig = nitriteConfig;
         this.collectionName = collectionName;
         this.indexOperations = indexOperations;
-        this.findOptimizer = new FindOptimizer();
+        // lambdas, a method reference would fail fast on a null target
+        this.findOptimizer = new FindOptimizer(
+            indexDescriptor -> this.indexOperations.getIndexStatistics(indexDescriptor),
+            () -> this.nitriteMap.size(), this::isOrderedIndex);
+        this.findPlanCache = new FindPlanCache();
         this.processorChain = processorChain;
     }
 
     public DocumentCursor find(Filter filter, FindOptions findOptions) {
+        if (findOptions != null && findOptions.continuationToken() != null) {
+            filter = createKeysetFilter(filter, findOptions);
+        }
+
+        FindPlan findPlan = plan(filter, findOptions);
+        DocumentStream cursor = createCursor(findPlan);
+        cursor.setIndexLookup(createIndexLookup(filter == null ? Filter.ALL : filter, findPlan));
+        return cursor;
+    }
+
+    /**
+     * Streams the documents selected by the filter as they are stored, without a
+     * copy, unless a processor has to transform them. The documents must not be
+     * modified. The query is planned when the stream is iterated.
+     */
+    RecordStream<Document> streamDocuments(Filter filter) {
+        return () -> {
+            FindPlan findPlan = plan(filter, null);
+            RecordStream<Pair<NitriteId, Document>> recordStream = findSuitableStream(findPlan);
+            Iterator<Pair<NitriteId, Document>> iterator = recordStream == null
+                ? Collections.emptyIterator() : recordStream.iterator();
+            boolean process = processorChain != null && !processorChain.isEmpty();
+
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Document next() {
+                    Document document = iterator.next().getSecond();
+                    if (process && document != null) {
+                        document = processorChain.processAfterRead(document.clone());
+                    }
+                    return document;
+                }
+            };
+        };
+    }
+
+    /**
+     * Counts the documents selected by the filter, from the index alone when
+     * the index scan fully answers the filter.
+     */
+    long count(Filter filter) {
+        FindPlan findPlan = plan(filter, null);
+        LongSupplier coveredCount = computeCoveredCount(findPlan);
+        if (coveredCount != null) {
+            return coveredCount.getAsLong();
+        }
+
+        RecordStream<Pair<NitriteId, Document>> recordStream = findSuitableStream(findPlan);
+        return recordStream == null ? 0 : recordStream.size();
+    }
+
+    /**
+     * Validates the filter and binds it to the collection, so that its values can be read.
+     */
+    Filter prepare(Filter filter) {
         if (filter == null) {
             filter = Filter.ALL;
         }
 
+        if (QueryParameter.hasParameters(filter)) {
+            throw new FilterException("Filter has parameters which are not bound to a value, "
+                + "execute it as a prepared query");
+        }
+
         prepareFilter(filter);
+        return filter;
+    }
+
+    private FindPlan plan(Filter filter, FindOptions findOptions) {
+        filter = prepare(filter);
         Collection<IndexDescriptor> indexDescriptors = indexOperations.listIndexes();
-        FindPlan findPlan = findOptimizer.optimize(filter, findOptions, indexDescriptors);
-        return createCursor(findPlan);
+        FindPlan findPlan;
+        if (findOptimizer.usesStatistics(indexDescriptors)) {
+            // a cost based plan depends on the values of the filter, it can not be shared
+            findPlan = findOptimizer.optimize(filter, findOptions, indexDescriptors);
+        } else {
+            findPlan = findPlanCache.getOrCreate(filter, indexDescriptors,
+                f -> findOptimizer.planFilter(f, indexDescriptors));
+            findPlan = findOptimizer.applyOptions(findPlan, findOptions, indexDescriptors);
+        }
+        if (findPlan.getSortBufferSize() == null) {
+            findPlan.setSortBufferSize(nitriteConfig.getSortBufferSize());
+        }
+        if (findPlan.getSortBufferSize() > 0 && nitriteMap.getStore().getStoreConfig().isEncrypted()) {
+            // the sorted runs would hold the documents unencrypted
+            findPlan.setSortBufferSize(0);
+        }
+        if (findPlan.getExecutionProfile() != null) {
+            shareProfile(findPlan, findPlan.getExecutionProfile());
+        }
+        return findPlan;
+    }
+
+    /**
+     * Checks if an index can be walked in key order to serve a sort. Its keys
+     * must be ordered, and every document must be stored under exactly one key,
+     * else a document with an array value would be placed by any of its elements.
+     */
+    private boolean isOrderedIndex(IndexDescriptor indexDescriptor) {
+        return nitriteConfig.findIndexer(indexDescriptor.getIndexType()) instanceof ComparableIndexer
+            && !indexOperations.isIndexing(indexDescriptor.getFields())
+            && indexOperations.isSingleValued(indexDescriptor);
+    }
+
+    void invalidatePlans() {
+        findPlanCache.invalidate();
     }
 
     Document getById(NitriteId nitriteId) {
@@ -106,23 +226,157 @@ class ReadOperations {
         }
     }
 
-    private DocumentCursor createCursor(FindPlan findPlan) {
-        // -1 means "not an index scan"; the index branch records the exact id-set size here.
-        long[] indexedIdCount = { -1 };
-        RecordStream<Pair<NitriteId, Document>> recordStream = findSuitableStream(findPlan, indexedIdCount);
+    private DocumentStream createCursor(FindPlan findPlan) {
+        RecordStream<Pair<NitriteId, Document>> recordStream = findSuitableStream(findPlan);
         DocumentStream cursor = new DocumentStream(recordStream, processorChain);
         cursor.setFindPlan(findPlan);
-        cursor.setCoveredCount(computeCoveredCount(findPlan, indexedIdCount[0]));
+        cursor.setCoveredCount(computeCoveredCount(findPlan));
+
+        RecordStream<Pair<NitriteId, Document>> indexEntries = findCoveringEntries(findPlan);
+        if (indexEntries != null) {
+            IndexDescriptor indexDescriptor = findPlan.getIndexDescriptor();
+            findPlan.setCovered(true);
+            RecordStream<Pair<NitriteId, Document>> entryStream = profile(findPlan,
+                new IndexEntryStream(indexEntries, nitriteMap, indexDescriptor.getFields().getFieldNames(),
+                    indexOperations.getNumberTypes(indexDescriptor)), StageType.INDEX_SCAN, "IndexEntryStream");
+            cursor.setCoveredStream(sortAndBound(findPlan, entryStream));
+        }
         return cursor;
     }
 
     /**
-     * Returns the exact match count when the query is fully answered without fetching documents,
-     * or {@code null} when the cursor must be drained to count. The count is exact only when
-     * nothing downstream drops or changes cardinality (a post-filter, skip, or limit); sort does
-     * not change the count, and an OR-union needs de-duplication so its count cannot be derived.
+     * Restricts the filter to the documents after the position of the continuation
+     * token. If the first sort field is indexed, a range filter on it lets the index
+     * scan start at the sort value of the token instead of the first key.
      */
-    private Long computeCoveredCount(FindPlan findPlan, long indexedIdCount) {
+    private Filter createKeysetFilter(Filter filter, FindOptions findOptions) {
+        KeysetToken token = KeysetToken.decode(findOptions.continuationToken());
+        List<Pair<String, SortOrder>> sortOrder = findOptions.orderBy() == null
+            ? Collections.emptyList() : findOptions.orderBy().getSortingOrders();
+        if (!token.matches(sortOrder)) {
+            throw new ValidationException("The continuation token was taken from a find with another sort order");
+        }
+
+        List<Filter> filters = new ArrayList<>();
+        if (filter != null && filter != Filter.ALL) {
+            filters.add(filter);
+        }
+
+        KeysetFilter keysetFilter = new KeysetFilter(token);
+        Filter seekFilter = keysetFilter.createSeekFilter();
+        if (seekFilter != null && canSeek(sortOrder.get(0))) {
+            filters.add(seekFilter);
+        }
+        filters.add(keysetFilter);
+
+        if (filters.size() == 1) {
+            return keysetFilter;
+        }
+
+        Filter keysetPage = Filter.and(filters.toArray(new Filter[0]));
+        if (filter instanceof NitriteFilter) {
+            // keep the filter of the query as it is prepared
+            ((NitriteFilter) keysetPage).setObjectFilter(((NitriteFilter) filter).getObjectFilter());
+        }
+        return keysetPage;
+    }
+
+    /**
+     * Checks if an index scan can start at the value of the first sort field. A range
+     * never matches the null key, which is the last key of a descending order, so a
+     * descending seek is only possible if the index meta records no null key.
+     */
+    private boolean canSeek(Pair<String, SortOrder> firstSortField) {
+        Fields fields = Fields.withNames(firstSortField.getFirst());
+        IndexDescriptor indexDescriptor = indexOperations.findIndexDescriptor(fields);
+        if (indexDescriptor == null || indexOperations.isIndexing(fields)
+            || !(nitriteConfig.findIndexer(indexDescriptor.getIndexType()) instanceof ComparableIndexer)) {
+            // without an index the range would only be another post-filter
+            return false;
+        }
+
+        if (firstSortField.getSecond() == SortOrder.Descending) {
+            return !indexOperations.hasNullKeys(indexDescriptor);
+        }
+        return true;
+    }
+
+    /**
+     * Creates the lookup a join probes to find the documents of a cursor with a field
+     * value, by running the filter of the cursor together with an equality on an indexed
+     * field. A cursor with skip or limit does not hold every document of its filter, and
+     * the keys of an index no longer match the documents read through a processor.
+     */
+    private BiFunction<String, Object, RecordStream<Document>> createIndexLookup(Filter filter,
+                                                                                 FindPlan findPlan) {
+        if (findPlan.getSkip() != null || findPlan.getLimit() != null
+            || (processorChain != null && !processorChain.isEmpty())) {
+            return null;
+        }
+
+        return (field, value) -> {
+            if (!(value instanceof Comparable)) {
+                return null;
+            }
+
+            Fields fields = Fields.withNames(field);
+            IndexDescriptor indexDescriptor = indexOperations.findIndexDescriptor(fields);
+            if (indexDescriptor == null || indexOperations.isIndexing(fields)
+                || !(nitriteConfig.findIndexer(indexDescriptor.getIndexType()) instanceof ComparableIndexer)) {
+                return null;
+            }
+
+            Filter equals = FluentFilter.where(field).eq(value);
+            if (filter == Filter.ALL) {
+                return find(equals, null);
+            }
+
+            Filter lookupFilter = Filter.and(filter, equals);
+            if (filter instanceof NitriteFilter) {
+                // keep the filter of the cursor as it is prepared
+                ((NitriteFilter) lookupFilter).setObjectFilter(((NitriteFilter) filter).getObjectFilter());
+            }
+            return find(lookupFilter, null);
+        };
+    }
+
+    /**
+     * Returns the entries of the index when its keys alone answer the query, or
+     * {@code null} otherwise. That needs a plain index scan with no post-filter,
+     * sorted on index fields only, over an index whose keys never come from an array.
+     */
+    private RecordStream<Pair<NitriteId, Document>> findCoveringEntries(FindPlan findPlan) {
+        IndexDescriptor indexDescriptor = findPlan.getIndexDescriptor();
+        if (indexDescriptor == null
+            || !findPlan.getSubPlans().isEmpty()
+            || !findPlan.getIntersectedPlans().isEmpty()
+            || findPlan.getCollectionScanFilter() != null
+            || findPlan.getByIdFilter() != null) {
+            return null;
+        }
+
+        List<String> indexedFields = indexDescriptor.getFields().getFieldNames();
+        for (Pair<String, SortOrder> sortOrder : findPlan.getBlockingSortOrder()) {
+            if (!indexedFields.contains(sortOrder.getFirst())) {
+                return null;
+            }
+        }
+
+        NitriteIndexer indexer = nitriteConfig.findIndexer(indexDescriptor.getIndexType());
+        if (!(indexer instanceof ComparableIndexer) || !indexOperations.isSingleValued(indexDescriptor)) {
+            return null;
+        }
+        return ((ComparableIndexer) indexer).streamEntriesByFilter(findPlan, nitriteConfig);
+    }
+
+    /**
+     * Returns how to compute the exact match count when the query is fully answered without
+     * fetching documents, or {@code null} when the cursor must be drained to count. The count
+     * is exact only when nothing downstream drops or changes cardinality (a post-filter, skip,
+     * or limit); sort does not change the count, and an OR-union needs de-duplication so its
+     * count cannot be derived.
+     */
+    private LongSupplier computeCoveredCount(FindPlan findPlan) {
         if (!findPlan.getSubPlans().isEmpty()
             || findPlan.getCollectionScanFilter() != null
             || findPlan.getSkip() != null
@@ -131,83 +385,303 @@ class ReadOperations {
             return null;
         }
         if (findPlan.getIndexDescriptor() != null) {
-            // the index supplied the exact matching id set
-            return indexedIdCount >= 0 ? indexedIdCount : null;
+            IndexDescriptor indexDescriptor = findPlan.getIndexDescriptor();
+            NitriteIndexer indexer = nitriteConfig.findIndexer(indexDescriptor.getIndexType());
+            if (findPlan.getIntersectedPlans().isEmpty()
+                && indexer instanceof ComparableIndexer
+                && indexOperations.isSingleValued(indexDescriptor)) {
+                // every id is stored under a single key, the index counts the
+                // entries of the range without collecting the ids
+                return () -> ((ComparableIndexer) indexer).countByFilter(findPlan, nitriteConfig);
+            }
+
+            // the index supplies the exact matching id set; count it on demand
+            // by walking the index only, without fetching any document
+            RecordStream<NitriteId> nitriteIds = findNitriteIds(findPlan);
+            return nitriteIds::size;
         }
         // pure full scan over the whole collection
-        return nitriteMap.size();
+        long size = nitriteMap.size();
+        return () -> size;
     }
 
-    private RecordStream<Pair<NitriteId, Document>> findSuitableStream(FindPlan findPlan, long[] indexedIdCount) {
+    private RecordStream<Pair<NitriteId, Document>> findSuitableStream(FindPlan findPlan) {
         RecordStream<Pair<NitriteId, Document>> rawStream;
 
         if (!findPlan.getSubPlans().isEmpty()) {
-            // or filters get all sub stream by finding suitable stream of all sub plans
-            List<RecordStream<Pair<NitriteId, Document>>> subStreams = new ArrayList<>();
-            for (FindPlan subPlan : findPlan.getSubPlans()) {
-                // a sub-plan's own id count cannot answer the union's count (dedup), so discard it
-                RecordStream<Pair<NitriteId, Document>> suitableStream = findSuitableStream(subPlan, new long[]{ -1 });
-                subStreams.add(suitableStream);
-            }
-
-            // concat all suitable stream of all sub plans
-            rawStream = new ConcatStream(subStreams);
-
-            // Always apply distinct stream for OR filters to avoid duplicates
-            // when the same document matches multiple sub-plans (different indexes)
-            rawStream = new DistinctStream(rawStream);
+            rawStream = findUnionStream(findPlan);
         } else {
             // and or single filter
             if (findPlan.getByIdFilter() != null) {
-                FieldBasedFilter byIdFilter = findPlan.getByIdFilter();
-                Object idValue = byIdFilter.getValue();
-                // the search term may be any numeric or String representation of an id,
-                // e.g. a String for databases written before 4.4 (gh-1263)
-                NitriteId nitriteId = idValue instanceof Long
-                    ? NitriteId.createId((long) idValue)
-                    : NitriteId.createId(String.valueOf(idValue));
-                if (nitriteMap.containsKey(nitriteId)) {
+                NitriteId nitriteId = findById(findPlan);
+                if (nitriteId != null) {
                     Document document = nitriteMap.get(nitriteId);
                     rawStream = RecordStream.single(pair(nitriteId, document));
                 } else {
                     rawStream = RecordStream.empty();
                 }
+                rawStream = profile(findPlan, rawStream, StageType.ID_LOOKUP, "IdLookup");
             } else {
                 IndexDescriptor indexDescriptor = findPlan.getIndexDescriptor();
                 if (indexDescriptor != null) {
-                    // get optimized filter
-                    NitriteIndexer indexer = nitriteConfig.findIndexer(indexDescriptor.getIndexType());
-                    LinkedHashSet<NitriteId> nitriteIds = indexer.findByFilter(findPlan, nitriteConfig);
-
-                    // the index supplied the exact matching id set; record its size so a size()
-                    // with no row-dropping step downstream can answer from it without fetching
-                    indexedIdCount[0] = nitriteIds.size();
+                    // the ids are pulled from the index lazily, so a limit or a first()
+                    // downstream stops the index walk instead of draining it
+                    RecordStream<NitriteId> nitriteIds = profile(findPlan, findNitriteIds(findPlan),
+                        StageType.INDEX_SCAN, "IndexScan");
 
                     // create indexed stream from optimized filter
-                    rawStream = new IndexedStream(nitriteIds, nitriteMap);
+                    rawStream = profile(findPlan, new IndexedStream(nitriteIds, nitriteMap),
+                        StageType.FETCH, "IndexedStream", nitriteIds);
+                } else if (isParallelScan(findPlan)) {
+                    rawStream = createParallelScan(findPlan);
                 } else {
-                    rawStream = nitriteMap.entries();
+                    rawStream = profile(findPlan, nitriteMap.entries(),
+                        StageType.COLLECTION_SCAN, "CollectionScan");
                 }
             }
 
-            if (findPlan.getCollectionScanFilter() != null) {
-                rawStream = new FilteredStream(rawStream, findPlan.getCollectionScanFilter());
+            if (findPlan.getCollectionScanFilter() != null && !isParallelScan(findPlan)) {
+                rawStream = profile(findPlan, new FilteredStream(rawStream, findPlan.getCollectionScanFilter()),
+                    StageType.FILTER, "FilteredStream", rawStream);
+            }
+        }
+
+        return sortAndBound(findPlan, rawStream);
+    }
+
+    /**
+     * Unions the results of the sub plans of an or filter. The ids of all sub plans are
+     * merged before any document is read, so a document matched by several sub plans is
+     * fetched once. If every sub plan scans the same index in the sort order, the index
+     * entries are merged by key instead, and the union needs no blocking sort.
+     */
+    private RecordStream<Pair<NitriteId, Document>> findUnionStream(FindPlan findPlan) {
+        for (FindPlan subPlan : findPlan.getSubPlans()) {
+            if (!subPlan.getSubPlans().isEmpty()
+                || (subPlan.getByIdFilter() == null && subPlan.getIndexDescriptor() == null)) {
+                return findConcatStream(findPlan);
+            }
+        }
+
+        List<Filter> filters = new ArrayList<>();
+        for (FindPlan subPlan : findPlan.getSubPlans()) {
+            filters.add(subPlan.getCollectionScanFilter());
+        }
+
+        if (findPlan.getIndexScanOrder() != null) {
+            return findOrderedUnionStream(findPlan, filters);
+        }
+
+        List<RecordStream<NitriteId>> idStreams = new ArrayList<>();
+        for (FindPlan subPlan : findPlan.getSubPlans()) {
+            if (subPlan.getByIdFilter() != null) {
+                NitriteId nitriteId = findById(subPlan);
+                RecordStream<NitriteId> nitriteIds = nitriteId == null
+                    ? RecordStream.empty() : RecordStream.single(nitriteId);
+                idStreams.add(profile(subPlan, nitriteIds, StageType.INDEX_SCAN, "IdLookup"));
+            } else {
+                idStreams.add(profile(subPlan, findNitriteIds(subPlan), StageType.INDEX_SCAN, "IndexScan"));
+            }
+        }
+
+        UnionStream unionStream = new UnionStream(idStreams, filters, nitriteMap);
+        return profileUnion(findPlan, unionStream, unionStream::setUnionStage,
+            unionStream::setFetchStage, idStreams);
+    }
+
+    private RecordStream<Pair<NitriteId, Document>> findOrderedUnionStream(FindPlan findPlan,
+                                                                           List<Filter> filters) {
+        List<String> indexedFields = findPlan.getSubPlans().get(0).getIndexDescriptor()
+            .getFields().getFieldNames();
+        Map<String, Boolean> indexScanOrder = findPlan.getIndexScanOrder();
+        List<Pair<String, SortOrder>> sortOrder = new ArrayList<>();
+        for (String field : indexedFields) {
+            if (!indexScanOrder.containsKey(field)) {
+                break;
+            }
+            sortOrder.add(pair(field, indexScanOrder.get(field) ? SortOrder.Descending : SortOrder.Ascending));
+        }
+
+        List<RecordStream<Pair<NitriteId, Document>>> entryStreams = new ArrayList<>();
+        for (FindPlan subPlan : findPlan.getSubPlans()) {
+            ComparableIndexer indexer = (ComparableIndexer) nitriteConfig.findIndexer(
+                subPlan.getIndexDescriptor().getIndexType());
+            // the planner only merges sub plans whose entries the index can walk
+            RecordStream<Pair<NitriteId, Document>> entries = indexer.streamEntriesByFilter(subPlan, nitriteConfig);
+            entryStreams.add(profile(subPlan, entries, StageType.INDEX_SCAN, "IndexEntryScan"));
+        }
+
+        OrderedUnionStream unionStream = new OrderedUnionStream(entryStreams, filters, sortOrder, nitriteMap);
+        return profileUnion(findPlan, unionStream, unionStream::setUnionStage,
+            unionStream::setFetchStage, entryStreams);
+    }
+
+    /**
+     * Records the union of the sub plans, the documents it reads and the documents
+     * which match the post-filter of a sub plan, if the query is analyzed.
+     */
+    private RecordStream<Pair<NitriteId, Document>> profileUnion(FindPlan findPlan,
+                                                                 RecordStream<Pair<NitriteId, Document>> unionStream,
+                                                                 Consumer<ExecutionProfile.Stage> unionStage,
+                                                                 Consumer<ExecutionProfile.Stage> fetchStage,
+                                                                 List<? extends RecordStream<?>> inputs) {
+        ExecutionProfile executionProfile = findPlan.getExecutionProfile();
+        if (executionProfile == null) {
+            return unionStream;
+        }
+
+        List<ExecutionProfile.Stage> inputStages = new ArrayList<>();
+        for (RecordStream<?> input : inputs) {
+            if (input instanceof ProfiledStream) {
+                inputStages.add(((ProfiledStream<?>) input).getStage());
             }
         }
 
+        ExecutionProfile.Stage union = executionProfile.addStage(StageType.UNION, "UnionStream", inputStages);
+        ExecutionProfile.Stage fetch = executionProfile.addStage(StageType.FETCH, "UnionFetch",
+            Collections.singletonList(union));
+        unionStage.accept(union);
+        fetchStage.accept(fetch);
+        return new ProfiledStream<>(unionStream, executionProfile.addStage(StageType.FILTER,
+            "UnionFilter", Collections.singletonList(fetch)));
+    }
+
+    private RecordStream<Pair<NitriteId, Document>> findConcatStream(FindPlan findPlan) {
+        // or filters get all sub stream by finding suitable stream of all sub plans
+        List<RecordStream<Pair<NitriteId, Document>>> subStreams = new ArrayList<>();
+        for (FindPlan subPlan : findPlan.getSubPlans()) {
+            RecordStream<Pair<NitriteId, Document>> suitableStream = findSuitableStream(subPlan);
+            subStreams.add(suitableStream);
+        }
+
+        // concat all suitable stream of all sub plans
+        RecordStream<Pair<NitriteId, Document>> rawStream = new ConcatStream(subStreams);
+
+        // Always apply distinct stream for OR filters to avoid duplicates
+        // when the same document matches multiple sub-plans (different indexes)
+        return profile(findPlan, new DistinctStream(rawStream), StageType.UNION,
+            "DistinctStream", subStreams.toArray(new RecordStream<?>[0]));
+    }
+
+    /**
+     * Returns the id of a find by id, or <code>null</code> if no document has the id.
+     */
+    private NitriteId findById(FindPlan findPlan) {
+        Object idValue = findPlan.getByIdFilter().getValue();
+        // the search term may be any numeric or String representation of an id,
+        // e.g. a String for databases written before 4.4 (gh-1263)
+        NitriteId nitriteId = idValue instanceof Long
+            ? NitriteId.createId((long) idValue)
+            : NitriteId.createId(String.valueOf(idValue));
+        return nitriteMap.containsKey(nitriteId) ? nitriteId : null;
+    }
+
+    /**
+     * Checks if a collection scan is filtered in parallel. A scan without a filter
+     * only copies the entries, it is not worth splitting.
+     */
+    private boolean isParallelScan(FindPlan findPlan) {
+        return findPlan.getIndexDescriptor() == null
+            && findPlan.getByIdFilter() == null
+            && findPlan.getParallelism() != null
+            && findPlan.getParallelism() > 1
+            && findPlan.getCollectionScanFilter() != null
+            && findPlan.getCollectionScanFilter() != Filter.ALL;
+    }
+
+    private RecordStream<Pair<NitriteId, Document>> createParallelScan(FindPlan findPlan) {
+        ParallelScanStream parallelScan = new ParallelScanStream(nitriteMap,
+            findPlan.getCollectionScanFilter(), findPlan.getParallelism());
+
+        ExecutionProfile executionProfile = findPlan.getExecutionProfile();
+        if (executionProfile == null) {
+            return parallelScan;
+        }
+
+        // the ranges are filtered while they are scanned, the scan stage counts
+        // the documents read and the filter stage the documents which match
+        ExecutionProfile.Stage scanStage = executionProfile.addStage(StageType.COLLECTION_SCAN,
+            "ParallelCollectionScan", Collections.emptyList());
+        parallelScan.setScanStage(scanStage);
+        return new ProfiledStream<>(parallelScan, executionProfile.addStage(StageType.FILTER,
+            "ParallelFilter", Collections.singletonList(scanStage)));
+    }
+
+    private RecordStream<Pair<NitriteId, Document>> sortAndBound(FindPlan findPlan,
+                                                               RecordStream<Pair<NitriteId, Document>> rawStream) {
         // sort and bound stage
         if (rawStream != null) {
             if (findPlan.getBlockingSortOrder() != null && !findPlan.getBlockingSortOrder().isEmpty()) {
-                rawStream = new SortedDocumentStream(findPlan, rawStream);
+                rawStream = profile(findPlan, new SortedDocumentStream(findPlan, rawStream),
+                    StageType.SORT, "SortedDocumentStream", rawStream);
+            }
+
+            if (findPlan.getKeysetSortOrder() != null && findPlan.getBlockingSortOrder().isEmpty()) {
+                // the index scan orders by the sort fields, the ids of equal
+                // sort values are ordered here
+                rawStream = profile(findPlan, new KeysetOrderStream(rawStream, findPlan.getKeysetSortOrder()),
+                    StageType.SORT, "KeysetOrderStream", rawStream);
             }
 
             if (findPlan.getLimit() != null || findPlan.getSkip() != null) {
                 long limit = findPlan.getLimit() == null ? Long.MAX_VALUE : findPlan.getLimit();
                 long skip = findPlan.getSkip() == null ? 0 : findPlan.getSkip();
-                rawStream = new BoundedStream<>(skip, limit, rawStream);
+                rawStream = profile(findPlan, new BoundedStream<>(skip, limit, rawStream),
+                    StageType.BOUND, "BoundedStream", rawStream);
             }
         }
 
         return rawStream;
     }
+
+    /**
+     * Records the statistics of a stream stage into the execution profile of the
+     * plan, if the query is analyzed. The inputs are the streams the stage reads from.
+     */
+    private <T> RecordStream<T> profile(FindPlan findPlan, RecordStream<T> recordStream,
+                                        StageType stageType, String name, RecordStream<?>... inputs) {
+        ExecutionProfile executionProfile = findPlan.getExecutionProfile();
+        if (executionProfile == null || recordStream == null) {
+            return recordStream;
+        }
+
+        List<ExecutionProfile.Stage> inputStages = new ArrayList<>();
+        for (RecordStream<?> input : inputs) {
+            if (input instanceof ProfiledStream) {
+                inputStages.add(((ProfiledStream<?>) input).getStage());
+            }
+        }
+        return new ProfiledStream<>(recordStream, executionProfile.addStage(stageType, name, inputStages));
+    }
+
+    private void shareProfile(FindPlan findPlan, ExecutionProfile executionProfile) {
+        for (FindPlan subPlan : findPlan.getSubPlans()) {
+            subPlan.setExecutionProfile(executionProfile);
+            shareProfile(subPlan, executionProfile);
+        }
+        for (FindPlan intersectedPlan : findPlan.getIntersectedPlans()) {
+            intersectedPlan.setExecutionProfile(executionProfile);
+        }
+    }
+
+    private RecordStream<NitriteId> findNitriteIds(FindPlan findPlan) {
+        NitriteIndexer indexer = nitriteConfig.findIndexer(findPlan.getIndexDescriptor().getIndexType());
+        RecordStream<NitriteId> nitriteIds = indexer.streamByFilter(findPlan, nitriteConfig);
+        if (!indexOperations.isSingleValued(findPlan.getIndexDescriptor())) {
+            // an id is stored under every element of an array, only a
+            // multi-valued index needs to remember the ids it has yielded
+            nitriteIds = RecordStream.distinct(nitriteIds);
+        }
+        if (findPlan.getIntersectedPlans().isEmpty()) {
+            return nitriteIds;
+        }
+
+        List<RecordStream<NitriteId>> intersectedIds = new ArrayList<>();
+        for (FindPlan intersectedPlan : findPlan.getIntersectedPlans()) {
+            NitriteIndexer intersectedIndexer = nitriteConfig.findIndexer(
+                intersectedPlan.getIndexDescriptor().getIndexType());
+            intersectedIds.add(intersectedIndexer.streamByFilter(intersectedPlan, nitriteConfig));
+        }
+        return new IntersectedIdStream(nitriteIds, intersectedIds);
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common;
+
+import lombok.EqualsAndHashCode;
+import org.dizitart.no2.NitriteConfig;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
+/**
+ * Represents the name of a document field resolved once into the keys
+ * of its embedded documents. A filter evaluates the same field for every
+ * document of a scan, with a {@link FieldPath} the name is split on the
+ * field separator only once per query instead of once per document.
+ * <p>
+ * The keys are split with the field separator configured when the path
+ * is created.
+ *
+ * @see NitriteConfig#fieldSeparator(String)
+ * @since 4.5
+ */
+@EqualsAndHashCode(of = "name")
+public final class FieldPath {
+    private static volatile SeparatorPattern separatorPattern;
+
+    private final String name;
+    private final List<String> keys;
+    private final boolean embedded;
+
+    private FieldPath(String name) {
+        String separator = NitriteConfig.getFieldSeparator();
+        this.name = name;
+        this.embedded = name.contains(separator);
+        if (embedded) {
+            String[] splits = splitKeys(name);
+            for (int i = 0; i < splits.length; i++) {
+                splits[i] = splits[i].intern();
+            }
+            this.keys = Collections.unmodifiableList(Arrays.asList(splits));
+        } else {
+            this.keys = Collections.singletonList(name);
+        }
+    }
+
+    /**
+     * Creates a {@link FieldPath} for a field name.
+     *
+     * @param name the name of the field
+     * @return the field path
+     */
+    public static FieldPath of(String name) {
+        notNull(name, "name cannot be null");
+        return new FieldPath(name);
+    }
+
+    /**
+     * Splits a field name on the field separator, as
+     * {@link String#split(String)} does.
+     *
+     * @param field the field name
+     * @return the keys of the embedded documents
+     */
+    public static String[] splitKeys(String field) {
+        String separator = NitriteConfig.getFieldSeparator();
+        SeparatorPattern current = separatorPattern;
+        if (current == null || !current.separator.equals(separator)) {
+            // the separator only changes before a database is opened
+            current = new SeparatorPattern(separator);
+            separatorPattern = current;
+        }
+        return current.pattern.split(field);
+    }
+
+    /**
+     * Gets the name of the field.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the keys of the embedded documents, from the outermost to
+     * the innermost. The list is unmodifiable.
+     *
+     * @return the keys
+     */
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Indicates if the name contains the field separator.
+     *
+     * @return <code>true</code> if the field is an embedded field
+     */
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private static class SeparatorPattern {
+        private final String separator;
+        private final Pattern pattern;
+
+        SeparatorPattern(String separator) {
+            this.separator = separator;
+            this.pattern = Pattern.compile(Pattern.quote(separator));
+        }
+    }
+}
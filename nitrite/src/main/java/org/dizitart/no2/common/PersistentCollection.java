@@ -94,6 +94,25 @@ public interface PersistentCollection<T> extends EventAware, AttributesAware, Au
      */
     void rebuildIndex(String... fields);
 
+    /**
+     * Collects statistics of all value ordered indices in the collection, i.e.
+     * the number of entries, the number of distinct keys and a histogram of
+     * the leading indexed field.
+     * <p>
+     * The query planner uses these statistics to estimate how many documents
+     * a filter selects, and picks the cheapest of the candidate indices or a
+     * full collection scan. Until a collection is analyzed, the planner picks
+     * the index covering the most filter fields. The statistics are a
+     * snapshot, so the collection should be analyzed again after its data
+     * distribution has changed considerably.
+     * <p>
+     * The default implementation collects nothing.
+     *
+     * @since 4.5
+     */
+    default void analyze() {
+    }
+
     /**
      * Gets a set of all indices in the collection.
      *
@@ -116,6 +116,50 @@ public interface RecordStream<T> extends Iterable<T> {
         });
     }
 
+    /**
+     * Creates a {@link RecordStream} which yields every element of an {@link Iterable}
+     * only the first time it occurs. The elements seen so far are held in memory.
+     *
+     * @param <T>      the type parameter
+     * @param iterable the iterable
+     * @return the record stream
+     * @since 4.5
+     */
+    static <T> RecordStream<T> distinct(Iterable<T> iterable) {
+        return RecordStream.fromIterable(() -> new Iterator<T>() {
+            private final Iterator<T> iterator = iterable != null ? iterable.iterator() : Collections.emptyIterator();
+            private final Set<T> seen = new HashSet<>();
+            private T nextItem;
+            private boolean nextItemSet = false;
+
+            @Override
+            public boolean hasNext() {
+                return nextItemSet || setNextId();
+            }
+
+            @Override
+            public T next() {
+                if (!nextItemSet && !setNextId()) {
+                    throw new NoSuchElementException();
+                }
+                nextItemSet = false;
+                return nextItem;
+            }
+
+            private boolean setNextId() {
+                while (iterator.hasNext()) {
+                    final T item = iterator.next();
+                    if (seen.add(item)) {
+                        nextItem = item;
+                        nextItemSet = true;
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
     /**
      * Creates an empty {@link RecordStream}.
      *
@@ -99,6 +99,17 @@ public class ThreadPoolManager {
         };
     }
 
+    /**
+     * Gets the common pool, which runs the asynchronous tasks of all databases
+     * unless they are given an executor of their own.
+     *
+     * @return the common pool
+     * @since 4.5
+     */
+    public static ExecutorService commonPool() {
+        return commonPool;
+    }
+
     /**
      * Submits a runnable task asynchronously on common pool.
      *
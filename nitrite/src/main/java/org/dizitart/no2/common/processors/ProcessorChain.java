@@ -41,6 +41,16 @@ public class ProcessorChain implements Processor {
         processors.remove(processor);
     }
 
+    /**
+     * Checks if the chain has no processor, i.e. a document is read as it is stored.
+     *
+     * @return <code>true</code> if there is no processor
+     * @since 4.5
+     */
+    public boolean isEmpty() {
+        return processors.isEmpty();
+    }
+
     @Override
     public Document processBeforeWrite(Document document) {
         Document processed = document;
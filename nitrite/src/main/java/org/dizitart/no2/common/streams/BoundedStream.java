@@ -19,6 +19,7 @@ package org.dizitart.no2.common.streams;
 
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.ValidationException;
 
 import java.util.Collections;
@@ -55,7 +56,7 @@ public class BoundedStream<Key, Value> implements RecordStream<Pair<Key, Value>>
         return new BoundedIterator<>(iterator, skip, limit);
     }
 
-    private static class BoundedIterator<T> implements Iterator<T> {
+    private static class BoundedIterator<T> implements Iterator<T>, AutoCloseable {
         private final Iterator<? extends T> iterator;
         private final long skip;
         private final long limit;
@@ -86,9 +87,16 @@ public class BoundedStream<Key, Value> implements RecordStream<Pair<Key, Value>>
             }
         }
 
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
         @Override
         public boolean hasNext() {
             if (checkBounds()) {
+                // nothing more is read, release the source early
+                close();
                 return false;
             }
             return iterator.hasNext();
@@ -21,6 +21,7 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 
 import java.util.*;
 
@@ -44,7 +45,7 @@ public class ConcatStream implements RecordStream<Pair<NitriteId, Document>> {
         return new UnionStreamIterator(iteratorQueue);
     }
 
-    private static class UnionStreamIterator implements Iterator<Pair<NitriteId, Document>> {
+    private static class UnionStreamIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
         private final Queue<Iterator<Pair<NitriteId, Document>>> iteratorQueue;
         private Iterator<Pair<NitriteId, Document>> currentIterator;
 
@@ -52,6 +53,16 @@ public class ConcatStream implements RecordStream<Pair<NitriteId, Document>> {
             this.iteratorQueue = iteratorQueue;
         }
 
+        @Override
+        public void close() {
+            if (currentIterator != null) {
+                Iterables.close(currentIterator);
+            }
+            while (!iteratorQueue.isEmpty()) {
+                Iterables.close(iteratorQueue.remove());
+            }
+        }
+
         @Override
         public boolean hasNext() {
             updateCurrentIterator();
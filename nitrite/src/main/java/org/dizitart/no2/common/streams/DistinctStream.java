@@ -21,6 +21,7 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 
 import java.util.*;
 
@@ -42,7 +43,7 @@ public class DistinctStream implements RecordStream<Pair<NitriteId, Document>> {
         return new DistinctStreamIterator(iterator);
     }
 
-    private static class DistinctStreamIterator implements Iterator<Pair<NitriteId, Document>> {
+    private static class DistinctStreamIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
         private final Iterator<Pair<NitriteId, Document>> iterator;
         private final Set<NitriteId> scannedIds;
         private Pair<NitriteId, Document> nextPair;
@@ -53,6 +54,11 @@ public class DistinctStream implements RecordStream<Pair<NitriteId, Document>> {
             this.scannedIds = new HashSet<>(); // fastest lookup for ids - O(1)
         }
 
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
         @Override
         public boolean hasNext() {
             return nextPairSet || setNextId();
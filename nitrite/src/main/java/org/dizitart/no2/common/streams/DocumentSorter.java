@@ -20,11 +20,14 @@ package org.dizitart.no2.common.streams;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBNull;
+import org.dizitart.no2.common.FieldPath;
 import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 
+import java.text.CollationKey;
 import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
@@ -34,59 +37,30 @@ import java.util.List;
  */
 public class DocumentSorter implements Comparator<Pair<NitriteId, Document>> {
     private final Collator collator;
-    private final List<Pair<String, SortOrder>> sortOrder;
+    private final List<Pair<FieldPath, SortOrder>> sortOrder;
 
     public DocumentSorter(Collator collator, List<Pair<String, SortOrder>> sortOrder) {
         this.collator = collator;
-        this.sortOrder = sortOrder;
+        this.sortOrder = new ArrayList<>();
+        if (sortOrder != null) {
+            // resolve the sort fields once, they are read for every comparison
+            for (Pair<String, SortOrder> pair : sortOrder) {
+                this.sortOrder.add(new Pair<>(FieldPath.of(pair.getFirst()), pair.getSecond()));
+            }
+        }
     }
 
     @Override
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public int compare(Pair<NitriteId, Document> pair1, Pair<NitriteId, Document> pair2) {
-        if (sortOrder != null && !sortOrder.isEmpty()) {
-            for (Pair<String, SortOrder> pair : sortOrder) {
+        if (!sortOrder.isEmpty()) {
+            for (Pair<FieldPath, SortOrder> pair : sortOrder) {
                 Document doc1 = pair1.getSecond();
                 Document doc2 = pair2.getSecond();
 
-                Object value1 = doc1.get(pair.getFirst());
-                Object value2 = doc2.get(pair.getFirst());
-
-                // handle null values
-                int result;
-                boolean isNull1 = value1 == null || value1 instanceof DBNull;
-                boolean isNull2 = value2 == null || value2 instanceof DBNull;
-                if (isNull1 && isNull2) {
-                    // two null keys are equal, otherwise the comparator
-                    // violates antisymmetry and TimSort may throw
-                    result = 0;
-                } else if (isNull1) {
-                    result = -1;
-                } else if (isNull2) {
-                    result = 1;
-                } else {
-
-                    // validate comparable
-                    if (!(value1 instanceof Comparable) || !(value2 instanceof Comparable)) {
-                        throw new InvalidOperationException("Cannot compare " + value1.getClass()
-                            + " and " + value2.getClass());
-                    }
-
-                    // compare values
-                    Comparable c1 = (Comparable) value1;
-                    Comparable c2 = (Comparable) value2;
-
-                    if (c1 instanceof String && c2 instanceof String && collator != null) {
-                        result = collator.compare(c1, c2);
-                    } else {
-                        result = c1.compareTo(c2);
-                    }
-                }
-
-                if (pair.getSecond() == SortOrder.Descending) {
-                    result *= -1;
-                }
+                Object value1 = doc1.getByPath(pair.getFirst());
+                Object value2 = doc2.getByPath(pair.getFirst());
 
+                int result = compareValues(value1, value2, pair.getSecond());
                 // if both values are equal, continue to next sort order
                 if (result != 0) {
                     return result;
@@ -95,4 +69,87 @@ public class DocumentSorter implements Comparator<Pair<NitriteId, Document>> {
         }
         return 0;
     }
+
+    /**
+     * Reads the sort values of a document once, so that a sort can compare them
+     * with {@link #compareKeys(Object[], Object[])} without resolving the fields
+     * for every comparison. With a collator, a string is turned into its
+     * {@link CollationKey}, which compares bitwise instead of running the
+     * collation rules again.
+     *
+     * @param document the document
+     * @return the sort values of the document
+     * @since 4.5
+     */
+    public Object[] sortKeys(Document document) {
+        Object[] keys = new Object[sortOrder.size()];
+        for (int i = 0; i < keys.length; i++) {
+            Object value = document.getByPath(sortOrder.get(i).getFirst());
+            if (value instanceof DBNull) {
+                value = null;
+            } else if (value instanceof String && collator != null) {
+                value = collator.getCollationKey((String) value);
+            }
+            keys[i] = value;
+        }
+        return keys;
+    }
+
+    /**
+     * Compares the sort values of two documents read by {@link #sortKeys(Document)}.
+     * The result is the one of {@link #compare(Pair, Pair)} for the documents.
+     *
+     * @param keys1 the sort values of the first document
+     * @param keys2 the sort values of the second document
+     * @return the comparison result
+     * @since 4.5
+     */
+    public int compareKeys(Object[] keys1, Object[] keys2) {
+        for (int i = 0; i < keys1.length; i++) {
+            int result = compareValues(keys1[i], keys2[i], sortOrder.get(i).getSecond());
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private int compareValues(Object value1, Object value2, SortOrder order) {
+        // handle null values
+        int result;
+        boolean isNull1 = value1 == null || value1 instanceof DBNull;
+        boolean isNull2 = value2 == null || value2 instanceof DBNull;
+        if (isNull1 && isNull2) {
+            // two null keys are equal, otherwise the comparator
+            // violates antisymmetry and TimSort may throw
+            result = 0;
+        } else if (isNull1) {
+            result = -1;
+        } else if (isNull2) {
+            result = 1;
+        } else {
+
+            // validate comparable
+            if (!(value1 instanceof Comparable) || !(value2 instanceof Comparable)) {
+                throw new InvalidOperationException("Cannot compare " + value1.getClass()
+                    + " and " + value2.getClass());
+            }
+
+            // compare values
+            Comparable c1 = (Comparable) value1;
+            Comparable c2 = (Comparable) value2;
+
+            if (c1 instanceof String && c2 instanceof String && collator != null) {
+                result = collator.compare(c1, c2);
+            } else {
+                result = c1.compareTo(c2);
+            }
+        }
+
+        if (order == SortOrder.Descending) {
+            result *= -1;
+        }
+        return result;
+    }
 }
@@ -25,14 +25,17 @@ import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.processors.ProcessorChain;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.ValidationException;
-import org.dizitart.no2.common.processors.ProcessorChain;
-import org.dizitart.no2.common.util.Iterables;
 
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
 
 /**
  * @since 4.0
@@ -46,12 +49,32 @@ public class DocumentStream implements DocumentCursor {
     private FindPlan findPlan;
 
     /**
-     * The exact match count when the query is fully answered by an index scan or a plain
-     * full scan with no post-filter, skip, limit, or OR-union. When set, {@link #size()}
-     * returns it directly instead of fetching and deserializing every matching document.
+     * Computes the exact match count when the query is fully answered by an index scan or
+     * a plain full scan with no post-filter, skip, limit, or OR-union. When set,
+     * {@link #size()} returns it directly instead of fetching and deserializing every
+     * matching document. It is evaluated only when {@link #size()} is called.
      */
     @Setter
-    private Long coveredCount;
+    private LongSupplier coveredCount;
+
+    /**
+     * Finds the documents of this cursor whose field equals a value through an index
+     * on the field, or returns <code>null</code> when no index can answer the value.
+     * A join probes it for every joined document instead of scanning this cursor.
+     */
+    @Getter @Setter
+    private BiFunction<String, Object, RecordStream<Document>> indexLookup;
+
+    /**
+     * Streams the matching documents built from the index keys alone when the
+     * {@link FindPlan} is covered by its index. A projection of the index fields
+     * is answered from it without reading any document.
+     */
+    @Setter
+    private RecordStream<Pair<NitriteId, Document>> coveredStream;
+
+    // the last document returned by an iterator, the position of a keyset page
+    private Pair<NitriteId, Document> lastRecord;
 
     public DocumentStream(RecordStream<Pair<NitriteId, Document>> recordStream,
                           ProcessorChain processorChain) {
@@ -62,7 +85,7 @@ public class DocumentStream implements DocumentCursor {
     @Override
     public long size() {
         if (coveredCount != null) {
-            return coveredCount;
+            return coveredCount.getAsLong();
         }
         return Iterables.size(this);
     }
@@ -70,6 +93,9 @@ public class DocumentStream implements DocumentCursor {
     @Override
     public RecordStream<Document> project(Document projection) {
         validateProjection(projection);
+        if (coveredStream != null && isCoveredProjection(projection)) {
+            return new ProjectedDocumentStream(coveredStream, projection, processorChain);
+        }
         return new ProjectedDocumentStream(recordStream, projection, processorChain);
     }
 
@@ -85,12 +111,31 @@ public class DocumentStream implements DocumentCursor {
         return new DocumentCursorIterator(iterator, processorChain);
     }
 
+    @Override
+    public String getContinuationToken() {
+        if (findPlan == null || findPlan.getKeysetSortOrder() == null) {
+            throw new InvalidOperationException("A continuation token is only available with keyset pagination");
+        }
+        if (lastRecord == null) {
+            return null;
+        }
+        return KeysetToken.of(findPlan.getKeysetSortOrder(), lastRecord.getFirst(), lastRecord.getSecond()).encode();
+    }
+
     private void validateProjection(Document projection) {
         for (Pair<String, Object> kvp : projection) {
             validateKeyValuePair(kvp);
         }
     }
 
+    private boolean isCoveredProjection(Document projection) {
+        if (findPlan == null || !findPlan.isCovered() || findPlan.getIndexDescriptor() == null) {
+            return false;
+        }
+        List<String> indexedFields = findPlan.getIndexDescriptor().getFields().getFieldNames();
+        return indexedFields.containsAll(projection.getFields());
+    }
+
     private void validateKeyValuePair(Pair<String, Object> kvp) {
         if (kvp.getSecond() != null) {
             if (!(kvp.getSecond() instanceof Document)) {
@@ -101,7 +146,7 @@ public class DocumentStream implements DocumentCursor {
         }
     }
 
-    private static class DocumentCursorIterator implements Iterator<Document> {
+    private class DocumentCursorIterator implements Iterator<Document>, AutoCloseable {
         private final Iterator<Pair<NitriteId, Document>> iterator;
         private final ProcessorChain processorChain;
 
@@ -111,6 +156,11 @@ public class DocumentStream implements DocumentCursor {
             this.processorChain = processorChain;
         }
 
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
         @Override
         public boolean hasNext() {
             return iterator.hasNext();
@@ -119,6 +169,7 @@ public class DocumentStream implements DocumentCursor {
         @Override
         public Document next() {
             Pair<NitriteId, Document> next = iterator.next();
+            lastRecord = next;
             Document document = next.getSecond();
             if (document != null) {
                 Document copy = document.clone();
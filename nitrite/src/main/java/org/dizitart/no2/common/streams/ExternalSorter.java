@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.NitriteIOException;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Sorts a stream of documents which may not fit in memory. The input is cut into
+ * runs of at most <code>bufferSize</code> documents, each run is sorted in memory
+ * and spilled to a temporary file, and the runs are then k-way merged while the
+ * result is iterated.
+ * <p>
+ * The merge breaks ties in favour of the earlier run, so the output is exactly the
+ * output of a stable in-memory sort with the same comparator. If the whole input
+ * fits in one run, nothing is written to disk.
+ * <p>
+ * The run files hold the raw documents, so the documents of an encrypted store are
+ * never spilled and sorted in memory instead. The files are deleted as soon as the
+ * merged iterator is exhausted or closed (see
+ * {@link org.dizitart.no2.common.util.Iterables#close(Iterator)}), or when the sort
+ * fails before the merge starts.
+ *
+ * @since 4.5
+ */
+@Slf4j(topic = "nitrite")
+class ExternalSorter {
+    // upper bound of run files open at once during a merge
+    static final int MAX_MERGE_WIDTH = 64;
+    private static final String RUN_FILE_PREFIX = "nitrite-sort-";
+
+    private final DocumentSorter documentSorter;
+    private final int bufferSize;
+
+    ExternalSorter(DocumentSorter documentSorter, int bufferSize) {
+        this.documentSorter = documentSorter;
+        this.bufferSize = bufferSize;
+    }
+
+    Iterator<Pair<NitriteId, Document>> sort(Iterable<Pair<NitriteId, Document>> records) {
+        LinkedList<File> runs = new LinkedList<>();
+        List<KeyedRecord> buffer = new ArrayList<>();
+        MergeIterator mergeIterator = null;
+
+        try {
+            for (Pair<NitriteId, Document> record : records) {
+                buffer.add(new KeyedRecord(record, documentSorter.sortKeys(record.getSecond())));
+                if (buffer.size() >= bufferSize) {
+                    runs.add(spill(buffer));
+                    buffer = new ArrayList<>();
+                }
+            }
+
+            if (runs.isEmpty()) {
+                // everything fits in memory, no need to touch the disk
+                sortRun(buffer);
+                return records(buffer.iterator());
+            }
+
+            if (!buffer.isEmpty()) {
+                runs.add(spill(buffer));
+            }
+
+            // merge the leading runs until the rest can be merged in one pass;
+            // the merged run replaces them at the head, which keeps the ties stable
+            while (runs.size() > MAX_MERGE_WIDTH) {
+                List<File> group = new ArrayList<>(MAX_MERGE_WIDTH);
+                for (int i = 0; i < MAX_MERGE_WIDTH; i++) {
+                    group.add(runs.removeFirst());
+                }
+                MergeIterator merged = new MergeIterator(group);
+                try {
+                    runs.addFirst(write(merged));
+                } finally {
+                    merged.close();
+                }
+            }
+            mergeIterator = new MergeIterator(runs);
+            return mergeIterator;
+        } finally {
+            // from here on the merge iterator owns the run files
+            if (mergeIterator == null) {
+                delete(runs);
+            }
+        }
+    }
+
+    private File spill(List<KeyedRecord> buffer) {
+        sortRun(buffer);
+        return write(records(buffer.iterator()));
+    }
+
+    private void sortRun(List<KeyedRecord> buffer) {
+        // the sort values were read once per document, as the run was filled
+        buffer.sort((r1, r2) -> documentSorter.compareKeys(r1.keys, r2.keys));
+    }
+
+    private static Iterator<Pair<NitriteId, Document>> records(Iterator<KeyedRecord> iterator) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Pair<NitriteId, Document> next() {
+                return iterator.next().record;
+            }
+        };
+    }
+
+    private File write(Iterator<Pair<NitriteId, Document>> iterator) {
+        File file = null;
+        boolean written = false;
+        try {
+            file = Files.createTempFile(RUN_FILE_PREFIX, ".run").toFile();
+            try (ObjectOutputStream outputStream = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+                while (iterator.hasNext()) {
+                    Pair<NitriteId, Document> record = iterator.next();
+                    outputStream.writeObject(record.getFirst());
+                    outputStream.writeObject(record.getSecond());
+                    // do not let the stream keep a back reference to every document written
+                    outputStream.reset();
+                }
+                outputStream.writeObject(null);
+            }
+            written = true;
+            return file;
+        } catch (IOException e) {
+            throw new NitriteIOException("Failed to write sorted run to disk", e);
+        } finally {
+            if (!written && file != null) {
+                delete(Collections.singletonList(file));
+            }
+        }
+    }
+
+    private static void delete(Collection<File> files) {
+        for (File file : files) {
+            if (file.exists() && !file.delete()) {
+                log.warn("Failed to delete sorted run {}", file);
+            }
+        }
+    }
+
+    /**
+     * Lazily merges sorted run files, reading one document ahead per run.
+     */
+    private class MergeIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
+        private final List<File> files;
+        private final PriorityQueue<RunReader> queue;
+
+        MergeIterator(List<File> files) {
+            this.files = new ArrayList<>(files);
+            this.queue = new PriorityQueue<>(files.size(), (r1, r2) -> {
+                int result = documentSorter.compareKeys(r1.headKeys, r2.headKeys);
+                return result != 0 ? result : Integer.compare(r1.order, r2.order);
+            });
+
+            try {
+                for (int i = 0; i < this.files.size(); i++) {
+                    RunReader reader = new RunReader(this.files.get(i), i);
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+
+            if (queue.isEmpty()) {
+                close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            RunReader reader = queue.poll();
+            if (reader == null) {
+                throw new NoSuchElementException();
+            }
+
+            Pair<NitriteId, Document> record = reader.head;
+            try {
+                if (reader.advance()) {
+                    queue.add(reader);
+                }
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+
+            if (queue.isEmpty()) {
+                close();
+            }
+            return record;
+        }
+
+        @Override
+        public void close() {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+            queue.clear();
+            delete(files);
+        }
+    }
+
+    private static class KeyedRecord {
+        private final Pair<NitriteId, Document> record;
+        private final Object[] keys;
+
+        KeyedRecord(Pair<NitriteId, Document> record, Object[] keys) {
+            this.record = record;
+            this.keys = keys;
+        }
+    }
+
+    private class RunReader {
+        private final File file;
+        private final int order;
+        private ObjectInputStream inputStream;
+        private Pair<NitriteId, Document> head;
+        private Object[] headKeys;
+
+        RunReader(File file, int order) {
+            this.file = file;
+            this.order = order;
+        }
+
+        boolean advance() {
+            try {
+                if (inputStream == null) {
+                    inputStream = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+                }
+
+                Object nitriteId = inputStream.readObject();
+                if (nitriteId == null) {
+                    head = null;
+                    headKeys = null;
+                    close();
+                    return false;
+                }
+                head = new Pair<>((NitriteId) nitriteId, (Document) inputStream.readObject());
+                headKeys = documentSorter.sortKeys(head.getSecond());
+                return true;
+            } catch (IOException | ClassNotFoundException e) {
+                close();
+                throw new NitriteIOException("Failed to read sorted run from disk", e);
+            }
+        }
+
+        void close() {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    log.warn("Failed to close sorted run {}", file, e);
+                }
+                inputStream = null;
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.filters.Filter;
 
@@ -53,7 +54,7 @@ public class FilteredStream implements RecordStream<Pair<NitriteId, Document>> {
         return new FilteredIterator(iterator, filter);
     }
 
-    private static class FilteredIterator implements Iterator<Pair<NitriteId, Document>> {
+    private static class FilteredIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
         private final Iterator<Pair<NitriteId, Document>> iterator;
         private final Filter filter;
         private Pair<NitriteId, Document> nextPair;
@@ -64,6 +65,11 @@ public class FilteredStream implements RecordStream<Pair<NitriteId, Document>> {
             this.filter = filter;
         }
 
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
         @Override
         public boolean hasNext() {
             return nextPairSet || setNextId();
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A stream of documents built from the keys of a covering index. An entry
+ * whose keys do not describe its document is read from the collection.
+ * <p>
+ * An index key holds every number as a double. A numeric key is converted
+ * back to the number type recorded for its field in the index meta, and the
+ * document is read if the field has numbers of several types, or of a type
+ * the double can not hold exactly.
+ *
+ * @since 4.5
+ */
+public class IndexEntryStream implements RecordStream<Pair<NitriteId, Document>> {
+    // the largest magnitude up to which a double holds every long exactly
+    private static final double MAX_EXACT_LONG = 9007199254740992d;
+
+    private final NitriteMap<NitriteId, Document> nitriteMap;
+    private final RecordStream<Pair<NitriteId, Document>> indexEntries;
+    private final List<String> fieldNames;
+    private final Map<String, String> numberTypes;
+
+    /**
+     * Instantiates a new {@link IndexEntryStream}.
+     *
+     * @param indexEntries the entries of the index, keyed by the index fields
+     * @param nitriteMap   the collection
+     * @param fieldNames   the fields of the index
+     * @param numberTypes  the number type of every numeric index field, or
+     *                     <code>null</code> if the index does not record them
+     */
+    public IndexEntryStream(RecordStream<Pair<NitriteId, Document>> indexEntries,
+                            NitriteMap<NitriteId, Document> nitriteMap,
+                            List<String> fieldNames, Map<String, String> numberTypes) {
+        this.indexEntries = indexEntries;
+        this.nitriteMap = nitriteMap;
+        this.fieldNames = fieldNames;
+        this.numberTypes = numberTypes;
+    }
+
+    @Override
+    public Iterator<Pair<NitriteId, Document>> iterator() {
+        return new IndexEntryIterator(indexEntries.iterator());
+    }
+
+    private Document typedKeys(Document keys) {
+        Document typed = null;
+        for (String fieldName : fieldNames) {
+            Object value = keys.get(fieldName);
+            if (!(value instanceof Number)) {
+                continue;
+            }
+
+            Number number = numberTypes == null ? null
+                : toNumber(((Number) value).doubleValue(), numberTypes.get(fieldName));
+            if (number == null) {
+                // only the document has the number as it was written
+                return null;
+            }
+            if (typed == null) {
+                typed = keys.clone();
+            }
+            typed.put(fieldName, number);
+        }
+        return typed == null ? keys : typed;
+    }
+
+    private static Number toNumber(double value, String numberType) {
+        if (Double.class.getName().equals(numberType)) {
+            return value;
+        } else if (Integer.class.getName().equals(numberType)) {
+            return (int) value;
+        } else if (Long.class.getName().equals(numberType)) {
+            return Math.abs(value) < MAX_EXACT_LONG ? (Number) (long) value : null;
+        } else if (Float.class.getName().equals(numberType)) {
+            return (float) value;
+        } else if (Short.class.getName().equals(numberType)) {
+            return (short) value;
+        } else if (Byte.class.getName().equals(numberType)) {
+            return (byte) value;
+        }
+        return null;
+    }
+
+    private class IndexEntryIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
+        private final Iterator<Pair<NitriteId, Document>> iterator;
+
+        IndexEntryIterator(Iterator<Pair<NitriteId, Document>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            Pair<NitriteId, Document> entry = iterator.next();
+            Document keys = entry.getSecond() == null ? null : typedKeys(entry.getSecond());
+            if (keys == null) {
+                NitriteId id = entry.getFirst();
+                return new Pair<>(id, nitriteMap.get(id));
+            }
+            return keys == entry.getSecond() ? entry : new Pair<>(entry.getFirst(), keys);
+        }
+    }
+}
@@ -21,10 +21,10 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.store.NitriteMap;
 
 import java.util.Iterator;
-import java.util.Set;
 
 /**
  * @author Anindya Chatterjee
@@ -32,9 +32,9 @@ import java.util.Set;
  */
 public class IndexedStream implements RecordStream<Pair<NitriteId, Document>> {
     private final NitriteMap<NitriteId, Document> nitriteMap;
-    private final Set<NitriteId> nitriteIds;
+    private final Iterable<NitriteId> nitriteIds;
 
-    public IndexedStream(Set<NitriteId> nitriteIds,
+    public IndexedStream(Iterable<NitriteId> nitriteIds,
                   NitriteMap<NitriteId, Document> nitriteMap) {
         this.nitriteIds = nitriteIds;
         this.nitriteMap = nitriteMap;
@@ -45,7 +45,7 @@ public class IndexedStream implements RecordStream<Pair<NitriteId, Document>> {
         return new IndexedStreamIterator(nitriteIds.iterator(), nitriteMap);
     }
 
-    private static class IndexedStreamIterator implements Iterator<Pair<NitriteId, Document>> {
+    private static class IndexedStreamIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
         private final Iterator<NitriteId> iterator;
         private final NitriteMap<NitriteId, Document> nitriteMap;
 
@@ -55,6 +55,11 @@ public class IndexedStream implements RecordStream<Pair<NitriteId, Document>> {
             this.nitriteMap = nitriteMap;
         }
 
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
         @Override
         public boolean hasNext() {
             return iterator.hasNext();
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.util.Iterables;
+
+import java.util.*;
+
+/**
+ * A stream of the ids of an index scan which are also produced by every
+ * other index scan, i.e. the intersection of several index results.
+ * <p>
+ * The other scans are collected into hash sets when the stream is iterated,
+ * and the ids of the driving scan are then streamed lazily, in their index
+ * order, keeping only those contained in all the sets.
+ *
+ * @since 4.5
+ */
+public class IntersectedIdStream implements RecordStream<NitriteId> {
+    private final RecordStream<NitriteId> nitriteIds;
+    private final List<RecordStream<NitriteId>> intersectedIds;
+
+    public IntersectedIdStream(RecordStream<NitriteId> nitriteIds,
+                               List<RecordStream<NitriteId>> intersectedIds) {
+        this.nitriteIds = nitriteIds;
+        this.intersectedIds = intersectedIds;
+    }
+
+    @Override
+    public Iterator<NitriteId> iterator() {
+        List<Set<NitriteId>> idSets = new ArrayList<>();
+        for (RecordStream<NitriteId> stream : intersectedIds) {
+            Set<NitriteId> idSet = new HashSet<>();
+            for (NitriteId nitriteId : stream) {
+                idSet.add(nitriteId);
+            }
+
+            if (idSet.isEmpty()) {
+                // the intersection is empty, the driving index need not be walked at all
+                return Collections.emptyIterator();
+            }
+            idSets.add(idSet);
+        }
+
+        // probe the smallest set first, it rejects the most ids
+        idSets.sort(Comparator.comparingInt(Set::size));
+        return new IntersectedIdIterator(nitriteIds.iterator(), idSets);
+    }
+
+    private static class IntersectedIdIterator implements Iterator<NitriteId>, AutoCloseable {
+        private final Iterator<NitriteId> iterator;
+        private final List<Set<NitriteId>> idSets;
+        private NitriteId nextId;
+
+        IntersectedIdIterator(Iterator<NitriteId> iterator, List<Set<NitriteId>> idSets) {
+            this.iterator = iterator;
+            this.idSets = idSets;
+            nextMatch();
+        }
+
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextId != null;
+        }
+
+        @Override
+        public NitriteId next() {
+            if (nextId == null) {
+                throw new NoSuchElementException();
+            }
+            NitriteId current = nextId;
+            nextMatch();
+            return current;
+        }
+
+        private void nextMatch() {
+            nextId = null;
+            while (iterator.hasNext()) {
+                NitriteId candidate = iterator.next();
+                if (containedInAll(candidate)) {
+                    nextId = candidate;
+                    return;
+                }
+            }
+        }
+
+        private boolean containedInAll(NitriteId nitriteId) {
+            for (Set<NitriteId> idSet : idSets) {
+                if (!idSet.contains(nitriteId)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
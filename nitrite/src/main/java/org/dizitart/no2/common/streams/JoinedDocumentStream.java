@@ -22,14 +22,14 @@ import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.processors.ProcessorChain;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.InvalidOperationException;
-import org.dizitart.no2.common.processors.ProcessorChain;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.function.BiFunction;
 
 import static org.dizitart.no2.common.util.ObjectUtils.deepEquals;
 
@@ -65,11 +65,13 @@ public class JoinedDocumentStream implements RecordStream<Document> {
         return toList().toString();
     }
 
-    private static class JoinedDocumentIterator implements Iterator<Document> {
+    private static class JoinedDocumentIterator implements Iterator<Document>, AutoCloseable {
         private final Iterator<Pair<NitriteId, Document>> iterator;
         private final ProcessorChain processorChain;
         private final DocumentCursor foreignCursor;
         private final Lookup lookup;
+        private final BiFunction<String, Object, RecordStream<Document>> indexLookup;
+        private Map<Object, List<Document>> hashTable;
 
         /**
          * Instantiates a new Joined document iterator.
@@ -85,6 +87,13 @@ public class JoinedDocumentStream implements RecordStream<Document> {
             this.processorChain = processorChain;
             this.foreignCursor = foreignCursor;
             this.lookup = lookup;
+            this.indexLookup = foreignCursor instanceof DocumentStream
+                ? ((DocumentStream) foreignCursor).getIndexLookup() : null;
+        }
+
+        @Override
+        public void close() {
+            Iterables.close(iterator);
         }
 
         @Override
@@ -101,7 +110,7 @@ public class JoinedDocumentStream implements RecordStream<Document> {
 
                 // process the document
                 Document processed = processorChain.processAfterRead(unprocessed);
-                return join(processed, foreignCursor, lookup);
+                return join(processed);
             }
             return null;
         }
@@ -111,24 +120,83 @@ public class JoinedDocumentStream implements RecordStream<Document> {
             throw new InvalidOperationException("Remove on a cursor is not supported");
         }
 
-        private Document join(Document localDocument, DocumentCursor foreignCursor, Lookup lookup) {
+        private Document join(Document localDocument) {
             Object localObject = localDocument.get(lookup.getLocalField());
             if (localObject == null) return localDocument;
             Set<Document> target = new HashSet<>();
 
-            for (Document foreignDocument : foreignCursor) {
-                Object foreignObject = foreignDocument.get(lookup.getForeignField());
-                if (foreignObject != null) {
-                    if (deepEquals(foreignObject, localObject)) {
+            RecordStream<Document> probed = indexLookup == null ? null
+                : indexLookup.apply(lookup.getForeignField(), localObject);
+            if (probed != null) {
+                // index nested loop, the index finds the candidates of the local value
+                for (Document foreignDocument : probed) {
+                    if (matches(foreignDocument, localObject)) {
                         target.add(foreignDocument);
                     }
                 }
+            } else {
+                // hash join, the foreign cursor is read once for all local documents
+                if (hashTable == null) {
+                    hashTable = buildHashTable();
+                }
+                List<Document> candidates = hashTable.get(joinKey(localObject));
+                if (candidates != null) {
+                    for (Document foreignDocument : candidates) {
+                        if (matches(foreignDocument, localObject)) {
+                            // the foreign documents are shared by all local documents
+                            target.add(foreignDocument.clone());
+                        }
+                    }
+                }
             }
+
             if (!target.isEmpty()) {
                 localDocument.put(lookup.getTargetField(), target);
             }
             return localDocument;
         }
+
+        private boolean matches(Document foreignDocument, Object localObject) {
+            Object foreignObject = foreignDocument.get(lookup.getForeignField());
+            return foreignObject != null && deepEquals(foreignObject, localObject);
+        }
+
+        private Map<Object, List<Document>> buildHashTable() {
+            Map<Object, List<Document>> table = new HashMap<>();
+            for (Document foreignDocument : foreignCursor) {
+                Object foreignObject = foreignDocument.get(lookup.getForeignField());
+                if (foreignObject != null) {
+                    table.computeIfAbsent(joinKey(foreignObject), k -> new ArrayList<>()).add(foreignDocument);
+                }
+            }
+            return table;
+        }
+
+        /**
+         * Gets the hash key of a value, equal for all values which are deep equal. Numbers
+         * are keyed by their double value, iterables and arrays by the keys of their items.
+         * Values with the same key are still compared with deep equals.
+         */
+        private static Object joinKey(Object value) {
+            if (value instanceof Number) {
+                double number = ((Number) value).doubleValue();
+                // -0.0 and 0.0 are equal numbers
+                return number == 0.0 ? 0.0 : number;
+            } else if (value instanceof Iterable) {
+                List<Object> keys = new ArrayList<>();
+                for (Object item : (Iterable<?>) value) {
+                    keys.add(joinKey(item));
+                }
+                return keys;
+            } else if (value != null && value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                List<Object> keys = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    keys.add(joinKey(Array.get(value, i)));
+                }
+                return keys;
+            }
+            return value;
+        }
     }
 }
-
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.FieldPath;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
+
+import java.util.*;
+
+/**
+ * Orders the documents of a stream already sorted by the sort fields of a
+ * keyset paginated find by their ids within every run of documents with the
+ * same sort values. An index scan returns the ids of a key in the order of its
+ * layout, with this stage it yields the order of the keyset, so a page can
+ * start exactly after the last document of the previous one.
+ * <p>
+ * Only one run is held in memory at a time.
+ *
+ * @since 4.5
+ */
+public class KeysetOrderStream implements RecordStream<Pair<NitriteId, Document>> {
+    private final RecordStream<Pair<NitriteId, Document>> recordStream;
+    private final List<FieldPath> fieldPaths;
+
+    /**
+     * Instantiates a new {@link KeysetOrderStream}.
+     *
+     * @param recordStream the stream sorted by the sort fields
+     * @param sortOrder    the sort order of the find
+     */
+    public KeysetOrderStream(RecordStream<Pair<NitriteId, Document>> recordStream,
+                             List<Pair<String, SortOrder>> sortOrder) {
+        this.recordStream = recordStream;
+        this.fieldPaths = KeysetToken.fieldPaths(sortOrder);
+    }
+
+    @Override
+    public Iterator<Pair<NitriteId, Document>> iterator() {
+        Iterator<Pair<NitriteId, Document>> iterator = recordStream == null ? Collections.emptyIterator()
+            : recordStream.iterator();
+        return new KeysetOrderIterator(iterator);
+    }
+
+    private class KeysetOrderIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
+        private final Iterator<Pair<NitriteId, Document>> iterator;
+        private final List<Pair<NitriteId, Document>> run = new ArrayList<>();
+        private Iterator<Pair<NitriteId, Document>> current = Collections.emptyIterator();
+        private Pair<NitriteId, Document> pending;
+
+        KeysetOrderIterator(Iterator<Pair<NitriteId, Document>> iterator) {
+            this.iterator = iterator;
+            this.pending = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!current.hasNext() && pending != null) {
+                readRun();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private void readRun() {
+            run.clear();
+            run.add(pending);
+            pending = null;
+            while (iterator.hasNext()) {
+                Pair<NitriteId, Document> next = iterator.next();
+                if (KeysetToken.compareSortValues(fieldPaths, run.get(0).getSecond(), next.getSecond()) != 0) {
+                    pending = next;
+                    break;
+                }
+                run.add(next);
+            }
+
+            if (run.size() > 1) {
+                run.sort((first, second) -> first.getFirst().compareTo(second.getFirst()));
+            }
+            // the run is only cleared once its iterator is exhausted
+            current = run.iterator();
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import lombok.Getter;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBNull;
+import org.dizitart.no2.common.FieldPath;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Comparables;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.exceptions.ValidationException;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * The position of a document in the order of a keyset paginated find, i.e.
+ * the values of its sort fields and its {@link NitriteId}, which breaks the
+ * ties between documents with the same sort values.
+ * <p>
+ * A token is encoded into an opaque url safe string. Only the values of the
+ * common value types are supported: strings, numbers, booleans, characters
+ * and dates.
+ *
+ * @since 4.5
+ */
+public class KeysetToken {
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte SHORT = 6;
+    private static final byte BYTE = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte CHARACTER = 9;
+    private static final byte BIG_INTEGER = 10;
+    private static final byte BIG_DECIMAL = 11;
+    private static final byte DATE = 12;
+
+    /**
+     * Gets the sort order the position belongs to.
+     */
+    @Getter
+    private final List<Pair<String, SortOrder>> sortOrder;
+
+    /**
+     * Gets the values of the sort fields, in the order of the sort fields.
+     */
+    @Getter
+    private final List<Object> values;
+
+    /**
+     * Gets the id of the document.
+     */
+    @Getter
+    private final NitriteId nitriteId;
+
+    private final List<FieldPath> fieldPaths;
+
+    private KeysetToken(List<Pair<String, SortOrder>> sortOrder, List<Object> values, NitriteId nitriteId) {
+        this.sortOrder = sortOrder;
+        this.values = values;
+        this.nitriteId = nitriteId;
+        this.fieldPaths = fieldPaths(sortOrder);
+    }
+
+    /**
+     * Creates the token of the position of a document.
+     *
+     * @param sortOrder the sort order of the find
+     * @param nitriteId the id of the document
+     * @param document  the document
+     * @return the token
+     */
+    public static KeysetToken of(List<Pair<String, SortOrder>> sortOrder,
+                                 NitriteId nitriteId, Document document) {
+        List<Object> values = new ArrayList<>();
+        for (Pair<String, SortOrder> pair : sortOrder) {
+            Object value = document.get(pair.getFirst());
+            values.add(value instanceof DBNull ? null : value);
+        }
+        return new KeysetToken(new ArrayList<>(sortOrder), values, nitriteId);
+    }
+
+    /**
+     * Decodes a token from its encoded string.
+     *
+     * @param token the encoded token
+     * @return the token
+     * @throws ValidationException if the string is not a valid token
+     */
+    public static KeysetToken decode(String token) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                if (input.readByte() != VERSION) {
+                    throw new ValidationException("Unsupported continuation token " + token);
+                }
+
+                int size = input.readInt();
+                if (size < 0 || size > bytes.length) {
+                    throw new ValidationException("Invalid continuation token " + token);
+                }
+
+                List<Pair<String, SortOrder>> sortOrder = new ArrayList<>();
+                List<Object> values = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    String field = input.readUTF();
+                    SortOrder order = input.readBoolean() ? SortOrder.Descending : SortOrder.Ascending;
+                    sortOrder.add(new Pair<>(field, order));
+                    values.add(readValue(input));
+                }
+                NitriteId nitriteId = NitriteId.createId(input.readLong());
+                return new KeysetToken(sortOrder, values, nitriteId);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ValidationException("Invalid continuation token " + token, e);
+        }
+    }
+
+    /**
+     * Encodes the token into an opaque url safe string.
+     *
+     * @return the encoded token
+     * @throws InvalidOperationException if a sort value has an unsupported type
+     */
+    public String encode() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                output.writeByte(VERSION);
+                output.writeInt(sortOrder.size());
+                for (int i = 0; i < sortOrder.size(); i++) {
+                    output.writeUTF(sortOrder.get(i).getFirst());
+                    output.writeBoolean(sortOrder.get(i).getSecond() == SortOrder.Descending);
+                    writeValue(output, sortOrder.get(i).getFirst(), values.get(i));
+                }
+                output.writeLong(nitriteId.getIdValue());
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            // not thrown by an in-memory stream
+            throw new InvalidOperationException("Failed to encode the continuation token: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks if the token was taken from a find with the same sort order.
+     *
+     * @param sortOrder the sort order
+     * @return <code>true</code> if the sort orders are equal
+     */
+    public boolean matches(List<Pair<String, SortOrder>> sortOrder) {
+        return this.sortOrder.equals(sortOrder);
+    }
+
+    /**
+     * Compares the position of a document with the position of the token.
+     *
+     * @param nitriteId the id of the document
+     * @param document  the document
+     * @return a positive number if the document comes after the token
+     */
+    public int compareTo(NitriteId nitriteId, Document document) {
+        for (int i = 0; i < sortOrder.size(); i++) {
+            int result = compareValues(document.getByPath(fieldPaths.get(i)), values.get(i));
+            if (sortOrder.get(i).getSecond() == SortOrder.Descending) {
+                result = -result;
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return nitriteId.compareTo(this.nitriteId);
+    }
+
+    /**
+     * Compares the sort values of two documents, ignoring their ids.
+     *
+     * @param fieldPaths the sort fields
+     * @param first      the first document
+     * @param second     the second document
+     * @return zero if the documents have the same sort values
+     */
+    static int compareSortValues(List<FieldPath> fieldPaths, Document first, Document second) {
+        for (FieldPath fieldPath : fieldPaths) {
+            int result = compareValues(first.getByPath(fieldPath), second.getByPath(fieldPath));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    static List<FieldPath> fieldPaths(List<Pair<String, SortOrder>> sortOrder) {
+        List<FieldPath> fieldPaths = new ArrayList<>();
+        for (Pair<String, SortOrder> pair : sortOrder) {
+            fieldPaths.add(FieldPath.of(pair.getFirst()));
+        }
+        return fieldPaths;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static int compareValues(Object first, Object second) {
+        boolean isNull1 = first == null || first instanceof DBNull;
+        boolean isNull2 = second == null || second instanceof DBNull;
+        if (isNull1 || isNull2) {
+            // null sorts first, as in an index
+            return isNull1 == isNull2 ? 0 : (isNull1 ? -1 : 1);
+        }
+
+        if (!(first instanceof Comparable) || !(second instanceof Comparable)) {
+            throw new InvalidOperationException("Cannot compare " + first.getClass()
+                + " and " + second.getClass());
+        }
+        return Comparables.compare((Comparable) first, (Comparable) second);
+    }
+
+    private static void writeValue(DataOutputStream output, String field, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            output.writeByte(STRING);
+            output.writeUTF((String) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            output.writeByte(FLOAT);
+            output.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            output.writeByte(SHORT);
+            output.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            output.writeByte(BYTE);
+            output.writeByte((Byte) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Character) {
+            output.writeByte(CHARACTER);
+            output.writeChar((Character) value);
+        } else if (value instanceof BigInteger) {
+            output.writeByte(BIG_INTEGER);
+            output.writeUTF(value.toString());
+        } else if (value instanceof BigDecimal) {
+            output.writeByte(BIG_DECIMAL);
+            output.writeUTF(value.toString());
+        } else if (value instanceof Date) {
+            output.writeByte(DATE);
+            output.writeLong(((Date) value).getTime());
+        } else {
+            throw new InvalidOperationException("The value of " + field + " of type "
+                + value.getClass().getName() + " can not be stored in a continuation token");
+        }
+    }
+
+    private static Object readValue(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return input.readUTF();
+            case INTEGER:
+                return input.readInt();
+            case LONG:
+                return input.readLong();
+            case DOUBLE:
+                return input.readDouble();
+            case FLOAT:
+                return input.readFloat();
+            case SHORT:
+                return input.readShort();
+            case BYTE:
+                return input.readByte();
+            case BOOLEAN:
+                return input.readBoolean();
+            case CHARACTER:
+                return input.readChar();
+            case BIG_INTEGER:
+                return new BigInteger(input.readUTF());
+            case BIG_DECIMAL:
+                return new BigDecimal(input.readUTF());
+            case DATE:
+                return new Date(input.readLong());
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+}
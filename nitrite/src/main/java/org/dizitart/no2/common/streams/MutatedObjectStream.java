@@ -19,8 +19,9 @@ package org.dizitart.no2.common.streams;
 
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.common.RecordStream;
-import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.common.mapper.NitriteMapper;
+import org.dizitart.no2.common.util.Iterables;
+import org.dizitart.no2.exceptions.InvalidOperationException;
 
 import java.util.Iterator;
 
@@ -48,7 +49,7 @@ public class MutatedObjectStream<T> implements RecordStream<T> {
         return new MutatedObjectIterator(nitriteMapper);
     }
 
-    private class MutatedObjectIterator implements Iterator<T> {
+    private class MutatedObjectIterator implements Iterator<T>, AutoCloseable {
         private final NitriteMapper nitriteMapper;
         private final Iterator<Document> documentIterator;
 
@@ -57,6 +58,11 @@ public class MutatedObjectStream<T> implements RecordStream<T> {
             this.documentIterator = recordIterable.iterator();
         }
 
+        @Override
+        public void close() {
+            Iterables.close(documentIterator);
+        }
+
         @Override
         public boolean hasNext() {
             return documentIterator.hasNext();
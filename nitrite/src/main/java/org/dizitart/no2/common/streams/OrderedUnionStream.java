@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import lombok.Setter;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBNull;
+import org.dizitart.no2.common.FieldPath;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Comparables;
+import org.dizitart.no2.common.util.Iterables;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.*;
+
+/**
+ * The union of the results of the sub plans of an or filter which all scan
+ * the same index in the sort order of the find. The index entries of the sub
+ * plans are merged by their keys, so the union keeps the sort order without
+ * a blocking sort. An id produced by several sub plans has the same keys in
+ * all of them, its document is read once per run of equal keys.
+ * <p>
+ * A document is kept if the post-filter of any sub plan which produced its
+ * id matches it.
+ *
+ * @since 4.5
+ */
+public class OrderedUnionStream implements RecordStream<Pair<NitriteId, Document>> {
+    private final List<RecordStream<Pair<NitriteId, Document>>> entryStreams;
+    private final List<Filter> filters;
+    private final List<Pair<FieldPath, SortOrder>> sortOrder;
+    private final NitriteMap<NitriteId, Document> nitriteMap;
+
+    /**
+     * Sets the stage which counts the distinct ids of the union.
+     */
+    @Setter
+    private ExecutionProfile.Stage unionStage;
+
+    /**
+     * Sets the stage which counts the documents read.
+     */
+    @Setter
+    private ExecutionProfile.Stage fetchStage;
+
+    /**
+     * Instantiates a new {@link OrderedUnionStream}.
+     *
+     * @param entryStreams the index entries of every sub plan, in the sort order
+     * @param filters      the post-filter of every sub plan, <code>null</code> if it has none
+     * @param sortOrder    the sort order of the find
+     * @param nitriteMap   the collection
+     */
+    public OrderedUnionStream(List<RecordStream<Pair<NitriteId, Document>>> entryStreams,
+                              List<Filter> filters, List<Pair<String, SortOrder>> sortOrder,
+                              NitriteMap<NitriteId, Document> nitriteMap) {
+        this.entryStreams = entryStreams;
+        this.filters = filters;
+        this.nitriteMap = nitriteMap;
+        this.sortOrder = new ArrayList<>();
+        for (Pair<String, SortOrder> pair : sortOrder) {
+            this.sortOrder.add(new Pair<>(FieldPath.of(pair.getFirst()), pair.getSecond()));
+        }
+    }
+
+    @Override
+    public Iterator<Pair<NitriteId, Document>> iterator() {
+        List<Iterator<Pair<NitriteId, Document>>> iterators = new ArrayList<>();
+        for (RecordStream<Pair<NitriteId, Document>> entryStream : entryStreams) {
+            iterators.add(entryStream.iterator());
+        }
+        return new OrderedUnionIterator(iterators);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private int compareKeys(Document first, Document second) {
+        for (Pair<FieldPath, SortOrder> pair : sortOrder) {
+            Object value1 = first.getByPath(pair.getFirst());
+            Object value2 = second.getByPath(pair.getFirst());
+
+            int result;
+            boolean isNull1 = value1 == null || value1 instanceof DBNull;
+            boolean isNull2 = value2 == null || value2 instanceof DBNull;
+            if (isNull1 || isNull2) {
+                // null sorts first, as in an index
+                result = isNull1 == isNull2 ? 0 : (isNull1 ? -1 : 1);
+            } else {
+                result = Comparables.compare((Comparable) value1, (Comparable) value2);
+            }
+
+            if (pair.getSecond() == SortOrder.Descending) {
+                result = -result;
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private class OrderedUnionIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
+        private final List<Iterator<Pair<NitriteId, Document>>> iterators;
+        // the next entry of every sub plan and the document read for it, if any
+        private final List<Pair<NitriteId, Document>> heads;
+        private final Document[] documents;
+
+        // the ids of the current run of equal keys
+        private final Set<NitriteId> accepted = new HashSet<>();
+        private final Map<NitriteId, Document> rejected = new HashMap<>();
+        private Document runKeys;
+        private Pair<NitriteId, Document> next;
+
+        OrderedUnionIterator(List<Iterator<Pair<NitriteId, Document>>> iterators) {
+            this.iterators = iterators;
+            this.heads = new ArrayList<>();
+            this.documents = new Document[iterators.size()];
+            for (int i = 0; i < iterators.size(); i++) {
+                heads.add(null);
+                advance(i);
+            }
+            nextMatch();
+        }
+
+        @Override
+        public void close() {
+            for (Iterator<Pair<NitriteId, Document>> iterator : iterators) {
+                Iterables.close(iterator);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Pair<NitriteId, Document> current = next;
+            nextMatch();
+            return current;
+        }
+
+        private void advance(int index) {
+            heads.set(index, null);
+            documents[index] = null;
+            Iterator<Pair<NitriteId, Document>> iterator = iterators.get(index);
+            while (iterator.hasNext()) {
+                Pair<NitriteId, Document> entry = iterator.next();
+                if (entry.getSecond() != null) {
+                    heads.set(index, entry);
+                    return;
+                }
+
+                // a null key does not carry its values, the document is read instead
+                Document document = fetch(entry.getFirst());
+                if (document != null) {
+                    heads.set(index, new Pair<>(entry.getFirst(), document));
+                    documents[index] = document;
+                    return;
+                }
+            }
+        }
+
+        private void nextMatch() {
+            next = null;
+            while (true) {
+                int min = -1;
+                for (int i = 0; i < heads.size(); i++) {
+                    Pair<NitriteId, Document> head = heads.get(i);
+                    if (head != null && (min < 0
+                        || compareKeys(head.getSecond(), heads.get(min).getSecond()) < 0)) {
+                        min = i;
+                    }
+                }
+                if (min < 0) {
+                    return;
+                }
+
+                Pair<NitriteId, Document> head = heads.get(min);
+                Document document = documents[min];
+                advance(min);
+
+                if (runKeys == null || compareKeys(head.getSecond(), runKeys) != 0) {
+                    runKeys = head.getSecond();
+                    accepted.clear();
+                    rejected.clear();
+                }
+
+                NitriteId nitriteId = head.getFirst();
+                if (accepted.contains(nitriteId)) {
+                    continue;
+                }
+
+                Document previous = rejected.get(nitriteId);
+                if (previous == null && unionStage != null) {
+                    unionStage.recordProduced();
+                }
+                if (document == null) {
+                    document = previous;
+                }
+                if (document == null) {
+                    document = fetch(nitriteId);
+                    if (document == null) {
+                        continue;
+                    }
+                }
+
+                Pair<NitriteId, Document> element = new Pair<>(nitriteId, document);
+                Filter filter = filters.get(min);
+                if (filter == null || filter.apply(element)) {
+                    accepted.add(nitriteId);
+                    rejected.remove(nitriteId);
+                    next = element;
+                    return;
+                }
+                rejected.put(nitriteId, document);
+            }
+        }
+
+        private Document fetch(NitriteId nitriteId) {
+            if (fetchStage != null) {
+                fetchStage.recordProduced();
+            }
+            return nitriteMap.get(nitriteId);
+        }
+    }
+}
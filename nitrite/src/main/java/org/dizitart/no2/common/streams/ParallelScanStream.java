@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import lombok.Setter;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A collection scan which splits the collection into ranges of ids and
+ * filters every range on the common {@link ForkJoinPool}. The matching
+ * documents are returned in the order of their ids, as by a sequential
+ * scan with a {@link FilteredStream}.
+ * <p>
+ * At most as many ranges as the common pool has workers are scanned ahead
+ * of the iterator, the matches of a range are held in memory until the
+ * iterator reaches it. Closing the iterator (see
+ * {@link org.dizitart.no2.common.util.Iterables#close(Iterator)}), e.g. when
+ * a limit is reached, cancels the ranges still being scanned.
+ *
+ * @since 4.5
+ */
+public class ParallelScanStream implements RecordStream<Pair<NitriteId, Document>> {
+    private final NitriteMap<NitriteId, Document> nitriteMap;
+    private final Filter filter;
+    private final int partitions;
+
+    /**
+     * Sets the stage of an {@link ExecutionProfile} which counts the documents
+     * read by the scan, before they are filtered.
+     */
+    @Setter
+    private ExecutionProfile.Stage scanStage;
+
+    /**
+     * Instantiates a new {@link ParallelScanStream}.
+     *
+     * @param nitriteMap the map of the collection
+     * @param filter     the filter of the documents
+     * @param partitions the number of ranges scanned in parallel
+     */
+    public ParallelScanStream(NitriteMap<NitriteId, Document> nitriteMap, Filter filter, int partitions) {
+        this.nitriteMap = nitriteMap;
+        this.filter = filter;
+        this.partitions = partitions;
+    }
+
+    @Override
+    public Iterator<Pair<NitriteId, Document>> iterator() {
+        List<NitriteId> splitKeys = nitriteMap.splitKeys(partitions);
+        if (splitKeys.isEmpty()) {
+            // too small to split
+            RecordStream<Pair<NitriteId, Document>> entries = nitriteMap.entries();
+            if (scanStage != null) {
+                entries = new ProfiledStream<>(entries, scanStage);
+            }
+            return new FilteredStream(entries, filter).iterator();
+        }
+        return new MergedIterator(splitKeys);
+    }
+
+    private class RangeScanTask extends RecursiveTask<RangeResult> {
+        private final NitriteId from;
+        private final NitriteId to;
+        private final AtomicBoolean closed;
+
+        RangeScanTask(NitriteId from, NitriteId to, AtomicBoolean closed) {
+            this.from = from;
+            this.to = to;
+            this.closed = closed;
+        }
+
+        @Override
+        protected RangeResult compute() {
+            RangeResult result = new RangeResult();
+            for (NitriteId nitriteId : nitriteMap.keys(from, false)) {
+                if ((to != null && nitriteId.compareTo(to) >= 0) || closed.get()) {
+                    // a cancelled task is not interrupted, it stops on its own
+                    break;
+                }
+
+                Document document = nitriteMap.get(nitriteId);
+                if (document == null) {
+                    // removed since the key was read
+                    continue;
+                }
+
+                result.scanned++;
+                Pair<NitriteId, Document> pair = new Pair<>(nitriteId, document);
+                if (filter == null || filter == Filter.ALL || filter.apply(pair)) {
+                    result.matches.add(pair);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class RangeResult {
+        private final List<Pair<NitriteId, Document>> matches = new ArrayList<>();
+        private long scanned;
+    }
+
+    private class MergedIterator implements Iterator<Pair<NitriteId, Document>>, AutoCloseable {
+        private final List<NitriteId> splitKeys;
+        private final int lookAhead;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        // the ranges submitted to the pool, in the order of their ids
+        private final Queue<ForkJoinTask<RangeResult>> tasks = new ArrayDeque<>();
+        private int nextRange;
+        private Iterator<Pair<NitriteId, Document>> current = Collections.emptyIterator();
+
+        MergedIterator(List<NitriteId> splitKeys) {
+            this.splitKeys = splitKeys;
+            this.lookAhead = Math.max(2, ForkJoinPool.getCommonPoolParallelism());
+            submitRanges();
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                while (!tasks.isEmpty()) {
+                    tasks.remove().cancel(false);
+                }
+                current = Collections.emptyIterator();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && !tasks.isEmpty()) {
+                // the ranges are joined in the order of their ids
+                RangeResult result = tasks.remove().join();
+                submitRanges();
+                if (scanStage != null) {
+                    // the stage is not thread safe, it is updated on the consuming thread
+                    scanStage.recordsProduced(result.scanned);
+                }
+                current = result.matches.iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private void submitRanges() {
+            // there is one more range than split keys, the first one starts at the first id
+            while (!closed.get() && tasks.size() < lookAhead && nextRange <= splitKeys.size()) {
+                NitriteId from = nextRange == 0 ? null : splitKeys.get(nextRange - 1);
+                NitriteId to = nextRange < splitKeys.size() ? splitKeys.get(nextRange) : null;
+                tasks.add(ForkJoinPool.commonPool().submit(new RangeScanTask(from, to, closed)));
+                nextRange++;
+            }
+        }
+    }
+}
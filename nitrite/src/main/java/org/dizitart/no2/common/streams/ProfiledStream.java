@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import lombok.Getter;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.util.Iterables;
+
+import java.util.Iterator;
+
+/**
+ * A stream which records the number of records produced by another stream
+ * and the wall time spent pulling them into a stage of an {@link ExecutionProfile}.
+ *
+ * @param <T> the type of the records
+ * @since 4.5
+ */
+public class ProfiledStream<T> implements RecordStream<T> {
+    private final RecordStream<T> recordStream;
+
+    /**
+     * Gets the stage the statistics are recorded into.
+     */
+    @Getter
+    private final ExecutionProfile.Stage stage;
+
+    public ProfiledStream(RecordStream<T> recordStream, ExecutionProfile.Stage stage) {
+        this.recordStream = recordStream;
+        this.stage = stage;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        long start = System.nanoTime();
+        Iterator<T> iterator = recordStream.iterator();
+        stage.addElapsed(System.nanoTime() - start);
+        return new ProfiledIterator<>(iterator, stage);
+    }
+
+    private static class ProfiledIterator<T> implements Iterator<T>, AutoCloseable {
+        private final Iterator<T> iterator;
+        private final ExecutionProfile.Stage stage;
+
+        ProfiledIterator(Iterator<T> iterator, ExecutionProfile.Stage stage) {
+            this.iterator = iterator;
+            this.stage = stage;
+        }
+
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
+        @Override
+        public boolean hasNext() {
+            long start = System.nanoTime();
+            try {
+                return iterator.hasNext();
+            } finally {
+                stage.addElapsed(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public T next() {
+            long start = System.nanoTime();
+            try {
+                T next = iterator.next();
+                stage.recordProduced();
+                return next;
+            } finally {
+                stage.addElapsed(System.nanoTime() - start);
+            }
+        }
+    }
+}
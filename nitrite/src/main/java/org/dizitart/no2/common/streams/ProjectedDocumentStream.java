@@ -20,9 +20,10 @@ package org.dizitart.no2.common.streams;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.processors.ProcessorChain;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.InvalidOperationException;
-import org.dizitart.no2.common.processors.ProcessorChain;
 
 import java.util.Collections;
 import java.util.Iterator;
@@ -55,7 +56,7 @@ public class ProjectedDocumentStream implements RecordStream<Document> {
         return toList().toString();
     }
 
-    private static class ProjectedDocumentIterator implements Iterator<Document> {
+    private static class ProjectedDocumentIterator implements Iterator<Document>, AutoCloseable {
         private final Iterator<Pair<NitriteId, Document>> iterator;
         private final ProcessorChain processorChain;
         private Document nextElement = null;
@@ -70,6 +71,11 @@ public class ProjectedDocumentStream implements RecordStream<Document> {
             nextMatch();
         }
 
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+
         @Override
         public boolean hasNext() {
             return nextElement != null;
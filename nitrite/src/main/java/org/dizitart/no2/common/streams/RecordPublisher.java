@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.util.Iterables;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
+/**
+ * A {@link Flow.Publisher} of the records of a {@link RecordStream}. Every
+ * subscriber gets its own stream, which is created and iterated on the
+ * executor only when the subscriber requests records, and never further
+ * than the demand. A blocking store read therefore never runs on the thread
+ * of the subscriber.
+ * <p>
+ * The records are pulled in batches of the outstanding demand, one task on
+ * the executor per batch. A cancelled subscription stops the iteration and
+ * closes the iterator of the stream, which closes the streams it reads down
+ * to the store iterator.
+ * <p>
+ * It is exempt from the Android API level 26 check of the build, as
+ * {@link Flow} is only available from API level 30.
+ *
+ * @param <T> the type of the records
+ * @since 4.5
+ */
+@Slf4j(topic = "nitrite")
+@IgnoreJRERequirement
+public class RecordPublisher<T> implements Flow.Publisher<T> {
+    private final Supplier<? extends RecordStream<T>> streamSupplier;
+    private final Executor executor;
+
+    /**
+     * Instantiates a new {@link RecordPublisher}.
+     *
+     * @param streamSupplier creates the stream of a subscriber, on the executor
+     * @param executor       the executor which reads the records
+     */
+    public RecordPublisher(Supplier<? extends RecordStream<T>> streamSupplier, Executor executor) {
+        notNull(streamSupplier, "streamSupplier cannot be null");
+        notNull(executor, "executor cannot be null");
+        this.streamSupplier = streamSupplier;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        notNull(subscriber, "subscriber cannot be null");
+        subscriber.onSubscribe(new RecordSubscription(subscriber));
+    }
+
+    @IgnoreJRERequirement
+    private class RecordSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // the number of signals the drain has not seen yet, the drain runs while it is positive
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        // only accessed by the drain, which never runs concurrently with itself
+        private Iterator<T> iterator;
+        private boolean terminated;
+
+        RecordSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("non-positive request " + n);
+            } else {
+                demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            // the iterator is closed by the drain, never while it is being read
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    cancelled = true;
+                    terminated = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (terminated) {
+                return;
+            }
+
+            try {
+                if (cancelled) {
+                    release();
+                    return;
+                }
+
+                if (invalidRequest != null) {
+                    release();
+                    subscriber.onError(invalidRequest);
+                    return;
+                }
+
+                long requested = demand.get();
+                if (requested == 0) {
+                    return;
+                }
+
+                if (iterator == null) {
+                    RecordStream<T> recordStream = streamSupplier.get();
+                    iterator = recordStream.iterator();
+                }
+
+                long emitted = 0;
+                while (emitted < requested) {
+                    if (cancelled) {
+                        release();
+                        return;
+                    }
+
+                    if (!iterator.hasNext()) {
+                        release();
+                        subscriber.onComplete();
+                        return;
+                    }
+
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+
+                // a request made meanwhile has signalled the drain to run again
+                demand.addAndGet(-emitted);
+            } catch (Throwable e) {
+                release();
+                subscriber.onError(e);
+            }
+        }
+
+        private void release() {
+            terminated = true;
+            cancelled = true;
+            try {
+                // every stream of a cursor closes the one it reads, down to the store iterator
+                Iterables.close(iterator);
+            } catch (Exception e) {
+                log.warn("Failed to close the iterator of a subscription", e);
+            }
+            iterator = null;
+        }
+    }
+}
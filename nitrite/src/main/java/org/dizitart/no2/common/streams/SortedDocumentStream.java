@@ -22,17 +22,17 @@ import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
-import org.dizitart.no2.common.util.Iterables;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
 /**
  * @since 4.0
  * @author Anindya Chatterjee.
  */
 public class SortedDocumentStream implements RecordStream<Pair<NitriteId, Document>> {
+    // beyond this a top-k heap is no better than sorting everything
+    private static final long MAX_TOP_K = Integer.MAX_VALUE - 8;
+
     private final FindPlan findPlan;
     private final RecordStream<Pair<NitriteId, Document>> recordStream;
 
@@ -49,9 +49,97 @@ public class SortedDocumentStream implements RecordStream<Pair<NitriteId, Docume
         DocumentSorter documentSorter = new DocumentSorter(findPlan.getCollator(),
             findPlan.getBlockingSortOrder());
 
-        List<Pair<NitriteId, Document>> recordList = Iterables.toList(recordStream);
-        Collections.sort(recordList, documentSorter);
+        int sortBufferSize = findPlan.getSortBufferSize() == null ? 0 : findPlan.getSortBufferSize();
+
+        long topK = topK();
+        if (topK == 0) {
+            return Collections.emptyIterator();
+        } else if (topK > 0 && (sortBufferSize <= 0 || topK <= sortBufferSize)) {
+            return topK(documentSorter, (int) topK).iterator();
+        }
+
+        if (sortBufferSize > 0) {
+            // bounded memory, sorted runs are spilled to disk and merged
+            return new ExternalSorter(documentSorter, sortBufferSize).sort(recordStream);
+        }
+
+        // the sort values are read once per document instead of once per comparison
+        List<SequencedRecord> sequencedRecords = new ArrayList<>();
+        for (Pair<NitriteId, Document> record : recordStream) {
+            sequencedRecords.add(new SequencedRecord(record,
+                documentSorter.sortKeys(record.getSecond()), sequencedRecords.size()));
+        }
+        sequencedRecords.sort((r1, r2) -> documentSorter.compareKeys(r1.keys, r2.keys));
 
+        List<Pair<NitriteId, Document>> recordList = new ArrayList<>(sequencedRecords.size());
+        for (SequencedRecord sequencedRecord : sequencedRecords) {
+            recordList.add(sequencedRecord.record);
+        }
         return recordList.iterator();
     }
+
+    /**
+     * Returns how many of the smallest documents the bound stage downstream can ever emit,
+     * i.e. skip + limit, or -1 when the plan has no limit and the whole input must be sorted.
+     */
+    private long topK() {
+        Long limit = findPlan.getLimit();
+        if (limit == null || limit < 0) {
+            return -1;
+        }
+
+        long skip = findPlan.getSkip() == null ? 0 : Math.max(findPlan.getSkip(), 0);
+        if (limit > MAX_TOP_K - skip) {
+            // too large to be worth a bounded heap
+            return -1;
+        }
+        return skip + limit;
+    }
+
+    /**
+     * Keeps only the k smallest documents in a bounded max-heap while the input streams by,
+     * in O(n log k) comparisons and O(k) memory. An arrival sequence breaks ties so that
+     * equal documents keep their input order, exactly like the stable full sort.
+     */
+    private List<Pair<NitriteId, Document>> topK(DocumentSorter documentSorter, int k) {
+        Comparator<SequencedRecord> order = (r1, r2) -> {
+            int result = documentSorter.compareKeys(r1.keys, r2.keys);
+            return result != 0 ? result : Long.compare(r1.sequence, r2.sequence);
+        };
+
+        // the head of the heap is the largest of the k smallest documents seen so far
+        PriorityQueue<SequencedRecord> heap = new PriorityQueue<>(Math.min(k, 1024), order.reversed());
+        long sequence = 0;
+        for (Pair<NitriteId, Document> record : recordStream) {
+            SequencedRecord candidate = new SequencedRecord(record,
+                documentSorter.sortKeys(record.getSecond()), sequence++);
+            if (heap.size() < k) {
+                heap.offer(candidate);
+            } else if (order.compare(candidate, heap.peek()) < 0) {
+                heap.poll();
+                heap.offer(candidate);
+            }
+        }
+
+        List<SequencedRecord> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+
+        List<Pair<NitriteId, Document>> recordList = new ArrayList<>(sorted.size());
+        for (SequencedRecord sequencedRecord : sorted) {
+            recordList.add(sequencedRecord.record);
+        }
+        return recordList;
+    }
+
+    private static class SequencedRecord {
+        private final Pair<NitriteId, Document> record;
+        private final Object[] keys;
+        private final long sequence;
+
+        SequencedRecord(Pair<NitriteId, Document> record, Object[] keys, long sequence) {
+            this.record = record;
+            this.keys = keys;
+            this.sequence = sequence;
+        }
+    }
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import lombok.Setter;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The union of the results of the sub plans of an or filter. The ids of
+ * every sub plan are collected into a sorted array, and the arrays are
+ * merged, so that a document matched by several sub plans is read only
+ * once. A document is kept if the post-filter of any sub plan which
+ * produced its id matches it.
+ * <p>
+ * The documents are streamed in the order of their ids.
+ *
+ * @since 4.5
+ */
+public class UnionStream implements RecordStream<Pair<NitriteId, Document>> {
+    private final List<RecordStream<NitriteId>> idStreams;
+    private final List<Filter> filters;
+    private final NitriteMap<NitriteId, Document> nitriteMap;
+
+    /**
+     * Sets the stage which counts the distinct ids of the union.
+     */
+    @Setter
+    private ExecutionProfile.Stage unionStage;
+
+    /**
+     * Sets the stage which counts the documents read.
+     */
+    @Setter
+    private ExecutionProfile.Stage fetchStage;
+
+    /**
+     * Instantiates a new {@link UnionStream}.
+     *
+     * @param idStreams  the ids of every sub plan
+     * @param filters    the post-filter of every sub plan, <code>null</code> if it has none
+     * @param nitriteMap the collection
+     */
+    public UnionStream(List<RecordStream<NitriteId>> idStreams, List<Filter> filters,
+                       NitriteMap<NitriteId, Document> nitriteMap) {
+        this.idStreams = idStreams;
+        this.filters = filters;
+        this.nitriteMap = nitriteMap;
+    }
+
+    @Override
+    public Iterator<Pair<NitriteId, Document>> iterator() {
+        long[][] idSets = new long[idStreams.size()][];
+        for (int i = 0; i < idStreams.size(); i++) {
+            idSets[i] = sortedIds(idStreams.get(i));
+        }
+        return new UnionIterator(idSets);
+    }
+
+    private static long[] sortedIds(RecordStream<NitriteId> nitriteIds) {
+        long[] ids = new long[16];
+        int size = 0;
+        if (nitriteIds != null) {
+            for (NitriteId nitriteId : nitriteIds) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = nitriteId.getIdValue();
+            }
+        }
+        Arrays.sort(ids, 0, size);
+
+        // an id of an array element may be produced more than once
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+
+    private class UnionIterator implements Iterator<Pair<NitriteId, Document>> {
+        private final long[][] idSets;
+        private final int[] positions;
+        private final int[] producers;
+        private Pair<NitriteId, Document> next;
+
+        UnionIterator(long[][] idSets) {
+            this.idSets = idSets;
+            this.positions = new int[idSets.length];
+            this.producers = new int[idSets.length];
+            nextMatch();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Pair<NitriteId, Document> current = next;
+            nextMatch();
+            return current;
+        }
+
+        private void nextMatch() {
+            next = null;
+            while (true) {
+                long min = 0;
+                boolean found = false;
+                for (int i = 0; i < idSets.length; i++) {
+                    if (positions[i] < idSets[i].length && (!found || idSets[i][positions[i]] < min)) {
+                        min = idSets[i][positions[i]];
+                        found = true;
+                    }
+                }
+                if (!found) {
+                    return;
+                }
+
+                // the sub plans which produced the id
+                int count = 0;
+                for (int i = 0; i < idSets.length; i++) {
+                    if (positions[i] < idSets[i].length && idSets[i][positions[i]] == min) {
+                        positions[i]++;
+                        producers[count++] = i;
+                    }
+                }
+                if (unionStage != null) {
+                    unionStage.recordProduced();
+                }
+
+                NitriteId nitriteId = NitriteId.createId(min);
+                Document document = nitriteMap.get(nitriteId);
+                if (fetchStage != null) {
+                    fetchStage.recordProduced();
+                }
+                if (document == null) {
+                    continue;
+                }
+
+                Pair<NitriteId, Document> element = new Pair<>(nitriteId, document);
+                if (matchesAny(element, count)) {
+                    next = element;
+                    return;
+                }
+            }
+        }
+
+        private boolean matchesAny(Pair<NitriteId, Document> element, int count) {
+            for (int i = 0; i < count; i++) {
+                Filter filter = filters.get(producers[i]);
+                if (filter == null || filter.apply(element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
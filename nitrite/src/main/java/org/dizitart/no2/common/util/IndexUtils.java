@@ -39,15 +39,51 @@ public class IndexUtils {
     }
 
     /**
-     * Derives the name of the backing map for a non-unique single-field index that uses the
-     * composite-key layout (one row per {@code (value, id)} pair, see issue #1260). It is kept
-     * distinct from {@link #deriveIndexMapName(IndexDescriptor)} so the legacy array-format map
-     * can be read and migrated before being dropped.
+     * Derives the name of the backing map for an index that uses the composite-key layout:
+     * a non-unique single-field index (one row per {@code (value, id)} pair, see issue #1260),
+     * a compound index (one row per {@code (v1, .., vn, id)} tuple) or a text index (one
+     * posting row per {@code (word, id)} pair). It is kept distinct
+     * from {@link #deriveIndexMapName(IndexDescriptor)} so the legacy map can be read and
+     * migrated before being dropped.
      */
     public static String deriveCompositeIndexMapName(IndexDescriptor descriptor) {
         return deriveIndexMapName(descriptor) + INTERNAL_NAME_SEPARATOR + "composite";
     }
 
+    /**
+     * Derives the name of the backing map for a unique single-field index that maps every
+     * value directly to its {@link org.dizitart.no2.collection.NitriteId}. It is kept distinct
+     * from {@link #deriveIndexMapName(IndexDescriptor)} so the legacy list-format map can be
+     * read and migrated before being dropped.
+     */
+    public static String deriveUniqueIndexMapName(IndexDescriptor descriptor) {
+        return deriveIndexMapName(descriptor) + INTERNAL_NAME_SEPARATOR + "direct";
+    }
+
+    /**
+     * Derives the name of the map holding the number of indexed words of every document
+     * of a text index, used to rank the documents by relevance.
+     */
+    public static String deriveTextLengthMapName(IndexDescriptor descriptor) {
+        return deriveIndexMapName(descriptor) + INTERNAL_NAME_SEPARATOR + "length";
+    }
+
+    /**
+     * Derives the name of the map holding the collection-wide statistics of a text index,
+     * used to rank the documents by relevance.
+     */
+    public static String deriveTextStatisticsMapName(IndexDescriptor descriptor) {
+        return deriveIndexMapName(descriptor) + INTERNAL_NAME_SEPARATOR + "stats";
+    }
+
+    /**
+     * Derives the name of the map holding the positions of the words in every document
+     * of a text index which stores positions, used to answer phrase and proximity queries.
+     */
+    public static String deriveTextPositionMapName(IndexDescriptor descriptor) {
+        return deriveIndexMapName(descriptor) + INTERNAL_NAME_SEPARATOR + "positions";
+    }
+
     public static String deriveIndexMetaMapName(String collectionName) {
         return INDEX_META_PREFIX + INTERNAL_NAME_SEPARATOR + collectionName;
     }
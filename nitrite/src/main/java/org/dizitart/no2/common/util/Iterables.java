@@ -16,6 +16,8 @@
 
 package org.dizitart.no2.common.util;
 
+import org.dizitart.no2.exceptions.NitriteIOException;
+
 import java.lang.reflect.Array;
 import java.util.*;
 
@@ -30,10 +32,35 @@ public class Iterables {
         if (iterable == null) return null;
 
         Iterator<T> iterator = iterable.iterator();
-        if (iterator.hasNext()) {
-            return iterator.next();
+        try {
+            if (iterator.hasNext()) {
+                return iterator.next();
+            }
+            return null;
+        } finally {
+            close(iterator);
+        }
+    }
+
+    /**
+     * Closes an iterator which holds resources, i.e. which is {@link AutoCloseable}.
+     * The iterators of the record streams close their source iterators in turn, so
+     * closing the iterator of a cursor releases the whole chain, e.g. the sorted runs
+     * of a spilled sort.
+     *
+     * @param iterator the iterator
+     * @since 4.5
+     */
+    public static void close(Iterator<?> iterator) {
+        if (iterator instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) iterator).close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new NitriteIOException("Failed to close iterator", e);
+            }
         }
-        return null;
     }
 
     public static <T> List<T> toList(Iterable<T> iterable) {
@@ -26,15 +26,52 @@ import java.math.BigInteger;
  * @since 1.0
  */
 public class Numbers {
+    private static final long MAX_EXACT_LONG = 1L << 53;
+
     private Numbers() {
     }
 
     public static int compare(Number x, Number y) {
         if (isSpecial(x) || isSpecial(y)) {
             return Double.compare(x.doubleValue(), y.doubleValue());
-        } else {
-            return toBigDecimal(x).compareTo(toBigDecimal(y));
         }
+
+        // filters compare numbers for every scanned document, compare the
+        // common boxed types without converting them to BigDecimal
+        boolean integralX = isIntegral(x);
+        boolean integralY = isIntegral(y);
+        if (integralX && integralY) {
+            return Long.compare(x.longValue(), y.longValue());
+        }
+
+        if ((integralX || isFloating(x)) && (integralY || isFloating(y))
+            && isExactDouble(x, integralX) && isExactDouble(y, integralY)) {
+            // -0.0 and 0.0 are equal, as their BigDecimal values are
+            return compareDoubles(x.doubleValue(), y.doubleValue());
+        }
+        return toBigDecimal(x).compareTo(toBigDecimal(y));
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Integer || number instanceof Long
+            || number instanceof Short || number instanceof Byte;
+    }
+
+    private static boolean isFloating(Number number) {
+        return number instanceof Double || number instanceof Float;
+    }
+
+    private static boolean isExactDouble(Number number, boolean integral) {
+        if (!integral) return true;
+        // a long is only exact as a double within 53 bits
+        long value = number.longValue();
+        return value >= -MAX_EXACT_LONG && value <= MAX_EXACT_LONG;
+    }
+
+    private static int compareDoubles(double x, double y) {
+        if (x < y) return -1;
+        if (x > y) return 1;
+        return 0;
     }
 
     private static boolean isSpecial(Number number) {
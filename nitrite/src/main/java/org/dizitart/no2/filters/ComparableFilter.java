@@ -20,6 +20,7 @@ import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.exceptions.InvalidIdException;
 import org.dizitart.no2.index.IndexMap;
+import org.dizitart.no2.index.IndexStatistics;
 
 import java.util.List;
 
@@ -63,6 +64,18 @@ public abstract class ComparableFilter extends FieldBasedFilter {
      */
     public abstract List<?> applyOnIndex(IndexMap indexMap);
 
+    /**
+     * Estimates the number of index entries this filter selects, using the
+     * statistics of the index. A filter which can not tell assumes it
+     * selects the whole index.
+     *
+     * @param statistics the index statistics
+     * @return the estimated number of index entries
+     */
+    public double estimateEntries(IndexStatistics statistics) {
+        return statistics.getEntryCount();
+    }
+
     /**
      * When filtering on the _id field, resolves the search term to a {@link NitriteId}
      * so matching happens by id like getById does. Databases written before 4.4 store
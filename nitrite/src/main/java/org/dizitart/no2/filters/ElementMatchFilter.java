@@ -64,7 +64,7 @@ class ElementMatchFilter extends ComparableFilter {
         }
 
         Document document = element.getSecond();
-        Object fieldValue = document.get(getField());
+        Object fieldValue = getFieldValue(document);
         if (fieldValue == null) {
             return false;
         }
@@ -235,7 +235,7 @@ class ElementMatchFilter extends ComparableFilter {
         Object value = ((EqualsFilter) filter).getValue();
         if (item instanceof Document) {
             Document document = (Document) item;
-            Object docValue = document.get(((EqualsFilter) filter).getField());
+            Object docValue = ((EqualsFilter) filter).getFieldValue(document);
             return deepEquals(value, docValue);
         } else {
             return deepEquals(item, value);
@@ -253,7 +253,7 @@ class ElementMatchFilter extends ComparableFilter {
             return arg.compareTo(comparable) > 0;
         } else if (item instanceof Document) {
             Document document = (Document) item;
-            Object docValue = document.get(((GreaterThanFilter) filter).getField());
+            Object docValue = ((GreaterThanFilter) filter).getFieldValue(document);
             if (docValue instanceof Comparable) {
                 Comparable arg = (Comparable) docValue;
                 return arg.compareTo(comparable) > 0;
@@ -277,7 +277,7 @@ class ElementMatchFilter extends ComparableFilter {
             return arg.compareTo(comparable) >= 0;
         } else if (item instanceof Document) {
             Document document = (Document) item;
-            Object docValue = document.get(((GreaterEqualFilter) filter).getField());
+            Object docValue = ((GreaterEqualFilter) filter).getFieldValue(document);
             if (docValue instanceof Comparable) {
                 Comparable arg = (Comparable) docValue;
                 return arg.compareTo(comparable) >= 0;
@@ -300,7 +300,7 @@ class ElementMatchFilter extends ComparableFilter {
             return arg.compareTo(comparable) <= 0;
         } else if (item instanceof Document) {
             Document document = (Document) item;
-            Object docValue = document.get(((LesserEqualFilter) filter).getField());
+            Object docValue = ((LesserEqualFilter) filter).getFieldValue(document);
             if (docValue instanceof Comparable) {
                 Comparable arg = (Comparable) docValue;
                 return arg.compareTo(comparable) <= 0;
@@ -323,7 +323,7 @@ class ElementMatchFilter extends ComparableFilter {
             return arg.compareTo(comparable) < 0;
         } else if (item instanceof Document) {
             Document document = (Document) item;
-            Object docValue = document.get(((LesserThanFilter) filter).getField());
+            Object docValue = ((LesserThanFilter) filter).getFieldValue(document);
             if (docValue instanceof Comparable) {
                 Comparable arg = (Comparable) docValue;
                 return arg.compareTo(comparable) < 0;
@@ -340,7 +340,7 @@ class ElementMatchFilter extends ComparableFilter {
         if (values != null) {
             if (item instanceof Document) {
                 Document document = (Document) item;
-                Object docValue = document.get(((InFilter) filter).getField());
+                Object docValue = ((InFilter) filter).getFieldValue(document);
                 if (docValue instanceof Comparable) {
                     return values.contains(docValue);
                 }
@@ -356,7 +356,7 @@ class ElementMatchFilter extends ComparableFilter {
         if (values != null) {
             if (item instanceof Document) {
                 Document document = (Document) item;
-                Object docValue = document.get(((NotInFilter) filter).getField());
+                Object docValue = ((NotInFilter) filter).getFieldValue(document);
                 if (docValue instanceof Comparable) {
                     return !values.contains(docValue);
                 }
@@ -375,7 +375,7 @@ class ElementMatchFilter extends ComparableFilter {
             return matcher.find();
         } else if (item instanceof Document) {
             Document document = (Document) item;
-            Object docValue = document.get(((RegexFilter) filter).getField());
+            Object docValue = ((RegexFilter) filter).getFieldValue(document);
             if (docValue instanceof String) {
                 Pattern pattern = Pattern.compile(value);
                 Matcher matcher = pattern.matcher((String) docValue);
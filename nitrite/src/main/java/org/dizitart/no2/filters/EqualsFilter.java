@@ -22,6 +22,7 @@ import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.index.IndexMap;
+import org.dizitart.no2.index.IndexStatistics;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -47,7 +48,7 @@ public class EqualsFilter extends ComparableFilter {
         }
 
         Document document = element.getSecond();
-        Object fieldValue = document.get(getField());
+        Object fieldValue = getFieldValue(document);
         if (deepEquals(fieldValue, getValue())) {
             return true;
         }
@@ -86,6 +87,11 @@ public class EqualsFilter extends ComparableFilter {
         return result;
     }
 
+    @Override
+    public double estimateEntries(IndexStatistics statistics) {
+        return statistics.estimateEquals(getValue());
+    }
+
     @Override
     public String toString() {
         return "(" + getField() + " == " + getValue() + ")";
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.filters;
+
+import org.dizitart.no2.common.DBValue;
+
+import java.util.Set;
+
+/**
+ * A {@link ComparableFilter} which matches every index key except a few,
+ * like a not equals or a not in filter. The index scanner walks the ranges
+ * between the excluded keys instead of comparing every index entry with the
+ * filter value.
+ *
+ * @since 4.5
+ */
+public interface ExcludingFilter {
+    /**
+     * Gets the index keys the filter excludes, a {@link org.dizitart.no2.common.DBNull}
+     * for the null key. Returns <code>null</code> if the filter value can not be
+     * an index key.
+     *
+     * @return the excluded keys, or <code>null</code>
+     */
+    Set<DBValue> getExcludedKeys();
+}
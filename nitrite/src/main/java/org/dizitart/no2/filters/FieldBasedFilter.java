@@ -20,10 +20,15 @@ import lombok.AccessLevel;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.FieldPath;
 import org.dizitart.no2.common.mapper.NitriteMapper;
 import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.index.IndexMap;
 
 import java.util.List;
 import java.util.NavigableMap;
@@ -45,8 +50,17 @@ public abstract class FieldBasedFilter extends NitriteFilter {
     @Getter(AccessLevel.NONE)
     private Object value;
 
+    // volatile, a parallel scan evaluates the filter on several threads
+    // and all of them must see the converted value once it is processed
     @Getter(AccessLevel.NONE)
-    private boolean processed = false;
+    private volatile boolean processed = false;
+
+    // resolved on the first evaluation and reused for every document of the query
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile FieldPath fieldPath;
 
     /**
      * Instantiates a new Field based filter.
@@ -67,7 +81,7 @@ public abstract class FieldBasedFilter extends NitriteFilter {
     public Object getValue() {
         if (this.processed) return value;
 
-        if (value == null) return null;
+        if (value == null || value instanceof QueryParameter) return value;
 
         if (getObjectFilter()) {
             NitriteMapper nitriteMapper = getNitriteConfig().nitriteMapper();
@@ -81,6 +95,43 @@ public abstract class FieldBasedFilter extends NitriteFilter {
         return value;
     }
 
+    /**
+     * Gets the field of the filter split into the keys of its embedded
+     * documents. The path is resolved once and reused for every document
+     * the filter is applied on.
+     *
+     * @return the field path
+     * @since 4.5
+     */
+    public FieldPath getFieldPath() {
+        FieldPath path = this.fieldPath;
+        if (path == null || !path.getName().equals(field)) {
+            path = FieldPath.of(field);
+            this.fieldPath = path;
+        }
+        return path;
+    }
+
+    /**
+     * Gets the value of the field of the filter from a document.
+     *
+     * @param document the document
+     * @return the value of the field
+     * @since 4.5
+     */
+    protected Object getFieldValue(Document document) {
+        return document.getByPath(getFieldPath());
+    }
+
+    /**
+     * Gets the value as it was given, before any conversion.
+     *
+     * @return the raw value
+     */
+    Object getRawValue() {
+        return value;
+    }
+
     /**
      * Validates the search term for a given field and value.
      *
@@ -103,7 +154,7 @@ public abstract class FieldBasedFilter extends NitriteFilter {
      */
     @SuppressWarnings("unchecked")
     protected void processIndexValue(Object value,
-                                     List<NavigableMap<DBValue, Object>> subMap,
+                                     List<IndexMap> subMap,
                                      List<NitriteId> nitriteIds) {
         if (value instanceof List) {
             // if it is list then add it directly to nitrite ids
@@ -111,8 +162,11 @@ public abstract class FieldBasedFilter extends NitriteFilter {
             nitriteIds.addAll(result);
         }
 
-        if (value instanceof NavigableMap) {
-            subMap.add((NavigableMap<DBValue, Object>) value);
+        if (value instanceof IndexMap) {
+            // the next field of a compound index
+            subMap.add((IndexMap) value);
+        } else if (value instanceof NavigableMap) {
+            subMap.add(new IndexMap((NavigableMap<DBValue, Object>) value));
         }
     }
 }
@@ -23,6 +23,7 @@ import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.index.IndexMap;
+import org.dizitart.no2.index.IndexStatistics;
 
 import java.util.*;
 
@@ -52,7 +53,7 @@ class InFilter extends ComparableArrayFilter {
         }
 
         Document document = element.getSecond();
-        Object fieldValue = document.get(getField());
+        Object fieldValue = getFieldValue(document);
 
         if (fieldValue instanceof Comparable) {
             Comparable<?> comparable = (Comparable<?>) fieldValue;
@@ -72,6 +73,15 @@ class InFilter extends ComparableArrayFilter {
         return false;
     }
 
+    @Override
+    public double estimateEntries(IndexStatistics statistics) {
+        double estimate = 0;
+        for (Comparable<?> value : comparableSet) {
+            estimate += statistics.estimateEquals(value);
+        }
+        return Math.min(estimate, statistics.getEntryCount());
+    }
+
     public List<?> applyOnIndex(IndexMap indexMap) {
         // collect the values to look up in a sorted set, so the scan follows
         // the natural (or reverse) order of the index
@@ -80,7 +90,7 @@ class InFilter extends ComparableArrayFilter {
             dbValueSet.add(value == null ? DBNull.getInstance() : new DBValue(value));
         }
 
-        List<NavigableMap<DBValue, Object>> subMap = new ArrayList<>();
+        List<IndexMap> subMap = new ArrayList<>();
         List<NitriteId> nitriteIds = new ArrayList<>();
 
         // look up each value directly in the index instead of scanning every
@@ -27,7 +27,6 @@ import org.dizitart.no2.index.IndexMap;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NavigableMap;
 
 import static org.dizitart.no2.common.util.Numbers.compare;
 
@@ -44,7 +43,7 @@ class LesserThanFilter extends SortingAwareFilter {
     public boolean apply(Pair<NitriteId, Document> element) {
         Comparable comparable = getComparable();
         Document document = element.getSecond();
-        Object fieldValue = document.get(getField());
+        Object fieldValue = getFieldValue(document);
         if (fieldValue != null) {
             if (fieldValue instanceof Number && comparable instanceof Number) {
                 return compare((Number) fieldValue, (Number) comparable) < 0;
@@ -64,7 +63,7 @@ class LesserThanFilter extends SortingAwareFilter {
     public List<?> applyOnIndex(IndexMap indexMap) {
         Comparable comparable = getComparable();
         DBValue dbValue = comparable == null ? DBNull.getInstance() : new DBValue(comparable);
-        List<NavigableMap<DBValue, Object>> subMap = new ArrayList<>();
+        List<IndexMap> subMap = new ArrayList<>();
         List<NitriteId> nitriteIds = new ArrayList<>();
 
         if (isReverseScan()) {
@@ -19,6 +19,7 @@ package org.dizitart.no2.filters;
 import lombok.Getter;
 import lombok.Setter;
 import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.exceptions.FilterException;
 
 import java.util.Objects;
 
@@ -30,7 +31,7 @@ import java.util.Objects;
  */
 @Getter
 @Setter
-public abstract class NitriteFilter implements Filter {
+public abstract class NitriteFilter implements Filter, Cloneable {
     private NitriteConfig nitriteConfig;
     private String collectionName;
     private Boolean objectFilter = false;
@@ -59,6 +60,19 @@ public abstract class NitriteFilter implements Filter {
         return new OrFilter(this, filter);
     }
 
+    /**
+     * Creates a shallow copy of this filter.
+     *
+     * @return the copy
+     */
+    NitriteFilter copy() {
+        try {
+            return (NitriteFilter) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new FilterException("Failed to copy the filter " + this, e);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o instanceof NitriteFilter) {
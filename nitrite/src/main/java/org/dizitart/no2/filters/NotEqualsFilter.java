@@ -5,11 +5,11 @@ import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.index.IndexMap;
+import org.dizitart.no2.index.IndexStatistics;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.NavigableMap;
+import java.util.*;
 
 import static org.dizitart.no2.common.Constants.DOC_ID;
 import static org.dizitart.no2.common.util.ObjectUtils.deepEquals;
@@ -17,7 +17,7 @@ import static org.dizitart.no2.common.util.ObjectUtils.deepEquals;
 /**
  * @author Anindya Chatterjee
  */
-class NotEqualsFilter extends ComparableFilter {
+class NotEqualsFilter extends ComparableFilter implements ExcludingFilter {
     protected NotEqualsFilter(String field, Object value) {
         super(field, value);
     }
@@ -32,20 +32,38 @@ class NotEqualsFilter extends ComparableFilter {
         }
 
         Document document = element.getSecond();
-        Object fieldValue = document.get(getField());
+        Object fieldValue = getFieldValue(document);
         return !deepEquals(fieldValue, getValue());
     }
 
-    public List<?> applyOnIndex(IndexMap indexMap) {
+    @Override
+    public double estimateEntries(IndexStatistics statistics) {
+        return Math.max(0, statistics.getEntryCount() - statistics.estimateEquals(getValue()));
+    }
+
+    @Override
+    public Set<DBValue> getExcludedKeys() {
         Object fieldValue = getValue();
-        DBValue dbValue = fieldValue == null ? DBNull.getInstance() : new DBValue((Comparable<?>) fieldValue);
-        List<NavigableMap<DBValue, Object>> subMap = new ArrayList<>();
+        if (fieldValue == null) {
+            return Collections.singleton(DBNull.getInstance());
+        } else if (fieldValue instanceof Comparable) {
+            return Collections.singleton(new DBValue((Comparable<?>) fieldValue));
+        }
+        return null;
+    }
+
+    public List<?> applyOnIndex(IndexMap indexMap) {
+        Set<DBValue> excludedKeys = getExcludedKeys();
+        if (excludedKeys == null) {
+            throw new FilterException(getValue() + " is not comparable");
+        }
+
+        List<IndexMap> subMap = new ArrayList<>();
         List<NitriteId> nitriteIds = new ArrayList<>();
 
-        for (Pair<DBValue, ?> entry : indexMap.entries()) {
-            if (!deepEquals(dbValue, entry.getFirst())) {
-                processIndexValue(entry.getSecond(), subMap, nitriteIds);
-            }
+        // walk the ranges around the excluded key, its ids are never read
+        for (DBValue key : indexMap.keysExcept(excludedKeys)) {
+            processIndexValue(indexMap.get(key), subMap, nitriteIds);
         }
 
         if (!subMap.isEmpty()) {
@@ -19,19 +19,18 @@ package org.dizitart.no2.filters;
 import lombok.Getter;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
-import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.index.IndexMap;
+import org.dizitart.no2.index.IndexStatistics;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author Anindya Chatterjee
  */
 @Getter
-class NotInFilter extends ComparableArrayFilter {
+class NotInFilter extends ComparableArrayFilter implements ExcludingFilter {
     private final Set<Comparable<?>> comparableSet;
 
     // non-null only when filtering on the _id field (gh-1263)
@@ -53,7 +52,7 @@ class NotInFilter extends ComparableArrayFilter {
         }
 
         Document document = element.getSecond();
-        Object fieldValue = document.get(getField());
+        Object fieldValue = getFieldValue(document);
 
         if (fieldValue instanceof Comparable) {
             Comparable<?> comparable = (Comparable<?>) fieldValue;
@@ -62,18 +61,34 @@ class NotInFilter extends ComparableArrayFilter {
         return true;
     }
 
-    public List<?> applyOnIndex(IndexMap indexMap) {
-        // convert comparable set to DBValue set
-        Set<DBValue> dbValueSet = comparableSet.stream().map(value -> value == null ? DBNull.getInstance()
-            : new DBValue(value)).collect(Collectors.toSet());
+    @Override
+    public double estimateEntries(IndexStatistics statistics) {
+        double estimate = statistics.getEntryCount();
+        for (Comparable<?> value : comparableSet) {
+            estimate -= statistics.estimateEquals(value);
+        }
+        return Math.max(0, estimate);
+    }
 
-        List<NavigableMap<DBValue, Object>> subMap = new ArrayList<>();
+    @Override
+    public Set<DBValue> getExcludedKeys() {
+        Set<DBValue> excludedKeys = new HashSet<>();
+        for (Comparable<?> value : comparableSet) {
+            // a document without a value is never excluded, see apply
+            if (value != null) {
+                excludedKeys.add(new DBValue(value));
+            }
+        }
+        return excludedKeys;
+    }
+
+    public List<?> applyOnIndex(IndexMap indexMap) {
+        List<IndexMap> subMap = new ArrayList<>();
         List<NitriteId> nitriteIds = new ArrayList<>();
 
-        for (Pair<DBValue, ?> entry : indexMap.entries()) {
-            if (!dbValueSet.contains(entry.getFirst())) {
-                processIndexValue(entry.getSecond(), subMap, nitriteIds);
-            }
+        // walk the ranges between the excluded keys, their ids are never read
+        for (DBValue key : indexMap.keysExcept(getExcludedKeys())) {
+            processIndexValue(indexMap.get(key), subMap, nitriteIds);
         }
 
         if (!subMap.isEmpty()) {
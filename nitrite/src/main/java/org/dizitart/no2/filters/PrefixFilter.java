@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.filters;
+
+/**
+ * A filter which only matches string values starting with a literal prefix,
+ * like an anchored regex. The planner scans the index keys starting with the
+ * prefix, and applies the filter itself to the documents of that range only.
+ *
+ * @since 4.5
+ */
+public interface PrefixFilter {
+    /**
+     * Gets the field of the filter.
+     *
+     * @return the field
+     */
+    String getField();
+
+    /**
+     * Gets the literal prefix every matching value starts with, or
+     * <code>null</code> if the filter has no such prefix.
+     *
+     * @return the prefix, or <code>null</code>
+     */
+    String getPrefix();
+}
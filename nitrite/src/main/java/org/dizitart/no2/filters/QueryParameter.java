@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.filters;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.dizitart.no2.exceptions.FilterException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.dizitart.no2.common.util.ValidationUtils.notEmpty;
+import static org.dizitart.no2.common.util.ValidationUtils.notNull;
+
+/**
+ * A named placeholder for the value of a filter in a prepared query. The
+ * value is supplied each time the query is executed.
+ * <p>
+ * Parameters are supported as the value of <code>eq</code>, <code>notEq</code>,
+ * <code>gt</code>, <code>gte</code>, <code>lt</code>, <code>lte</code> and
+ * <code>between</code> filters.
+ *
+ * <pre>
+ * {@code
+ * PreparedQuery query = collection.prepare(where("tenantId").eq(param("tenant"))
+ *     .and(where("age").gte(param("minAge"))));
+ *
+ * Map<String, Object> values = new HashMap<>();
+ * values.put("tenant", "t1");
+ * values.put("minAge", 30);
+ * DocumentCursor cursor = query.find(values);
+ * }
+ * </pre>
+ *
+ * @since 4.5
+ */
+@Getter
+@EqualsAndHashCode
+@SuppressWarnings("rawtypes")
+public final class QueryParameter implements Comparable {
+    private final String name;
+
+    private QueryParameter(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Creates a parameter placeholder.
+     *
+     * @param name the name of the parameter
+     * @return the parameter
+     */
+    public static QueryParameter param(String name) {
+        notNull(name, "parameter name cannot be null");
+        notEmpty(name, "parameter name cannot be empty");
+        return new QueryParameter(name);
+    }
+
+    /**
+     * Creates a copy of the filter with every parameter replaced by its value.
+     *
+     * @param filter the filter with parameters
+     * @param values the values of the parameters by name
+     * @return the bound filter
+     * @throws FilterException if a parameter has no value or is not supported by its filter
+     */
+    public static Filter bind(Filter filter, Map<String, ?> values) {
+        if (filter instanceof LogicalFilter) {
+            List<Filter> filters = ((LogicalFilter) filter).getFilters();
+            List<Filter> boundFilters = new ArrayList<>(filters.size());
+            for (Filter child : filters) {
+                boundFilters.add(bind(child, values));
+            }
+
+            Filter[] array = boundFilters.toArray(new Filter[0]);
+            return filter instanceof OrFilter ? new OrFilter(array) : new AndFilter(array);
+        } else if (filter instanceof NotFilter) {
+            return new NotFilter(bind(((NotFilter) filter).getFilter(), values));
+        } else if (filter instanceof FieldBasedFilter) {
+            // every field filter is copied, as scanning an index changes its state
+            FieldBasedFilter fieldBasedFilter = (FieldBasedFilter) filter;
+            FieldBasedFilter copy = (FieldBasedFilter) fieldBasedFilter.copy();
+            Object value = fieldBasedFilter.getRawValue();
+            if (value instanceof QueryParameter) {
+                copy.setValue(resolve(fieldBasedFilter, (QueryParameter) value, values));
+                copy.setProcessed(false);
+            }
+            return copy;
+        }
+        return filter;
+    }
+
+    /**
+     * Checks if a filter has a parameter which is not bound to a value.
+     *
+     * @param filter the filter
+     * @return <code>true</code> if the filter has a parameter
+     */
+    public static boolean hasParameters(Filter filter) {
+        if (filter instanceof LogicalFilter) {
+            for (Filter child : ((LogicalFilter) filter).getFilters()) {
+                if (hasParameters(child)) return true;
+            }
+            return false;
+        } else if (filter instanceof NotFilter) {
+            return hasParameters(((NotFilter) filter).getFilter());
+        } else if (filter instanceof FieldBasedFilter) {
+            return ((FieldBasedFilter) filter).getRawValue() instanceof QueryParameter;
+        }
+        return false;
+    }
+
+    @Override
+    public int compareTo(Object other) {
+        throw new FilterException("Parameter " + name + " is not bound to a value");
+    }
+
+    @Override
+    public String toString() {
+        return ":" + name;
+    }
+
+    private static Object resolve(FieldBasedFilter filter, QueryParameter parameter, Map<String, ?> values) {
+        if (!(filter instanceof EqualsFilter || filter instanceof NotEqualsFilter
+            || filter instanceof SortingAwareFilter)) {
+            throw new FilterException("Parameters are not supported in " + filter.getClass().getSimpleName());
+        }
+
+        if (values == null || !values.containsKey(parameter.getName())) {
+            throw new FilterException("No value is bound to the parameter " + parameter.getName());
+        }
+
+        Object value = values.get(parameter.getName());
+        if (filter instanceof SortingAwareFilter && !(value instanceof Comparable)) {
+            throw new FilterException("The value of the parameter " + parameter.getName()
+                + " must be comparable");
+        }
+        return value;
+    }
+}
@@ -27,18 +27,27 @@ import java.util.regex.Pattern;
 /**
  * @author Anindya Chatterjee
  */
-class RegexFilter extends FieldBasedFilter {
+class RegexFilter extends FieldBasedFilter implements PrefixFilter {
+    private static final String META_CHARACTERS = ".[]{}()*+?^$|";
+
     private final Pattern pattern;
+    private final String prefix;
 
     RegexFilter(String field, String value) {
         super(field, value);
         pattern = Pattern.compile(value);
+        prefix = literalPrefix(value);
+    }
+
+    @Override
+    public String getPrefix() {
+        return prefix;
     }
 
     @Override
     public boolean apply(Pair<NitriteId, Document> element) {
         Document document = element.getSecond();
-        Object fieldValue = document.get(getField());
+        Object fieldValue = getFieldValue(document);
         if (fieldValue != null) {
             if (fieldValue instanceof String) {
                 Matcher matcher = pattern.matcher((String) fieldValue);
@@ -57,4 +66,106 @@ class RegexFilter extends FieldBasedFilter {
     public String toString() {
         return "(" + getField() + " regex " + getValue() + ")";
     }
+
+    /**
+     * Reads the literal characters a regex anchored at the start of the input
+     * begins with, up to the first construct which is not a plain character.
+     * Returns <code>null</code> if the regex is not anchored, starts with such a
+     * construct, or has an alternation which is not inside a group.
+     */
+    static String literalPrefix(String regex) {
+        int index;
+        if (regex.startsWith("^")) {
+            index = 1;
+        } else if (regex.startsWith("\\A")) {
+            index = 2;
+        } else {
+            return null;
+        }
+
+        if (hasTopLevelAlternation(regex)) {
+            return null;
+        }
+
+        StringBuilder prefix = new StringBuilder();
+        int length = regex.length();
+        while (index < length) {
+            char current = regex.charAt(index);
+            if (current == '\\') {
+                if (index + 1 >= length) break;
+
+                char escaped = regex.charAt(index + 1);
+                if (escaped == 'Q') {
+                    int end = regex.indexOf("\\E", index + 2);
+                    prefix.append(end < 0 ? regex.substring(index + 2) : regex.substring(index + 2, end));
+                    index = end < 0 ? length : end + 2;
+                } else if (Character.isLetterOrDigit(escaped)) {
+                    // a character class, a back reference or a boundary
+                    break;
+                } else {
+                    prefix.append(escaped);
+                    index += 2;
+                }
+            } else if (META_CHARACTERS.indexOf(current) >= 0) {
+                break;
+            } else {
+                prefix.append(current);
+                index++;
+            }
+
+            if (index < length) {
+                char quantifier = regex.charAt(index);
+                if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+                    // the last character may not occur at all
+                    if (prefix.length() > 0) {
+                        prefix.setLength(prefix.length() - 1);
+                    }
+                    if (prefix.length() > 0 && Character.isHighSurrogate(prefix.charAt(prefix.length() - 1))) {
+                        // the quantifier applies to the whole code point
+                        prefix.setLength(prefix.length() - 1);
+                    }
+                    break;
+                } else if (quantifier == '+') {
+                    // it occurs at least once, but may repeat
+                    break;
+                }
+            }
+        }
+        return prefix.length() == 0 ? null : prefix.toString();
+    }
+
+    private static boolean hasTopLevelAlternation(String regex) {
+        int depth = 0;
+        int classDepth = 0;
+        int index = 0;
+        while (index < regex.length()) {
+            char current = regex.charAt(index);
+            if (current == '\\') {
+                if (index + 1 < regex.length() && regex.charAt(index + 1) == 'Q') {
+                    int end = regex.indexOf("\\E", index + 2);
+                    if (end < 0) return false;
+                    index = end + 2;
+                } else {
+                    index += 2;
+                }
+                continue;
+            }
+
+            if (current == '[') {
+                classDepth++;
+            } else if (current == ']' && classDepth > 0) {
+                classDepth--;
+            } else if (classDepth == 0) {
+                if (current == '(') {
+                    depth++;
+                } else if (current == ')') {
+                    depth--;
+                } else if (current == '|' && depth == 0) {
+                    return true;
+                }
+            }
+            index++;
+        }
+        return false;
+    }
 }
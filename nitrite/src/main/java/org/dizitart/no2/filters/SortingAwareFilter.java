@@ -2,6 +2,7 @@ package org.dizitart.no2.filters;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.dizitart.no2.index.IndexStatistics;
 
 @Getter
 @Setter
@@ -40,4 +41,20 @@ public abstract class SortingAwareFilter extends ComparableFilter {
      * @return the comparison mode
      */
     public abstract ComparisonMode getComparisonMode();
+
+    @Override
+    public double estimateEntries(IndexStatistics statistics) {
+        switch (getComparisonMode()) {
+            case Greater:
+                return statistics.estimateRange(getValue(), false, null, false);
+            case GreaterEqual:
+                return statistics.estimateRange(getValue(), true, null, false);
+            case Lesser:
+                return statistics.estimateRange(null, false, getValue(), false);
+            case LesserEqual:
+                return statistics.estimateRange(null, false, getValue(), true);
+            default:
+                return statistics.getEntryCount();
+        }
+    }
 }
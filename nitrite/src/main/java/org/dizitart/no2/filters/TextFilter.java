@@ -22,10 +22,13 @@ import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.index.IndexMap;
+import org.dizitart.no2.index.Posting;
+import org.dizitart.no2.index.TextIndexMap;
 import org.dizitart.no2.index.fulltext.TextTokenizer;
-import org.dizitart.no2.store.NitriteMap;
 
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.dizitart.no2.common.util.StringUtils.stringTokenizer;
 import static org.dizitart.no2.common.util.ValidationUtils.notNull;
@@ -36,6 +39,12 @@ import static org.dizitart.no2.common.util.ValidationUtils.notNull;
  */
 @Setter
 public class TextFilter extends StringFilter {
+    // the usual BM25 term frequency saturation and document length normalization
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    // word NEAR/k word, the two words at most k positions apart
+    private static final Pattern NEAR_PATTERN = Pattern.compile("^\\s*(\\S+)\\s+NEAR/(\\d{1,9})\\s+(\\S+)\\s*$");
+
     private TextTokenizer textTokenizer;
 
     /**
@@ -89,36 +98,204 @@ public class TextFilter extends StringFilter {
      * @param indexMap the index map
      * @return the linked hash set
      */
-    public LinkedHashSet<NitriteId> applyOnTextIndex(NitriteMap<String, List<?>> indexMap) {
+    public LinkedHashSet<NitriteId> applyOnTextIndex(TextIndexMap indexMap) {
+        return new LinkedHashSet<>(scoreOnTextIndex(indexMap, null).keySet());
+    }
+
+    /**
+     * Apply this filter on text index and rank the matching ids. A search by words
+     * ranks the ids by their BM25 relevance score, best first. A wildcard search does
+     * not rank, its ids all score 0.
+     * <p>
+     * If the index stores positions, a search string in double quotes is a phrase, matching
+     * the documents containing its words one after another, and <code>a NEAR/k b</code>
+     * matches the documents containing the words a and b at most k positions apart. Both
+     * are answered from the positions in the index, without reading the documents. On an
+     * index without positions, or whose positions are incomplete, they are searched by their
+     * words like any other search string.
+     *
+     * @param indexMap the index map
+     * @param topK     the number of best ranked ids to return, or <code>null</code> for all
+     * @return the ids with their scores, best first
+     * @since 4.5
+     */
+    public LinkedHashMap<NitriteId, Double> scoreOnTextIndex(TextIndexMap indexMap, Integer topK) {
         notNull(getField(), "field cannot be null");
         notNull(getStringValue(), "search term cannot be null");
         String searchString = getStringValue();
 
+        if (indexMap.hasPositions()) {
+            Matcher near = NEAR_PATTERN.matcher(searchString);
+            if (near.matches()) {
+                return searchNearByIndex(indexMap, near.group(1), near.group(3),
+                    Integer.parseInt(near.group(2)), topK);
+            } else if (searchString.length() > 1 && searchString.startsWith("\"")
+                && searchString.endsWith("\"")) {
+                return searchPhraseByIndex(indexMap,
+                    searchString.substring(1, searchString.length() - 1), topK);
+            }
+        }
+
         if (searchString.startsWith("*") || searchString.endsWith("*")) {
-            return searchByWildCard(indexMap, searchString);
+            LinkedHashMap<NitriteId, Double> result = new LinkedHashMap<>();
+            for (NitriteId nitriteId : searchByWildCard(indexMap, searchString)) {
+                if (topK != null && result.size() >= topK) break;
+                result.put(nitriteId, 0.0);
+            }
+            return result;
         } else {
-            return searchExactByIndex(indexMap, searchString);
+            return searchExactByIndex(indexMap, searchString, topK);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private LinkedHashSet<NitriteId> searchExactByIndex(NitriteMap<String, List<?>> indexMap, String searchString) {
-
+    private LinkedHashMap<NitriteId, Double> searchExactByIndex(TextIndexMap indexMap, String searchString,
+                                                                Integer topK) {
         Set<String> words = textTokenizer.tokenize(searchString);
-        Map<NitriteId, Integer> scoreMap = new HashMap<>();
+        long documentCount = indexMap.documentCount();
+        double averageLength = documentCount == 0 ? 0 : (double) indexMap.totalLength() / documentCount;
+
+        Map<NitriteId, Double> scoreMap = new HashMap<>();
         for (String word : words) {
-            List<NitriteId> nitriteIds = (List<NitriteId>) indexMap.get(word);
-            if (nitriteIds != null) {
-                for (NitriteId id : nitriteIds) {
-                    scoreMap.merge(id, 1, Integer::sum);
+            long documentFrequency = indexMap.documentFrequency(word);
+            if (documentFrequency == 0) continue;
+
+            double idf = idf(documentCount, documentFrequency);
+            for (Posting posting : indexMap.postings(word)) {
+                double score = bm25(indexMap, posting.getNitriteId(), idf,
+                    posting.getFrequency(), averageLength);
+                scoreMap.merge(posting.getNitriteId(), score, Double::sum);
+            }
+        }
+
+        return rankByScore(scoreMap, topK);
+    }
+
+    private LinkedHashMap<NitriteId, Double> searchPhraseByIndex(TextIndexMap indexMap, String phrase,
+                                                                 Integer topK) {
+        // the offset of every word in the phrase, a stop-word leaves a gap
+        List<String> words = new ArrayList<>();
+        List<Integer> offsets = new ArrayList<>();
+        List<String> tokens = textTokenizer.tokenizeAll(phrase);
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.get(i) != null) {
+                words.add(tokens.get(i));
+                offsets.add(i);
+            }
+        }
+
+        return searchByPositions(indexMap, words, topK, positions -> {
+            int[] first = positions.get(words.get(0));
+            for (int start : first) {
+                boolean matched = true;
+                for (int i = 1; i < words.size() && matched; i++) {
+                    int expected = start + offsets.get(i) - offsets.get(0);
+                    matched = Arrays.binarySearch(positions.get(words.get(i)), expected) >= 0;
                 }
+                if (matched) return true;
             }
+            return false;
+        });
+    }
+
+    private LinkedHashMap<NitriteId, Double> searchNearByIndex(TextIndexMap indexMap, String first,
+                                                               String second, int distance, Integer topK) {
+        String firstWord = singleWord(first);
+        String secondWord = singleWord(second);
+
+        return searchByPositions(indexMap, Arrays.asList(firstWord, secondWord), topK, positions -> {
+            int[] a = positions.get(firstWord);
+            int[] b = positions.get(secondWord);
+            // merge both sorted position lists, an occurrence is never near itself
+            int i = 0, j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] != b[j] && Math.abs(a[i] - b[j]) <= distance) return true;
+                if (a[i] < b[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return false;
+        });
+    }
+
+    private String singleWord(String text) {
+        List<String> words = new ArrayList<>();
+        for (String token : textTokenizer.tokenizeAll(text)) {
+            if (token != null) {
+                words.add(token);
+            }
+        }
+
+        if (words.size() != 1) {
+            throw new FilterException(text + " is not a valid proximity search term");
+        }
+        return words.get(0);
+    }
+
+    /**
+     * Finds the documents containing all words whose positions match, taking the candidates
+     * from the postings of the rarest word, and ranks them by the BM25 score of the words.
+     */
+    private LinkedHashMap<NitriteId, Double> searchByPositions(TextIndexMap indexMap, List<String> words,
+                                                               Integer topK,
+                                                               PositionMatcher matcher) {
+        if (words.isEmpty()) return new LinkedHashMap<>();
+
+        Set<String> distinctWords = new LinkedHashSet<>(words);
+        Map<String, Long> documentFrequencies = new HashMap<>();
+        String rarest = null;
+        for (String word : distinctWords) {
+            long documentFrequency = indexMap.documentFrequency(word);
+            if (documentFrequency == 0) return new LinkedHashMap<>();
+
+            documentFrequencies.put(word, documentFrequency);
+            if (rarest == null || documentFrequency < documentFrequencies.get(rarest)) {
+                rarest = word;
+            }
+        }
+
+        long documentCount = indexMap.documentCount();
+        double averageLength = documentCount == 0 ? 0 : (double) indexMap.totalLength() / documentCount;
+
+        Map<NitriteId, Double> scoreMap = new HashMap<>();
+        for (Posting posting : indexMap.postings(rarest)) {
+            NitriteId nitriteId = posting.getNitriteId();
+            Map<String, int[]> positions = new HashMap<>();
+            for (String word : distinctWords) {
+                int[] wordPositions = indexMap.positions(word, nitriteId);
+                // the document does not contain the word
+                if (wordPositions == null) break;
+                positions.put(word, wordPositions);
+            }
+            if (positions.size() < distinctWords.size() || !matcher.matches(positions)) continue;
+
+            double score = 0;
+            for (String word : distinctWords) {
+                score += bm25(indexMap, nitriteId, idf(documentCount, documentFrequencies.get(word)),
+                    positions.get(word).length, averageLength);
+            }
+            scoreMap.put(nitriteId, score);
         }
 
-        return sortedIdsByScore(scoreMap);
+        return rankByScore(scoreMap, topK);
+    }
+
+    private double idf(long documentCount, long documentFrequency) {
+        return Math.log(1 + (Math.max(documentCount, documentFrequency) - documentFrequency + 0.5)
+            / (documentFrequency + 0.5));
     }
 
-    private LinkedHashSet<NitriteId> searchByWildCard(NitriteMap<String, List<?>> indexMap, String searchString) {
+    private double bm25(TextIndexMap indexMap, NitriteId nitriteId, double idf,
+                        double frequency, double averageLength) {
+        // without document lengths every document is of average length
+        double relativeLength = averageLength == 0 ? 1
+            : indexMap.documentLength(nitriteId) / averageLength;
+        return idf * frequency * (BM25_K1 + 1)
+            / (frequency + BM25_K1 * (1 - BM25_B + BM25_B * relativeLength));
+    }
+
+    private LinkedHashSet<NitriteId> searchByWildCard(TextIndexMap indexMap, String searchString) {
         if (searchString.contentEquals("*")) {
             throw new FilterException("* is not a valid search term");
         }
@@ -139,8 +316,7 @@ public class TextFilter extends StringFilter {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private LinkedHashSet<NitriteId> searchByLeadingWildCard(NitriteMap<String, List<?>> indexMap, String searchString) {
+    private LinkedHashSet<NitriteId> searchByLeadingWildCard(TextIndexMap indexMap, String searchString) {
         if (searchString.equalsIgnoreCase("*")) {
             throw new FilterException("* is not a valid search term");
         }
@@ -148,17 +324,15 @@ public class TextFilter extends StringFilter {
         LinkedHashSet<NitriteId> idSet = new LinkedHashSet<>();
         String term = searchString.substring(1);
 
-        for (Pair<String, List<?>> entry : indexMap.entries()) {
-            String key = entry.getFirst();
+        for (String key : indexMap.terms(null)) {
             if (key.endsWith(term.toLowerCase())) {
-                idSet.addAll((List<NitriteId>) entry.getSecond());
+                indexMap.postings(key).forEach(posting -> idSet.add(posting.getNitriteId()));
             }
         }
         return idSet;
     }
 
-    @SuppressWarnings("unchecked")
-    private LinkedHashSet<NitriteId> searchByTrailingWildCard(NitriteMap<String, List<?>> indexMap, String searchString) {
+    private LinkedHashSet<NitriteId> searchByTrailingWildCard(TextIndexMap indexMap, String searchString) {
         if (searchString.equalsIgnoreCase("*")) {
             throw new FilterException("* is not a valid search term");
         }
@@ -166,37 +340,51 @@ public class TextFilter extends StringFilter {
         LinkedHashSet<NitriteId> idSet = new LinkedHashSet<>();
         String term = searchString.substring(0, searchString.length() - 1);
 
-        for (Pair<String, List<?>> entry : indexMap.entries()) {
-            String key = entry.getFirst();
-            if (key.startsWith(term.toLowerCase())) {
-                idSet.addAll((List<NitriteId>) entry.getSecond());
-            }
+        // the terms are sorted, only the range of the prefix is scanned
+        for (String key : indexMap.terms(term.toLowerCase())) {
+            indexMap.postings(key).forEach(posting -> idSet.add(posting.getNitriteId()));
         }
         return idSet;
     }
 
-    @SuppressWarnings("unchecked")
-    private LinkedHashSet<NitriteId> searchContains(NitriteMap<String, List<?>> indexMap, String term) {
+    private LinkedHashSet<NitriteId> searchContains(TextIndexMap indexMap, String term) {
         LinkedHashSet<NitriteId> idSet = new LinkedHashSet<>();
 
-        for (Pair<String, List<?>> entry : indexMap.entries()) {
-            String key = entry.getFirst();
+        for (String key : indexMap.terms(null)) {
             if (key.contains(term.toLowerCase())) {
-                idSet.addAll((List<NitriteId>) entry.getSecond());
+                indexMap.postings(key).forEach(posting -> idSet.add(posting.getNitriteId()));
             }
         }
         return idSet;
     }
 
-    private LinkedHashSet<NitriteId> sortedIdsByScore(Map<NitriteId, Integer> unsortedMap) {
-        List<Map.Entry<NitriteId, Integer>> list = new LinkedList<>(unsortedMap.entrySet());
-        list.sort((e1, e2) -> (e2.getValue()).compareTo(e1.getValue()));
-
-        LinkedHashSet<NitriteId> result = new LinkedHashSet<>();
-        for (Map.Entry<NitriteId, Integer> entry : list) {
-            result.add(entry.getKey());
+    private LinkedHashMap<NitriteId, Double> rankByScore(Map<NitriteId, Double> scoreMap, Integer topK) {
+        // worst first: the lower score, then the higher id
+        Comparator<Map.Entry<NitriteId, Double>> worstFirst = Map.Entry.<NitriteId, Double>comparingByValue()
+            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+
+        List<Map.Entry<NitriteId, Double>> ranked;
+        if (topK != null && topK < scoreMap.size()) {
+            // keep the best topK in a min-heap, O(n log k) instead of sorting every candidate
+            PriorityQueue<Map.Entry<NitriteId, Double>> heap = new PriorityQueue<>(Math.max(1, topK), worstFirst);
+            for (Map.Entry<NitriteId, Double> entry : scoreMap.entrySet()) {
+                if (heap.size() < topK) {
+                    heap.add(entry);
+                } else if (!heap.isEmpty() && worstFirst.compare(entry, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(entry);
+                }
+            }
+            ranked = new ArrayList<>(heap);
+        } else {
+            ranked = new ArrayList<>(scoreMap.entrySet());
         }
+        ranked.sort(worstFirst.reversed());
 
+        LinkedHashMap<NitriteId, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<NitriteId, Double> entry : ranked) {
+            result.put(entry.getKey(), entry.getValue());
+        }
         return result;
     }
 
@@ -205,4 +393,8 @@ public class TextFilter extends StringFilter {
         return null;
     }
 
+    private interface PositionMatcher {
+        boolean matches(Map<String, int[]> positions);
+    }
+
 }
@@ -17,13 +17,20 @@
 package org.dizitart.no2.index;
 
 import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.filters.ComparableFilter;
 
+import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -63,6 +70,62 @@ public abstract class ComparableIndexer implements NitriteIndexer {
         return nitriteIndex.findNitriteIds(findPlan);
     }
 
+    @Override
+    public RecordStream<NitriteId> streamByFilter(FindPlan findPlan, NitriteConfig nitriteConfig) {
+        NitriteIndex nitriteIndex = findNitriteIndex(findPlan.getIndexDescriptor(), nitriteConfig);
+        return nitriteIndex.streamNitriteIds(findPlan);
+    }
+
+    /**
+     * Finds the index entries matching the find plan, each id paired with a
+     * document of its index keys, or <code>null</code> if the index cannot
+     * answer the find plan from its keys.
+     *
+     * @param findPlan      the find plan
+     * @param nitriteConfig the nitrite config
+     * @return the record stream of index entries, or <code>null</code>
+     * @since 4.5
+     */
+    public RecordStream<Pair<NitriteId, Document>> streamEntriesByFilter(FindPlan findPlan,
+                                                                         NitriteConfig nitriteConfig) {
+        NitriteIndex nitriteIndex = findNitriteIndex(findPlan.getIndexDescriptor(), nitriteConfig);
+        return nitriteIndex.streamIndexEntries(findPlan);
+    }
+
+    /**
+     * Counts the index entries matching the find plan without collecting the
+     * ids. An id stored under several keys is counted once per key.
+     *
+     * @param findPlan      the find plan
+     * @param nitriteConfig the nitrite config
+     * @return the number of matching index entries
+     * @since 4.5
+     */
+    public long countByFilter(FindPlan findPlan, NitriteConfig nitriteConfig) {
+        NitriteIndex nitriteIndex = findNitriteIndex(findPlan.getIndexDescriptor(), nitriteConfig);
+        return nitriteIndex.countIndexEntries(findPlan);
+    }
+
+    /**
+     * Walks the keys of the first field of an index matching the filters, each
+     * key paired with all the ids stored under it, or <code>null</code> if the
+     * index cannot walk its keys for the filters.
+     *
+     * @param indexDescriptor the index descriptor
+     * @param filters         the filters on the first index field, or an empty list for all keys
+     * @param reverse         if the keys are walked in descending order
+     * @param nitriteConfig   the nitrite config
+     * @return the record stream of keys and their ids, or <code>null</code>
+     * @since 4.5
+     */
+    public RecordStream<Pair<DBValue, Collection<NitriteId>>> streamKeysByFilter(IndexDescriptor indexDescriptor,
+                                                                                List<ComparableFilter> filters,
+                                                                                boolean reverse,
+                                                                                NitriteConfig nitriteConfig) {
+        NitriteIndex nitriteIndex = findNitriteIndex(indexDescriptor, nitriteConfig);
+        return nitriteIndex.streamKeys(filters, reverse);
+    }
+
     @Override
     public void writeIndexEntry(FieldValues fieldValues, IndexDescriptor indexDescriptor,
                                 NitriteConfig nitriteConfig) {
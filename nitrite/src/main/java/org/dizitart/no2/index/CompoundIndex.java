@@ -18,27 +18,40 @@
 package org.dizitart.no2.index;
 
 import lombok.Getter;
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.filters.ComparableFilter;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
 
+import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
 import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
 import static org.dizitart.no2.common.util.ObjectUtils.convertToObjectArray;
 
 /**
+ * A compound index stores one row per {@code (v1, .., vn, id)} tuple, keyed by a
+ * {@link CompoundIndexKey} in a single ordered map. Writing or removing a document
+ * is a point operation on its rows, and a scan descends the fields of the index
+ * with range seeks on the same map (see {@link IndexMap#compound(NitriteMap, int)}).
+ *
  * @author Anindya Chatterjee
  * @since 4.0
  */
@@ -46,6 +59,7 @@ public class CompoundIndex implements NitriteIndex {
     @Getter
     private final IndexDescriptor indexDescriptor;
     private final NitriteStore<?> nitriteStore;
+    private volatile boolean migrationChecked;
 
     /**
      * Instantiates a new Compound index.
@@ -59,43 +73,84 @@ public class CompoundIndex implements NitriteIndex {
     }
 
     public void write(FieldValues fieldValues) {
-        Fields fields = fieldValues.getFields();
-        List<String> fieldNames = fields.getFieldNames();
+        NitriteMap<CompoundIndexKey, Object> indexMap = findIndexMap();
+        forEachKey(fieldValues, true, values -> {
+            if (isUnique() && containsKey(indexMap, values)) {
+                // if key is already exists for unique type, throw error
+                throw new UniqueConstraintException("Unique key constraint violation for "
+                    + fieldValues.getFields());
+            }
+            indexMap.put(new CompoundIndexKey(values, fieldValues.getNitriteId()), Boolean.TRUE);
+        });
+    }
 
-        String firstField = fieldNames.get(0);
-        Object firstValue = fieldValues.get(firstField);
+    @Override
+    public void remove(FieldValues fieldValues) {
+        NitriteMap<CompoundIndexKey, Object> indexMap = findIndexMap();
+        forEachKey(fieldValues, false, values ->
+            indexMap.remove(new CompoundIndexKey(values, fieldValues.getNitriteId())));
+    }
 
-        // NOTE: only first field can have array or iterable value, subsequent fields can not
-        validateIndexField(firstValue, firstField);
+    @Override
+    public void drop() {
+        NitriteMap<CompoundIndexKey, Object> indexMap = findIndexMap();
+        indexMap.clear();
+        indexMap.drop();
+    }
 
-        NitriteMap<DBValue, NavigableMap<DBValue, ?>> indexMap = findIndexMap();
-        if (firstValue == null) {
-            addIndexElement(indexMap, fieldValues, DBNull.getInstance());
-        } else if (firstValue instanceof Comparable) {
-            //wrap around a db value
-            DBValue dbValue = new DBValue((Comparable<?>) firstValue);
-            addIndexElement(indexMap, fieldValues, dbValue);
-        } else if (firstValue.getClass().isArray()) {
-            Object[] array = convertToObjectArray(firstValue);
+    @Override
+    public LinkedHashSet<NitriteId> findNitriteIds(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return new LinkedHashSet<>();
 
-            for (Object item : array) {
-                // wrap around db value
-                DBValue dbValue = item == null ? DBNull.getInstance() : new DBValue((Comparable<?>) item);
-                addIndexElement(indexMap, fieldValues, dbValue);
-            }
-        } else if (firstValue instanceof Iterable) {
-            Iterable<?> iterable = (Iterable<?>) firstValue;
+        List<ComparableFilter> filters = findPlan.getIndexScanFilter().getFilters();
+        IndexScanner indexScanner = new IndexScanner(scanMap(findPlan));
+        return indexScanner.doScan(filters, findPlan.getIndexScanOrder());
+    }
 
-            for (Object item : iterable) {
-                // wrap around db value
-                DBValue dbValue = item != null ? new DBValue((Comparable<?>) item) : DBNull.getInstance();
-                addIndexElement(indexMap, fieldValues, dbValue);
-            }
-        }
+    @Override
+    public RecordStream<NitriteId> streamNitriteIds(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return RecordStream.empty();
+
+        IndexScanner indexScanner = new IndexScanner(scanMap(findPlan));
+        return indexScanner.scan(findPlan.getIndexScanFilter().getFilters(), findPlan.getIndexScanOrder());
     }
 
     @Override
-    public void remove(FieldValues fieldValues) {
+    public RecordStream<Pair<NitriteId, Document>> streamIndexEntries(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return null;
+
+        IndexScanner indexScanner = new IndexScanner(scanMap(findPlan));
+        return indexScanner.scanEntries(findPlan.getIndexScanFilter().getFilters(),
+            findPlan.getIndexScanOrder(), indexDescriptor.getFields().getFieldNames());
+    }
+
+    @Override
+    public long countIndexEntries(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return 0;
+
+        IndexScanner indexScanner = new IndexScanner(scanMap(findPlan));
+        return indexScanner.countEntries(findPlan.getIndexScanFilter().getFilters());
+    }
+
+    @Override
+    public RecordStream<Pair<DBValue, Collection<NitriteId>>> streamKeys(List<ComparableFilter> filters,
+                                                                         boolean reverse) {
+        IndexMap iMap = IndexMap.compound(findIndexMap(), indexDescriptor.getFields().getFieldNames().size());
+        IndexScanner indexScanner = new IndexScanner(iMap);
+        return indexScanner.scanKeys(filters, reverse);
+    }
+
+    private IndexMap scanMap(FindPlan findPlan) {
+        IndexMap iMap = IndexMap.compound(findIndexMap(), indexDescriptor.getFields().getFieldNames().size());
+        iMap.setExecutionProfile(findPlan.getExecutionProfile());
+        return iMap;
+    }
+
+    /**
+     * Invokes {@code action} once per row of the field values, unwrapping an array or
+     * iterable value of the first field into its elements.
+     */
+    private void forEachKey(FieldValues fieldValues, boolean validate, Consumer<DBValue[]> action) {
         Fields fields = fieldValues.getFields();
         List<String> fieldNames = fields.getFieldNames();
 
@@ -104,21 +159,19 @@ public class CompoundIndex implements NitriteIndex {
 
         // NOTE: only first field can have array or iterable value, subsequent fields can not
         validateIndexField(firstValue, firstField);
-        NitriteMap<DBValue, NavigableMap<DBValue, ?>> indexMap = findIndexMap();
 
         if (firstValue == null) {
-            removeIndexElement(indexMap, fieldValues, DBNull.getInstance());
+            acceptKey(fieldValues, DBNull.getInstance(), validate, action);
         } else if (firstValue instanceof Comparable) {
-            // wrap around db value
-            DBValue dbValue = new DBValue((Comparable<?>) firstValue);
-            removeIndexElement(indexMap, fieldValues, dbValue);
+            //wrap around a db value
+            acceptKey(fieldValues, new DBValue((Comparable<?>) firstValue), validate, action);
         } else if (firstValue.getClass().isArray()) {
             Object[] array = convertToObjectArray(firstValue);
 
             for (Object item : array) {
                 // wrap around db value
                 DBValue dbValue = item == null ? DBNull.getInstance() : new DBValue((Comparable<?>) item);
-                removeIndexElement(indexMap, fieldValues, dbValue);
+                acceptKey(fieldValues, dbValue, validate, action);
             }
         } else if (firstValue instanceof Iterable) {
             Iterable<?> iterable = (Iterable<?>) firstValue;
@@ -126,130 +179,108 @@ public class CompoundIndex implements NitriteIndex {
             for (Object item : iterable) {
                 // wrap around db value
                 DBValue dbValue = item != null ? new DBValue((Comparable<?>) item) : DBNull.getInstance();
-                removeIndexElement(indexMap, fieldValues, dbValue);
+                acceptKey(fieldValues, dbValue, validate, action);
             }
         }
     }
 
-    @Override
-    public void drop() {
-        NitriteMap<DBValue, NavigableMap<DBValue, ?>> indexMap = findIndexMap();
-        indexMap.clear();
-        indexMap.drop();
-    }
-
-    @Override
-    public LinkedHashSet<NitriteId> findNitriteIds(FindPlan findPlan) {
-        if (findPlan.getIndexScanFilter() == null) return new LinkedHashSet<>();
-
-        NitriteMap<DBValue, NavigableMap<DBValue, ?>> indexMap = findIndexMap();
-        return scanIndex(findPlan, indexMap);
-    }
-
-    private void addIndexElement(NitriteMap<DBValue, NavigableMap<DBValue, ?>> indexMap,
-                                 FieldValues fieldValues, DBValue element) {
-        NavigableMap<DBValue, ?> subMap = indexMap.get(element);
-        if (subMap == null) {
-            // index are always in ascending order
-            subMap = new ConcurrentSkipListMap<>();
-        }
-
-        populateSubMap(subMap, fieldValues, 1);
-        indexMap.put(element, subMap);
-    }
-
-    private void removeIndexElement(NitriteMap<DBValue, NavigableMap<DBValue, ?>> indexMap,
-                                    FieldValues fieldValues, DBValue element) {
-        NavigableMap<DBValue, ?> subMap = indexMap.get(element);
-        if (subMap != null && !subMap.isEmpty()) {
-            deleteFromSubMap(subMap, fieldValues, 1);
-            indexMap.put(element, subMap);
-        }
-    }
-
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private void populateSubMap(NavigableMap subMap, FieldValues fieldValues, int depth) {
-        if (depth >= fieldValues.getValues().size()) return;
+    private void acceptKey(FieldValues fieldValues, DBValue firstValue, boolean validate,
+                           Consumer<DBValue[]> action) {
+        List<Pair<String, Object>> pairs = fieldValues.getValues();
+        DBValue[] values = new DBValue[pairs.size()];
+        values[0] = firstValue;
+
+        for (int depth = 1; depth < pairs.size(); depth++) {
+            Object value = pairs.get(depth).getSecond();
+            if (value == null) {
+                values[depth] = DBNull.getInstance();
+                continue;
+            }
 
-        Pair<String, Object> pair = fieldValues.getValues().get(depth);
-        Object value = pair.getSecond();
-        DBValue dbValue;
-        if (value == null) {
-            dbValue = DBNull.getInstance();
-        } else {
             if (Iterable.class.isAssignableFrom(value.getClass()) || value.getClass().isArray()) {
+                if (!validate) return;
                 throw new IndexingException("Compound multikey index is supported on the first field of the index only");
             }
 
             if (!(value instanceof Comparable)) {
+                if (!validate) return;
                 throw new IndexingException(value + " is not a comparable type");
             }
-            dbValue = new DBValue((Comparable<?>) value);
-        }
-
-        if (depth == fieldValues.getValues().size() - 1) {
-            // terminal field
-            List<NitriteId> nitriteIds = (List<NitriteId>) subMap.get(dbValue);
-            nitriteIds = addNitriteIds(nitriteIds, fieldValues);
-            subMap.put(dbValue, nitriteIds);
-        } else {
-            // intermediate fields
-            NavigableMap subMap2 = (NavigableMap) subMap.get(dbValue);
-            if (subMap2 == null) {
-                // index are always in ascending order
-                subMap2 = new ConcurrentSkipListMap<>();
-            }
-
-            subMap.put(dbValue, subMap2);
-            populateSubMap(subMap2, fieldValues, depth + 1);
+            values[depth] = new DBValue((Comparable<?>) value);
         }
+        action.accept(values);
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private void deleteFromSubMap(NavigableMap subMap, FieldValues fieldValues, int depth) {
-        Pair<String, Object> pair = fieldValues.getValues().get(depth);
-        Object value = pair.getSecond();
-        DBValue dbValue;
-        if (value == null) {
-            dbValue = DBNull.getInstance();
-        } else {
-            if (!(value instanceof Comparable)) {
-                return;
+    private boolean containsKey(NitriteMap<CompoundIndexKey, Object> indexMap, DBValue[] values) {
+        CompoundIndexKey key = indexMap.ceilingKey(CompoundIndexKey.lowerBound(values));
+        while (key != null && key.startsWith(values)) {
+            // a key removed in the current transaction has no value
+            if (indexMap.get(key) != null) {
+                return true;
             }
-            dbValue = new DBValue((Comparable<?>) value);
+            key = indexMap.higherKey(key);
         }
+        return false;
+    }
 
-        if (depth == fieldValues.getValues().size() - 1) {
-            // terminal field
-            List<NitriteId> nitriteIds = (List<NitriteId>) subMap.get(dbValue);
-            nitriteIds = removeNitriteIds(nitriteIds, fieldValues);
-            if (nitriteIds == null || nitriteIds.isEmpty()) {
-                subMap.remove(dbValue);
-            } else {
-                subMap.put(dbValue, nitriteIds);
-            }
-        } else {
-            // intermediate fields
-            NavigableMap subMap2 = (NavigableMap) subMap.get(dbValue);
-            if (subMap2 == null) {
-                return;
-            }
+    private NitriteMap<CompoundIndexKey, Object> findIndexMap() {
+        migrateLegacyIndex();
+        String mapName = deriveCompositeIndexMapName(indexDescriptor);
+        return nitriteStore.openMap(mapName, CompoundIndexKey.class, Boolean.class);
+    }
 
-            deleteFromSubMap(subMap2, fieldValues, depth + 1);
-            subMap.put(dbValue, subMap2);
+    private void migrateLegacyIndex() {
+        if (migrationChecked) return;
+        synchronized (this) {
+            if (migrationChecked) return;
+            migrateLegacyIndex(indexDescriptor, nitriteStore);
+            migrationChecked = true;
         }
     }
 
-    private NitriteMap<DBValue, NavigableMap<DBValue, ?>> findIndexMap() {
-        String mapName = deriveIndexMapName(indexDescriptor);
-        return nitriteStore.openMap(mapName, DBValue.class, ConcurrentSkipListMap.class);
+    /**
+     * Rewrites a legacy compound index (a nested map of the values of the next field
+     * under every value of the first field, written by Nitrite &lt; 4.5) into the
+     * composite-key layout, then drops the legacy map. It runs when the collection of
+     * the index is opened, and is checked once more by every index instance on its
+     * first access. Does nothing if the index has no legacy map.
+     *
+     * @param indexDescriptor the descriptor of the compound index
+     * @param nitriteStore    the nitrite store
+     */
+    @SuppressWarnings("unchecked")
+    public static void migrateLegacyIndex(IndexDescriptor indexDescriptor, NitriteStore<?> nitriteStore) {
+        String legacyName = deriveIndexMapName(indexDescriptor);
+        if (nitriteStore.hasMap(legacyName)) {
+            NitriteMap<DBValue, NavigableMap<DBValue, ?>> legacy = nitriteStore.openMap(legacyName,
+                DBValue.class, ConcurrentSkipListMap.class);
+            if (!legacy.isEmpty()) {
+                String mapName = deriveCompositeIndexMapName(indexDescriptor);
+                NitriteMap<CompoundIndexKey, Object> indexMap = nitriteStore.openMap(mapName,
+                    CompoundIndexKey.class, Boolean.class);
+                for (Pair<DBValue, NavigableMap<DBValue, ?>> entry : legacy.entries()) {
+                    migrateSubMap(indexMap, new DBValue[]{entry.getFirst()}, entry.getSecond());
+                }
+            }
+            legacy.clear();
+            legacy.drop();
+        }
     }
 
-    private LinkedHashSet<NitriteId> scanIndex(FindPlan findPlan,
-                                               NitriteMap<DBValue, NavigableMap<DBValue, ?>> indexMap) {
-        List<ComparableFilter> filters = findPlan.getIndexScanFilter().getFilters();
-        IndexMap iMap = new IndexMap(indexMap);
-        IndexScanner indexScanner = new IndexScanner(iMap);
-        return indexScanner.doScan(filters, findPlan.getIndexScanOrder());
+    @SuppressWarnings("unchecked")
+    private static void migrateSubMap(NitriteMap<CompoundIndexKey, Object> indexMap,
+                               DBValue[] prefix, NavigableMap<DBValue, ?> subMap) {
+        for (Map.Entry<DBValue, ?> entry : subMap.entrySet()) {
+            DBValue[] values = Arrays.copyOf(prefix, prefix.length + 1);
+            values[prefix.length] = entry.getKey();
+
+            if (entry.getValue() instanceof NavigableMap) {
+                migrateSubMap(indexMap, values, (NavigableMap<DBValue, ?>) entry.getValue());
+            } else if (entry.getValue() instanceof List) {
+                for (NitriteId nitriteId : (List<NitriteId>) entry.getValue()) {
+                    indexMap.put(new CompoundIndexKey(values, nitriteId), Boolean.TRUE);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBNull;
+import org.dizitart.no2.common.DBValue;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Composite key of the compound index layout. Instead of a nested map per leading
+ * value, which is read, modified and written back whole on every insert, the
+ * compound index stores one row per {@code (v1, .., vn, id)} tuple keyed by a
+ * {@link CompoundIndexKey}, like the {@link IndexEntryKey} rows of a non-unique
+ * single-field index.
+ *
+ * <p>The key orders by its values one by one, then by the trailing {@code bound}
+ * marker, then by the {@code id}. A bracket key holds only a prefix of the values:
+ * a {@link #LOWER} bracket sorts immediately before and an {@link #UPPER} bracket
+ * immediately after every row which starts with the prefix, so the rows of any
+ * leading values can be range scanned.
+ *
+ * @since 4.5
+ */
+public class CompoundIndexKey implements Comparable<CompoundIndexKey>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final byte LOWER = -1;
+    public static final byte EXACT = 0;
+    public static final byte UPPER = 1;
+
+    private final DBValue[] values;
+    private final byte bound;
+    private final long id;
+
+    CompoundIndexKey(DBValue[] values, NitriteId nitriteId) {
+        this.values = normalize(values);
+        this.bound = EXACT;
+        this.id = nitriteId.getIdValue();
+    }
+
+    private CompoundIndexKey(DBValue[] values, byte bound) {
+        this.values = normalize(values);
+        this.bound = bound;
+        this.id = 0;
+    }
+
+    /**
+     * Rebuilds an exact {@code (v1, .., vn, id)} key. Used by store adapters that decode keys
+     * back from their persisted form.
+     */
+    public static CompoundIndexKey exact(DBValue[] values, NitriteId nitriteId) {
+        return new CompoundIndexKey(values, nitriteId);
+    }
+
+    /**
+     * The bracket that sorts immediately before every row starting with {@code prefix}.
+     */
+    public static CompoundIndexKey lowerBound(DBValue[] prefix) {
+        return new CompoundIndexKey(prefix, LOWER);
+    }
+
+    /**
+     * The bracket that sorts immediately after every row starting with {@code prefix}.
+     */
+    public static CompoundIndexKey upperBound(DBValue[] prefix) {
+        return new CompoundIndexKey(prefix, UPPER);
+    }
+
+    /**
+     * The number of values of this key.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * The indexed value of the field at {@code index}.
+     */
+    public DBValue getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * The bracket marker of this key: {@link #LOWER}, {@link #EXACT} or {@link #UPPER}.
+     */
+    public byte getBound() {
+        return bound;
+    }
+
+    /**
+     * The {@link NitriteId} component of this key, or {@code null} for a bracket key.
+     */
+    public NitriteId getNitriteId() {
+        return bound == EXACT ? NitriteId.createId(id) : null;
+    }
+
+    /**
+     * Checks if this is a row whose leading values are {@code prefix}.
+     */
+    boolean startsWith(DBValue[] prefix) {
+        if (bound != EXACT || values.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (values[i].compareTo(prefix[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int compareTo(CompoundIndexKey other) {
+        int length = Math.min(values.length, other.values.length);
+        for (int i = 0; i < length; i++) {
+            int cmp = values[i].compareTo(other.values[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        if (values.length != other.values.length) {
+            // the shorter key is a bracket around the rows of its prefix
+            return values.length < other.values.length
+                ? (bound == LOWER ? -1 : 1)
+                : (other.bound == LOWER ? 1 : -1);
+        }
+
+        int cmp = Byte.compare(bound, other.bound);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Long.compare(id, other.id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompoundIndexKey)) return false;
+        CompoundIndexKey that = (CompoundIndexKey) o;
+        return bound == that.bound && id == that.id && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(values);
+        result = 31 * result + bound;
+        result = 31 * result + Long.hashCode(id);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CompoundIndexKey{values=" + Arrays.toString(values) + ", bound=" + bound + ", id=" + id + '}';
+    }
+
+    private static DBValue[] normalize(DBValue[] values) {
+        DBValue[] result = new DBValue[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i] == null ? DBNull.getInstance() : values[i];
+        }
+        return result;
+    }
+}
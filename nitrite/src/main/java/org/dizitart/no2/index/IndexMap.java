@@ -19,9 +19,11 @@ package org.dizitart.no2.index;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.dizitart.no2.collection.ExecutionProfile;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.store.NitriteMap;
 
@@ -36,15 +38,31 @@ public class IndexMap {
     private NitriteMap<DBValue, ?> nitriteMap;
     private NavigableMap<DBValue, ?> navigableMap;
 
+    // unique layout (unique single-field index): the nitrite map holds a single NitriteId
+    // per value, which this IndexMap presents as a list of one id.
+    private boolean uniqueIds;
+
     // composite layout (non-unique single-field index): the backing map is keyed by
     // (value, id) pairs (see IndexEntryKey). This IndexMap still presents the classic
     // value -> List<NitriteId> view to the scanner and the filters.
     private NitriteMap<IndexEntryKey, ?> compositeMap;
 
+    // compound layout: the backing map is keyed by (v1, .., vn, id) rows (see CompoundIndexKey).
+    // This IndexMap presents the values of the field after the prefix, a value of a non-terminal
+    // field maps to the IndexMap of the next field and a value of the last field to its ids.
+    private NitriteMap<CompoundIndexKey, ?> compoundMap;
+    private DBValue[] prefix;
+    private int fieldCount;
+
     @Getter
     @Setter
     private boolean reverseScan;
 
+    // counts the keys visited by a scan when the query is analyzed
+    @Getter
+    @Setter
+    private ExecutionProfile executionProfile;
+
     /**
      * Instantiates a new {@link IndexMap}.
      *
@@ -79,6 +97,42 @@ public class IndexMap {
         return new IndexMap(compositeMap, true);
     }
 
+    private IndexMap(NitriteMap<CompoundIndexKey, ?> compoundMap, DBValue[] prefix, int fieldCount) {
+        this.compoundMap = compoundMap;
+        this.prefix = prefix;
+        this.fieldCount = fieldCount;
+    }
+
+    /**
+     * Instantiates an {@link IndexMap} over a unique index stored in the direct layout, which
+     * maps every value to the only {@link NitriteId} it can have. The returned map presents
+     * the id as a list of one id, like the classic layout.
+     *
+     * @param uniqueMap the backing value to id map
+     * @return the index map
+     * @since 4.5
+     */
+    public static IndexMap unique(NitriteMap<DBValue, NitriteId> uniqueMap) {
+        IndexMap indexMap = new IndexMap(uniqueMap);
+        indexMap.uniqueIds = true;
+        return indexMap;
+    }
+
+    /**
+     * Instantiates an {@link IndexMap} over a compound index stored in the composite-key
+     * layout (one row per {@code (v1, .., vn, id)} tuple). The returned map presents the
+     * values of the first field, every value maps to the {@link IndexMap} of the next field,
+     * whose navigation is a range seek within the rows of the values before it.
+     *
+     * @param compoundMap the backing compound map
+     * @param fieldCount  the number of fields of the index
+     * @return the index map
+     * @since 4.5
+     */
+    public static IndexMap compound(NitriteMap<CompoundIndexKey, ?> compoundMap, int fieldCount) {
+        return new IndexMap(compoundMap, new DBValue[0], fieldCount);
+    }
+
     /**
      * Normalizes a key returned by the backing map to the {@link DBNull} singleton
      * when it represents the null key. Persistent stores deserialize the stored null
@@ -90,6 +144,9 @@ public class IndexMap {
     }
 
     public DBValue firstKey() {
+        if (compoundMap != null) {
+            return sentinelOrKey(compoundValue(compoundMap.ceilingKey(CompoundIndexKey.lowerBound(prefix))));
+        }
         if (compositeMap != null) {
             IndexEntryKey first = compositeMap.firstKey();
             return sentinelOrKey(first == null ? null : first.getValue());
@@ -106,6 +163,9 @@ public class IndexMap {
     }
 
     public DBValue lastKey() {
+        if (compoundMap != null) {
+            return sentinelOrKey(compoundValue(compoundMap.floorKey(CompoundIndexKey.upperBound(prefix))));
+        }
         if (compositeMap != null) {
             IndexEntryKey last = compositeMap.lastKey();
             return sentinelOrKey(last == null ? null : last.getValue());
@@ -130,6 +190,9 @@ public class IndexMap {
      */
     public DBValue lowerKey(DBValue key) {
         DBValue dbKey = key == null ? DBNull.getInstance() : key;
+        if (compoundMap != null) {
+            return sentinelOrKey(compoundValue(compoundMap.lowerKey(compoundLowerBound(dbKey))));
+        }
         if (compositeMap != null) {
             // largest distinct value strictly less than `key`: the lower bracket sorts before
             // every (key, id) row, so the largest underlying key below it belongs to a smaller value
@@ -155,6 +218,9 @@ public class IndexMap {
      */
     public DBValue higherKey(DBValue key) {
         DBValue dbKey = key == null ? DBNull.getInstance() : key;
+        if (compoundMap != null) {
+            return sentinelOrKey(compoundValue(compoundMap.higherKey(compoundUpperBound(dbKey))));
+        }
         if (compositeMap != null) {
             // first distinct value strictly greater than `key`: every (key, id) row sorts at or
             // below the upper bracket, so the first underlying key past it belongs to the next value
@@ -179,6 +245,9 @@ public class IndexMap {
      */
     public DBValue ceilingKey(DBValue key) {
         DBValue dbKey = key == null ? DBNull.getInstance() : key;
+        if (compoundMap != null) {
+            return sentinelOrKey(compoundValue(compoundMap.ceilingKey(compoundLowerBound(dbKey))));
+        }
         if (compositeMap != null) {
             // first distinct value >= `key`: the lower bracket sorts before every (key, id) row
             IndexEntryKey k = compositeMap.ceilingKey(IndexEntryKey.lowerBound(dbKey));
@@ -202,6 +271,9 @@ public class IndexMap {
      */
     public DBValue floorKey(DBValue key) {
         DBValue dbKey = key == null ? DBNull.getInstance() : key;
+        if (compoundMap != null) {
+            return sentinelOrKey(compoundValue(compoundMap.floorKey(compoundUpperBound(dbKey))));
+        }
         if (compositeMap != null) {
             // largest distinct value <= `key`: every (key, id) row sorts at or below the upper bracket
             IndexEntryKey k = compositeMap.floorKey(IndexEntryKey.upperBound(dbKey));
@@ -217,6 +289,242 @@ public class IndexMap {
         return sentinelOrKey(dbKey);
     }
 
+    /**
+     * Gets a lazily evaluated cursor over the distinct keys of this index, starting at
+     * <code>from</code> and walking in the current scan order. A <code>null</code>
+     * start key begins at the first (or, for a reverse scan, the last) key.
+     * <p>
+     * Unlike the navigation methods, the cursor never reports the end of the index
+     * as a {@link DBNull} key, so a stored null key is yielded as the
+     * {@link DBNull} singleton and the walk simply ends when the keys run out.
+     *
+     * @param from      the key to start from, or <code>null</code>
+     * @param inclusive if <code>from</code> itself should be yielded when present
+     * @return the cursor over the keys
+     */
+    public RecordStream<DBValue> keys(DBValue from, boolean inclusive) {
+        return keys(from, inclusive, reverseScan);
+    }
+
+    /**
+     * Gets a lazily evaluated cursor over the distinct keys of this index except
+     * the excluded keys, walking in the current scan order. It yields the keys of
+     * the ranges between the excluded keys, a stored null key as the
+     * {@link DBNull} singleton unless it is excluded itself.
+     * <p>
+     * The cursor walks the sorted excluded keys along with the index keys, so
+     * every key is compared with a single excluded key and the ids of an excluded
+     * key are never read.
+     *
+     * @param excluded the keys to leave out
+     * @return the cursor over the keys
+     * @since 4.5
+     */
+    public RecordStream<DBValue> keysExcept(Collection<DBValue> excluded) {
+        boolean reverse = reverseScan;
+        NavigableSet<DBValue> sorted = new TreeSet<>(excluded);
+        List<DBValue> bounds = new ArrayList<>(reverse ? sorted.descendingSet() : sorted);
+
+        return () -> new Iterator<>() {
+            private final Iterator<DBValue> keys = keys(null, false, reverse).iterator();
+            private int bound = 0;
+            private DBValue nextKey = advance();
+
+            private DBValue advance() {
+                while (keys.hasNext()) {
+                    DBValue key = keys.next();
+                    // skip the excluded keys the walk has passed, they are not in the index
+                    while (bound < bounds.size() && beforeInScanOrder(bounds.get(bound), key)) {
+                        bound++;
+                    }
+                    if (bound < bounds.size() && bounds.get(bound).compareTo(key) == 0) {
+                        bound++;
+                        continue;
+                    }
+                    return key;
+                }
+                return null;
+            }
+
+            private boolean beforeInScanOrder(DBValue bound, DBValue key) {
+                int cmp = bound.compareTo(key);
+                return reverse ? cmp > 0 : cmp < 0;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextKey != null;
+            }
+
+            @Override
+            public DBValue next() {
+                if (nextKey == null) {
+                    throw new NoSuchElementException();
+                }
+                DBValue current = nextKey;
+                nextKey = advance();
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Counts the ids stored under the keys between two bounds, without
+     * collecting them. A <code>null</code> bound leaves that end of the range
+     * open, so a range starting at the first key includes the null key. An id
+     * stored under several keys is counted once per key.
+     * <p>
+     * The composite and compound layouts count their rows, and the unique
+     * layout its keys, with {@link NitriteMap#countKeys(Object, boolean, Object, boolean)},
+     * the other layouts walk the keys and add up the sizes of their id lists.
+     *
+     * @param from          the lower bound, or <code>null</code>
+     * @param fromInclusive if the ids of the lower bound are counted
+     * @param to            the upper bound, or <code>null</code>
+     * @param toInclusive   if the ids of the upper bound are counted
+     * @return the number of ids
+     * @since 4.5
+     */
+    public long countEntries(DBValue from, boolean fromInclusive, DBValue to, boolean toInclusive) {
+        if (executionProfile != null) {
+            executionProfile.keyVisited();
+        }
+
+        if (compoundMap != null) {
+            // the rows of every field after the prefix are counted, as the ids of the sub-maps
+            CompoundIndexKey start = from == null ? CompoundIndexKey.lowerBound(prefix)
+                : fromInclusive ? compoundLowerBound(from) : compoundUpperBound(from);
+            CompoundIndexKey end = to == null ? CompoundIndexKey.upperBound(prefix)
+                : toInclusive ? compoundUpperBound(to) : compoundLowerBound(to);
+            return compoundMap.countKeys(start, false, end, false);
+        }
+
+        if (uniqueIds) {
+            // every key holds exactly one id
+            return nitriteMap.countKeys(from, fromInclusive, to, toInclusive);
+        }
+
+        if (compositeMap != null) {
+            // the brackets sort around all rows of a value, they are never stored themselves
+            IndexEntryKey start = from == null ? null
+                : fromInclusive ? IndexEntryKey.lowerBound(from) : IndexEntryKey.upperBound(from);
+            IndexEntryKey end = to == null ? null
+                : toInclusive ? IndexEntryKey.upperBound(to) : IndexEntryKey.lowerBound(to);
+            return compositeMap.countKeys(start, false, end, false);
+        }
+
+        long count = 0;
+        for (DBValue key : keys(from, fromInclusive, false)) {
+            if (to != null) {
+                int cmp = key.compareTo(to);
+                if (cmp > 0 || (cmp == 0 && !toInclusive)) {
+                    break;
+                }
+            }
+            count += countIds(get(key));
+        }
+        return count;
+    }
+
+    /**
+     * Counts the terminal nitrite ids of this map without collecting them.
+     *
+     * @return the number of terminal nitrite ids
+     * @since 4.5
+     */
+    public long countTerminalNitriteIds() {
+        return countEntries(null, false, null, false);
+    }
+
+    private long countIds(Object value) {
+        if (value instanceof List) {
+            return ((List<?>) value).size();
+        }
+        IndexMap subMap = subMap(value);
+        return subMap == null ? 0 : subMap.countTerminalNitriteIds();
+    }
+
+    /**
+     * Gets the {@link IndexMap} of the next field of a compound index from a value
+     * returned by {@link #get(DBValue)}. The sub-map shares the execution profile
+     * of this map.
+     *
+     * @param value the value mapped with a key
+     * @return the index map of the next field, or <code>null</code> if the value is not a sub-map
+     * @since 4.5
+     */
+    public IndexMap subMap(Object value) {
+        IndexMap subMap;
+        if (value instanceof IndexMap) {
+            subMap = (IndexMap) value;
+        } else if (value instanceof NavigableMap) {
+            subMap = new IndexMap((NavigableMap<DBValue, ?>) value);
+        } else {
+            return null;
+        }
+        subMap.setExecutionProfile(executionProfile);
+        return subMap;
+    }
+
+    private RecordStream<DBValue> keys(DBValue from, boolean inclusive, boolean reverse) {
+        if (compoundMap != null) {
+            return () -> new CompoundKeyIterator(from, inclusive, reverse);
+        }
+        if (compositeMap != null) {
+            return () -> new CompositeKeyIterator(from, inclusive, reverse);
+        }
+
+        RecordStream<DBValue> keys;
+        if (nitriteMap != null) {
+            keys = nitriteMap.keys(from, reverse);
+        } else if (navigableMap != null) {
+            NavigableMap<DBValue, ?> view;
+            if (from == null) {
+                view = reverse ? navigableMap.descendingMap() : navigableMap;
+            } else {
+                view = reverse ? navigableMap.headMap(from, inclusive).descendingMap()
+                    : navigableMap.tailMap(from, inclusive);
+            }
+            keys = RecordStream.fromIterable(view.keySet());
+        } else {
+            return RecordStream.empty();
+        }
+
+        return () -> new Iterator<>() {
+            private final Iterator<DBValue> iterator = keys.iterator();
+            private DBValue nextKey = advance(true);
+
+            private DBValue advance(boolean first) {
+                while (iterator.hasNext()) {
+                    DBValue key = iterator.next();
+                    // a native cursor always starts inclusive, drop the start key if excluded
+                    if (first && !inclusive && from != null && key != null
+                        && key.compareTo(from) == 0) {
+                        first = false;
+                        continue;
+                    }
+                    return sentinelOrKey(key);
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextKey != null;
+            }
+
+            @Override
+            public DBValue next() {
+                if (nextKey == null) {
+                    throw new NoSuchElementException();
+                }
+                DBValue current = nextKey;
+                nextKey = advance(false);
+                return current;
+            }
+        };
+    }
+
     /**
      * Gets the value mapped with the specified key or <code>null</code> otherwise.
      *
@@ -224,17 +532,30 @@ public class IndexMap {
      * @return the object
      */
     public Object get(DBValue dbValue) {
+        if (executionProfile != null) {
+            executionProfile.keyVisited();
+        }
+        if (compoundMap != null) {
+            return compoundGet(dbValue == null ? DBNull.getInstance() : dbValue);
+        }
         if (compositeMap != null) {
             return compositeGet(dbValue == null ? DBNull.getInstance() : dbValue);
         }
         if (nitriteMap != null) {
-            return nitriteMap.get(dbValue);
+            return idsOf(nitriteMap.get(dbValue));
         } else if (navigableMap != null) {
             return navigableMap.get(dbValue);
         }
         return null;
     }
 
+    private Object idsOf(Object value) {
+        if (uniqueIds && value instanceof NitriteId) {
+            return Collections.singletonList((NitriteId) value);
+        }
+        return value;
+    }
+
     /**
      * Equality lookup in the composite layout: range-scan the leading-value group and collect
      * all the trailing ids, returning the same {@code List<NitriteId>} the classic layout would.
@@ -257,12 +578,70 @@ public class IndexMap {
         return nitriteIds;
     }
 
+    /**
+     * Lookup in the compound layout: a value of the last field range-scans its rows and
+     * collects their ids, any other value yields the sub-map of the rows starting with it.
+     */
+    private Object compoundGet(DBValue value) {
+        DBValue[] values = Arrays.copyOf(prefix, prefix.length + 1);
+        values[prefix.length] = value;
+
+        CompoundIndexKey key = compoundMap.ceilingKey(CompoundIndexKey.lowerBound(values));
+        if (values.length < fieldCount) {
+            if (key == null || !key.startsWith(values)) {
+                return null;
+            }
+            IndexMap subMap = new IndexMap(compoundMap, values, fieldCount);
+            subMap.setExecutionProfile(executionProfile);
+            return subMap;
+        }
+
+        List<NitriteId> nitriteIds = null;
+        while (key != null && key.startsWith(values)) {
+            // skip the keys removed in the current transaction, see compositeGet
+            if (compoundMap.get(key) != null) {
+                if (nitriteIds == null) {
+                    nitriteIds = new ArrayList<>();
+                }
+                nitriteIds.add(key.getNitriteId());
+            }
+            key = compoundMap.higherKey(key);
+        }
+        return nitriteIds;
+    }
+
+    private CompoundIndexKey compoundLowerBound(DBValue value) {
+        DBValue[] values = Arrays.copyOf(prefix, prefix.length + 1);
+        values[prefix.length] = value;
+        return CompoundIndexKey.lowerBound(values);
+    }
+
+    private CompoundIndexKey compoundUpperBound(DBValue value) {
+        DBValue[] values = Arrays.copyOf(prefix, prefix.length + 1);
+        values[prefix.length] = value;
+        return CompoundIndexKey.upperBound(values);
+    }
+
+    /**
+     * Gets the value of the field of this map from a row, or <code>null</code> if the row
+     * does not start with the prefix, i.e. a seek has left the rows of this sub-map.
+     */
+    private DBValue compoundValue(CompoundIndexKey key) {
+        if (key == null || key.size() <= prefix.length || !key.startsWith(prefix)) {
+            return null;
+        }
+        return key.getValue(prefix.length);
+    }
+
     /**
      * Returns the iterable entries of the indexed items.
      *
      * @return the iterable
      */
     public Iterable<? extends Pair<DBValue, ?>> entries() {
+        if (compoundMap != null) {
+            return compoundEntries();
+        }
         if (compositeMap != null) {
             return compositeEntries();
         }
@@ -285,9 +664,9 @@ public class IndexMap {
                     Pair<DBValue, ?> next = entryIterator.next();
                     DBValue dbKey = next.getFirst();
                     if (dbKey instanceof DBNull) {
-                        return new Pair<>(null, next.getSecond());
+                        return new Pair<>(null, idsOf(next.getSecond()));
                     } else {
-                        return new Pair<>(dbKey, next.getSecond());
+                        return new Pair<>(dbKey, idsOf(next.getSecond()));
                     }
                 }
             };
@@ -358,6 +737,110 @@ public class IndexMap {
         };
     }
 
+    /**
+     * Pairs every distinct value of the field of this map with its ids or its sub-map.
+     */
+    private Iterable<Pair<DBValue, ?>> compoundEntries() {
+        RecordStream<DBValue> keys = keys(null, false, reverseScan);
+        return () -> new Iterator<>() {
+            private final Iterator<DBValue> iterator = keys.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Pair<DBValue, ?> next() {
+                DBValue key = iterator.next();
+                Object value = compoundGet(key);
+                return new Pair<>(key instanceof DBNull ? null : key, value);
+            }
+        };
+    }
+
+    /**
+     * Walks the distinct values of the field of this map in the compound layout, jumping
+     * over the rows of a value with one bracket seek, and stops at the end of the prefix.
+     */
+    private class CompoundKeyIterator implements Iterator<DBValue> {
+        private final boolean reverse;
+        private DBValue nextValue;
+
+        CompoundKeyIterator(DBValue from, boolean inclusive, boolean reverse) {
+            this.reverse = reverse;
+            CompoundIndexKey row;
+            if (from == null) {
+                row = reverse ? compoundMap.floorKey(CompoundIndexKey.upperBound(prefix))
+                    : compoundMap.ceilingKey(CompoundIndexKey.lowerBound(prefix));
+            } else if (reverse) {
+                row = compoundMap.floorKey(inclusive ? compoundUpperBound(from) : compoundLowerBound(from));
+            } else {
+                row = compoundMap.ceilingKey(inclusive ? compoundLowerBound(from) : compoundUpperBound(from));
+            }
+            nextValue = compoundValue(row);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextValue != null;
+        }
+
+        @Override
+        public DBValue next() {
+            if (nextValue == null) {
+                throw new NoSuchElementException();
+            }
+            DBValue value = nextValue;
+            CompoundIndexKey row = reverse
+                ? compoundMap.lowerKey(compoundLowerBound(value))
+                : compoundMap.higherKey(compoundUpperBound(value));
+            nextValue = compoundValue(row);
+            return sentinelOrKey(value);
+        }
+    }
+
+    /**
+     * Walks the distinct leading values of the composite layout, jumping over a whole
+     * {@code (value, *)} group with one bracket seek instead of visiting every row.
+     */
+    private class CompositeKeyIterator implements Iterator<DBValue> {
+        private final boolean reverse;
+        private IndexEntryKey nextRow;
+
+        CompositeKeyIterator(DBValue from, boolean inclusive, boolean reverse) {
+            this.reverse = reverse;
+            if (compositeMap.isEmpty()) {
+                nextRow = null;
+            } else if (from == null) {
+                nextRow = reverse ? compositeMap.lastKey() : compositeMap.firstKey();
+            } else if (reverse) {
+                nextRow = compositeMap.floorKey(inclusive
+                    ? IndexEntryKey.upperBound(from) : IndexEntryKey.lowerBound(from));
+            } else {
+                nextRow = compositeMap.ceilingKey(inclusive
+                    ? IndexEntryKey.lowerBound(from) : IndexEntryKey.upperBound(from));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextRow != null;
+        }
+
+        @Override
+        public DBValue next() {
+            if (nextRow == null) {
+                throw new NoSuchElementException();
+            }
+            DBValue value = nextRow.getValue();
+            nextRow = reverse
+                ? compositeMap.lowerKey(IndexEntryKey.lowerBound(value))
+                : compositeMap.higherKey(IndexEntryKey.upperBound(value));
+            return sentinelOrKey(value);
+        }
+    }
+
     /**
      * Gets the terminal nitrite ids from this map.
      *
@@ -368,6 +851,10 @@ public class IndexMap {
 
         // scan each entry of the navigable map and collect all terminal nitrite-ids
         for (Pair<DBValue, ?> entry : entries()) {
+            if (executionProfile != null) {
+                executionProfile.keyVisited();
+            }
+
             // if the value is terminal, collect all nitrite-ids
             if (entry.getSecond() instanceof List) {
                 List<NitriteId> nitriteIds = (List<NitriteId>) entry.getSecond();
@@ -375,10 +862,9 @@ public class IndexMap {
             }
 
             // if the value is not terminal, scan recursively
-            if (entry.getSecond() instanceof NavigableMap) {
-                NavigableMap<DBValue, ?> subMap = (NavigableMap<DBValue, ?>) entry.getSecond();
-                IndexMap indexMap = new IndexMap(subMap);
-                List<NitriteId> nitriteIds = indexMap.getTerminalNitriteIds();
+            IndexMap subMap = subMap(entry.getSecond());
+            if (subMap != null) {
+                List<NitriteId> nitriteIds = subMap.getTerminalNitriteIds();
                 terminalResult.addAll(nitriteIds);
             }
         }
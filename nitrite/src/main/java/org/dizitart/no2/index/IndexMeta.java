@@ -19,10 +19,13 @@ package org.dizitart.no2.index;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OptionalDataException;
 import java.io.Serializable;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -37,16 +40,77 @@ public class IndexMeta implements Serializable {
     private IndexDescriptor indexDescriptor;
     private String indexMap;
     private AtomicBoolean isDirty;
+    private IndexStatistics statistics;
+
+    /**
+     * Indicates that no indexed field of any document holds an array or an
+     * iterable, so every index key describes its document exactly. It is
+     * <code>false</code> for an index written before it was tracked.
+     */
+    private boolean singleValued;
+
+    /**
+     * The class name of the numbers every indexed field holds, as the index
+     * keys store all numbers as doubles. A field with numbers of different
+     * types maps to {@link Number}. It is <code>null</code> for an index
+     * written before number types were tracked.
+     */
+    private Map<String, String> numberTypes;
+
+    /**
+     * Indicates that an indexed field of some document may be null or missing,
+     * so the index may hold a null key. It is only cleared by a rebuild, and
+     * is <code>true</code> for an index written before it was tracked.
+     */
+    private boolean nullKeys;
 
     private void writeObject(ObjectOutputStream stream) throws IOException {
         stream.writeObject(indexDescriptor);
         stream.writeUTF(indexMap);
         stream.writeObject(isDirty);
+        stream.writeBoolean(singleValued);
+        stream.writeObject(statistics);
+        stream.writeObject(numberTypes);
+        stream.writeBoolean(nullKeys);
     }
 
+    @SuppressWarnings("unchecked")
     private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
         indexDescriptor = (IndexDescriptor) stream.readObject();
         indexMap = stream.readUTF();
         isDirty = (AtomicBoolean) stream.readObject();
+        try {
+            singleValued = stream.readBoolean();
+        } catch (EOFException e) {
+            // written before single valued indexes were tracked
+            singleValued = false;
+            nullKeys = true;
+            return;
+        }
+
+        try {
+            statistics = (IndexStatistics) stream.readObject();
+        } catch (OptionalDataException e) {
+            // written before index statistics were introduced
+            statistics = null;
+            nullKeys = true;
+            return;
+        }
+
+        try {
+            numberTypes = (Map<String, String>) stream.readObject();
+        } catch (OptionalDataException e) {
+            // written before number types were tracked
+            numberTypes = null;
+            nullKeys = true;
+            return;
+        }
+
+        try {
+            nullKeys = stream.readBoolean();
+        } catch (EOFException e) {
+            // written before null keys were tracked
+            nullKeys = true;
+        }
     }
 }
@@ -17,18 +17,20 @@
 
 package org.dizitart.no2.index;
 
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.common.util.Comparables;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.filters.ComparableFilter;
+import org.dizitart.no2.filters.EqualsFilter;
+import org.dizitart.no2.filters.ExcludingFilter;
 import org.dizitart.no2.filters.SortingAwareFilter;
 
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.NavigableMap;
+import java.util.*;
 
 /**
  * @author Anindya Chatterjee
@@ -41,6 +43,214 @@ public class IndexScanner {
         this.indexMap = indexMap;
     }
 
+    /**
+     * Scans the index lazily and yields the matching {@link NitriteId}s one at a time,
+     * in index order. A consumer that stops early (a limit, a first-or-null) stops the
+     * walk over the index instead of draining it.
+     * <p>
+     * Equality, range and {@link ExcludingFilter} filters on the leading field (including a
+     * lower + upper bound pair on a single field) are walked key by key; an excluding filter
+     * walks the ranges between its excluded keys. Every other filter shape falls back
+     * to {@link #doScan(List, Map)}, evaluated when the stream is first iterated.
+     *
+     * @param filters        the index scan filters
+     * @param indexScanOrder the index scan order
+     * @return the lazily evaluated stream of ids
+     */
+    public RecordStream<NitriteId> scan(List<ComparableFilter> filters, Map<String, Boolean> indexScanOrder) {
+        KeyRange keyRange = KeyRange.of(filters);
+        if (keyRange == null) {
+            return () -> doScan(filters, indexScanOrder).iterator();
+        }
+
+        boolean reverseScan = indexScanOrder != null
+            && Boolean.TRUE.equals(indexScanOrder.get(filters.get(0).getField()));
+        List<ComparableFilter> remainingFilters = filters.subList(keyRange.consumed, filters.size());
+        return () -> new RangeScanIterator(keyRange, reverseScan, remainingFilters, indexScanOrder);
+    }
+
+    /**
+     * Scans the index lazily like {@link #scan(List, Map)}, but yields every id together
+     * with a document of the index keys it is stored under, so that a query on the index
+     * fields alone is answered without reading the documents.
+     * <p>
+     * A <code>null</code> key does not tell an explicit <code>null</code> from a missing
+     * field, so the document of such an entry is <code>null</code> and has to be read.
+     * Every field is walked with an equality or a range; for any other filter shape this
+     * method returns <code>null</code>.
+     *
+     * @param filters        the index scan filters
+     * @param indexScanOrder the index scan order
+     * @param fieldNames     the index field names
+     * @return the lazily evaluated stream of index entries, or <code>null</code>
+     * @since 4.5
+     */
+    public RecordStream<Pair<NitriteId, Document>> scanEntries(List<ComparableFilter> filters,
+                                                               Map<String, Boolean> indexScanOrder,
+                                                               List<String> fieldNames) {
+        List<KeyRange> keyRanges = entryKeyRanges(filters, fieldNames);
+        if (keyRanges == null) {
+            return null;
+        }
+        return () -> new IndexEntryIterator(keyRanges, indexScanOrder, fieldNames);
+    }
+
+    /**
+     * Checks if {@link #scanEntries(List, Map, List)} can walk the entries of an
+     * index with the filters, i.e. if every filter is an equality or a range
+     * on a field of the index.
+     *
+     * @param filters    the index scan filters
+     * @param fieldNames the index field names
+     * @return <code>true</code> if the entries can be walked
+     * @since 4.5
+     */
+    public static boolean canScanEntries(List<ComparableFilter> filters, List<String> fieldNames) {
+        return entryKeyRanges(filters, fieldNames) != null;
+    }
+
+    private static List<KeyRange> entryKeyRanges(List<ComparableFilter> filters, List<String> fieldNames) {
+        List<KeyRange> keyRanges = new ArrayList<>();
+        int consumed = 0;
+        for (String fieldName : fieldNames) {
+            List<ComparableFilter> fieldFilters = new ArrayList<>();
+            for (ComparableFilter filter : filters) {
+                if (fieldName.equals(filter.getField())) {
+                    fieldFilters.add(filter);
+                }
+            }
+
+            if (fieldFilters.isEmpty()) {
+                // no filter on the field, all of its keys
+                keyRanges.add(null);
+                continue;
+            }
+
+            KeyRange keyRange = KeyRange.of(fieldFilters);
+            if (keyRange == null || keyRange.consumed != fieldFilters.size()) {
+                return null;
+            }
+            keyRanges.add(keyRange);
+            consumed += fieldFilters.size();
+        }
+
+        if (consumed != filters.size()) {
+            return null;
+        }
+        return keyRanges;
+    }
+
+    /**
+     * Counts the ids matching the filters without collecting them. An id stored
+     * under several keys, i.e. an element of an indexed array, is counted once
+     * per key, so the count equals the number of ids {@link #scan(List, Map)}
+     * yields only for an index whose keys never come from an array.
+     * <p>
+     * A range on the last filtered field is counted with
+     * {@link IndexMap#countEntries(DBValue, boolean, DBValue, boolean)}, which
+     * uses the per-key id counts of the index instead of the ids. Any filter
+     * shape which is not walked key by key falls back to counting the scan.
+     *
+     * @param filters the index scan filters
+     * @return the number of matching ids
+     * @since 4.5
+     */
+    public long countEntries(List<ComparableFilter> filters) {
+        if (filters == null || filters.isEmpty()) {
+            return indexMap.countTerminalNitriteIds();
+        }
+
+        Long count = countEntries(indexMap, filters);
+        if (count != null) {
+            return count;
+        }
+        return scan(filters, null).size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Long countEntries(IndexMap map, List<ComparableFilter> filters) {
+        KeyRange keyRange = KeyRange.of(filters);
+        if (keyRange == null) {
+            return null;
+        }
+
+        List<ComparableFilter> remainingFilters = filters.subList(keyRange.consumed, filters.size());
+        if (remainingFilters.isEmpty()) {
+            if (keyRange.point != null) {
+                return map.countEntries(keyRange.point, true, keyRange.point, true);
+            }
+            if (keyRange.excluded != null) {
+                // all ids but the ones of the excluded keys
+                long count = map.countTerminalNitriteIds();
+                for (DBValue key : keyRange.excluded) {
+                    count -= map.countEntries(key, true, key, true);
+                }
+                return count;
+            }
+            // a range filter never matches a null key, which sorts first
+            DBValue from = keyRange.lower == null ? DBNull.getInstance() : keyRange.lower;
+            boolean fromInclusive = keyRange.lower != null && keyRange.lowerInclusive;
+            return map.countEntries(from, fromInclusive, keyRange.upper, keyRange.upperInclusive);
+        }
+
+        // cascade into the sub-maps of a compound index with the remaining filters
+        map.setReverseScan(false);
+        Iterator<DBValue> keys = keyRange.keys(map, false);
+        long count = 0;
+        while (keys.hasNext()) {
+            DBValue key = keys.next();
+            if (keyRange.isBounded()) {
+                if (key instanceof DBNull) {
+                    continue;
+                }
+                if (!keyRange.withinEnd(key, false)) {
+                    break;
+                }
+            }
+
+            Object value = map.get(key);
+            IndexMap subMap = map.subMap(value);
+            if (value instanceof List) {
+                count += ((List<NitriteId>) value).size();
+            } else if (subMap != null) {
+                Long subCount = countEntries(subMap, remainingFilters);
+                if (subCount == null) {
+                    return null;
+                }
+                count += subCount;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Walks the keys of the leading index field within the range of the filters,
+     * and yields every key with all the ids stored under it, i.e. the ids of the
+     * sub-maps of a compound index. Keys without any id are skipped.
+     * <p>
+     * Without any filter every key is walked, including the <code>null</code>
+     * key. The filters must all target the leading field and form a single
+     * equality, range or exclusion, otherwise this method returns <code>null</code>.
+     *
+     * @param filters the filters on the leading field
+     * @param reverse if the keys are walked in descending order
+     * @return the lazily evaluated stream of keys and their ids, or <code>null</code>
+     * @since 4.5
+     */
+    public RecordStream<Pair<DBValue, Collection<NitriteId>>> scanKeys(List<ComparableFilter> filters,
+                                                                      boolean reverse) {
+        KeyRange keyRange = null;
+        if (filters != null && !filters.isEmpty()) {
+            keyRange = KeyRange.of(filters);
+            if (keyRange == null || keyRange.consumed != filters.size()) {
+                return null;
+            }
+        }
+
+        KeyRange range = keyRange;
+        return () -> new KeyScanIterator(range, reverse);
+    }
+
     @SuppressWarnings("unchecked")
     public LinkedHashSet<NitriteId> doScan(List<ComparableFilter> filters, Map<String, Boolean> indexScanOrder) {
         // linked-hash-set to return only unique ids preserving the order in index
@@ -93,17 +303,15 @@ public class IndexScanner {
                     // reached the terminal nitrite ids
                     List<NitriteId> idList = (List<NitriteId>) scanResult;
                     nitriteIds.addAll(idList);
-                } else if (isNavigableMapList(scanResult)) {
+                } else if (isSubMapList(scanResult)) {
                     // if this is a list of sub maps, then take each of the sub map
                     // and the next filter and scan the sub map
-                    List<NavigableMap<DBValue, ?>> subMaps = (List<NavigableMap<DBValue, ?>>) scanResult;
                     List<ComparableFilter> remainingFilter = filters.subList(1, filters.size());
 
-                    for (NavigableMap<DBValue, ?> subMap : subMaps) {
-                        // create an index map from the sub map and scan to get the
-                        // terminal nitrite ids
-                        IndexMap indexMap = new IndexMap(subMap);
-                        IndexScanner subMapScanner = new IndexScanner(indexMap);
+                    for (Object value : scanResult) {
+                        // scan the sub map to get the terminal nitrite ids
+                        IndexMap subMap = indexMap.subMap(value);
+                        IndexScanner subMapScanner = new IndexScanner(subMap);
                         LinkedHashSet<NitriteId> subResult = subMapScanner.doScan(remainingFilter, indexScanOrder);
                         nitriteIds.addAll(subResult);
                     }
@@ -198,7 +406,7 @@ public class IndexScanner {
                     break;
                 }
                 Object value = indexMap.get(key);
-                if (value instanceof NavigableMap) {
+                if (indexMap.subMap(value) != null) {
                     // a sub-map means this is a compound-index level, not a single-field scan
                     return null;
                 } else if (value instanceof List) {
@@ -215,7 +423,7 @@ public class IndexScanner {
                     break;
                 }
                 Object value = indexMap.get(key);
-                if (value instanceof NavigableMap) {
+                if (indexMap.subMap(value) != null) {
                     return null;
                 } else if (value instanceof List) {
                     nitriteIds.addAll((List<NitriteId>) value);
@@ -280,8 +488,420 @@ public class IndexScanner {
         return value instanceof NitriteId;
     }
 
-    private boolean isNavigableMapList(List<?> list) {
+    private boolean isSubMapList(List<?> list) {
         Object value = list.get(0);
-        return value instanceof NavigableMap;
+        return value instanceof IndexMap || value instanceof NavigableMap;
+    }
+
+    /**
+     * The key range the leading filter(s) of a scan select: either a single point key,
+     * a (possibly one-sided) range between two bounds, or all keys but a few excluded ones.
+     */
+    private static class KeyRange {
+        private DBValue point;
+        private Set<DBValue> excluded;
+        private DBValue lower, upper;
+        private boolean lowerInclusive, upperInclusive;
+        private int consumed;
+
+        static KeyRange of(List<ComparableFilter> filters) {
+            if (filters == null || filters.isEmpty() || filters.get(0) == null
+                || filters.get(0).getField() == null) {
+                return null;
+            }
+
+            KeyRange keyRange = new KeyRange();
+            if (filters.size() > 1 && allSameField(filters)) {
+                // a multi-bound range on a single field, only a clean lower + upper pair
+                // can be walked as one range
+                for (ComparableFilter filter : filters) {
+                    if (!keyRange.addBound(filter)) {
+                        return null;
+                    }
+                }
+                if (keyRange.lower == null || keyRange.upper == null) {
+                    return null;
+                }
+                keyRange.consumed = filters.size();
+                return keyRange;
+            }
+
+            ComparableFilter filter = filters.get(0);
+            if (filter instanceof ExcludingFilter) {
+                keyRange.excluded = ((ExcludingFilter) filter).getExcludedKeys();
+                if (keyRange.excluded == null) {
+                    return null;
+                }
+            } else if (filter instanceof EqualsFilter) {
+                Object value = filter.getValue();
+                if (value == null) {
+                    keyRange.point = DBNull.getInstance();
+                } else if (value instanceof Comparable) {
+                    keyRange.point = new DBValue((Comparable<?>) value);
+                } else {
+                    return null;
+                }
+            } else if (!keyRange.addBound(filter)) {
+                return null;
+            }
+            keyRange.consumed = 1;
+            return keyRange;
+        }
+
+        private boolean addBound(ComparableFilter filter) {
+            if (!(filter instanceof SortingAwareFilter)) {
+                return false;
+            }
+            Object value = filter.getValue();
+            if (!(value instanceof Comparable)) {
+                return false;
+            }
+            DBValue dbValue = new DBValue((Comparable<?>) value);
+            switch (((SortingAwareFilter) filter).getComparisonMode()) {
+                case GreaterEqual:
+                case Greater:
+                    if (lower != null) return false;
+                    lower = dbValue;
+                    lowerInclusive = ((SortingAwareFilter) filter).getComparisonMode()
+                        == SortingAwareFilter.ComparisonMode.GreaterEqual;
+                    return true;
+                case LesserEqual:
+                case Lesser:
+                    if (upper != null) return false;
+                    upper = dbValue;
+                    upperInclusive = ((SortingAwareFilter) filter).getComparisonMode()
+                        == SortingAwareFilter.ComparisonMode.LesserEqual;
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Checks if the keys lie between two bounds, which a key cursor only
+         * yields up to the far bound and which never include the null key.
+         */
+        private boolean isBounded() {
+            return point == null && excluded == null;
+        }
+
+        /**
+         * Opens a key cursor at the near end of the keys in the scan order.
+         */
+        private Iterator<DBValue> keys(IndexMap map, boolean reverseScan) {
+            if (point != null) {
+                return Collections.singletonList(point).iterator();
+            } else if (excluded != null) {
+                return map.keysExcept(excluded).iterator();
+            } else if (reverseScan) {
+                return map.keys(upper, upperInclusive).iterator();
+            } else {
+                return map.keys(lower, lowerInclusive).iterator();
+            }
+        }
+
+        /**
+         * Checks the far end of the range, the near end is where the key cursor starts.
+         */
+        private boolean withinEnd(DBValue key, boolean reverseScan) {
+            if (reverseScan) {
+                if (lower == null) return true;
+                int cmp = Comparables.compare(key, lower);
+                return lowerInclusive ? cmp >= 0 : cmp > 0;
+            } else {
+                if (upper == null) return true;
+                int cmp = Comparables.compare(key, upper);
+                return upperInclusive ? cmp <= 0 : cmp < 0;
+            }
+        }
+
+        private static boolean allSameField(List<ComparableFilter> filters) {
+            String first = filters.get(0).getField();
+            for (ComparableFilter filter : filters) {
+                if (filter == null || !first.equals(filter.getField())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Pulls the ids of one index key at a time from a {@link KeyRange}, cascading into
+     * the sub-maps of a compound index with the remaining filters.
+     * <p>
+     * Ids are not de-duplicated, the walk holds no state per id. An id of a multikey
+     * (array) index is yielded once per element it is stored under, the caller which
+     * scans such an index de-duplicates them.
+     */
+    private class RangeScanIterator implements Iterator<NitriteId> {
+        private final KeyRange keyRange;
+        private final boolean reverseScan;
+        private final List<ComparableFilter> remainingFilters;
+        private final Map<String, Boolean> indexScanOrder;
+        private final Iterator<DBValue> keys;
+        private Iterator<NitriteId> current;
+        private NitriteId nextId;
+        private boolean exhausted;
+
+        RangeScanIterator(KeyRange keyRange, boolean reverseScan,
+                          List<ComparableFilter> remainingFilters,
+                          Map<String, Boolean> indexScanOrder) {
+            this.keyRange = keyRange;
+            this.reverseScan = reverseScan;
+            this.remainingFilters = remainingFilters;
+            this.indexScanOrder = indexScanOrder;
+            this.current = Collections.emptyIterator();
+
+            indexMap.setReverseScan(reverseScan);
+            this.keys = keyRange.keys(indexMap, reverseScan);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextId == null) {
+                if (current.hasNext()) {
+                    nextId = current.next();
+                } else if (!nextKey()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public NitriteId next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            NitriteId nitriteId = nextId;
+            nextId = null;
+            return nitriteId;
+        }
+
+        private boolean nextKey() {
+            while (!exhausted && keys.hasNext()) {
+                DBValue key = keys.next();
+                if (keyRange.isBounded()) {
+                    if (key instanceof DBNull) {
+                        // a range filter never matches a null key
+                        continue;
+                    }
+                    if (!keyRange.withinEnd(key, reverseScan)) {
+                        exhausted = true;
+                        break;
+                    }
+                }
+
+                Collection<NitriteId> nitriteIds = idsOf(indexMap.get(key));
+                if (nitriteIds != null && !nitriteIds.isEmpty()) {
+                    current = nitriteIds.iterator();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Collection<NitriteId> idsOf(Object value) {
+            if (value instanceof List) {
+                return (List<NitriteId>) value;
+            }
+            IndexMap subMap = indexMap.subMap(value);
+            if (subMap != null) {
+                if (remainingFilters.isEmpty()) {
+                    return subMap.getTerminalNitriteIds();
+                }
+                return new IndexScanner(subMap).doScan(remainingFilters, indexScanOrder);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Pulls one key of the leading field at a time from a {@link KeyRange}, or from
+     * the whole index, together with all of its ids.
+     */
+    private class KeyScanIterator implements Iterator<Pair<DBValue, Collection<NitriteId>>> {
+        private final KeyRange keyRange;
+        private final boolean reverseScan;
+        private final Iterator<DBValue> keys;
+        private Pair<DBValue, Collection<NitriteId>> nextEntry;
+        private boolean exhausted;
+
+        KeyScanIterator(KeyRange keyRange, boolean reverseScan) {
+            this.keyRange = keyRange;
+            this.reverseScan = reverseScan;
+
+            indexMap.setReverseScan(reverseScan);
+            this.keys = keyRange == null ? indexMap.keys(null, false).iterator()
+                : keyRange.keys(indexMap, reverseScan);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextEntry == null && !exhausted && keys.hasNext()) {
+                DBValue key = keys.next();
+                if (keyRange != null && keyRange.isBounded()) {
+                    if (key instanceof DBNull) {
+                        // a range filter never matches a null key
+                        continue;
+                    }
+                    if (!keyRange.withinEnd(key, reverseScan)) {
+                        exhausted = true;
+                        break;
+                    }
+                }
+
+                Collection<NitriteId> nitriteIds = idsOf(indexMap.get(key));
+                if (nitriteIds != null && !nitriteIds.isEmpty()) {
+                    nextEntry = new Pair<>(key, nitriteIds);
+                }
+            }
+            return nextEntry != null;
+        }
+
+        @Override
+        public Pair<DBValue, Collection<NitriteId>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Pair<DBValue, Collection<NitriteId>> entry = nextEntry;
+            nextEntry = null;
+            return entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Collection<NitriteId> idsOf(Object value) {
+            if (value instanceof List) {
+                return (List<NitriteId>) value;
+            }
+            IndexMap subMap = indexMap.subMap(value);
+            if (subMap != null) {
+                return subMap.getTerminalNitriteIds();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Walks the keys of every index field depth first, each field within its own
+     * {@link KeyRange}, and pairs the ids of a terminal key with the keys leading to it.
+     */
+    private class IndexEntryIterator implements Iterator<Pair<NitriteId, Document>> {
+        private final List<KeyRange> keyRanges;
+        private final Map<String, Boolean> indexScanOrder;
+        private final List<String> fieldNames;
+        private final List<KeyCursor> cursors;
+        private Iterator<NitriteId> current;
+        private Document currentKeys;
+        private Pair<NitriteId, Document> nextEntry;
+
+        IndexEntryIterator(List<KeyRange> keyRanges, Map<String, Boolean> indexScanOrder,
+                           List<String> fieldNames) {
+            this.keyRanges = keyRanges;
+            this.indexScanOrder = indexScanOrder;
+            this.fieldNames = fieldNames;
+            this.cursors = new ArrayList<>();
+            this.current = Collections.emptyIterator();
+            cursors.add(new KeyCursor(indexMap, 0));
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextEntry == null) {
+                if (current.hasNext()) {
+                    nextEntry = new Pair<>(current.next(), currentKeys);
+                } else if (!nextTerminalKey()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Pair<NitriteId, Document> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Pair<NitriteId, Document> entry = nextEntry;
+            nextEntry = null;
+            return entry;
+        }
+
+        @SuppressWarnings("unchecked")
+        private boolean nextTerminalKey() {
+            while (!cursors.isEmpty()) {
+                KeyCursor cursor = cursors.get(cursors.size() - 1);
+                DBValue key = cursor.nextKey();
+                if (key == null) {
+                    cursors.remove(cursors.size() - 1);
+                    continue;
+                }
+
+                Object value = cursor.indexMap.get(key);
+                IndexMap subMap = cursor.indexMap.subMap(value);
+                if (subMap != null && cursors.size() < fieldNames.size()) {
+                    cursors.add(new KeyCursor(subMap, cursors.size()));
+                } else if (value instanceof List && !((List<?>) value).isEmpty()) {
+                    current = ((List<NitriteId>) value).iterator();
+                    currentKeys = keyDocument();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private Document keyDocument() {
+            Document document = Document.createDocument();
+            for (int i = 0; i < cursors.size(); i++) {
+                DBValue key = cursors.get(i).key;
+                if (key instanceof DBNull) {
+                    // null or missing, only the document can tell
+                    return null;
+                }
+                document.put(fieldNames.get(i), key.getValue());
+            }
+            return document;
+        }
+
+        private class KeyCursor {
+            private final IndexMap indexMap;
+            private final KeyRange keyRange;
+            private final boolean reverseScan;
+            private final Iterator<DBValue> keys;
+            private DBValue key;
+            private boolean exhausted;
+
+            KeyCursor(IndexMap indexMap, int depth) {
+                this.indexMap = indexMap;
+                this.keyRange = keyRanges.get(depth);
+                this.reverseScan = indexScanOrder != null
+                    && Boolean.TRUE.equals(indexScanOrder.get(fieldNames.get(depth)));
+
+                indexMap.setReverseScan(reverseScan);
+                this.keys = keyRange == null ? indexMap.keys(null, false).iterator()
+                    : keyRange.keys(indexMap, reverseScan);
+            }
+
+            DBValue nextKey() {
+                while (!exhausted && keys.hasNext()) {
+                    DBValue next = keys.next();
+                    if (keyRange != null && keyRange.isBounded()) {
+                        if (next instanceof DBNull) {
+                            // a range filter never matches a null key
+                            continue;
+                        }
+                        if (!keyRange.withinEnd(next, reverseScan)) {
+                            exhausted = true;
+                            break;
+                        }
+                    }
+                    key = next;
+                    return next;
+                }
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.index;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.dizitart.no2.common.DBNull;
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.tuples.Pair;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statistics of the leading field of an index, used by the query planner
+ * to estimate how many entries a filter selects.
+ * <p>
+ * Besides the entry and distinct key counts, it keeps an equi-depth
+ * histogram of the keys: every bucket holds roughly the same number of
+ * entries and is described by its inclusive upper bound, its entry count
+ * and its distinct key count. A key never spans two buckets, so a very
+ * frequent key ends up alone in an oversized bucket and its estimate is exact.
+ * <p>
+ * The statistics are a snapshot taken when the collection was analyzed.
+ *
+ * @since 4.5
+ */
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class IndexStatistics implements Serializable {
+    private static final long serialVersionUID = 1717401601L;
+
+    /**
+     * The maximum number of histogram buckets.
+     */
+    public static final int MAX_BUCKETS = 64;
+
+    /**
+     * Gets the number of documents in the collection when it was analyzed.
+     */
+    private long documentCount;
+
+    /**
+     * Gets the number of index entries. It can be larger than the document
+     * count for array fields, as every element is an entry of its own.
+     */
+    private long entryCount;
+
+    /**
+     * Gets the number of distinct keys.
+     */
+    private long distinctKeyCount;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private DBValue minKey;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private DBValue[] upperBounds;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private long[] bucketCounts;
+
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    private long[] bucketDistinctCounts;
+
+    /**
+     * Builds the statistics from all keys of the index.
+     *
+     * @param documentCount the number of documents in the collection
+     * @param keys          the keys, one per index entry, in any order
+     * @return the index statistics
+     */
+    public static IndexStatistics create(long documentCount, List<DBValue> keys) {
+        List<DBValue> sortedKeys = new ArrayList<>(keys);
+        Collections.sort(sortedKeys);
+
+        List<Pair<DBValue, Long>> keyCounts = new ArrayList<>();
+        for (DBValue key : sortedKeys) {
+            Pair<DBValue, Long> last = keyCounts.isEmpty() ? null : keyCounts.get(keyCounts.size() - 1);
+            if (last != null && key.compareTo(last.getFirst()) == 0) {
+                last.setSecond(last.getSecond() + 1);
+            } else {
+                keyCounts.add(new Pair<>(key, 1L));
+            }
+        }
+        return create(documentCount, sortedKeys.size(), keyCounts);
+    }
+
+    /**
+     * Builds the statistics from the distinct keys of the index in ascending
+     * order, each paired with its number of entries, as an index walks them.
+     * The keys are read once and not held in memory.
+     *
+     * @param documentCount the number of documents in the collection
+     * @param entryCount    the number of index entries, i.e. the sum of the counts
+     * @param keyCounts     the distinct keys in ascending order and their entry counts
+     * @return the index statistics
+     */
+    public static IndexStatistics create(long documentCount, long entryCount,
+                                         Iterable<Pair<DBValue, Long>> keyCounts) {
+        IndexStatistics statistics = new IndexStatistics();
+        statistics.documentCount = documentCount;
+        statistics.entryCount = entryCount;
+
+        long depth = Math.max(1, (entryCount + MAX_BUCKETS - 1) / MAX_BUCKETS);
+        List<DBValue> bounds = new ArrayList<>();
+        List<long[]> buckets = new ArrayList<>();
+
+        long count = 0, distinct = 0;
+        DBValue previous = null;
+        for (Pair<DBValue, Long> keyCount : keyCounts) {
+            // a bucket is closed only between two different keys
+            if (count >= depth) {
+                bounds.add(previous);
+                buckets.add(new long[]{count, distinct});
+                count = 0;
+                distinct = 0;
+            }
+
+            if (statistics.minKey == null) {
+                statistics.minKey = keyCount.getFirst();
+            }
+            distinct++;
+            statistics.distinctKeyCount++;
+            count += keyCount.getSecond();
+            previous = keyCount.getFirst();
+        }
+
+        if (count > 0) {
+            bounds.add(previous);
+            buckets.add(new long[]{count, distinct});
+        }
+
+        statistics.upperBounds = bounds.toArray(new DBValue[0]);
+        statistics.bucketCounts = new long[buckets.size()];
+        statistics.bucketDistinctCounts = new long[buckets.size()];
+        for (int i = 0; i < buckets.size(); i++) {
+            statistics.bucketCounts[i] = buckets.get(i)[0];
+            statistics.bucketDistinctCounts[i] = buckets.get(i)[1];
+        }
+        return statistics;
+    }
+
+    /**
+     * Gets the number of histogram buckets.
+     *
+     * @return the bucket count
+     */
+    public int getBucketCount() {
+        return upperBounds == null ? 0 : upperBounds.length;
+    }
+
+    /**
+     * Estimates the number of entries whose key is equal to <code>value</code>.
+     *
+     * @param value the value
+     * @return the estimated number of entries
+     */
+    public double estimateEquals(Object value) {
+        DBValue key = toKey(value);
+        if (key == null) {
+            return entryCount;
+        }
+
+        int bucket = findBucket(key);
+        if (bucket < 0) {
+            return 0;
+        }
+        return (double) bucketCounts[bucket] / bucketDistinctCounts[bucket];
+    }
+
+    /**
+     * Estimates the number of entries whose key lies within a range. A
+     * <code>null</code> bound leaves that end of the range open.
+     *
+     * @param lower          the lower bound, or <code>null</code>
+     * @param lowerInclusive if the lower bound is inclusive
+     * @param upper          the upper bound, or <code>null</code>
+     * @param upperInclusive if the upper bound is inclusive
+     * @return the estimated number of entries
+     */
+    public double estimateRange(Object lower, boolean lowerInclusive,
+                                Object upper, boolean upperInclusive) {
+        DBValue lowerKey = lower == null ? null : toKey(lower);
+        DBValue upperKey = upper == null ? null : toKey(upper);
+        if ((lower != null && lowerKey == null) || (upper != null && upperKey == null)) {
+            return entryCount;
+        }
+
+        double estimate = 0;
+        for (int i = 0; i < getBucketCount(); i++) {
+            // the first bucket starts at the smallest key, every other one right after
+            // the upper bound of its predecessor
+            DBValue bucketLow = i == 0 ? minKey : upperBounds[i - 1];
+            boolean bucketLowInclusive = i == 0;
+            DBValue bucketHigh = upperBounds[i];
+
+            if (upperKey != null) {
+                int cmp = upperKey.compareTo(bucketLow);
+                if (cmp < 0 || (cmp == 0 && !(bucketLowInclusive && upperInclusive))) continue;
+            }
+            if (lowerKey != null) {
+                int cmp = lowerKey.compareTo(bucketHigh);
+                if (cmp > 0 || (cmp == 0 && !lowerInclusive)) continue;
+            }
+
+            boolean lowerCovers = lowerKey == null || lowerKey.compareTo(bucketLow) < 0
+                || (lowerKey.compareTo(bucketLow) == 0 && (!bucketLowInclusive || lowerInclusive));
+            boolean upperCovers = upperKey == null || upperKey.compareTo(bucketHigh) > 0
+                || (upperKey.compareTo(bucketHigh) == 0 && upperInclusive);
+
+            if (lowerCovers && upperCovers) {
+                estimate += bucketCounts[i];
+            } else {
+                double perKey = (double) bucketCounts[i] / bucketDistinctCounts[i];
+                double fraction = overlap(bucketLow, bucketHigh,
+                    lowerCovers ? null : lowerKey, upperCovers ? null : upperKey);
+                estimate += Math.max(perKey, fraction * bucketCounts[i]);
+            }
+        }
+        return Math.min(estimate, entryCount);
+    }
+
+    private int findBucket(DBValue key) {
+        if (getBucketCount() == 0 || key.compareTo(minKey) < 0) {
+            return -1;
+        }
+
+        int low = 0, high = upperBounds.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (upperBounds[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return upperBounds[low].compareTo(key) >= 0 ? low : -1;
+    }
+
+    private static double overlap(DBValue bucketLow, DBValue bucketHigh, DBValue lower, DBValue upper) {
+        Double low = number(bucketLow), high = number(bucketHigh);
+        if (low == null || high == null || high <= low) {
+            // no notion of distance between the keys, assume half of the bucket
+            return 0.5;
+        }
+
+        double from = low, to = high;
+        if (lower != null) {
+            Double value = number(lower);
+            if (value == null) return 0.5;
+            from = Math.max(from, value);
+        }
+        if (upper != null) {
+            Double value = number(upper);
+            if (value == null) return 0.5;
+            to = Math.min(to, value);
+        }
+        return Math.max(0, Math.min(1, (to - from) / (high - low)));
+    }
+
+    private static Double number(DBValue key) {
+        if (key != null && key.getValue() instanceof Number) {
+            return ((Number) key.getValue()).doubleValue();
+        }
+        return null;
+    }
+
+    private static DBValue toKey(Object value) {
+        if (value == null) {
+            return DBNull.getInstance();
+        } else if (value instanceof Comparable) {
+            return new DBValue((Comparable<?>) value);
+        }
+        return null;
+    }
+
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        stream.writeLong(documentCount);
+        stream.writeLong(entryCount);
+        stream.writeLong(distinctKeyCount);
+        stream.writeObject(minKey);
+        stream.writeObject(upperBounds);
+        stream.writeObject(bucketCounts);
+        stream.writeObject(bucketDistinctCounts);
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        documentCount = stream.readLong();
+        entryCount = stream.readLong();
+        distinctKeyCount = stream.readLong();
+        minKey = (DBValue) stream.readObject();
+        upperBounds = (DBValue[]) stream.readObject();
+        bucketCounts = (long[]) stream.readObject();
+        bucketDistinctCounts = (long[]) stream.readObject();
+    }
+}
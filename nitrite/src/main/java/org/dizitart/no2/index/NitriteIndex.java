@@ -17,12 +17,18 @@
 
 package org.dizitart.no2.index;
 
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.FieldValues;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.filters.ComparableFilter;
 
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -72,6 +78,72 @@ public interface NitriteIndex {
      */
     LinkedHashSet<NitriteId> findNitriteIds(FindPlan findPlan);
 
+    /**
+     * Finds the NitriteIds from the index for the given find plan as a lazily
+     * evaluated stream. The ids are pulled one at a time, so a consumer that
+     * stops early does not pay for the rest of the index walk.
+     * <p>
+     * The default implementation defers {@link #findNitriteIds(FindPlan)} until
+     * the stream is iterated.
+     *
+     * @param findPlan the find plan
+     * @return the record stream of ids
+     */
+    default RecordStream<NitriteId> streamNitriteIds(FindPlan findPlan) {
+        return () -> findNitriteIds(findPlan).iterator();
+    }
+
+    /**
+     * Finds the index entries for the given find plan as a lazily evaluated
+     * stream of ids, each paired with a document of the index keys it is
+     * stored under. The document is <code>null</code> when the keys alone do
+     * not describe the indexed fields of the document.
+     * <p>
+     * The default implementation returns <code>null</code>, i.e. the index
+     * cannot answer the find plan from its keys.
+     *
+     * @param findPlan the find plan
+     * @return the record stream of index entries, or <code>null</code>
+     * @since 4.5
+     */
+    default RecordStream<Pair<NitriteId, Document>> streamIndexEntries(FindPlan findPlan) {
+        return null;
+    }
+
+    /**
+     * Counts the index entries matching the given find plan without collecting
+     * the ids. An id stored under several keys is counted once per key, so the
+     * count equals the number of ids of {@link #findNitriteIds(FindPlan)} only
+     * when the indexed fields never hold an array.
+     * <p>
+     * The default implementation counts the ids of {@link #streamNitriteIds(FindPlan)}.
+     *
+     * @param findPlan the find plan
+     * @return the number of matching index entries
+     * @since 4.5
+     */
+    default long countIndexEntries(FindPlan findPlan) {
+        return streamNitriteIds(findPlan).size();
+    }
+
+    /**
+     * Walks the keys of the first index field matching the filters, and yields
+     * every key with all the ids stored under it, so that the distinct values of
+     * the field are read without reading the documents.
+     * <p>
+     * The default implementation returns <code>null</code>, i.e. the index
+     * cannot walk its keys.
+     *
+     * @param filters the filters on the first index field, or an empty list for all keys
+     * @param reverse if the keys are walked in descending order
+     * @return the record stream of keys and their ids, or <code>null</code>
+     * @since 4.5
+     */
+    default RecordStream<Pair<DBValue, Collection<NitriteId>>> streamKeys(List<ComparableFilter> filters,
+                                                                         boolean reverse) {
+        return null;
+    }
+
     /**
      * Checks if the index is unique.
      *
@@ -115,8 +187,8 @@ public interface NitriteIndex {
             // ConcurrentModificationException. CopyOnWriteArrayList swaps its backing array
             // atomically on each mutation, so the background serializer always sees a stable
             // snapshot. Non-unique indexes avoid list values entirely via the composite layout
-            // (issue #1260); only unique indexes and the text index reach this path, where the
-            // per-key list is small enough that copy-on-write cost is negligible.
+            // (issue #1260), unique indexes map a value directly to its id and the text index
+            // stores one posting row per (word, id); only custom indexes still reach this path.
             nitriteIds = new CopyOnWriteArrayList<>();
         }
 
@@ -21,6 +21,7 @@ import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.module.NitritePlugin;
 
 import java.util.LinkedHashSet;
@@ -84,4 +85,21 @@ public interface NitriteIndexer extends NitritePlugin {
      * @return a set of NitriteIds of the documents that match the given filter.
      */
     LinkedHashSet<NitriteId> findByFilter(FindPlan findPlan, NitriteConfig nitriteConfig);
+
+    /**
+     * Finds the NitriteIds of the documents that match the given filter as a lazily
+     * evaluated stream, in index order. Early-terminating consumers such as a limit
+     * stop the index walk instead of draining it.
+     * <p>
+     * The default implementation defers {@link #findByFilter(FindPlan, NitriteConfig)}
+     * until the stream is iterated, an indexer that can walk its index key by key
+     * should override it.
+     *
+     * @param findPlan      the plan for finding the documents.
+     * @param nitriteConfig the Nitrite configuration.
+     * @return a stream of NitriteIds of the documents that match the given filter.
+     */
+    default RecordStream<NitriteId> streamByFilter(FindPlan findPlan, NitriteConfig nitriteConfig) {
+        return () -> findByFilter(findPlan, nitriteConfig).iterator();
+    }
 }
@@ -35,14 +35,14 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class NitriteTextIndexer implements NitriteIndexer {
     private final TextTokenizer textTokenizer;
+    private final boolean storePositions;
     private final Map<IndexDescriptor, TextIndex> indexRegistry;
 
     /**
      * Instantiates a new {@link NitriteTextIndexer}.
      */
     public NitriteTextIndexer() {
-        this.textTokenizer = new EnglishTextTokenizer();
-        this.indexRegistry = new ConcurrentHashMap<>();
+        this(new EnglishTextTokenizer());
     }
 
     /**
@@ -51,7 +51,23 @@ public class NitriteTextIndexer implements NitriteIndexer {
      * @param textTokenizer the text tokenizer
      */
     public NitriteTextIndexer(TextTokenizer textTokenizer) {
+        this(textTokenizer, false);
+    }
+
+    /**
+     * Instantiates a new {@link NitriteTextIndexer}. If <code>storePositions</code> is set,
+     * the text indexes also store the positions of their words, so that phrase queries
+     * (<code>"next day delivery"</code>) and proximity queries (<code>day NEAR/2 delivery</code>)
+     * are answered from the index. Existing text indexes must be rebuilt to get positions,
+     * until then such queries search their words.
+     *
+     * @param textTokenizer  the text tokenizer
+     * @param storePositions if the text indexes store the positions of their words
+     * @since 4.5
+     */
+    public NitriteTextIndexer(TextTokenizer textTokenizer, boolean storePositions) {
         this.textTokenizer = textTokenizer;
+        this.storePositions = storePositions;
         this.indexRegistry = new ConcurrentHashMap<>();
     }
 
@@ -105,7 +121,8 @@ public class NitriteTextIndexer implements NitriteIndexer {
             return indexRegistry.get(indexDescriptor);
         }
 
-        TextIndex textIndex = new TextIndex(textTokenizer, indexDescriptor, nitriteConfig.getNitriteStore());
+        TextIndex textIndex = new TextIndex(textTokenizer, indexDescriptor,
+            nitriteConfig.getNitriteStore(), storePositions);
         indexRegistry.put(indexDescriptor, textIndex);
         return textIndex;
     }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.index;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.dizitart.no2.collection.NitriteId;
+
+/**
+ * A posting of a word in a {@link TextIndex}: a document containing the word
+ * and the number of times the word occurs in it.
+ *
+ * @since 4.5
+ */
+@Getter
+@ToString
+public class Posting {
+    private final NitriteId nitriteId;
+    private final int frequency;
+
+    Posting(NitriteId nitriteId, int frequency) {
+        this.nitriteId = nitriteId;
+        this.frequency = frequency;
+    }
+}
@@ -18,23 +18,28 @@
 package org.dizitart.no2.index;
 
 import lombok.Getter;
+import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBNull;
 import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.filters.ComparableFilter;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 
 import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
 import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveUniqueIndexMapName;
 import static org.dizitart.no2.common.util.ObjectUtils.convertToObjectArray;
 
 /**
@@ -60,8 +65,8 @@ public class SingleFieldIndex implements NitriteIndex {
 
     /**
      * The composite-key layout (issue #1260) is used for every non-unique index. Unique indexes
-     * keep the classic {@code value -> [id]} array layout because the uniqueness check relies on
-     * its single-array shape.
+     * use the direct layout, which maps every value to its only id and checks the uniqueness
+     * with a single {@link NitriteMap#putIfAbsent(Object, Object)}.
      */
     private boolean useCompositeLayout() {
         return !isUnique();
@@ -76,10 +81,10 @@ public class SingleFieldIndex implements NitriteIndex {
         Object element = fieldValues.get(firstField);
 
         if (!useCompositeLayout()) {
-            // unique indexes (and stores without comparable key ordering) keep the classic
-            // value -> [id] layout.
-            NitriteMap<DBValue, List<?>> indexMap = findIndexMap();
-            forEachElement(element, dbValue -> addIndexElement(indexMap, fieldValues, dbValue));
+            // unique indexes map a value directly to its id, no list is read, copied
+            // and written back per write
+            NitriteMap<DBValue, NitriteId> indexMap = findUniqueMap();
+            forEachElement(element, dbValue -> addUniqueElement(indexMap, fieldValues, dbValue));
         } else {
             // non-unique indexes use the composite-key layout: one O(log n) point write per
             // (value, id) pair, instead of an O(n) read-modify-write of a shared list (issue #1260)
@@ -98,8 +103,8 @@ public class SingleFieldIndex implements NitriteIndex {
         Object element = fieldValues.get(firstField);
 
         if (!useCompositeLayout()) {
-            NitriteMap<DBValue, List<?>> indexMap = findIndexMap();
-            forEachElement(element, dbValue -> removeIndexElement(indexMap, fieldValues, dbValue));
+            NitriteMap<DBValue, NitriteId> indexMap = findUniqueMap();
+            forEachElement(element, dbValue -> removeUniqueElement(indexMap, fieldValues, dbValue));
         } else {
             NitriteMap<IndexEntryKey, Object> indexMap = findCompositeMap();
             forEachElement(element, dbValue ->
@@ -110,27 +115,64 @@ public class SingleFieldIndex implements NitriteIndex {
     @Override
     public void drop() {
         if (!useCompositeLayout()) {
-            NitriteMap<DBValue, List<?>> indexMap = findIndexMap();
+            NitriteMap<DBValue, NitriteId> indexMap = findUniqueMap();
             indexMap.clear();
             indexMap.drop();
         } else {
             NitriteMap<IndexEntryKey, Object> indexMap = findCompositeMap();
             indexMap.clear();
             indexMap.drop();
-            dropLegacyMap();
         }
+        dropLegacyMap();
     }
 
     @Override
     public LinkedHashSet<NitriteId> findNitriteIds(FindPlan findPlan) {
         if (findPlan.getIndexScanFilter() == null) return new LinkedHashSet<>();
 
-        IndexMap iMap = useCompositeLayout()
-            ? IndexMap.composite(findCompositeMap())
-            : new IndexMap(findIndexMap());
+        IndexMap iMap = openIndexMap();
         return scanIndex(findPlan, iMap);
     }
 
+    @Override
+    public RecordStream<NitriteId> streamNitriteIds(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return RecordStream.empty();
+
+        IndexMap iMap = openIndexMap();
+        iMap.setExecutionProfile(findPlan.getExecutionProfile());
+        IndexScanner indexScanner = new IndexScanner(iMap);
+        return indexScanner.scan(findPlan.getIndexScanFilter().getFilters(), findPlan.getIndexScanOrder());
+    }
+
+    @Override
+    public RecordStream<Pair<NitriteId, Document>> streamIndexEntries(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return null;
+
+        IndexMap iMap = openIndexMap();
+        iMap.setExecutionProfile(findPlan.getExecutionProfile());
+        IndexScanner indexScanner = new IndexScanner(iMap);
+        return indexScanner.scanEntries(findPlan.getIndexScanFilter().getFilters(),
+            findPlan.getIndexScanOrder(), indexDescriptor.getFields().getFieldNames());
+    }
+
+    @Override
+    public long countIndexEntries(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return 0;
+
+        IndexMap iMap = openIndexMap();
+        iMap.setExecutionProfile(findPlan.getExecutionProfile());
+        IndexScanner indexScanner = new IndexScanner(iMap);
+        return indexScanner.countEntries(findPlan.getIndexScanFilter().getFilters());
+    }
+
+    @Override
+    public RecordStream<Pair<DBValue, Collection<NitriteId>>> streamKeys(List<ComparableFilter> filters,
+                                                                         boolean reverse) {
+        IndexMap iMap = openIndexMap();
+        IndexScanner indexScanner = new IndexScanner(iMap);
+        return indexScanner.scanKeys(filters, reverse);
+    }
+
     /**
      * Invokes {@code action} once per indexed value, wrapping each value in a {@link DBValue}
      * (using {@link DBNull} for nulls) and unwrapping arrays and iterables into their elements.
@@ -151,31 +193,33 @@ public class SingleFieldIndex implements NitriteIndex {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private void addIndexElement(NitriteMap<DBValue, List<?>> indexMap,
-                                 FieldValues fieldValues, DBValue element) {
-        List<NitriteId> nitriteIds = (List<NitriteId>) indexMap.get(element);
-        nitriteIds = addNitriteIds(nitriteIds, fieldValues);
-        indexMap.put(element, nitriteIds);
+    private void addUniqueElement(NitriteMap<DBValue, NitriteId> indexMap,
+                                  FieldValues fieldValues, DBValue element) {
+        NitriteId existing = indexMap.putIfAbsent(element, fieldValues.getNitriteId());
+        if (existing != null) {
+            // if key is already exists for unique type, throw error
+            throw new UniqueConstraintException("Unique key constraint violation for " + fieldValues.getFields());
+        }
     }
 
-    @SuppressWarnings("unchecked")
-    private void removeIndexElement(NitriteMap<DBValue, List<?>> indexMap,
-                                    FieldValues fieldValues, DBValue element) {
-        List<NitriteId> nitriteIds = (List<NitriteId>) indexMap.get(element);
-        if (nitriteIds != null && !nitriteIds.isEmpty()) {
-            nitriteIds.remove(fieldValues.getNitriteId());
-            if (nitriteIds.size() == 0) {
-                indexMap.remove(element);
-            } else {
-                indexMap.put(element, nitriteIds);
-            }
+    private void removeUniqueElement(NitriteMap<DBValue, NitriteId> indexMap,
+                                     FieldValues fieldValues, DBValue element) {
+        // the value may be owned by another document if this one was never indexed under it
+        if (fieldValues.getNitriteId().equals(indexMap.get(element))) {
+            indexMap.remove(element);
         }
     }
 
-    private NitriteMap<DBValue, List<?>> findIndexMap() {
-        String mapName = deriveIndexMapName(indexDescriptor);
-        return nitriteStore.openMap(mapName, DBValue.class, ArrayList.class);
+    private IndexMap openIndexMap() {
+        return useCompositeLayout()
+            ? IndexMap.composite(findCompositeMap())
+            : IndexMap.unique(findUniqueMap());
+    }
+
+    private NitriteMap<DBValue, NitriteId> findUniqueMap() {
+        migrateLegacyIndex();
+        String mapName = deriveUniqueIndexMapName(indexDescriptor);
+        return nitriteStore.openMap(mapName, DBValue.class, NitriteId.class);
     }
 
     private NitriteMap<IndexEntryKey, Object> findCompositeMap() {
@@ -185,9 +229,10 @@ public class SingleFieldIndex implements NitriteIndex {
     }
 
     /**
-     * Rewrites a legacy array-format non-unique index (one growing {@code value -> [ids]} row
-     * per value, written by Nitrite &lt; 4.4) into the composite-key layout the first time the
-     * index is accessed, then drops the legacy map. Idempotent and run once per index instance.
+     * Rewrites a legacy array-format index (one {@code value -> [ids]} row per value) the first
+     * time the index is accessed, then drops the legacy map. A non-unique index, written by
+     * Nitrite &lt; 4.4, moves to the composite-key layout and a unique index, written by
+     * Nitrite &lt; 4.5, to the direct layout. Idempotent and run once per index instance.
      */
     @SuppressWarnings("unchecked")
     private void migrateLegacyIndex() {
@@ -199,14 +244,12 @@ public class SingleFieldIndex implements NitriteIndex {
                 NitriteMap<DBValue, List<?>> legacy = nitriteStore.openMap(legacyName,
                     DBValue.class, ArrayList.class);
                 if (!legacy.isEmpty()) {
-                    String mapName = deriveCompositeIndexMapName(indexDescriptor);
-                    NitriteMap<IndexEntryKey, Object> composite = nitriteStore.openMap(mapName,
-                        IndexEntryKey.class, Boolean.class);
-                    for (Pair<DBValue, List<?>> entry : (Iterable<Pair<DBValue, List<?>>>) (Iterable<?>) legacy.entries()) {
-                        DBValue value = entry.getFirst();
-                        for (NitriteId nitriteId : (List<NitriteId>) entry.getSecond()) {
-                            composite.put(new IndexEntryKey(value, nitriteId), Boolean.TRUE);
-                        }
+                    Iterable<Pair<DBValue, List<?>>> entries =
+                        (Iterable<Pair<DBValue, List<?>>>) (Iterable<?>) legacy.entries();
+                    if (useCompositeLayout()) {
+                        migrateToComposite(entries);
+                    } else {
+                        migrateToUnique(entries);
                     }
                 }
                 legacy.clear();
@@ -216,6 +259,32 @@ public class SingleFieldIndex implements NitriteIndex {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void migrateToComposite(Iterable<Pair<DBValue, List<?>>> entries) {
+        String mapName = deriveCompositeIndexMapName(indexDescriptor);
+        NitriteMap<IndexEntryKey, Object> composite = nitriteStore.openMap(mapName,
+            IndexEntryKey.class, Boolean.class);
+        for (Pair<DBValue, List<?>> entry : entries) {
+            DBValue value = entry.getFirst();
+            for (NitriteId nitriteId : (List<NitriteId>) entry.getSecond()) {
+                composite.put(new IndexEntryKey(value, nitriteId), Boolean.TRUE);
+            }
+        }
+    }
+
+    private void migrateToUnique(Iterable<Pair<DBValue, List<?>>> entries) {
+        String mapName = deriveUniqueIndexMapName(indexDescriptor);
+        NitriteMap<DBValue, NitriteId> unique = nitriteStore.openMap(mapName,
+            DBValue.class, NitriteId.class);
+        for (Pair<DBValue, List<?>> entry : entries) {
+            List<?> nitriteIds = entry.getSecond();
+            // a unique key never held more than one id
+            if (nitriteIds != null && !nitriteIds.isEmpty()) {
+                unique.put(entry.getFirst(), (NitriteId) nitriteIds.get(0));
+            }
+        }
+    }
+
     private void dropLegacyMap() {
         String legacyName = deriveIndexMapName(indexDescriptor);
         if (nitriteStore.hasMap(legacyName)) {
@@ -228,6 +297,7 @@ public class SingleFieldIndex implements NitriteIndex {
 
     private LinkedHashSet<NitriteId> scanIndex(FindPlan findPlan, IndexMap iMap) {
         List<ComparableFilter> filters = findPlan.getIndexScanFilter().getFilters();
+        iMap.setExecutionProfile(findPlan.getExecutionProfile());
         IndexScanner indexScanner = new IndexScanner(iMap);
         return indexScanner.doScan(filters, findPlan.getIndexScanOrder());
     }
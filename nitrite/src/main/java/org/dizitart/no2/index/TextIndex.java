@@ -22,6 +22,7 @@ import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.exceptions.IndexingException;
 import org.dizitart.no2.filters.ComparableFilter;
@@ -30,29 +31,47 @@ import org.dizitart.no2.index.fulltext.TextTokenizer;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
 import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextLengthMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextPositionMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextStatisticsMapName;
 import static org.dizitart.no2.common.util.ObjectUtils.convertToObjectArray;
 import static org.dizitart.no2.common.util.ValidationUtils.validateStringArrayIndexField;
 import static org.dizitart.no2.common.util.ValidationUtils.validateStringIterableIndexField;
 
 /**
+ * A full text index. Optionally it also stores the positions of the words in every
+ * document, which answers phrase and proximity queries from the index alone. Positions
+ * are only written for the documents indexed while they are enabled. Once a document is
+ * indexed without them, i.e. after enabling them on an existing index or disabling them,
+ * the positions are incomplete and phrase and proximity queries fall back to searching
+ * their words until the index is rebuilt. Opening an index never drops its positions.
+ *
  * @author Anindya Chatterjee
  * @since 4.0
  */
 public class TextIndex implements NitriteIndex {
+    // a phrase never spans two elements of a String[] or Iterable<String> field
+    private static final int ELEMENT_POSITION_GAP = 100;
+
     @Getter
     private final IndexDescriptor indexDescriptor;
     private final NitriteStore<?> nitriteStore;
     private final TextTokenizer textTokenizer;
+    private final boolean storePositions;
+    private volatile boolean migrationChecked;
 
     /**
-     * Instantiates a new {@link TextIndex}.
+     * Instantiates a new {@link TextIndex} which does not store positions.
      *
      * @param textTokenizer   the text tokenizer
      * @param indexDescriptor the index descriptor
@@ -61,141 +80,251 @@ public class TextIndex implements NitriteIndex {
     public TextIndex(TextTokenizer textTokenizer,
                      IndexDescriptor indexDescriptor,
                      NitriteStore<?> nitriteStore) {
+        this(textTokenizer, indexDescriptor, nitriteStore, false);
+    }
+
+    /**
+     * Instantiates a new {@link TextIndex}.
+     *
+     * @param textTokenizer   the text tokenizer
+     * @param indexDescriptor the index descriptor
+     * @param nitriteStore    the nitrite store
+     * @param storePositions  if the positions of the words are stored for phrase
+     *                        and proximity queries
+     * @since 4.5
+     */
+    public TextIndex(TextTokenizer textTokenizer,
+                     IndexDescriptor indexDescriptor,
+                     NitriteStore<?> nitriteStore,
+                     boolean storePositions) {
         this.textTokenizer = textTokenizer;
         this.indexDescriptor = indexDescriptor;
         this.nitriteStore = nitriteStore;
+        this.storePositions = storePositions;
     }
 
     @Override
     public void write(FieldValues fieldValues) {
-        Fields fields = fieldValues.getFields();
-        List<String> fieldNames = fields.getFieldNames();
+        Map<String, List<Integer>> termPositions = termPositions(fieldValues);
+        if (termPositions.isEmpty()) return;
 
-        String firstField = fieldNames.get(0);
-        Object element = fieldValues.get(firstField);
+        TextIndexMap indexMap = findIndexMap();
+        NitriteId nitriteId = fieldValues.getNitriteId();
 
-        NitriteMap<String, List<?>> indexMap = findIndexMap();
+        // one point write per posting, the posting list of a common word is never rewritten
+        int length = 0;
+        for (Map.Entry<String, List<Integer>> entry : termPositions.entrySet()) {
+            List<Integer> positions = entry.getValue();
+            int[] array = new int[positions.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = positions.get(i);
+            }
+            indexMap.add(entry.getKey(), nitriteId, array);
+            length += array.length;
+        }
+        indexMap.addDocument(nitriteId, length);
+    }
 
-        if (element == null) {
-            addIndexElement(indexMap, fieldValues, null);
-        } else if (element instanceof String) {
-            addIndexElement(indexMap, fieldValues, (String) element);
-        } else if (element.getClass().isArray()) {
-            validateStringArrayIndexField(element, firstField);
-            Object[] array = convertToObjectArray(element);
+    @Override
+    public void remove(FieldValues fieldValues) {
+        Map<String, List<Integer>> termPositions = termPositions(fieldValues);
+        if (termPositions.isEmpty()) return;
 
-            for (Object item : array) {
-                addIndexElement(indexMap, fieldValues, (String) item);
-            }
-        } else if (element instanceof Iterable) {
-            validateStringIterableIndexField((Iterable<?>) element, firstField);
-            Iterable<?> iterable = (Iterable<?>) element;
+        TextIndexMap indexMap = findIndexMap();
+        NitriteId nitriteId = fieldValues.getNitriteId();
+        for (String word : termPositions.keySet()) {
+            indexMap.remove(word, nitriteId);
+        }
+        indexMap.removeDocument(nitriteId);
+    }
 
-            for (Object item : iterable) {
-                addIndexElement(indexMap, fieldValues, (String) item);
-            }
-        } else {
-            throw new IndexingException("Index field " + firstField
-                + " must be a String, String[] or Iterable<String>");
+    @Override
+    public void drop() {
+        dropMap(findPostingMap());
+        dropMap(findLengthMap());
+        dropMap(findStatisticsMap());
+
+        String positionMapName = deriveTextPositionMapName(indexDescriptor);
+        if (nitriteStore.hasMap(positionMapName)) {
+            dropMap(nitriteStore.openMap(positionMapName, IndexEntryKey.class, int[].class));
+        }
+
+        String legacyName = deriveIndexMapName(indexDescriptor);
+        if (nitriteStore.hasMap(legacyName)) {
+            dropMap(nitriteStore.openMap(legacyName, String.class, CopyOnWriteArrayList.class));
         }
     }
 
     @Override
-    public void remove(FieldValues fieldValues) {
+    public LinkedHashSet<NitriteId> findNitriteIds(FindPlan findPlan) {
+        if (findPlan.getIndexScanFilter() == null) return new LinkedHashSet<>();
+
+        TextIndexMap indexMap = findIndexMap();
+        List<ComparableFilter> filters = findPlan.getIndexScanFilter().getFilters();
+
+        if (filters.size() == 1 && filters.get(0) instanceof TextFilter) {
+            TextFilter textFilter = (TextFilter) filters.get(0);
+            textFilter.setTextTokenizer(textTokenizer);
+            LinkedHashMap<NitriteId, Double> scores = textFilter.scoreOnTextIndex(indexMap, topK(findPlan));
+            findPlan.setTextScores(scores);
+            return new LinkedHashSet<>(scores.keySet());
+        }
+        throw new FilterException("TextFilter can only be applied on text index.");
+    }
+
+    /**
+     * Gets the number of best ranked ids a find needs, if they are its result as they are,
+     * i.e. it does not filter, sort or intersect them any further before its limit.
+     */
+    private Integer topK(FindPlan findPlan) {
+        if (findPlan.getLimit() == null
+            || findPlan.getCollectionScanFilter() != null
+            || !findPlan.getBlockingSortOrder().isEmpty()
+            || findPlan.getKeysetSortOrder() != null
+            || !findPlan.getIntersectedPlans().isEmpty()
+            || findPlan.isDistinct()) {
+            return null;
+        }
+
+        long skip = findPlan.getSkip() == null ? 0 : findPlan.getSkip();
+        return (int) Math.min(Integer.MAX_VALUE, skip + findPlan.getLimit());
+    }
+
+    private TextIndexMap findIndexMap() {
+        NitriteMap<IndexEntryKey, Object> postingMap = findPostingMap();
+        // positions stored earlier are kept up to date on removal even when disabled
+        boolean hasPositionMap = storePositions
+            || nitriteStore.hasMap(deriveTextPositionMapName(indexDescriptor));
+        return new TextIndexMap(postingMap, findLengthMap(), findStatisticsMap(),
+            hasPositionMap ? findPositionMap() : null, storePositions);
+    }
+
+    private NitriteMap<IndexEntryKey, Object> findPostingMap() {
+        migrateLegacyIndex();
+        String mapName = deriveCompositeIndexMapName(indexDescriptor);
+        return nitriteStore.openMap(mapName, IndexEntryKey.class, Integer.class);
+    }
+
+    private NitriteMap<NitriteId, Integer> findLengthMap() {
+        String mapName = deriveTextLengthMapName(indexDescriptor);
+        return nitriteStore.openMap(mapName, NitriteId.class, Integer.class);
+    }
+
+    private NitriteMap<String, Long> findStatisticsMap() {
+        String mapName = deriveTextStatisticsMapName(indexDescriptor);
+        return nitriteStore.openMap(mapName, String.class, Long.class);
+    }
+
+    private NitriteMap<IndexEntryKey, int[]> findPositionMap() {
+        String mapName = deriveTextPositionMapName(indexDescriptor);
+        return nitriteStore.openMap(mapName, IndexEntryKey.class, int[].class);
+    }
+
+    private void dropMap(NitriteMap<?, ?> nitriteMap) {
+        nitriteMap.clear();
+        nitriteMap.drop();
+    }
+
+    /**
+     * Collects the positions of every indexed word of the text field, over all elements
+     * of a String[] or Iterable&lt;String&gt; field. The number of positions of a word is
+     * its frequency.
+     */
+    private Map<String, List<Integer>> termPositions(FieldValues fieldValues) {
         Fields fields = fieldValues.getFields();
         List<String> fieldNames = fields.getFieldNames();
 
         String firstField = fieldNames.get(0);
         Object element = fieldValues.get(firstField);
 
-        NitriteMap<String, List<?>> indexMap = findIndexMap();
+        Map<String, List<Integer>> termPositions = new HashMap<>();
         if (element == null) {
-            removeIndexElement(indexMap, fieldValues, null);
+            return termPositions;
         } else if (element instanceof String) {
-            removeIndexElement(indexMap, fieldValues, (String) element);
+            collectWords((String) element, 0, termPositions);
         } else if (element.getClass().isArray()) {
             validateStringArrayIndexField(element, firstField);
             Object[] array = convertToObjectArray(element);
 
+            int offset = 0;
             for (Object item : array) {
-                removeIndexElement(indexMap, fieldValues, (String) item);
+                offset = collectWords((String) item, offset, termPositions);
             }
         } else if (element instanceof Iterable) {
             validateStringIterableIndexField((Iterable<?>) element, firstField);
             Iterable<?> iterable = (Iterable<?>) element;
 
+            int offset = 0;
             for (Object item : iterable) {
-                removeIndexElement(indexMap, fieldValues, (String) item);
+                offset = collectWords((String) item, offset, termPositions);
             }
         } else {
             throw new IndexingException("Index field " + firstField
                 + " must be a String, String[] or Iterable<String>");
         }
+        return termPositions;
     }
 
-    @Override
-    public void drop() {
-        NitriteMap<String, List<?>> indexMap = findIndexMap();
-        indexMap.clear();
-        indexMap.drop();
-    }
-
-    @Override
-    public LinkedHashSet<NitriteId> findNitriteIds(FindPlan findPlan) {
-        if (findPlan.getIndexScanFilter() == null) return new LinkedHashSet<>();
-
-        NitriteMap<String, List<?>> indexMap = findIndexMap();
-        List<ComparableFilter> filters = findPlan.getIndexScanFilter().getFilters();
-
-        if (filters.size() == 1 && filters.get(0) instanceof TextFilter) {
-            TextFilter textFilter = (TextFilter) filters.get(0);
-            textFilter.setTextTokenizer(textTokenizer);
-            return textFilter.applyOnTextIndex(indexMap);
+    private int collectWords(String value, int offset, Map<String, List<Integer>> termPositions) {
+        if (value == null) return offset;
+        List<String> words = textTokenizer.tokenizeAll(value);
+        for (int i = 0; i < words.size(); i++) {
+            // a stop-word is not indexed, but still takes its position
+            String word = words.get(i);
+            if (word != null) {
+                termPositions.computeIfAbsent(word, k -> new ArrayList<>()).add(offset + i);
+            }
         }
-        throw new FilterException("TextFilter can only be applied on text index.");
-    }
-
-    private NitriteMap<String, List<?>> findIndexMap() {
-        String mapName = deriveIndexMapName(indexDescriptor);
-        return nitriteStore.openMap(mapName, String.class, CopyOnWriteArrayList.class);
+        return offset + words.size() + ELEMENT_POSITION_GAP;
     }
 
+    /**
+     * Rewrites a legacy text index (one {@code word -> [ids]} row per word, written by
+     * Nitrite &lt; 4.5) into posting rows the first time the index is accessed, then drops
+     * the legacy map. The legacy index does not know how often a word occurs in a document,
+     * every posting is migrated with a frequency of 1 and every document with the number of
+     * its distinct words as its length. Idempotent and run once per index instance.
+     */
     @SuppressWarnings("unchecked")
-    private void addIndexElement(NitriteMap<String, List<?>> indexMap, FieldValues fieldValues, String value) {
-        Set<String> words = decompose(value);
-
-        for (String word : words) {
-            List<NitriteId> nitriteIds = (List<NitriteId>) indexMap.get(word);
+    private void migrateLegacyIndex() {
+        if (migrationChecked) return;
+        synchronized (this) {
+            if (migrationChecked) return;
+            String legacyName = deriveIndexMapName(indexDescriptor);
+            if (nitriteStore.hasMap(legacyName)) {
+                NitriteMap<String, List<?>> legacy = nitriteStore.openMap(legacyName,
+                    String.class, CopyOnWriteArrayList.class);
+                if (!legacy.isEmpty()) {
+                    String mapName = deriveCompositeIndexMapName(indexDescriptor);
+                    TextIndexMap indexMap = new TextIndexMap(nitriteStore.openMap(mapName,
+                        IndexEntryKey.class, Integer.class), findLengthMap(), findStatisticsMap());
 
-            if (nitriteIds == null) {
-                // CopyOnWriteArrayList so in-place mutation is safe against MVStore's
-                // background page serializer (see NitriteIndex.addNitriteIds)
-                nitriteIds = new CopyOnWriteArrayList<>();
+                    Map<NitriteId, Integer> lengths = new HashMap<>();
+                    for (Pair<String, List<?>> entry : legacy.entries()) {
+                        for (NitriteId nitriteId : (List<NitriteId>) entry.getSecond()) {
+                            indexMap.add(entry.getFirst(), nitriteId, 1);
+                            lengths.merge(nitriteId, 1, Integer::sum);
+                        }
+                    }
+                    for (Map.Entry<NitriteId, Integer> entry : lengths.entrySet()) {
+                        indexMap.addDocument(entry.getKey(), entry.getValue());
+                    }
+                }
+                legacy.clear();
+                legacy.drop();
             }
 
-            nitriteIds = addNitriteIds(nitriteIds, fieldValues);
-            indexMap.put(word, nitriteIds);
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private void removeIndexElement(NitriteMap<String, List<?>> indexMap, FieldValues fieldValues, String value) {
-        Set<String> words = decompose(value);
-        for (String word : words) {
-            List<NitriteId> nitriteIds = (List<NitriteId>) indexMap.get(word);
-            if (nitriteIds != null && !nitriteIds.isEmpty()) {
-                nitriteIds.remove(fieldValues.getNitriteId());
-                if (nitriteIds.isEmpty()) {
-                    indexMap.remove(word);
-                } else {
-                    indexMap.put(word, nitriteIds);
+            // documents indexed before positions were enabled have none
+            String positionMapName = deriveTextPositionMapName(indexDescriptor);
+            if (storePositions && !nitriteStore.hasMap(positionMapName)) {
+                NitriteMap<NitriteId, Integer> lengthMap = findLengthMap();
+                if (!lengthMap.isEmpty()) {
+                    String mapName = deriveCompositeIndexMapName(indexDescriptor);
+                    new TextIndexMap(nitriteStore.openMap(mapName, IndexEntryKey.class, Integer.class),
+                        lengthMap, findStatisticsMap()).markPositionsIncomplete();
                 }
             }
+            migrationChecked = true;
         }
     }
-
-    private Set<String> decompose(String fieldValue) {
-        if (fieldValue == null) return new HashSet<>();
-        return textTokenizer.tokenize(fieldValue);
-    }
 }
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.store.NitriteMap;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The posting lists of a {@link TextIndex}. Instead of one list of ids per term, which is
+ * read, copied and written back whole for every document containing the term, every
+ * {@code (term, id)} posting is a row of its own keyed by an {@link IndexEntryKey}, holding
+ * the frequency of the term in the document. Adding or removing a posting is a single
+ * O(log n) point write and the postings of a term are streamed by a range scan, in id order.
+ * <p>
+ * Next to the postings, the map keeps the number of indexed words of every document and
+ * their total, the statistics a relevance ranking like BM25 needs. An index which stores
+ * positions also keeps the positions of every posting in a separate map, which only phrase
+ * and proximity queries read. The positions are incomplete once a document is indexed
+ * without them, and are not used until the index is rebuilt.
+ *
+ * @since 4.5
+ */
+public class TextIndexMap {
+    private static final String TOTAL_LENGTH = "totalLength";
+    private static final String POSITIONS_INCOMPLETE = "positionsIncomplete";
+
+    private final NitriteMap<IndexEntryKey, Object> postingMap;
+    private final NitriteMap<NitriteId, Integer> lengthMap;
+    private final NitriteMap<String, Long> statisticsMap;
+    private final NitriteMap<IndexEntryKey, int[]> positionMap;
+    private final boolean storePositions;
+
+    /**
+     * Instantiates a new {@link TextIndexMap} which does not store positions.
+     *
+     * @param postingMap    the backing posting map
+     * @param lengthMap     the backing map of the document lengths
+     * @param statisticsMap the backing map of the collection statistics
+     */
+    public TextIndexMap(NitriteMap<IndexEntryKey, ?> postingMap,
+                        NitriteMap<NitriteId, Integer> lengthMap,
+                        NitriteMap<String, Long> statisticsMap) {
+        this(postingMap, lengthMap, statisticsMap, null);
+    }
+
+    /**
+     * Instantiates a new {@link TextIndexMap}.
+     *
+     * @param postingMap    the backing posting map
+     * @param lengthMap     the backing map of the document lengths
+     * @param statisticsMap the backing map of the collection statistics
+     * @param positionMap   the backing map of the positions, or <code>null</code>
+     *                      if the index does not store positions
+     */
+    public TextIndexMap(NitriteMap<IndexEntryKey, ?> postingMap,
+                        NitriteMap<NitriteId, Integer> lengthMap,
+                        NitriteMap<String, Long> statisticsMap,
+                        NitriteMap<IndexEntryKey, int[]> positionMap) {
+        this(postingMap, lengthMap, statisticsMap, positionMap, positionMap != null);
+    }
+
+    /**
+     * Instantiates a new {@link TextIndexMap} over the positions of an index which may
+     * no longer store them. The positions of a removed document are still removed, but
+     * indexing a document without its positions marks them incomplete.
+     *
+     * @param postingMap     the backing posting map
+     * @param lengthMap      the backing map of the document lengths
+     * @param statisticsMap  the backing map of the collection statistics
+     * @param positionMap    the backing map of the positions, or <code>null</code>
+     *                       if the index has none
+     * @param storePositions if the positions of the words are written
+     */
+    @SuppressWarnings("unchecked")
+    public TextIndexMap(NitriteMap<IndexEntryKey, ?> postingMap,
+                        NitriteMap<NitriteId, Integer> lengthMap,
+                        NitriteMap<String, Long> statisticsMap,
+                        NitriteMap<IndexEntryKey, int[]> positionMap,
+                        boolean storePositions) {
+        this.postingMap = (NitriteMap<IndexEntryKey, Object>) postingMap;
+        this.lengthMap = lengthMap;
+        this.statisticsMap = statisticsMap;
+        this.positionMap = positionMap;
+        this.storePositions = positionMap != null && storePositions;
+    }
+
+    /**
+     * Checks if the index stores the positions of all of its words.
+     *
+     * @return <code>true</code> if phrase and proximity queries can be answered
+     */
+    public boolean hasPositions() {
+        return storePositions && statisticsMap.get(POSITIONS_INCOMPLETE) == null;
+    }
+
+    /**
+     * Gets the positions of a term in a document, in ascending order. A position counts
+     * every token of the text, stop-words included.
+     *
+     * @param term      the term
+     * @param nitriteId the id of the document
+     * @return the positions, or <code>null</code> if the document does not contain the term
+     * or the index does not store positions
+     */
+    public int[] positions(String term, NitriteId nitriteId) {
+        if (positionMap == null) {
+            return null;
+        }
+        return positionMap.get(new IndexEntryKey(new DBValue(term), nitriteId));
+    }
+
+    /**
+     * Streams the postings of a term, in id order.
+     *
+     * @param term the term
+     * @return the postings of the documents containing the term
+     */
+    public RecordStream<Posting> postings(String term) {
+        DBValue value = new DBValue(term);
+        return () -> new PostingIterator(value);
+    }
+
+    /**
+     * Streams the distinct indexed terms starting with a prefix, in ascending order.
+     *
+     * @param prefix the prefix, or <code>null</code> for all terms
+     * @return the terms
+     */
+    public RecordStream<String> terms(String prefix) {
+        return () -> new TermIterator(prefix);
+    }
+
+    /**
+     * Counts the documents containing a term, without reading their postings.
+     *
+     * @param term the term
+     * @return the document frequency of the term
+     */
+    public long documentFrequency(String term) {
+        DBValue value = new DBValue(term);
+        return postingMap.countKeys(IndexEntryKey.lowerBound(value), false,
+            IndexEntryKey.upperBound(value), false);
+    }
+
+    /**
+     * Gets the number of indexed words of a document.
+     *
+     * @param nitriteId the id of the document
+     * @return the length of the document, or 0 if it is not indexed
+     */
+    public int documentLength(NitriteId nitriteId) {
+        Integer length = lengthMap.get(nitriteId);
+        return length == null ? 0 : length;
+    }
+
+    /**
+     * Gets the number of indexed documents.
+     *
+     * @return the number of documents
+     */
+    public long documentCount() {
+        return lengthMap.size();
+    }
+
+    /**
+     * Gets the number of indexed words of all documents.
+     *
+     * @return the total length of the documents
+     */
+    public long totalLength() {
+        Long totalLength = statisticsMap.get(TOTAL_LENGTH);
+        return totalLength == null ? 0 : totalLength;
+    }
+
+    /**
+     * Adds the posting of a document to a term.
+     */
+    void add(String term, NitriteId nitriteId, int frequency) {
+        postingMap.put(new IndexEntryKey(new DBValue(term), nitriteId), frequency);
+    }
+
+    /**
+     * Adds the posting of a document to a term, with the positions of the term if the index
+     * stores positions.
+     */
+    void add(String term, NitriteId nitriteId, int[] positions) {
+        IndexEntryKey key = new IndexEntryKey(new DBValue(term), nitriteId);
+        postingMap.put(key, positions.length);
+        if (storePositions) {
+            positionMap.put(key, positions);
+        }
+    }
+
+    /**
+     * Removes the posting of a document from a term.
+     */
+    void remove(String term, NitriteId nitriteId) {
+        IndexEntryKey key = new IndexEntryKey(new DBValue(term), nitriteId);
+        postingMap.remove(key);
+        if (positionMap != null) {
+            positionMap.remove(key);
+        }
+    }
+
+    /**
+     * Records the length of a newly indexed document.
+     */
+    void addDocument(NitriteId nitriteId, int length) {
+        if (positionMap != null && !storePositions) {
+            markPositionsIncomplete();
+        }
+
+        Integer previous = lengthMap.get(nitriteId);
+        lengthMap.put(nitriteId, length);
+        updateTotalLength(length - (previous == null ? 0 : previous));
+    }
+
+    /**
+     * Removes the length of a document which is no longer indexed.
+     */
+    void removeDocument(NitriteId nitriteId) {
+        Integer previous = lengthMap.remove(nitriteId);
+        if (previous != null) {
+            updateTotalLength(-previous);
+        }
+    }
+
+    /**
+     * Records that some documents are indexed without their positions.
+     */
+    void markPositionsIncomplete() {
+        if (statisticsMap.get(POSITIONS_INCOMPLETE) == null) {
+            statisticsMap.put(POSITIONS_INCOMPLETE, 1L);
+        }
+    }
+
+    private void updateTotalLength(long delta) {
+        if (delta != 0) {
+            statisticsMap.put(TOTAL_LENGTH, totalLength() + delta);
+        }
+    }
+
+    private static int frequencyOf(Object value) {
+        // a posting without a stored frequency counts once
+        return value instanceof Integer ? (Integer) value : 1;
+    }
+
+    private class PostingIterator implements Iterator<Posting> {
+        private final DBValue term;
+        private IndexEntryKey nextRow;
+        private Object nextValue;
+
+        PostingIterator(DBValue term) {
+            this.term = term;
+            this.nextRow = advance(postingMap.ceilingKey(IndexEntryKey.lowerBound(term)));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextRow != null;
+        }
+
+        @Override
+        public Posting next() {
+            if (nextRow == null) {
+                throw new NoSuchElementException();
+            }
+            Posting posting = new Posting(nextRow.getNitriteId(), frequencyOf(nextValue));
+            nextRow = advance(postingMap.higherKey(nextRow));
+            return posting;
+        }
+
+        private IndexEntryKey advance(IndexEntryKey row) {
+            while (row != null && row.getValue().compareTo(term) == 0) {
+                // skip the keys removed in the current transaction, see IndexMap
+                nextValue = postingMap.get(row);
+                if (nextValue != null) {
+                    return row;
+                }
+                row = postingMap.higherKey(row);
+            }
+            return null;
+        }
+    }
+
+    private class TermIterator implements Iterator<String> {
+        private final String prefix;
+        private String nextTerm;
+
+        TermIterator(String prefix) {
+            this.prefix = prefix;
+            IndexEntryKey row = prefix == null
+                ? (postingMap.isEmpty() ? null : postingMap.firstKey())
+                : postingMap.ceilingKey(IndexEntryKey.lowerBound(new DBValue(prefix)));
+            this.nextTerm = termOf(row);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextTerm != null;
+        }
+
+        @Override
+        public String next() {
+            if (nextTerm == null) {
+                throw new NoSuchElementException();
+            }
+            String term = nextTerm;
+            // seek past every posting of the current term
+            IndexEntryKey row = postingMap.higherKey(IndexEntryKey.upperBound(new DBValue(term)));
+            nextTerm = termOf(row);
+            return term;
+        }
+
+        private String termOf(IndexEntryKey row) {
+            if (row == null || !(row.getValue().getValue() instanceof String)) {
+                return null;
+            }
+            String term = (String) row.getValue().getValue();
+            return prefix == null || term.startsWith(prefix) ? term : null;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.dizitart.no2.index.fulltext;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -42,6 +44,22 @@ public interface TextTokenizer {
      */
     Set<String> tokenize(String text);
 
+    /**
+     * Tokenize a <code>text</code> into all of its tokens in the order of the text,
+     * repeated tokens included. A stop-word is kept as a <code>null</code> token, so
+     * the index of a token in the list is its position in the text.
+     * <p>
+     * The default implementation returns every distinct token of
+     * {@link #tokenize(String)} once.
+     *
+     * @param text the text to tokenize
+     * @return the list of tokens.
+     * @since 4.5
+     */
+    default List<String> tokenizeAll(String text) {
+        return new ArrayList<>(tokenize(text));
+    }
+
     /**
      * Gets all stop-words for a language.
      *
@@ -59,4 +59,15 @@ public interface Cursor<T> extends RecordStream<T> {
      * @since 2.1.0
      */
     <Foreign, Joined> RecordStream<Joined> join(Cursor<Foreign> foreignCursor, Lookup lookup, Class<Joined> type);
+
+    /**
+     * Gets the continuation token of the last object returned by this cursor,
+     * for a find with {@link org.dizitart.no2.collection.FindOptions#keyset(boolean)} enabled.
+     *
+     * @return the continuation token, or <code>null</code> if no object is returned yet
+     * @throws org.dizitart.no2.exceptions.InvalidOperationException if the find is not keyset paginated
+     * @see org.dizitart.no2.collection.DocumentCursor#getContinuationToken()
+     * @since 4.5
+     */
+    String getContinuationToken();
 }
@@ -16,7 +16,9 @@
 
 package org.dizitart.no2.repository;
 
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.collection.Aggregation;
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.FindOptions;
 import org.dizitart.no2.collection.NitriteCollection;
@@ -31,6 +33,7 @@ import org.dizitart.no2.index.IndexOptions;
 import org.dizitart.no2.store.NitriteStore;
 
 import java.util.Collection;
+import java.util.concurrent.Flow;
 
 import static org.dizitart.no2.collection.UpdateOptions.updateOptions;
 import static org.dizitart.no2.common.util.ValidationUtils.containsNull;
@@ -80,6 +83,11 @@ class DefaultObjectRepository<T> implements ObjectRepository<T> {
         collection.rebuildIndex(fields);
     }
 
+    @Override
+    public void analyze() {
+        collection.analyze();
+    }
+
     @Override
     public Collection<IndexDescriptor> listIndices() {
         return collection.listIndices();
@@ -160,6 +168,17 @@ class DefaultObjectRepository<T> implements ObjectRepository<T> {
         return operations.find(filter, findOptions, getType());
     }
 
+    @Override
+    @IgnoreJRERequirement
+    public Flow.Publisher<T> findAsync(Filter filter, FindOptions findOptions) {
+        return findAsync(filter, findOptions, nitriteConfig.getAsyncExecutor());
+    }
+
+    @Override
+    public Aggregation aggregate(Filter filter) {
+        return operations.aggregate(filter);
+    }
+
     @Override
     public <I> T getById(I id) {
         Filter idFilter = operations.createIdFilter(id);
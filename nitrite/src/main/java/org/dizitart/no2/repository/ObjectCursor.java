@@ -23,6 +23,7 @@ import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.mapper.NitriteMapper;
 import org.dizitart.no2.common.streams.MutatedObjectStream;
+import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.ValidationException;
 
@@ -71,6 +72,11 @@ class ObjectCursor<T> implements Cursor<T> {
         return new MutatedObjectStream<>(nitriteMapper, cursor.join(foreignObjectCursor.cursor, lookup), type);
     }
 
+    @Override
+    public String getContinuationToken() {
+        return cursor.getContinuationToken();
+    }
+
     @Override
     public Iterator<T> iterator() {
         return new ObjectCursorIterator(cursor.iterator());
@@ -97,13 +103,18 @@ class ObjectCursor<T> implements Cursor<T> {
         }
     }
 
-    private class ObjectCursorIterator implements Iterator<T> {
+    private class ObjectCursorIterator implements Iterator<T>, AutoCloseable {
         private final Iterator<Document> documentIterator;
 
         ObjectCursorIterator(Iterator<Document> documentIterator) {
             this.documentIterator = documentIterator;
         }
 
+        @Override
+        public void close() {
+            Iterables.close(documentIterator);
+        }
+
         @Override
         public boolean hasNext() {
             return documentIterator.hasNext();
@@ -16,12 +16,15 @@
 
 package org.dizitart.no2.repository;
 
+import org.codehaus.mojo.animal_sniffer.IgnoreJRERequirement;
 import org.dizitart.no2.collection.*;
 import org.dizitart.no2.collection.events.CollectionEventListener;
 import org.dizitart.no2.collection.events.EventAware;
 import org.dizitart.no2.collection.events.EventType;
 import org.dizitart.no2.common.PersistentCollection;
 import org.dizitart.no2.common.WriteResult;
+import org.dizitart.no2.common.concurrent.ThreadPoolManager;
+import org.dizitart.no2.common.streams.RecordPublisher;
 import org.dizitart.no2.common.util.Iterables;
 import org.dizitart.no2.exceptions.InvalidIdException;
 import org.dizitart.no2.exceptions.NotIdentifiableException;
@@ -33,6 +36,8 @@ import org.dizitart.no2.repository.annotations.Id;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 import static org.dizitart.no2.collection.UpdateOptions.updateOptions;
 import static org.dizitart.no2.common.util.ValidationUtils.containsNull;
@@ -302,6 +307,66 @@ public interface ObjectRepository<T> extends PersistentCollection<T> {
      */
     Cursor<T> find(Filter filter, FindOptions findOptions);
 
+    /**
+     * Applies a filter on the repository and publishes the selected objects
+     * to reactive subscribers. The query runs on the executor configured with
+     * {@link org.dizitart.no2.NitriteBuilder#asyncExecutor(Executor)} when a
+     * subscriber first requests objects, and the objects are read in batches
+     * of the demand of the subscriber. A cancelled subscription stops reading.
+     * <p>
+     * {@link Flow} is only available from Android API level 30, unlike the
+     * rest of the repository API.
+     *
+     * @param filter      the filter to apply to select objects from collection.
+     * @param findOptions specifies pagination, sort options for the query.
+     * @return a publisher of the selected objects.
+     * @since 4.5
+     */
+    @IgnoreJRERequirement
+    default Flow.Publisher<T> findAsync(Filter filter, FindOptions findOptions) {
+        return findAsync(filter, findOptions, ThreadPoolManager.commonPool());
+    }
+
+    /**
+     * Applies a filter on the repository and publishes the selected objects
+     * to reactive subscribers, reading them on the given executor.
+     *
+     * @param filter      the filter to apply to select objects from collection.
+     * @param findOptions specifies pagination, sort options for the query.
+     * @param executor    the executor which runs the query and reads the objects.
+     * @return a publisher of the selected objects.
+     * @see #findAsync(Filter, FindOptions)
+     * @since 4.5
+     */
+    @IgnoreJRERequirement
+    default Flow.Publisher<T> findAsync(Filter filter, FindOptions findOptions, Executor executor) {
+        return new RecordPublisher<>(() -> find(filter, findOptions), executor);
+    }
+
+    /**
+     * Returns an aggregation over the documents of all objects in the repository.
+     *
+     * @return the aggregation.
+     * @since 4.5
+     */
+    default Aggregation aggregate() {
+        return aggregate(Filter.ALL);
+    }
+
+    /**
+     * Returns an aggregation over the documents of the objects selected by
+     * a filter. The fields of the aggregation are the fields of the documents
+     * the objects are stored as.
+     *
+     * @param filter the filter to apply to select objects from collection.
+     * @return the aggregation.
+     * @see Aggregation
+     * @since 4.5
+     */
+    default Aggregation aggregate(Filter filter) {
+        return getDocumentCollection().aggregate(filter);
+    }
+
     /**
      * Gets a single element from the repository by its id. If no element
      * is found, it will return {@code null}. The object must have a field annotated with {@link Id},
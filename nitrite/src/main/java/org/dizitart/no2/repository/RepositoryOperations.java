@@ -203,6 +203,10 @@ public class RepositoryOperations {
         return new ObjectCursor<>(nitriteMapper, documentCursor, type);
     }
 
+    public Aggregation aggregate(Filter filter) {
+        return collection.aggregate(asObjectFilter(filter));
+    }
+
     private void validateCollection() {
         if (collection == null) {
             throw new ValidationException("Repository has not been initialized properly");
@@ -20,6 +20,12 @@ import org.dizitart.no2.common.meta.Attributes;
 import org.dizitart.no2.common.meta.AttributesAware;
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Comparables;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import static org.dizitart.no2.common.Constants.META_MAP_NAME;
 import static org.dizitart.no2.common.util.StringUtils.isNullOrEmpty;
@@ -83,6 +89,139 @@ public interface NitriteMap<Key, Value> extends AttributesAware, AutoCloseable {
      */
     Iterable<Key> keys();
 
+    /**
+     * Gets a lazily evaluated {@link RecordStream} view of the keys of this map, starting
+     * at <code>from</code> (inclusive) and walking in ascending order, or in descending
+     * order if <code>reverse</code> is set. A <code>null</code> start key begins at the
+     * first (or the last) key of the map.
+     * <p>
+     * Keys are pulled one at a time, so a consumer that stops early never touches
+     * the rest of the map. The default implementation navigates with
+     * {@link #ceilingKey(Object)} / {@link #higherKey(Object)} (or
+     * {@link #floorKey(Object)} / {@link #lowerKey(Object)}); a store with a native
+     * ordered cursor should override it.
+     *
+     * @param from    the key to start from, or <code>null</code>
+     * @param reverse if the keys should be walked in descending order
+     * @return the record stream of keys
+     */
+    default RecordStream<Key> keys(Key from, boolean reverse) {
+        return () -> new Iterator<Key>() {
+            private Key nextKey = seed();
+
+            private Key seed() {
+                if (from == null) {
+                    if (isEmpty()) return null;
+                    return reverse ? lastKey() : firstKey();
+                }
+                return reverse ? floorKey(from) : ceilingKey(from);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return nextKey != null;
+            }
+
+            @Override
+            public Key next() {
+                if (nextKey == null) {
+                    throw new NoSuchElementException();
+                }
+                Key current = nextKey;
+                nextKey = reverse ? lowerKey(current) : higherKey(current);
+                return current;
+            }
+        };
+    }
+
+    /**
+     * Counts the keys between two bounds without reading their values. A
+     * <code>null</code> bound leaves that end of the range open.
+     * <p>
+     * The default implementation walks the keys of the range with
+     * {@link #keys(Object, boolean)}; a store which knows the position of a
+     * key in the map, e.g. from the sizes of its b-tree pages, should override
+     * it to count without visiting the keys.
+     *
+     * @param from          the lower bound, or <code>null</code>
+     * @param fromInclusive if a key equal to the lower bound is counted
+     * @param to            the upper bound, or <code>null</code>
+     * @param toInclusive   if a key equal to the upper bound is counted
+     * @return the number of keys in the range
+     * @since 4.5
+     */
+    default long countKeys(Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        long count = 0;
+        for (Key key : keys(from, false)) {
+            if (withinRange(key, from, fromInclusive, to, toInclusive)) {
+                count++;
+            } else if (to != null && Comparables.compare((Comparable<?>) key, (Comparable<?>) to) >= 0) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the keys which split this map into ranges of about the same
+     * number of keys, in ascending order. Every returned key starts a range,
+     * the first range starts at the first key of the map. At most
+     * <code>partitions - 1</code> keys are returned, fewer if the map is small.
+     * <p>
+     * The default implementation walks the keys once; a store which knows the
+     * key at a position of the map should override it.
+     *
+     * @param partitions the number of ranges
+     * @return the keys starting the ranges after the first
+     * @since 4.5
+     */
+    default List<Key> splitKeys(int partitions) {
+        List<Key> splitKeys = new ArrayList<>();
+        long size = size();
+        if (partitions < 2 || size < partitions) {
+            return splitKeys;
+        }
+
+        long position = 0;
+        long next = size / partitions;
+        for (Key key : keys()) {
+            if (position == next) {
+                splitKeys.add(key);
+                if (splitKeys.size() == partitions - 1) break;
+                next = size * (splitKeys.size() + 1) / partitions;
+            }
+            position++;
+        }
+        return splitKeys;
+    }
+
+    /**
+     * Checks if a key is between two bounds, a <code>null</code> bound
+     * being open.
+     *
+     * @param key           the key
+     * @param from          the lower bound, or <code>null</code>
+     * @param fromInclusive if the lower bound is inclusive
+     * @param to            the upper bound, or <code>null</code>
+     * @param toInclusive   if the upper bound is inclusive
+     * @return <code>true</code> if the key is in the range
+     * @since 4.5
+     */
+    static boolean withinRange(Object key, Object from, boolean fromInclusive,
+                               Object to, boolean toInclusive) {
+        if (from != null) {
+            int cmp = Comparables.compare((Comparable<?>) key, (Comparable<?>) from);
+            if (cmp < 0 || (cmp == 0 && !fromInclusive)) {
+                return false;
+            }
+        }
+        if (to != null) {
+            int cmp = Comparables.compare((Comparable<?>) key, (Comparable<?>) to);
+            return cmp < 0 || (cmp == 0 && toInclusive);
+        }
+        return true;
+    }
+
     /**
      * Removes the mapping for a key from this map if it is present.
      *
@@ -56,4 +56,14 @@ public interface StoreConfig {
     default boolean isInMemory() {
         return StringUtils.isNullOrEmpty(filePath());
     }
+
+    /**
+     * Checks if the store encrypts its data.
+     *
+     * @return {@code true} if the store is encrypted; {@code false} otherwise.
+     * @since 4.5
+     */
+    default boolean isEncrypted() {
+        return false;
+    }
 }
@@ -84,6 +84,38 @@ public class InMemoryMap<Key, Value> implements NitriteMap<Key, Value> {
         return RecordStream.fromIterable(backingMap.keySet());
     }
 
+    @Override
+    public RecordStream<Key> keys(Key from, boolean reverse) {
+        checkOpened();
+        NavigableMap<Key, Value> view;
+        if (from == null) {
+            view = reverse ? backingMap.descendingMap() : backingMap;
+        } else {
+            view = reverse ? backingMap.headMap(from, true).descendingMap()
+                : backingMap.tailMap(from, true);
+        }
+        return RecordStream.fromIterable(view.keySet());
+    }
+
+    @Override
+    public long countKeys(Key from, boolean fromInclusive, Key to, boolean toInclusive) {
+        checkOpened();
+        NavigableMap<Key, Value> view;
+        if (from != null && to != null) {
+            if (Comparables.compare((Comparable<?>) from, (Comparable<?>) to) > 0) {
+                return 0;
+            }
+            view = backingMap.subMap(from, fromInclusive, to, toInclusive);
+        } else if (from != null) {
+            view = backingMap.tailMap(from, fromInclusive);
+        } else if (to != null) {
+            view = backingMap.headMap(to, toInclusive);
+        } else {
+            view = backingMap;
+        }
+        return view.size();
+    }
+
     @Override
     public void put(Key key, Value value) {
         checkOpened();
@@ -274,6 +274,17 @@ class DefaultTransactionalCollection implements NitriteCollection {
         }
     }
 
+    @Override
+    public void analyze() {
+        try {
+            readLock.lock();
+            checkOpened();
+            primary.analyze();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     @Override
     public Collection<IndexDescriptor> listIndices() {
         try {
@@ -73,6 +73,11 @@ class DefaultTransactionalRepository<T> implements ObjectRepository<T> {
         backingCollection.rebuildIndex(fieldNames);
     }
 
+    @Override
+    public void analyze() {
+        backingCollection.analyze();
+    }
+
     @Override
     public Collection<IndexDescriptor> listIndices() {
         return backingCollection.listIndices();
@@ -2,6 +2,7 @@ package org.dizitart.no2.transaction;
 
 import org.dizitart.no2.common.RecordStream;
 import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Comparables;
 import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.NitriteStore;
 import org.dizitart.no2.store.memory.InMemoryMap;
@@ -141,6 +142,26 @@ class TransactionalMap<K, V> implements NitriteMap<K, V> {
             backingMap.keys());
     }
 
+    @Override
+    public long countKeys(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (cleared) {
+            return 0;
+        }
+
+        // navigation does not skip the keys removed in the transaction
+        long count = 0;
+        for (K key : keys(from, false)) {
+            if (NitriteMap.withinRange(key, from, fromInclusive, to, toInclusive)) {
+                if (containsKey(key)) {
+                    count++;
+                }
+            } else if (to != null && Comparables.compare((Comparable<?>) key, (Comparable<?>) to) >= 0) {
+                break;
+            }
+        }
+        return count;
+    }
+
     @Override
     public void put(K k, V v) {
         cleared = false;
@@ -32,7 +32,7 @@ public class FindPlanTest {
         assertEquals(
             "FindPlan(byIdFilter=null, indexScanFilter=null, collectionScanFilter=null, indexDescriptor=null,"
                 + " indexScanOrder=null, blockingSortOrder=[], skip=null, limit=null, distinct=false, " +
-                "collator=null, subPlans=[])",
+                "collator=null, sortBufferSize=null, parallelism=null, keysetSortOrder=null, subPlans=[], intersectedPlans=[], covered=false, executionProfile=null, textScores=null)",
             actualFindPlan.toString());
         assertTrue(actualFindPlan.getSubPlans().isEmpty());
         assertNull(actualFindPlan.getSkip());
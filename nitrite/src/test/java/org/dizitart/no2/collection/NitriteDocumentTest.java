@@ -1,6 +1,7 @@
 package org.dizitart.no2.collection;
 
 import tools.jackson.databind.introspect.AnnotatedMethodMap;
+import org.dizitart.no2.common.FieldPath;
 import org.dizitart.no2.exceptions.InvalidIdException;
 import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.ValidationException;
@@ -228,5 +229,25 @@ public class NitriteDocumentTest {
         nitriteDocument1.put("Field", null);
         assertTrue(nitriteDocument.equals(nitriteDocument1));
     }
-}
 
+    @Test
+    public void testGetByPath() {
+        NitriteDocument address = new NitriteDocument();
+        address.put("city", "Kolkata");
+        NitriteDocument nitriteDocument = new NitriteDocument();
+        nitriteDocument.put("name", "Anindya");
+        nitriteDocument.put("address", address);
+        nitriteDocument.put("phones", new NitriteDocument[]{
+            (NitriteDocument) new NitriteDocument().put("number", "1"),
+            (NitriteDocument) new NitriteDocument().put("number", "2")});
+
+        assertEquals("Anindya", nitriteDocument.getByPath(FieldPath.of("name")));
+        assertEquals("Kolkata", nitriteDocument.getByPath(FieldPath.of("address.city")));
+        assertEquals("2", nitriteDocument.getByPath(FieldPath.of("phones.1.number")));
+        assertEquals(nitriteDocument.get("phones.number"),
+            nitriteDocument.getByPath(FieldPath.of("phones.number")));
+        assertNull(nitriteDocument.getByPath(FieldPath.of("address.zip")));
+        assertThrows(ValidationException.class,
+            () -> nitriteDocument.getByPath(FieldPath.of("address..city")));
+    }
+}
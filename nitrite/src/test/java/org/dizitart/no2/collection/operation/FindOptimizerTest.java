@@ -19,14 +19,19 @@ package org.dizitart.no2.collection.operation;
 
 import org.dizitart.no2.collection.FindOptions;
 import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.Fields;
 import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.index.IndexDescriptor;
+import org.dizitart.no2.index.IndexStatistics;
+import org.dizitart.no2.index.IndexType;
 import org.junit.Test;
 
-import java.util.ArrayList;
+import java.util.*;
 
+import static org.dizitart.no2.filters.Filter.and;
+import static org.dizitart.no2.filters.FluentFilter.where;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
 
@@ -108,5 +113,124 @@ public class FindOptimizerTest {
         assertNull(actualOptimizeResult.getSkip());
         assertNull(actualOptimizeResult.getLimit());
     }
-}
 
+    @Test
+    public void testOptimizeWithStatistics() {
+        IndexDescriptor status = new IndexDescriptor(IndexType.NON_UNIQUE, Fields.withNames("status"), "orders");
+        IndexDescriptor customerId = new IndexDescriptor(IndexType.NON_UNIQUE,
+            Fields.withNames("customerId"), "orders");
+
+        // 1000 orders, 90% active, 500 customers with 2 orders each
+        List<DBValue> statusKeys = new ArrayList<>();
+        List<DBValue> customerKeys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            statusKeys.add(new DBValue(i < 900 ? "ACTIVE" : "CLOSED"));
+            customerKeys.add(new DBValue(i / 2));
+        }
+        Map<IndexDescriptor, IndexStatistics> statistics = new HashMap<>();
+        statistics.put(status, IndexStatistics.create(1000, statusKeys));
+        statistics.put(customerId, IndexStatistics.create(1000, customerKeys));
+
+        List<IndexDescriptor> indexDescriptors = Arrays.asList(status, customerId);
+        FindOptimizer findOptimizer = new FindOptimizer(statistics::get, () -> 1000);
+
+        // the selective index wins over the one listed first
+        FindPlan findPlan = findOptimizer.optimize(where("status").eq("ACTIVE")
+            .and(where("customerId").eq(42)), null, indexDescriptors);
+        assertEquals(customerId, findPlan.getIndexDescriptor());
+        assertNotNull(findPlan.getCollectionScanFilter());
+
+        // a rare status is worth the index
+        findPlan = findOptimizer.optimize(where("status").eq("CLOSED"), null, indexDescriptors);
+        assertEquals(status, findPlan.getIndexDescriptor());
+
+        // a filter selecting most of the collection is cheaper as a collection scan
+        findPlan = findOptimizer.optimize(where("status").eq("ACTIVE"), null, indexDescriptors);
+        assertNull(findPlan.getIndexDescriptor());
+        assertNotNull(findPlan.getCollectionScanFilter());
+
+        // without statistics the index is always used
+        findPlan = new FindOptimizer().optimize(where("status").eq("ACTIVE"), null, indexDescriptors);
+        assertEquals(status, findPlan.getIndexDescriptor());
+    }
+
+    @Test
+    public void testOptimizeWithIndexIntersection() {
+        IndexDescriptor tenantId = new IndexDescriptor(IndexType.NON_UNIQUE, Fields.withNames("tenantId"), "events");
+        IndexDescriptor createdAt = new IndexDescriptor(IndexType.NON_UNIQUE,
+            Fields.withNames("createdAt"), "events");
+        List<IndexDescriptor> indexDescriptors = Arrays.asList(tenantId, createdAt);
+
+        // an equality on the other index is intersected with the elected index
+        FindPlan findPlan = new FindOptimizer().optimize(and(where("tenantId").eq("t1"),
+            where("createdAt").gte(10), where("createdAt").lte(20)), null, indexDescriptors);
+        assertNotNull(findPlan.getIndexDescriptor());
+        assertEquals(1, findPlan.getIntersectedPlans().size());
+        assertNotEquals(findPlan.getIndexDescriptor(), findPlan.getIntersectedPlans().get(0).getIndexDescriptor());
+        assertNull(findPlan.getCollectionScanFilter());
+
+        // an unbounded range on the other index is left to the collection scan
+        findPlan = new FindOptimizer().optimize(and(where("tenantId").gt("t1"),
+            where("createdAt").gte(10), where("createdAt").lte(20)), null, indexDescriptors);
+        assertEquals(createdAt, findPlan.getIndexDescriptor());
+        assertTrue(findPlan.getIntersectedPlans().isEmpty());
+        assertNotNull(findPlan.getCollectionScanFilter());
+
+        // 1000 events, 10 tenants, createdAt spread evenly
+        List<DBValue> tenantKeys = new ArrayList<>();
+        List<DBValue> createdKeys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tenantKeys.add(new DBValue("t" + (i % 10)));
+            createdKeys.add(new DBValue(i));
+        }
+        Map<IndexDescriptor, IndexStatistics> statistics = new HashMap<>();
+        statistics.put(tenantId, IndexStatistics.create(1000, tenantKeys));
+        statistics.put(createdAt, IndexStatistics.create(1000, createdKeys));
+        FindOptimizer findOptimizer = new FindOptimizer(statistics::get, () -> 1000);
+
+        // two moderately selective filters, together far more selective than either
+        findPlan = findOptimizer.optimize(and(where("tenantId").eq("t1"),
+            where("createdAt").gte(0), where("createdAt").lt(200)), null, indexDescriptors);
+        assertNotNull(findPlan.getIndexDescriptor());
+        assertEquals(1, findPlan.getIntersectedPlans().size());
+        assertNull(findPlan.getCollectionScanFilter());
+
+        // a tiny range is not worth walking the keys of the other index
+        findPlan = findOptimizer.optimize(and(where("tenantId").eq("t1"),
+            where("createdAt").gte(0), where("createdAt").lt(2)), null, indexDescriptors);
+        assertEquals(createdAt, findPlan.getIndexDescriptor());
+        assertTrue(findPlan.getIntersectedPlans().isEmpty());
+        assertNotNull(findPlan.getCollectionScanFilter());
+    }
+
+    @Test
+    public void testOptimizeAnchoredRegex() {
+        IndexDescriptor sku = new IndexDescriptor(IndexType.NON_UNIQUE, Fields.withNames("sku"), "items");
+        IndexDescriptor compound = new IndexDescriptor(IndexType.NON_UNIQUE,
+            Fields.withNames("category", "price"), "items");
+        List<IndexDescriptor> indexDescriptors = Arrays.asList(sku, compound);
+
+        // the prefix is scanned on the index, the regex runs on the documents of the range
+        FindPlan findPlan = new FindOptimizer().optimize(where("sku").regex("^ABC-\\d+"), null, indexDescriptors);
+        assertEquals(sku, findPlan.getIndexDescriptor());
+        assertEquals(2, findPlan.getIndexScanFilter().getFilters().size());
+        assertEquals(where("sku").regex("^ABC-\\d+"), findPlan.getCollectionScanFilter());
+
+        // both bounds on the leading field of a compound index
+        findPlan = new FindOptimizer().optimize(where("category").regex("^tool"), null, indexDescriptors);
+        assertEquals(compound, findPlan.getIndexDescriptor());
+        assertEquals(2, findPlan.getIndexScanFilter().getFilters().size());
+        assertNotNull(findPlan.getCollectionScanFilter());
+
+        // not anchored
+        findPlan = new FindOptimizer().optimize(where("sku").regex("ABC-"), null, indexDescriptors);
+        assertNull(findPlan.getIndexDescriptor());
+    }
+
+    @Test
+    public void testPrefixUpperBound() {
+        assertEquals("ABD", FindOptimizer.prefixUpperBound("ABC"));
+        assertEquals("B", FindOptimizer.prefixUpperBound("A\uffff"));
+        assertNull(FindOptimizer.prefixUpperBound("\uffff\uffff"));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.collection.operation;
+
+import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.filters.LogicalFilter;
+import org.dizitart.no2.index.IndexDescriptor;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.dizitart.no2.filters.Filter.and;
+import static org.dizitart.no2.filters.Filter.or;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class FindPlanCacheTest {
+    private final FindOptimizer findOptimizer = new FindOptimizer();
+    private final Collection<IndexDescriptor> indexDescriptors = Collections.singletonList(
+        new IndexDescriptor(IndexType.NON_UNIQUE, Fields.withNames("status"), "orders"));
+
+    @Test
+    public void testSameShapeSharesPlan() {
+        FindPlanCache cache = new FindPlanCache();
+        AtomicInteger planned = new AtomicInteger();
+        Function<Filter, FindPlan> planner = filter -> {
+            planned.incrementAndGet();
+            return findOptimizer.planFilter(filter, indexDescriptors);
+        };
+
+        Filter first = and(where("status").eq("open"), where("amount").gt(10), where("region").eq("eu"));
+        FindPlan firstPlan = cache.getOrCreate(first, indexDescriptors, planner);
+
+        Filter second = and(where("status").eq("closed"), where("amount").gt(99), where("region").eq("us"));
+        FindPlan secondPlan = cache.getOrCreate(second, indexDescriptors, planner);
+
+        assertEquals(1, planned.get());
+        assertEquals(1, cache.size());
+        assertNotSame(firstPlan, secondPlan);
+
+        // the cached plan is bound to the filters of the second query
+        FindPlan expected = findOptimizer.planFilter(second, indexDescriptors);
+        assertEquals(expected.getIndexDescriptor(), secondPlan.getIndexDescriptor());
+        assertEquals(expected.getIndexScanFilter().getFilters(), secondPlan.getIndexScanFilter().getFilters());
+        assertSame(((LogicalFilter) second).getFilters().get(0),
+            secondPlan.getIndexScanFilter().getFilters().get(0));
+        assertEquals(expected.getCollectionScanFilter(), secondPlan.getCollectionScanFilter());
+        assertNotEquals(firstPlan.getCollectionScanFilter(), secondPlan.getCollectionScanFilter());
+    }
+
+    @Test
+    public void testDifferentShapes() {
+        FindPlanCache cache = new FindPlanCache();
+        Function<Filter, FindPlan> planner = filter -> findOptimizer.planFilter(filter, indexDescriptors);
+
+        FindPlan indexed = cache.getOrCreate(where("status").eq("open"), indexDescriptors, planner);
+        FindPlan scanned = cache.getOrCreate(where("region").eq("open"), indexDescriptors, planner);
+        FindPlan ranged = cache.getOrCreate(where("status").gt("open"), indexDescriptors, planner);
+
+        assertNotNull(indexed.getIndexDescriptor());
+        assertNull(scanned.getIndexDescriptor());
+        assertNotNull(scanned.getCollectionScanFilter());
+        assertNotNull(ranged.getIndexDescriptor());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testUncacheablePlans() {
+        FindPlanCache cache = new FindPlanCache();
+        Collection<IndexDescriptor> twoIndices = Arrays.asList(indexDescriptors.iterator().next(),
+            new IndexDescriptor(IndexType.NON_UNIQUE, Fields.withNames("region"), "orders"));
+        Function<Filter, FindPlan> planner = filter -> findOptimizer.planFilter(filter, twoIndices);
+
+        // an or filter planned on two indices
+        FindPlan orPlan = cache.getOrCreate(or(where("status").eq("open"), where("region").eq("eu")),
+            twoIndices, planner);
+        assertEquals(2, orPlan.getSubPlans().size());
+
+        // duplicate leaves
+        cache.getOrCreate(and(where("status").eq("open"), where("status").eq("open")), twoIndices, planner);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidation() {
+        FindPlanCache cache = new FindPlanCache();
+        Function<Filter, FindPlan> planner = filter -> findOptimizer.planFilter(filter, indexDescriptors);
+
+        cache.getOrCreate(where("status").eq("open"), indexDescriptors, planner);
+        assertEquals(1, cache.size());
+
+        // a new set of indices
+        Collection<IndexDescriptor> noIndex = new ArrayList<>();
+        FindPlan findPlan = cache.getOrCreate(where("status").eq("open"), noIndex,
+            filter -> findOptimizer.planFilter(filter, noIndex));
+        assertNull(findPlan.getIndexDescriptor());
+        assertEquals(1, cache.size());
+
+        cache.invalidate();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testBoundedSize() {
+        FindPlanCache cache = new FindPlanCache();
+        Function<Filter, FindPlan> planner = filter -> findOptimizer.planFilter(filter, indexDescriptors);
+        for (int i = 0; i < FindPlanCache.MAX_ENTRIES + 10; i++) {
+            cache.getOrCreate(where("field" + i).eq(i), indexDescriptors, planner);
+        }
+        assertEquals(FindPlanCache.MAX_ENTRIES, cache.size());
+    }
+}
@@ -18,9 +18,25 @@
 package org.dizitart.no2.collection.operation;
 
 import org.dizitart.no2.NitriteConfig;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.index.IndexDescriptor;
+import org.dizitart.no2.index.IndexType;
+import org.dizitart.no2.index.NitriteIndexer;
+import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.memory.InMemoryStore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 public class IndexManagerTest {
@@ -31,5 +47,26 @@ public class IndexManagerTest {
         new IndexManager("Collection Name", nitriteConfig);
         verify(nitriteConfig).getNitriteStore();
     }
+
+    @Test
+    public void testLegacyCompoundIndexMigratedOnOpen() {
+        InMemoryStore store = new InMemoryStore();
+        NitriteConfig nitriteConfig = mock(NitriteConfig.class);
+        doReturn(store).when(nitriteConfig).getNitriteStore();
+        doReturn(mock(NitriteIndexer.class)).when(nitriteConfig).findIndexer(IndexType.NON_UNIQUE);
+        IndexDescriptor desc = new IndexManager("coll", nitriteConfig)
+            .createIndexDescriptor(Fields.withNames("a", "b"), IndexType.NON_UNIQUE);
+
+        // the nested map a compound index of an older Nitrite is stored in
+        NitriteMap<DBValue, NavigableMap<DBValue, ?>> legacy = store.openMap(deriveIndexMapName(desc),
+            DBValue.class, ConcurrentSkipListMap.class);
+        NavigableMap<DBValue, List<NitriteId>> subMap = new ConcurrentSkipListMap<>();
+        subMap.put(new DBValue("x"), new ArrayList<>(Collections.singletonList(NitriteId.createId(1L))));
+        legacy.put(new DBValue(1), subMap);
+
+        new IndexManager("coll", nitriteConfig);
+        assertFalse(store.hasMap(deriveIndexMapName(desc)));
+        assertEquals(1, store.openMap(deriveCompositeIndexMapName(desc), Object.class, Object.class).size());
+    }
 }
 
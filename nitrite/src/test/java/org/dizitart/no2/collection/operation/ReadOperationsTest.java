@@ -19,18 +19,23 @@ package org.dizitart.no2.collection.operation;
 
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.FindOptions;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.common.processors.ProcessorChain;
 import org.dizitart.no2.filters.Filter;
 import org.dizitart.no2.index.IndexDescriptor;
+import org.dizitart.no2.store.NitriteStore;
+import org.dizitart.no2.store.StoreConfig;
 import org.dizitart.no2.store.memory.InMemoryMap;
 import org.junit.Test;
 import org.mockito.internal.verification.NoInteractions;
 
 import java.util.ArrayList;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
@@ -67,6 +72,27 @@ public class ReadOperationsTest {
         verify(indexOperations).listIndexes();
     }
 
+    @Test
+    public void testEncryptedStoreSortsInMemory() {
+        IndexOperations indexOperations = mock(IndexOperations.class);
+        when(indexOperations.listIndexes()).thenReturn(new ArrayList<>());
+        StoreConfig storeConfig = mock(StoreConfig.class);
+        when(storeConfig.isEncrypted()).thenReturn(true);
+        NitriteStore<?> nitriteStore = mock(NitriteStore.class);
+        doReturn(storeConfig).when(nitriteStore).getStoreConfig();
+        InMemoryMap<NitriteId, Document> nitriteMap = new InMemoryMap<>("Map Name", nitriteStore);
+        for (int i = 3; i > 0; i--) {
+            nitriteMap.put(NitriteId.newId(), Document.createDocument("value", i));
+        }
+
+        ReadOperations readOperations = new ReadOperations("Collection Name", indexOperations,
+                new NitriteConfig(), nitriteMap, new ProcessorChain());
+        DocumentCursor cursor = readOperations.find(null,
+                FindOptions.orderBy("value", SortOrder.Ascending).sortBufferSize(1));
+        assertEquals(0, (int) cursor.getFindPlan().getSortBufferSize());
+        assertEquals(1, cursor.firstOrNull().get("value"));
+    }
+
     @Test
     public void testGetById() {
         IndexOperations indexOperations = mock(IndexOperations.class);
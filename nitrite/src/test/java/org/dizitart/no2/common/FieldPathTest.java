@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common;
+
+import org.dizitart.no2.exceptions.ValidationException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class FieldPathTest {
+    @Test
+    public void testOf() {
+        FieldPath fieldPath = FieldPath.of("name");
+        assertEquals("name", fieldPath.getName());
+        assertFalse(fieldPath.isEmbedded());
+        assertEquals(Collections.singletonList("name"), fieldPath.getKeys());
+    }
+
+    @Test
+    public void testEmbeddedPath() {
+        FieldPath fieldPath = FieldPath.of("address.location.city");
+        assertTrue(fieldPath.isEmbedded());
+        assertEquals(Arrays.asList("address", "location", "city"), fieldPath.getKeys());
+        assertSame("city".intern(), fieldPath.getKeys().get(2));
+        assertEquals("address.location.city", fieldPath.toString());
+    }
+
+    @Test
+    public void testSplitKeys() {
+        assertArrayEquals(new String[]{"a", "", "b"}, FieldPath.splitKeys("a..b"));
+        assertArrayEquals(new String[]{"a"}, FieldPath.splitKeys("a."));
+        assertArrayEquals(new String[]{"a$b"}, FieldPath.splitKeys("a$b"));
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(FieldPath.of("a.b"), FieldPath.of("a.b"));
+        assertNotEquals(FieldPath.of("a.b"), FieldPath.of("a.c"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testKeysAreUnmodifiable() {
+        FieldPath.of("a.b").getKeys().add("c");
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testNullName() {
+        FieldPath.of(null);
+    }
+}
@@ -19,11 +19,17 @@ package org.dizitart.no2.common.streams;
 
 import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.common.tuples.Pair;
 import org.junit.Test;
 
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
+import static org.dizitart.no2.collection.Document.createDocument;
 import static org.junit.Assert.assertEquals;
 
 public class DocumentSorterTest {
@@ -33,5 +39,27 @@ public class DocumentSorterTest {
         Pair<NitriteId, Document> pair1 = new Pair<>();
         assertEquals(0, documentSorter.compare(pair1, new Pair<>()));
     }
-}
 
+    @Test
+    public void testCompareKeys() {
+        DocumentSorter documentSorter = new DocumentSorter(Collator.getInstance(Locale.FRENCH),
+            Arrays.asList(new Pair<>("name", SortOrder.Ascending), new Pair<>("score", SortOrder.Descending)));
+
+        List<Pair<NitriteId, Document>> records = new ArrayList<>();
+        String[] names = {"apple", "Apple", "éclair", "Eclair", null};
+        for (int i = 0; i < 20; i++) {
+            records.add(new Pair<>(NitriteId.newId(),
+                createDocument("name", names[i % names.length]).put("score", i % 3)));
+        }
+
+        // the pre-computed sort values order the documents like the documents themselves
+        for (Pair<NitriteId, Document> record1 : records) {
+            for (Pair<NitriteId, Document> record2 : records) {
+                Object[] keys1 = documentSorter.sortKeys(record1.getSecond());
+                Object[] keys2 = documentSorter.sortKeys(record2.getSecond());
+                assertEquals(Integer.signum(documentSorter.compare(record1, record2)),
+                    Integer.signum(documentSorter.compareKeys(keys1, keys2)));
+            }
+        }
+    }
+}
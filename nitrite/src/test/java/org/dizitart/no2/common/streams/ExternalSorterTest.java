@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
+import org.junit.Test;
+
+import java.io.File;
+import java.text.Collator;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ExternalSorterTest {
+    private static final String[] NAMES = {"apple", "Apple", "banana", "Banana", "cherry", "éclair", "Eclair"};
+
+    @Test
+    public void testMatchesInMemorySort() {
+        List<Pair<NitriteId, Document>> records = records(1000);
+        DocumentSorter documentSorter = new DocumentSorter(Collator.getInstance(Locale.FRENCH),
+            Arrays.asList(new Pair<>("name", SortOrder.Ascending), new Pair<>("score", SortOrder.Descending)));
+
+        List<Pair<NitriteId, Document>> expected = new ArrayList<>(records);
+        expected.sort(documentSorter);
+
+        // 100 runs, more than can be merged in a single pass
+        assertEquals(expected, toList(new ExternalSorter(documentSorter, 10).sort(records)));
+
+        // a handful of runs, merged in a single pass
+        assertEquals(expected, toList(new ExternalSorter(documentSorter, 300).sort(records)));
+
+        // fits in one run
+        assertEquals(expected, toList(new ExternalSorter(documentSorter, 5000).sort(records)));
+    }
+
+    @Test
+    public void testEmptyInput() {
+        DocumentSorter documentSorter = new DocumentSorter(null,
+            Collections.singletonList(new Pair<>("score", SortOrder.Ascending)));
+        assertFalse(new ExternalSorter(documentSorter, 10).sort(Collections.emptyList()).hasNext());
+    }
+
+    @Test
+    public void testSortedDocumentStreamSpills() {
+        List<Pair<NitriteId, Document>> records = records(500);
+        RecordStream<Pair<NitriteId, Document>> recordStream = RecordStream.fromIterable(records);
+
+        FindPlan inMemoryPlan = new FindPlan();
+        inMemoryPlan.getBlockingSortOrder().add(new Pair<>("score", SortOrder.Ascending));
+        List<Pair<NitriteId, Document>> expected = new SortedDocumentStream(inMemoryPlan, recordStream).toList();
+
+        FindPlan spillingPlan = new FindPlan();
+        spillingPlan.getBlockingSortOrder().add(new Pair<>("score", SortOrder.Ascending));
+        spillingPlan.setSortBufferSize(50);
+        assertEquals(expected, new SortedDocumentStream(spillingPlan, recordStream).toList());
+
+        // a limit larger than the buffer is also served by the external sort
+        spillingPlan.setLimit(100L);
+        assertEquals(expected.subList(0, 100),
+            new SortedDocumentStream(spillingPlan, recordStream).toList().subList(0, 100));
+    }
+
+    @Test
+    public void testClosingAbandonedIteratorDeletesRuns() {
+        List<Pair<NitriteId, Document>> records = records(500);
+        FindPlan spillingPlan = new FindPlan();
+        spillingPlan.getBlockingSortOrder().add(new Pair<>("score", SortOrder.Ascending));
+        spillingPlan.setSortBufferSize(50);
+
+        Set<String> before = runFiles();
+        SortedDocumentStream sortedStream = new SortedDocumentStream(spillingPlan,
+            RecordStream.fromIterable(records));
+
+        Iterator<Pair<NitriteId, Document>> iterator = sortedStream.iterator();
+        iterator.next();
+        assertFalse(before.containsAll(runFiles()));
+
+        Iterables.close(iterator);
+        assertTrue(before.containsAll(runFiles()));
+
+        // a cursor which only reads its first document closes the merge as well
+        assertNotNull(Iterables.firstOrNull(new BoundedStream<>(0L, 10L, sortedStream)));
+        assertTrue(before.containsAll(runFiles()));
+    }
+
+    @Test
+    public void testFailedSortDeletesRuns() {
+        DocumentSorter documentSorter = new DocumentSorter(null,
+            Collections.singletonList(new Pair<>("score", SortOrder.Ascending)));
+        List<Pair<NitriteId, Document>> records = records(100);
+        Iterable<Pair<NitriteId, Document>> failing = () -> new Iterator<>() {
+            private final Iterator<Pair<NitriteId, Document>> iterator = records.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Pair<NitriteId, Document> next() {
+                if (!iterator.hasNext()) {
+                    throw new IllegalStateException("read failure");
+                }
+                return iterator.next();
+            }
+        };
+
+        Set<String> before = runFiles();
+        try {
+            new ExternalSorter(documentSorter, 10).sort(failing);
+            fail("the failure of the input must surface");
+        } catch (IllegalStateException e) {
+            assertEquals("read failure", e.getMessage());
+        }
+        assertTrue(before.containsAll(runFiles()));
+    }
+
+    private Set<String> runFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir"))
+            .list((dir, name) -> name.startsWith("nitrite-sort-"));
+        return names == null ? Collections.emptySet() : new HashSet<>(Arrays.asList(names));
+    }
+
+    private List<Pair<NitriteId, Document>> records(int count) {
+        Random random = new Random(7);
+        List<Pair<NitriteId, Document>> records = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            Document document = Document.createDocument("name", NAMES[random.nextInt(NAMES.length)])
+                .put("score", random.nextInt(50));
+            records.add(new Pair<>(NitriteId.createId(i), document));
+        }
+        return records;
+    }
+
+    private List<Pair<NitriteId, Document>> toList(Iterator<Pair<NitriteId, Document>> iterator) {
+        List<Pair<NitriteId, Document>> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
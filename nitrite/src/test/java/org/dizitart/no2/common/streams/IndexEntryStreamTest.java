@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.store.NitriteMap;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class IndexEntryStreamTest {
+    private final NitriteId id = NitriteId.newId();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRestoresNumberTypes() {
+        NitriteMap<NitriteId, Document> nitriteMap = mock(NitriteMap.class);
+        Map<String, String> numberTypes = new HashMap<>();
+        numberTypes.put("age", Integer.class.getName());
+        numberTypes.put("score", Long.class.getName());
+
+        Document keys = Document.createDocument("age", 30.0).put("score", 12.0).put("name", "a");
+        IndexEntryStream stream = new IndexEntryStream(entries(keys), nitriteMap,
+            Arrays.asList("age", "score", "name"), numberTypes);
+
+        Document document = stream.iterator().next().getSecond();
+        assertEquals(30, document.get("age"));
+        assertEquals(12L, document.get("score"));
+        assertEquals("a", document.get("name"));
+        verify(nitriteMap, never()).get(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadsDocumentOfUnknownNumberType() {
+        NitriteMap<NitriteId, Document> nitriteMap = mock(NitriteMap.class);
+        Document stored = Document.createDocument("age", 30);
+        when(nitriteMap.get(id)).thenReturn(stored);
+
+        Map<String, String> mixed = Collections.singletonMap("age", Number.class.getName());
+        IndexEntryStream stream = new IndexEntryStream(entries(Document.createDocument("age", 30.0)),
+            nitriteMap, Collections.singletonList("age"), mixed);
+        assertSame(stored, stream.iterator().next().getSecond());
+
+        // an index written before number types were tracked
+        stream = new IndexEntryStream(entries(Document.createDocument("age", 30.0)),
+            nitriteMap, Collections.singletonList("age"), null);
+        assertSame(stored, stream.iterator().next().getSecond());
+        verify(nitriteMap, times(2)).get(id);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadsDocumentOfInexactLong() {
+        NitriteMap<NitriteId, Document> nitriteMap = mock(NitriteMap.class);
+        Document stored = Document.createDocument("score", Long.MAX_VALUE);
+        when(nitriteMap.get(id)).thenReturn(stored);
+
+        IndexEntryStream stream = new IndexEntryStream(
+            entries(Document.createDocument("score", (double) Long.MAX_VALUE)), nitriteMap,
+            Collections.singletonList("score"), Collections.singletonMap("score", Long.class.getName()));
+        assertSame(stored, stream.iterator().next().getSecond());
+    }
+
+    private RecordStream<Pair<NitriteId, Document>> entries(Document keys) {
+        return () -> {
+            Iterator<Pair<NitriteId, Document>> iterator =
+                Collections.singletonList(new Pair<>(id, keys)).iterator();
+            return iterator;
+        };
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.exceptions.ValidationException;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.junit.Assert.*;
+
+public class KeysetTokenTest {
+    private final List<Pair<String, SortOrder>> sortOrder = Arrays.asList(
+        new Pair<>("name", SortOrder.Ascending),
+        new Pair<>("age", SortOrder.Descending),
+        new Pair<>("joined", SortOrder.Ascending),
+        new Pair<>("salary", SortOrder.Ascending),
+        new Pair<>("address.city", SortOrder.Ascending));
+
+    @Test
+    public void testEncodeAndDecode() {
+        Document document = createDocument("name", "John")
+            .put("age", 42)
+            .put("joined", new Date(1000L))
+            .put("salary", new BigDecimal("1234.50"))
+            .put("address", createDocument("city", null));
+        NitriteId nitriteId = NitriteId.createId(12345L);
+
+        String encoded = KeysetToken.of(sortOrder, nitriteId, document).encode();
+        KeysetToken token = KeysetToken.decode(encoded);
+
+        assertTrue(token.matches(sortOrder));
+        assertEquals(Arrays.asList("John", 42, new Date(1000L), new BigDecimal("1234.50"), null),
+            token.getValues());
+        assertEquals(nitriteId, token.getNitriteId());
+        assertEquals(0, token.compareTo(nitriteId, document));
+    }
+
+    @Test
+    public void testCompareTo() {
+        List<Pair<String, SortOrder>> order = Arrays.asList(
+            new Pair<>("name", SortOrder.Ascending), new Pair<>("age", SortOrder.Descending));
+        Document document = createDocument("name", "John").put("age", 42);
+        KeysetToken token = KeysetToken.decode(
+            KeysetToken.of(order, NitriteId.createId(10L), document).encode());
+
+        assertTrue(token.compareTo(NitriteId.createId(11L), document) > 0);
+        assertTrue(token.compareTo(NitriteId.createId(9L), document) < 0);
+        assertTrue(token.compareTo(NitriteId.createId(1L), createDocument("name", "John").put("age", 41L)) > 0);
+        assertTrue(token.compareTo(NitriteId.createId(1L), createDocument("name", "Jane").put("age", 50)) < 0);
+        assertTrue(token.compareTo(NitriteId.createId(1L), createDocument("age", 50)) < 0);
+    }
+
+    @Test(expected = InvalidOperationException.class)
+    public void testUnsupportedValue() {
+        Document document = createDocument("name", new String[]{"a", "b"});
+        KeysetToken.of(Arrays.asList(new Pair<>("name", SortOrder.Ascending)),
+            NitriteId.createId(1L), document).encode();
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testTruncatedToken() {
+        Document document = createDocument("name", "John");
+        String encoded = KeysetToken.of(Arrays.asList(new Pair<>("name", SortOrder.Ascending)),
+            NitriteId.createId(1L), document).encode();
+        KeysetToken.decode(encoded.substring(0, encoded.length() - 4));
+    }
+}
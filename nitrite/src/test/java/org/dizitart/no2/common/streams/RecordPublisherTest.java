@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.common.streams;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.common.processors.ProcessorChain;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.common.util.Iterables;
+import org.dizitart.no2.filters.Filter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class RecordPublisherTest {
+
+    @Test
+    public void testHonorsDemand() {
+        AtomicInteger read = new AtomicInteger();
+        RecordPublisher<Integer> publisher = new RecordPublisher<>(() -> counting(10, read, null), Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        // nothing is read before it is requested
+        assertEquals(0, read.get());
+
+        subscriber.subscription.request(3);
+        assertEquals(3, subscriber.records.size());
+        assertEquals(3, read.get());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(100);
+        assertEquals(10, subscriber.records.size());
+        assertTrue(subscriber.completed);
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void testCancelClosesIterator() {
+        AtomicInteger read = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        RecordPublisher<Integer> publisher = new RecordPublisher<>(() -> counting(10, read, closed), Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        subscriber.subscription.cancel();
+        assertTrue(closed.get());
+
+        subscriber.subscription.request(5);
+        assertEquals(2, subscriber.records.size());
+        assertEquals(2, read.get());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testCancelClosesStoreIteratorOfCursor() {
+        AtomicInteger read = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        RecordStream<Pair<NitriteId, Document>> entries = () -> {
+            Iterator<Integer> store = new CountingIterator(100, read, closed);
+            return new ClosingIterator<>(store, value ->
+                new Pair<>(NitriteId.newId(), Document.createDocument("value", value)));
+        };
+
+        // the streams a find chains for a filtered and bounded collection scan
+        Filter even = entry -> entry.getSecond().get("value", Integer.class) % 2 == 0;
+        RecordPublisher<Document> publisher = new RecordPublisher<>(() -> new DocumentStream(
+            new BoundedStream<>(1L, 20L, new FilteredStream(entries, even)), new ProcessorChain()), Runnable::run);
+        DocumentSubscriber subscriber = new DocumentSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        assertEquals(3, subscriber.documents.size());
+        assertEquals(2, (int) subscriber.documents.get(0).get("value", Integer.class));
+        assertFalse(closed.get());
+
+        subscriber.subscription.cancel();
+        assertTrue(closed.get());
+        assertEquals(7, read.get());
+    }
+
+    @Test
+    public void testInvalidRequest() {
+        RecordPublisher<Integer> publisher = new RecordPublisher<>(
+            () -> counting(10, new AtomicInteger(), null), Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(subscriber.records.isEmpty());
+    }
+
+    @Test
+    public void testStreamFailure() {
+        RecordPublisher<Integer> publisher = new RecordPublisher<>(() -> {
+            throw new IllegalStateException("failed");
+        }, Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testRequestFromOnNextOnExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            RecordPublisher<Integer> publisher = new RecordPublisher<>(
+                () -> counting(1000, new AtomicInteger(), null), executor);
+            CountDownLatch done = new CountDownLatch(1);
+            List<Integer> records = new ArrayList<>();
+
+            publisher.subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onNext(Integer item) {
+                    records.add(item);
+                    subscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(1000, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(i, (int) records.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private RecordStream<Integer> counting(int count, AtomicInteger read, AtomicBoolean closed) {
+        return () -> new CountingIterator(count, read, closed);
+    }
+
+    private static class CountingIterator implements Iterator<Integer>, AutoCloseable {
+        private final int count;
+        private final AtomicInteger read;
+        private final AtomicBoolean closed;
+        private int next;
+
+        CountingIterator(int count, AtomicInteger read, AtomicBoolean closed) {
+            this.count = count;
+            this.read = read;
+            this.closed = closed;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public Integer next() {
+            read.incrementAndGet();
+            return next++;
+        }
+
+        @Override
+        public void close() {
+            if (closed != null) {
+                closed.set(true);
+            }
+        }
+    }
+
+    // a store iterator mapping its values, closed with the store iterator
+    private static class ClosingIterator<T> implements Iterator<T>, AutoCloseable {
+        private final Iterator<Integer> iterator;
+        private final Function<Integer, T> mapper;
+
+        ClosingIterator(Iterator<Integer> iterator, Function<Integer, T> mapper) {
+            this.iterator = iterator;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return mapper.apply(iterator.next());
+        }
+
+        @Override
+        public void close() {
+            Iterables.close(iterator);
+        }
+    }
+
+    private static class DocumentSubscriber implements Flow.Subscriber<Document> {
+        private final List<Document> documents = new ArrayList<>();
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Document item) {
+            documents.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<Integer> {
+        private final List<Integer> records = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            records.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
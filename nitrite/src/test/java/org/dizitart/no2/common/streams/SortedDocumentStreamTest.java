@@ -26,7 +26,9 @@ import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.common.tuples.Pair;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -41,7 +43,7 @@ public class SortedDocumentStreamTest {
         assertTrue(blockingSortOrder instanceof java.util.ArrayList);
         assertEquals("FindPlan(byIdFilter=null, indexScanFilter=null, collectionScanFilter=null, indexDescriptor=null,"
             + " indexScanOrder=null, blockingSortOrder=[], skip=null, limit=null, distinct=false, collator=null, " +
-            "subPlans=[])", findPlan.toString());
+            "sortBufferSize=null, parallelism=null, keysetSortOrder=null, subPlans=[], intersectedPlans=[], covered=false, executionProfile=null, textScores=null)", findPlan.toString());
         assertTrue(blockingSortOrder.isEmpty());
         List<FindPlan> subPlans = findPlan.getSubPlans();
         assertTrue(subPlans instanceof java.util.ArrayList);
@@ -68,5 +70,39 @@ public class SortedDocumentStreamTest {
         verify(recordStream).iterator();
         assertTrue(sortedDocumentStream.toList().isEmpty());
     }
-}
 
+    @Test
+    public void testTopKMatchesFullSort() {
+        List<Pair<NitriteId, Document>> records = new ArrayList<>();
+        Random random = new Random(42);
+        for (long i = 1; i <= 200; i++) {
+            // plenty of ties, so the top-k must also keep the stable input order
+            Document document = Document.createDocument("score", random.nextInt(20));
+            records.add(new Pair<>(NitriteId.createId(i), document));
+        }
+        RecordStream<Pair<NitriteId, Document>> recordStream = RecordStream.fromIterable(records);
+
+        FindPlan sortPlan = new FindPlan();
+        sortPlan.getBlockingSortOrder().add(new Pair<>("score", SortOrder.Descending));
+        List<Pair<NitriteId, Document>> fullSort = new SortedDocumentStream(sortPlan, recordStream).toList();
+
+        FindPlan topKPlan = new FindPlan();
+        topKPlan.getBlockingSortOrder().add(new Pair<>("score", SortOrder.Descending));
+        topKPlan.setSkip(5L);
+        topKPlan.setLimit(10L);
+        List<Pair<NitriteId, Document>> topK = new SortedDocumentStream(topKPlan, recordStream).toList();
+
+        assertEquals(15, topK.size());
+        assertEquals(fullSort.subList(0, 15), topK);
+    }
+
+    @Test
+    public void testTopKWithZeroLimit() {
+        FindPlan findPlan = new FindPlan();
+        findPlan.getBlockingSortOrder().add(new Pair<>("score", SortOrder.Ascending));
+        findPlan.setLimit(0L);
+        RecordStream<Pair<NitriteId, Document>> recordStream = RecordStream.single(
+            new Pair<>(NitriteId.newId(), Document.createDocument("score", 1)));
+        assertTrue(new SortedDocumentStream(findPlan, recordStream).toList().isEmpty());
+    }
+}
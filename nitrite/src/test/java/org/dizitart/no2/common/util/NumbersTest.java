@@ -68,6 +68,15 @@ public class NumbersTest {
                 {Double.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, 0},
                 {Double.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, -1},
                 {Double.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, 0},
+                {-0.0d, 0.0d, 0},
+                {0.0f, -0.0d, 0},
+                {2, 1.5d, 1},
+                {1.5f, 1.5d, 0},
+                {1.1f, 1.1d, 1},
+                {Long.MAX_VALUE, Long.MAX_VALUE - 1, 1},
+                {Long.MIN_VALUE, 0, -1},
+                {(1L << 53) + 1, (double) (1L << 53), 1},
+                {(short) 3, (byte) 3, 0},
         });
     }
 
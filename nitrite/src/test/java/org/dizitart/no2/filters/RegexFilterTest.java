@@ -7,6 +7,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class RegexFilterTest {
     @Test
@@ -46,5 +47,23 @@ public class RegexFilterTest {
         NitriteId first = NitriteId.newId();
         assertFalse(regexFilter.apply(new Pair<>(first, Document.createDocument())));
     }
-}
 
+    @Test
+    public void testLiteralPrefix() {
+        assertEquals("ABC-", new RegexFilter("sku", "^ABC-\\d+").getPrefix());
+        assertEquals("ABC-", new RegexFilter("sku", "\\AABC-").getPrefix());
+        assertEquals("a.b", new RegexFilter("sku", "^a\\.b").getPrefix());
+        assertEquals("a.b*", new RegexFilter("sku", "^\\Qa.b*\\E[0-9]").getPrefix());
+        assertEquals("abc", new RegexFilter("sku", "^abc(x|y)").getPrefix());
+        assertEquals("ab", new RegexFilter("sku", "^abc?d").getPrefix());
+        assertEquals("ab", new RegexFilter("sku", "^abc*").getPrefix());
+        assertEquals("ab", new RegexFilter("sku", "^abc{2}").getPrefix());
+        assertEquals("abc", new RegexFilter("sku", "^abc+d").getPrefix());
+
+        assertNull(new RegexFilter("sku", "abc").getPrefix());
+        assertNull(new RegexFilter("sku", "^abc|xyz").getPrefix());
+        assertNull(new RegexFilter("sku", "^(?i)abc").getPrefix());
+        assertNull(new RegexFilter("sku", "^.abc").getPrefix());
+        assertNull(new RegexFilter("sku", "^a?").getPrefix());
+    }
+}
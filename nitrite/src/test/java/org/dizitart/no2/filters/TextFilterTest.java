@@ -21,6 +21,7 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.FilterException;
+import org.dizitart.no2.index.TextIndexMap;
 import org.dizitart.no2.index.fulltext.EnglishTextTokenizer;
 import org.dizitart.no2.store.memory.InMemoryMap;
 import org.junit.Test;
@@ -58,7 +59,7 @@ public class TextFilterTest {
     public void testApplyOnIndex() {
         TextFilter textFilter = new TextFilter("Field", "42");
         textFilter.setTextTokenizer(new EnglishTextTokenizer());
-        assertTrue(textFilter.applyOnTextIndex(new InMemoryMap<>("Map Name", null)).isEmpty());
+        assertTrue(textFilter.applyOnTextIndex(textIndexMap()).isEmpty());
         assertEquals("42", textFilter.getStringValue());
     }
 
@@ -67,7 +68,7 @@ public class TextFilterTest {
         TextFilter textFilter = new TextFilter("Field", "*");
         textFilter.setTextTokenizer(new EnglishTextTokenizer());
         assertThrows(FilterException.class,
-            () -> textFilter.applyOnTextIndex(new InMemoryMap<>("Map Name", null)));
+            () -> textFilter.applyOnTextIndex(textIndexMap()));
     }
 
     @Test
@@ -86,5 +87,9 @@ public class TextFilterTest {
         assertTrue(result);
 
     }
-}
 
+    private TextIndexMap textIndexMap() {
+        return new TextIndexMap(new InMemoryMap<>("Map Name", null),
+            new InMemoryMap<>("Length Map Name", null), new InMemoryMap<>("Statistics Map Name", null));
+    }
+}
@@ -18,13 +18,25 @@
 package org.dizitart.no2.index;
 
 import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
+import org.dizitart.no2.filters.ComparableFilter;
+import org.dizitart.no2.filters.IndexScanFilter;
+import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.memory.InMemoryStore;
 import org.junit.Test;
 
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
+import static org.dizitart.no2.filters.FluentFilter.where;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -40,9 +52,12 @@ public class CompoundIndexTest {
         CompoundIndex compoundIndex = new CompoundIndex(new IndexDescriptor("Index Type", Fields.withNames("a"), "Collection Name"),
             new InMemoryStore());
         FieldValues fieldValues = new FieldValues();
+        NitriteId nitriteId = NitriteId.createId(1L);
+        fieldValues.setNitriteId(nitriteId);
         fieldValues.getValues().add(Pair.pair("a", 1));
         compoundIndex.write(fieldValues);
-        assertEquals("FieldValues(nitriteId=null, fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
+        assertEquals("FieldValues(nitriteId=" + nitriteId + ", fields=[a], values=[Pair(first=a, second=1)])",
+            fieldValues.toString());
         assertEquals("[a]", fieldValues.getFields().toString());
     }
 
@@ -51,9 +66,12 @@ public class CompoundIndexTest {
         CompoundIndex compoundIndex = new CompoundIndex(new IndexDescriptor("Index Type", Fields.withNames("a"), "Collection Name"),
             new InMemoryStore());
         FieldValues fieldValues = new FieldValues();
+        NitriteId nitriteId = NitriteId.createId(1L);
+        fieldValues.setNitriteId(nitriteId);
         fieldValues.getValues().add(Pair.pair("a", 1));
         compoundIndex.remove(fieldValues);
-        assertEquals("FieldValues(nitriteId=null, fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
+        assertEquals("FieldValues(nitriteId=" + nitriteId + ", fields=[a], values=[Pair(first=a, second=1)])",
+            fieldValues.toString());
         assertEquals("[a]", fieldValues.getFields().toString());
     }
 
@@ -75,7 +93,8 @@ public class CompoundIndexTest {
         IndexDescriptor indexDescriptor = new IndexDescriptor("Index Type", fields, "Collection Name");
         CompoundIndex compoundIndex = new CompoundIndex(indexDescriptor, new InMemoryStore());
         compoundIndex.drop();
-        verify(fields).getEncodedName();
+        // the names of the legacy and the composite-key maps
+        verify(fields, times(2)).getEncodedName();
         assertFalse(compoundIndex.getIndexDescriptor().isCompoundIndex());
     }
 
@@ -85,5 +104,89 @@ public class CompoundIndexTest {
             null);
         assertTrue(compoundIndex.findNitriteIds(new FindPlan()).isEmpty());
     }
-}
 
+    @Test
+    public void testScanCascadesThroughRows() {
+        IndexDescriptor desc = new IndexDescriptor(IndexType.NON_UNIQUE, Fields.withNames("a", "b"), "coll");
+        CompoundIndex compoundIndex = new CompoundIndex(desc, new InMemoryStore());
+        // a in 1..4, b in 1..3, one document per pair
+        long id = 1;
+        for (int a = 1; a <= 4; a++) {
+            for (int b = 1; b <= 3; b++) {
+                compoundIndex.write(fieldValues(id++, a, b));
+            }
+        }
+
+        assertEquals(ids(8, 9, 11, 12), compoundIndex.findNitriteIds(plan(desc,
+            (ComparableFilter) where("a").gte(3), (ComparableFilter) where("b").gt(1))));
+        assertEquals(ids(4, 5, 6), compoundIndex.findNitriteIds(plan(desc, (ComparableFilter) where("a").eq(2))));
+        assertEquals(ids(3, 6, 9, 12), new LinkedHashSet<>(compoundIndex.streamNitriteIds(plan(desc,
+            (ComparableFilter) where("a").gte(1), (ComparableFilter) where("b").eq(3))).toList()));
+        assertEquals(4, compoundIndex.countIndexEntries(plan(desc,
+            (ComparableFilter) where("a").lt(3), (ComparableFilter) where("b").lte(2))));
+
+        compoundIndex.remove(fieldValues(5, 2, 2));
+        assertEquals(ids(4, 6), compoundIndex.findNitriteIds(plan(desc, (ComparableFilter) where("a").eq(2))));
+    }
+
+    @Test(expected = UniqueConstraintException.class)
+    public void testUniqueConstraint() {
+        IndexDescriptor desc = new IndexDescriptor(IndexType.UNIQUE, Fields.withNames("a", "b"), "coll");
+        CompoundIndex compoundIndex = new CompoundIndex(desc, new InMemoryStore());
+        compoundIndex.write(fieldValues(1, 1, 1));
+        compoundIndex.write(fieldValues(2, 1, 2));
+        compoundIndex.write(fieldValues(3, 1, 1));
+    }
+
+    @Test
+    public void testLegacyNestedIndexMigrated() {
+        // a compound index written by an older Nitrite nests a map of the values of
+        // the next field under every value of the first field
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.NON_UNIQUE, Fields.withNames("a", "b"), "coll");
+
+        String legacyName = deriveIndexMapName(desc);
+        NitriteMap<DBValue, NavigableMap<DBValue, ?>> legacy = store.openMap(legacyName,
+            DBValue.class, ConcurrentSkipListMap.class);
+        NavigableMap<DBValue, List<NitriteId>> subMap1 = new ConcurrentSkipListMap<>();
+        subMap1.put(new DBValue("x"), new ArrayList<>(Arrays.asList(NitriteId.createId(1L), NitriteId.createId(2L))));
+        subMap1.put(new DBValue("y"), new ArrayList<>(Collections.singletonList(NitriteId.createId(3L))));
+        NavigableMap<DBValue, List<NitriteId>> subMap2 = new ConcurrentSkipListMap<>();
+        subMap2.put(new DBValue("x"), new ArrayList<>(Collections.singletonList(NitriteId.createId(4L))));
+        legacy.put(new DBValue(1), subMap1);
+        legacy.put(new DBValue(2), subMap2);
+
+        CompoundIndex compoundIndex = new CompoundIndex(desc, store);
+        assertEquals(ids(1, 2, 4), compoundIndex.findNitriteIds(plan(desc,
+            (ComparableFilter) where("a").gte(1), (ComparableFilter) where("b").eq("x"))));
+        assertEquals(ids(3), compoundIndex.findNitriteIds(plan(desc,
+            (ComparableFilter) where("a").eq(1), (ComparableFilter) where("b").eq("y"))));
+
+        assertFalse(store.hasMap(legacyName));
+        assertTrue(store.hasMap(deriveCompositeIndexMapName(desc)));
+    }
+
+    private FieldValues fieldValues(long id, Object a, Object b) {
+        FieldValues fieldValues = new FieldValues();
+        fieldValues.setNitriteId(NitriteId.createId(id));
+        fieldValues.setFields(Fields.withNames("a", "b"));
+        fieldValues.getValues().add(Pair.pair("a", a));
+        fieldValues.getValues().add(Pair.pair("b", b));
+        return fieldValues;
+    }
+
+    private FindPlan plan(IndexDescriptor desc, ComparableFilter... filters) {
+        FindPlan plan = new FindPlan();
+        plan.setIndexDescriptor(desc);
+        plan.setIndexScanFilter(new IndexScanFilter(Arrays.asList(filters)));
+        return plan;
+    }
+
+    private LinkedHashSet<NitriteId> ids(long... ids) {
+        LinkedHashSet<NitriteId> nitriteIds = new LinkedHashSet<>();
+        for (long id : ids) {
+            nitriteIds.add(NitriteId.createId(id));
+        }
+        return nitriteIds;
+    }
+}
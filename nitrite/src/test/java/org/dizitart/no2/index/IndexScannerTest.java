@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.filters.ComparableFilter;
+import org.dizitart.no2.store.NitriteMap;
+import org.dizitart.no2.store.memory.InMemoryStore;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class IndexScannerTest {
+    private NitriteMap<IndexEntryKey, Object> compositeMap;
+
+    @Before
+    public void setUp() {
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor descriptor = new IndexDescriptor(IndexType.NON_UNIQUE,
+            Fields.withNames("age"), "coll");
+        compositeMap = store.openMap(deriveCompositeIndexMapName(descriptor),
+            IndexEntryKey.class, Boolean.class);
+
+        // ages 10, 20, ..., 100 with two documents per age
+        for (int i = 1; i <= 10; i++) {
+            compositeMap.put(new IndexEntryKey(new DBValue(i * 10), NitriteId.createId((long) i)), Boolean.TRUE);
+            compositeMap.put(new IndexEntryKey(new DBValue(i * 10), NitriteId.createId(100L + i)), Boolean.TRUE);
+        }
+    }
+
+    @Test
+    public void testScanMatchesEagerScan() {
+        List<List<ComparableFilter>> cases = Arrays.asList(
+            filters((ComparableFilter) where("age").eq(30)),
+            filters((ComparableFilter) where("age").gt(30)),
+            filters((ComparableFilter) where("age").gte(30)),
+            filters((ComparableFilter) where("age").lt(30)),
+            filters((ComparableFilter) where("age").lte(30)),
+            filters((ComparableFilter) where("age").gte(30), (ComparableFilter) where("age").lt(70)),
+            filters((ComparableFilter) where("age").notEq(30)),
+            filters((ComparableFilter) where("age").notEq(35)),
+            filters((ComparableFilter) where("age").notIn(10, 55, 60, 100))
+        );
+
+        for (List<ComparableFilter> filters : cases) {
+            for (boolean reverse : new boolean[]{false, true}) {
+                Map<String, Boolean> order = Collections.singletonMap("age", reverse);
+                List<NitriteId> eager = new ArrayList<>(scanner().doScan(filters, order));
+                List<NitriteId> lazy = scanner().scan(filters, order).toList();
+                assertEquals(filters + " reverse=" + reverse, eager, lazy);
+            }
+        }
+    }
+
+    @Test
+    public void testScanIsPullBased() {
+        Iterator<NitriteId> iterator = scanner().scan(filters((ComparableFilter) where("age").gte(50)),
+            Collections.emptyMap()).iterator();
+
+        assertTrue(iterator.hasNext());
+        assertEquals(NitriteId.createId(5L), iterator.next());
+
+        // the rest of the index is only read as the consumer asks for it,
+        // so an entry added further along the walk is still seen
+        compositeMap.put(new IndexEntryKey(new DBValue(75), NitriteId.createId(500L)), Boolean.TRUE);
+        List<NitriteId> rest = new ArrayList<>();
+        iterator.forEachRemaining(rest::add);
+        assertTrue(rest.contains(NitriteId.createId(500L)));
+        assertEquals(12, rest.size());
+    }
+
+    @Test
+    public void testScanYieldsMultikeyEntries() {
+        // the same document indexed under two array elements
+        compositeMap.put(new IndexEntryKey(new DBValue(35), NitriteId.createId(1L)), Boolean.TRUE);
+        RecordStream<NitriteId> scan = scanner().scan(filters((ComparableFilter) where("age").lte(40)),
+            Collections.emptyMap());
+
+        // the scan keeps no state per id, the caller de-duplicates a multikey index
+        List<NitriteId> ids = scan.toList();
+        assertEquals(9, ids.size());
+        assertEquals(8, new HashSet<>(ids).size());
+        assertEquals(new ArrayList<>(new LinkedHashSet<>(ids)), RecordStream.distinct(scan).toList());
+    }
+
+    @Test
+    public void testCountEntriesMatchesScan() {
+        // a document without the field is indexed under the null key
+        compositeMap.put(new IndexEntryKey(null, NitriteId.createId(300L)), Boolean.TRUE);
+        List<List<ComparableFilter>> cases = Arrays.asList(
+            filters((ComparableFilter) where("age").eq(30)),
+            filters((ComparableFilter) where("age").eq(35)),
+            filters((ComparableFilter) where("age").eq(null)),
+            filters((ComparableFilter) where("age").gt(30)),
+            filters((ComparableFilter) where("age").gte(30)),
+            filters((ComparableFilter) where("age").lt(30)),
+            filters((ComparableFilter) where("age").lte(30)),
+            filters((ComparableFilter) where("age").gte(30), (ComparableFilter) where("age").lt(70)),
+            filters((ComparableFilter) where("age").gt(30), (ComparableFilter) where("age").lte(30)),
+            filters((ComparableFilter) where("age").notEq(30)),
+            filters((ComparableFilter) where("age").notEq(null)),
+            filters((ComparableFilter) where("age").notIn(10, 55, 60, 100))
+        );
+
+        for (List<ComparableFilter> filters : cases) {
+            long expected = scanner().scan(filters, Collections.emptyMap()).size();
+            assertEquals(filters.toString(), expected, scanner().countEntries(filters));
+        }
+    }
+
+    @Test
+    public void testCountEntriesOfClassicLayout() {
+        InMemoryStore store = new InMemoryStore();
+        NitriteMap<DBValue, List<?>> indexMap = store.openMap("classic", DBValue.class, ArrayList.class);
+        for (int i = 1; i <= 10; i++) {
+            indexMap.put(new DBValue(i * 10), new ArrayList<>(Arrays.asList(
+                NitriteId.createId((long) i), NitriteId.createId(100L + i))));
+        }
+
+        IndexScanner scanner = new IndexScanner(new IndexMap(indexMap));
+        assertEquals(2, scanner.countEntries(filters((ComparableFilter) where("age").eq(30))));
+        assertEquals(14, scanner.countEntries(filters((ComparableFilter) where("age").gt(30))));
+        assertEquals(8, scanner.countEntries(filters((ComparableFilter) where("age").gte(30),
+            (ComparableFilter) where("age").lt(70))));
+        assertEquals(20, scanner.countEntries(Collections.emptyList()));
+    }
+
+    @Test
+    public void testExcludingScanSkipsExcludedKeys() {
+        compositeMap.put(new IndexEntryKey(null, NitriteId.createId(300L)), Boolean.TRUE);
+
+        List<NitriteId> ids = scanner().scan(filters((ComparableFilter) where("age").notIn(20, 30)),
+            Collections.singletonMap("age", true)).toList();
+        assertEquals(17, ids.size());
+        // descending keys, the null key sorts last
+        assertEquals(NitriteId.createId(10L), ids.get(0));
+        assertEquals(NitriteId.createId(300L), ids.get(16));
+        assertFalse(ids.contains(NitriteId.createId(2L)));
+        assertFalse(ids.contains(NitriteId.createId(103L)));
+
+        ids = scanner().scan(filters((ComparableFilter) where("age").notEq(null)),
+            Collections.emptyMap()).toList();
+        assertEquals(20, ids.size());
+        assertFalse(ids.contains(NitriteId.createId(300L)));
+    }
+
+    private IndexScanner scanner() {
+        return new IndexScanner(IndexMap.composite(compositeMap));
+    }
+
+    private static List<ComparableFilter> filters(ComparableFilter... filters) {
+        return Arrays.asList(filters);
+    }
+}
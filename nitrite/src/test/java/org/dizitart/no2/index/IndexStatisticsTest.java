@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.index;
+
+import org.dizitart.no2.common.DBNull;
+import org.dizitart.no2.common.DBValue;
+import org.dizitart.no2.common.tuples.Pair;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IndexStatisticsTest {
+
+    @Test
+    public void testCounts() {
+        List<DBValue> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(new DBValue(i % 100));
+        }
+        keys.add(DBNull.getInstance());
+        Collections.shuffle(keys);
+
+        IndexStatistics statistics = IndexStatistics.create(1001, keys);
+        assertEquals(1001, statistics.getDocumentCount());
+        assertEquals(1001, statistics.getEntryCount());
+        assertEquals(101, statistics.getDistinctKeyCount());
+        assertTrue(statistics.getBucketCount() <= IndexStatistics.MAX_BUCKETS);
+    }
+
+    @Test
+    public void testCreateFromKeyCounts() {
+        List<DBValue> keys = new ArrayList<>();
+        List<Pair<DBValue, Long>> keyCounts = new ArrayList<>();
+        keys.add(DBNull.getInstance());
+        keyCounts.add(new Pair<>(DBNull.getInstance(), 1L));
+        for (int i = 0; i < 200; i++) {
+            long count = i == 42 ? 300 : 1 + i % 7;
+            for (int j = 0; j < count; j++) {
+                keys.add(new DBValue(i));
+            }
+            keyCounts.add(new Pair<>(new DBValue(i), count));
+        }
+
+        IndexStatistics expected = IndexStatistics.create(1000, keys);
+        IndexStatistics statistics = IndexStatistics.create(1000, keys.size(), keyCounts);
+        assertEquals(expected.toString(), statistics.toString());
+        assertEquals(expected.getBucketCount(), statistics.getBucketCount());
+        assertEquals(expected.estimateEquals(42), statistics.estimateEquals(42), 0.0);
+        assertEquals(expected.estimateRange(10, true, 100, false),
+            statistics.estimateRange(10, true, 100, false), 0.0);
+    }
+
+    @Test
+    public void testEqualsEstimate() {
+        List<DBValue> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(new DBValue(i % 100));
+        }
+        // a frequent value gets a bucket of its own
+        for (int i = 0; i < 500; i++) {
+            keys.add(new DBValue(42));
+        }
+
+        IndexStatistics statistics = IndexStatistics.create(1500, keys);
+        assertEquals(510, statistics.estimateEquals(42), 0.0);
+        assertEquals(10, statistics.estimateEquals(7), 5.0);
+        assertEquals(0, statistics.estimateEquals(1000), 0.0);
+        assertEquals(0, statistics.estimateEquals(-1), 0.0);
+        assertEquals(0, statistics.estimateEquals(null), 0.0);
+    }
+
+    @Test
+    public void testRangeEstimate() {
+        List<DBValue> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(new DBValue(i));
+        }
+
+        IndexStatistics statistics = IndexStatistics.create(1000, keys);
+        assertEquals(1000, statistics.estimateRange(null, false, null, false), 0.0);
+        assertEquals(100, statistics.estimateRange(null, false, 100, false), 20.0);
+        assertEquals(250, statistics.estimateRange(750, true, null, false), 20.0);
+        assertEquals(500, statistics.estimateRange(250, true, 750, false), 20.0);
+        assertEquals(0, statistics.estimateRange(2000, true, null, false), 0.0);
+        assertEquals(0, statistics.estimateRange(null, false, -5, true), 0.0);
+    }
+
+    @Test
+    public void testStringRangeEstimate() {
+        List<DBValue> keys = new ArrayList<>();
+        for (char c = 'a'; c <= 'z'; c++) {
+            for (int i = 0; i < 40; i++) {
+                keys.add(new DBValue(c + "-" + i));
+            }
+        }
+
+        IndexStatistics statistics = IndexStatistics.create(keys.size(), keys);
+        double estimate = statistics.estimateRange("m", true, null, false);
+        assertEquals(14 * 40, estimate, 40.0);
+    }
+
+    @Test
+    public void testEmpty() {
+        IndexStatistics statistics = IndexStatistics.create(0, Collections.emptyList());
+        assertEquals(0, statistics.getEntryCount());
+        assertEquals(0, statistics.getBucketCount());
+        assertEquals(0, statistics.estimateEquals("a"), 0.0);
+        assertEquals(0, statistics.estimateRange("a", true, "z", true), 0.0);
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        List<DBValue> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            keys.add(new DBValue("key" + (i % 10)));
+        }
+        IndexStatistics statistics = IndexStatistics.create(100, keys);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(statistics);
+        }
+
+        IndexStatistics copy;
+        try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (IndexStatistics) inputStream.readObject();
+        }
+
+        assertEquals(statistics.getEntryCount(), copy.getEntryCount());
+        assertEquals(statistics.getDistinctKeyCount(), copy.getDistinctKeyCount());
+        assertEquals(statistics.estimateEquals("key3"), copy.estimateEquals("key3"), 0.0);
+    }
+}
@@ -2,6 +2,7 @@ package org.dizitart.no2.index;
 
 import org.dizitart.no2.NitriteConfig;
 import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
 import org.dizitart.no2.common.tuples.Pair;
@@ -95,9 +96,11 @@ public class NitriteTextIndexerTest {
         NitriteConfig nitriteConfig = mock(NitriteConfig.class);
         doReturn(new InMemoryStore()).when(nitriteConfig).getNitriteStore();
         nitriteTextIndexer.dropIndex(indexDescriptor, nitriteConfig);
-        verify(indexDescriptor).getIndexType();
-        verify(indexDescriptor).getFields();
-        verify(indexDescriptor).getCollectionName();
+        // the posting, length, statistics, position and legacy map names, and the
+        // legacy and position map names checked once by the first access
+        verify(indexDescriptor, times(7)).getIndexType();
+        verify(indexDescriptor, times(7)).getFields();
+        verify(indexDescriptor, times(7)).getCollectionName();
         verify(nitriteConfig).getNitriteStore();
     }
 
@@ -105,12 +108,15 @@ public class NitriteTextIndexerTest {
     public void testWriteIndexEntry() {
         NitriteTextIndexer nitriteTextIndexer = new NitriteTextIndexer();
         FieldValues fieldValues = new FieldValues();
+        // a posting is keyed by the word and the id of its document
+        fieldValues.setNitriteId(NitriteId.createId("1"));
         fieldValues.getValues().add(Pair.pair("a", "1"));
         IndexDescriptor indexDescriptor = new IndexDescriptor("Index Type", Fields.withNames("a"), "Collection Name");
         NitriteConfig nitriteConfig = mock(NitriteConfig.class);
         doReturn(new InMemoryStore()).when(nitriteConfig).getNitriteStore();
         nitriteTextIndexer.writeIndexEntry(fieldValues, indexDescriptor, nitriteConfig);
-        assertEquals("FieldValues(nitriteId=null, fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
+        assertEquals("FieldValues(nitriteId=" + fieldValues.getNitriteId()
+            + ", fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
         assertEquals("[a]", fieldValues.getFields().toString());
     }
 
@@ -118,12 +124,15 @@ public class NitriteTextIndexerTest {
     public void testRemoveIndexEntry() {
         NitriteTextIndexer nitriteTextIndexer = new NitriteTextIndexer();
         FieldValues fieldValues = new FieldValues();
+        // a posting is keyed by the word and the id of its document
+        fieldValues.setNitriteId(NitriteId.createId("1"));
         fieldValues.getValues().add(Pair.pair("a", "1"));
         IndexDescriptor indexDescriptor = new IndexDescriptor("Index Type", Fields.withNames("a"), "Collection Name");
         NitriteConfig nitriteConfig = mock(NitriteConfig.class);
         doReturn(new InMemoryStore()).when(nitriteConfig).getNitriteStore();
         nitriteTextIndexer.removeIndexEntry(fieldValues, indexDescriptor, nitriteConfig);
-        assertEquals("FieldValues(nitriteId=null, fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
+        assertEquals("FieldValues(nitriteId=" + fieldValues.getNitriteId()
+            + ", fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
         assertEquals("[a]", fieldValues.getFields().toString());
     }
 
@@ -22,6 +22,7 @@ import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.DBValue;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
+import org.dizitart.no2.exceptions.UniqueConstraintException;
 import org.dizitart.no2.filters.ComparableFilter;
 import org.dizitart.no2.filters.IndexScanFilter;
 import org.dizitart.no2.store.NitriteMap;
@@ -37,6 +38,7 @@ import java.util.List;
 import static org.dizitart.no2.common.tuples.Pair.pair;
 import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
 import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveUniqueIndexMapName;
 import static org.dizitart.no2.filters.FluentFilter.where;
 import static org.junit.Assert.*;
 
@@ -107,5 +109,80 @@ public class SingleFieldIndexTest {
         assertFalse(store.hasMap(legacyName));
         assertTrue(store.hasMap(deriveCompositeIndexMapName(desc)));
     }
-}
 
+    @Test
+    public void testLegacyUniqueIndexMigratedToDirect() {
+        // a unique index written by an older Nitrite stores a list of one id per value,
+        // on first access it must be migrated into the direct value -> id layout
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.UNIQUE,
+                Fields.withNames("firstField"), "coll");
+
+        String legacyName = deriveIndexMapName(desc);
+        NitriteMap<DBValue, List<NitriteId>> legacy = store.openMap(legacyName,
+                DBValue.class, ArrayList.class);
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+        legacy.put(new DBValue("k1"), new ArrayList<>(Collections.singletonList(id1)));
+        legacy.put(new DBValue("k2"), new ArrayList<>(Collections.singletonList(id2)));
+
+        SingleFieldIndex index = new SingleFieldIndex(desc, store);
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id1)), index.findNitriteIds(plan(desc, "k1")));
+
+        assertFalse(store.hasMap(legacyName));
+        NitriteMap<DBValue, NitriteId> unique = store.openMap(deriveUniqueIndexMapName(desc),
+                DBValue.class, NitriteId.class);
+        assertEquals(id2, unique.get(new DBValue("k2")));
+
+        // the migrated keys still enforce the constraint
+        try {
+            index.write(fieldValues(NitriteId.createId(3L), "k2"));
+            fail("expected a unique constraint violation");
+        } catch (UniqueConstraintException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUniqueWriteAndRemove() {
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.UNIQUE,
+                Fields.withNames("firstField"), "coll");
+        SingleFieldIndex index = new SingleFieldIndex(desc, store);
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+
+        index.write(fieldValues(id1, "k"));
+        try {
+            index.write(fieldValues(id2, "k"));
+            fail("expected a unique constraint violation");
+        } catch (UniqueConstraintException expected) {
+            // expected
+        }
+
+        // removing a document which does not own the key keeps the key
+        index.remove(fieldValues(id2, "k"));
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id1)), index.findNitriteIds(plan(desc, "k")));
+
+        index.remove(fieldValues(id1, "k"));
+        assertTrue(index.findNitriteIds(plan(desc, "k")).isEmpty());
+
+        index.write(fieldValues(id2, "k"));
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id2)), index.findNitriteIds(plan(desc, "k")));
+    }
+
+    private FieldValues fieldValues(NitriteId nitriteId, Object value) {
+        FieldValues fieldValues = new FieldValues();
+        fieldValues.setNitriteId(nitriteId);
+        fieldValues.getValues().add(pair("firstField", value));
+        return fieldValues;
+    }
+
+    private FindPlan plan(IndexDescriptor desc, Object value) {
+        FindPlan plan = new FindPlan();
+        plan.setIndexDescriptor(desc);
+        plan.setIndexScanFilter(new IndexScanFilter(Collections.singletonList(
+                (ComparableFilter) where("firstField").eq(value))));
+        return plan;
+    }
+}
@@ -18,14 +18,32 @@
 package org.dizitart.no2.index;
 
 import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.FieldValues;
 import org.dizitart.no2.common.Fields;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.exceptions.IndexingException;
+import org.dizitart.no2.filters.ComparableFilter;
+import org.dizitart.no2.filters.IndexScanFilter;
 import org.dizitart.no2.index.fulltext.EnglishTextTokenizer;
+import org.dizitart.no2.store.NitriteMap;
 import org.dizitart.no2.store.memory.InMemoryStore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.dizitart.no2.common.util.IndexUtils.deriveCompositeIndexMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveIndexMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextLengthMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextPositionMapName;
+import static org.dizitart.no2.common.util.IndexUtils.deriveTextStatisticsMapName;
+import static org.dizitart.no2.filters.FluentFilter.where;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -43,9 +61,10 @@ public class TextIndexTest {
         TextIndex textIndex = new TextIndex(textTokenizer,
                 new IndexDescriptor("Index Type", new Fields(), "Collection Name"), new InMemoryStore());
         FieldValues fieldValues = new FieldValues();
+        fieldValues.setNitriteId(NitriteId.createId(1L));
         fieldValues.getValues().add(Pair.pair("a", "1"));
         textIndex.write(fieldValues);
-        assertEquals("FieldValues(nitriteId=null, fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
+        assertEquals("FieldValues(nitriteId=" + fieldValues.getNitriteId() + ", fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
         assertEquals("[a]", fieldValues.getFields().toString());
     }
 
@@ -55,9 +74,10 @@ public class TextIndexTest {
         TextIndex textIndex = new TextIndex(textTokenizer,
                 new IndexDescriptor("Index Type", new Fields(), "Collection Name"), new InMemoryStore());
         FieldValues fieldValues = new FieldValues();
+        fieldValues.setNitriteId(NitriteId.createId(1L));
         fieldValues.getValues().add(Pair.pair("a", "1"));
         textIndex.remove(fieldValues);
-        assertEquals("FieldValues(nitriteId=null, fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
+        assertEquals("FieldValues(nitriteId=" + fieldValues.getNitriteId() + ", fields=[a], values=[Pair(first=a, second=1)])", fieldValues.toString());
         assertEquals("[a]", fieldValues.getFields().toString());
     }
 
@@ -80,7 +100,7 @@ public class TextIndexTest {
         EnglishTextTokenizer textTokenizer = new EnglishTextTokenizer();
         TextIndex textIndex = new TextIndex(textTokenizer, indexDescriptor, new InMemoryStore());
         textIndex.drop();
-        verify(fields).getEncodedName();
+        verify(fields, times(7)).getEncodedName();
         assertFalse(textIndex.getIndexDescriptor().isCompoundIndex());
     }
 
@@ -91,5 +111,210 @@ public class TextIndexTest {
                 new IndexDescriptor("Index Type", new Fields(), "Collection Name"), null);
         assertTrue(textIndex.findNitriteIds(new FindPlan()).isEmpty());
     }
-}
 
+    @Test
+    public void testPostings() {
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.FULL_TEXT, Fields.withNames("body"), "coll");
+        TextIndex textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store);
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+
+        textIndex.write(fieldValues(id1, "fast delivery"));
+        textIndex.write(fieldValues(id2, "express day delivery"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2)), textIndex.findNitriteIds(plan(desc, "delivery")));
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id2)), textIndex.findNitriteIds(plan(desc, "ex*")));
+
+        textIndex.remove(fieldValues(id1, "fast delivery"));
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id2)), textIndex.findNitriteIds(plan(desc, "delivery")));
+        assertTrue(textIndex.findNitriteIds(plan(desc, "fast")).isEmpty());
+
+        TextIndexMap indexMap = textIndexMap(store, desc);
+        assertEquals(Arrays.asList("day", "delivery", "express"), indexMap.terms(null).toList());
+        assertEquals(Arrays.asList("day", "delivery"), indexMap.terms("d").toList());
+    }
+
+    @Test
+    public void testLegacyTextIndexMigrated() {
+        // a text index written by an older Nitrite stores one list of ids per word,
+        // on first access it must be migrated into posting rows
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.FULL_TEXT, Fields.withNames("body"), "coll");
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+
+        String legacyName = deriveIndexMapName(desc);
+        NitriteMap<String, List<NitriteId>> legacy = store.openMap(legacyName,
+                String.class, CopyOnWriteArrayList.class);
+        legacy.put("delivery", new CopyOnWriteArrayList<>(Arrays.asList(id1, id2)));
+        legacy.put("fast", new CopyOnWriteArrayList<>(Collections.singletonList(id1)));
+
+        TextIndex textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store);
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2)), textIndex.findNitriteIds(plan(desc, "delivery")));
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id1)), textIndex.findNitriteIds(plan(desc, "fast")));
+        assertFalse(store.hasMap(legacyName));
+    }
+
+    @Test
+    public void testRankedByRelevance() {
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.FULL_TEXT, Fields.withNames("body"), "coll");
+        TextIndex textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store);
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+        NitriteId id3 = NitriteId.createId(3L);
+
+        textIndex.write(fieldValues(id1, "delivery express shipping box"));
+        textIndex.write(fieldValues(id2, "delivery delivery delivery fast"));
+        textIndex.write(fieldValues(id3, "express box"));
+
+        TextIndexMap indexMap = textIndexMap(store, desc);
+        assertEquals(3, indexMap.documentCount());
+        assertEquals(10, indexMap.totalLength());
+        assertEquals(4, indexMap.documentLength(id2));
+        assertEquals(2, indexMap.documentFrequency("express"));
+        assertEquals(3, indexMap.postings("delivery").toList().get(1).getFrequency());
+
+        // the more often a rare word occurs in a document, the better it ranks
+        FindPlan plan = plan(desc, "delivery fast");
+        assertEquals(Arrays.asList(id2, id1), new ArrayList<>(textIndex.findNitriteIds(plan)));
+        Map<NitriteId, Double> scores = plan.getTextScores();
+        assertTrue(scores.get(id2) > scores.get(id1));
+
+        // a limit keeps the best ranked ids only
+        plan = plan(desc, "delivery box");
+        plan.setLimit(1L);
+        LinkedHashSet<NitriteId> ids = textIndex.findNitriteIds(plan);
+        assertEquals(1, ids.size());
+        assertEquals(1, plan.getTextScores().size());
+        assertEquals(id1, ids.iterator().next());
+
+        // a removed document no longer counts in the statistics
+        textIndex.remove(fieldValues(id2, "delivery delivery delivery fast"));
+        assertEquals(2, indexMap.documentCount());
+        assertEquals(6, indexMap.totalLength());
+        assertEquals(Collections.singletonList(id1), new ArrayList<>(textIndex.findNitriteIds(plan(desc, "delivery"))));
+    }
+
+    @Test
+    public void testPhraseAndProximityByPositions() {
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.FULL_TEXT, Fields.withNames("body"), "coll");
+        TextIndex textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store, true);
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+        NitriteId id3 = NitriteId.createId(3L);
+        NitriteId id4 = NitriteId.createId(4L);
+
+        textIndex.write(fieldValues(id1, "Next day delivery"));
+        textIndex.write(fieldValues(id2, "delivery day express"));
+        textIndex.write(fieldValues(id3, "day after delivery"));
+        textIndex.write(fieldValues(id4, new String[]{"fast day", "delivery box"}));
+
+        // a stop-word is not indexed, but keeps its position
+        TextIndexMap indexMap = new TextIndexMap(
+                store.openMap(deriveCompositeIndexMapName(desc), IndexEntryKey.class, Integer.class),
+                store.openMap(deriveTextLengthMapName(desc), NitriteId.class, Integer.class),
+                store.openMap(deriveTextStatisticsMapName(desc), String.class, Long.class),
+                store.openMap(deriveTextPositionMapName(desc), IndexEntryKey.class, int[].class));
+        assertArrayEquals(new int[]{1}, indexMap.positions("day", id1));
+        assertArrayEquals(new int[]{2}, indexMap.positions("delivery", id3));
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2, id3, id4)),
+                new LinkedHashSet<>(textIndex.findNitriteIds(plan(desc, "day delivery"))));
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id1)),
+                textIndex.findNitriteIds(plan(desc, "\"next day delivery\"")));
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id3)),
+                textIndex.findNitriteIds(plan(desc, "\"day after delivery\"")));
+
+        // a phrase never spans two elements of an array
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id4)),
+                textIndex.findNitriteIds(plan(desc, "\"fast day\"")));
+        assertTrue(textIndex.findNitriteIds(plan(desc, "\"day delivery box\"")).isEmpty());
+
+        assertEquals(new LinkedHashSet<>(Collections.singletonList(id2)),
+                textIndex.findNitriteIds(plan(desc, "day NEAR/1 express")));
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2)),
+                new LinkedHashSet<>(textIndex.findNitriteIds(plan(desc, "day NEAR/1 delivery"))));
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2, id3)),
+                new LinkedHashSet<>(textIndex.findNitriteIds(plan(desc, "delivery NEAR/2 day"))));
+
+        textIndex.remove(fieldValues(id1, "Next day delivery"));
+        assertNull(indexMap.positions("day", id1));
+        assertTrue(textIndex.findNitriteIds(plan(desc, "\"next day delivery\"")).isEmpty());
+    }
+
+    @Test
+    public void testPhraseWithoutPositions() {
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.FULL_TEXT, Fields.withNames("body"), "coll");
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+        NitriteId id3 = NitriteId.createId(3L);
+
+        TextIndex textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store, true);
+        textIndex.write(fieldValues(id1, "Next day delivery"));
+        textIndex.write(fieldValues(id2, "day after delivery"));
+        assertTrue(store.hasMap(deriveTextPositionMapName(desc)));
+
+        // without positions a phrase is searched by its words, the positions are kept
+        textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store);
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2)),
+                new LinkedHashSet<>(textIndex.findNitriteIds(plan(desc, "\"next day delivery\""))));
+        assertTrue(store.hasMap(deriveTextPositionMapName(desc)));
+        assertEquals(Collections.singleton(id1),
+                new LinkedHashSet<>(new TextIndex(new EnglishTextTokenizer(), desc, store, true)
+                        .findNitriteIds(plan(desc, "\"next day delivery\""))));
+
+        // a document indexed without positions leaves them incomplete until a rebuild
+        textIndex.write(fieldValues(id3, "delivery next day"));
+        textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store, true);
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2, id3)),
+                new LinkedHashSet<>(textIndex.findNitriteIds(plan(desc, "\"next day delivery\""))));
+
+        textIndex.drop();
+        textIndex.write(fieldValues(id1, "Next day delivery"));
+        textIndex.write(fieldValues(id3, "delivery next day"));
+        assertEquals(Collections.singleton(id1),
+                new LinkedHashSet<>(textIndex.findNitriteIds(plan(desc, "\"next day delivery\""))));
+    }
+
+    @Test
+    public void testPositionsEnabledOnExistingIndex() {
+        InMemoryStore store = new InMemoryStore();
+        IndexDescriptor desc = new IndexDescriptor(IndexType.FULL_TEXT, Fields.withNames("body"), "coll");
+        NitriteId id1 = NitriteId.createId(1L);
+        NitriteId id2 = NitriteId.createId(2L);
+
+        TextIndex textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store);
+        textIndex.write(fieldValues(id1, "day after delivery"));
+
+        // the document indexed before positions were enabled is still found by its words
+        textIndex = new TextIndex(new EnglishTextTokenizer(), desc, store, true);
+        textIndex.write(fieldValues(id2, "next day delivery"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList(id1, id2)),
+                new LinkedHashSet<>(textIndex.findNitriteIds(plan(desc, "\"day delivery\""))));
+    }
+
+    private TextIndexMap textIndexMap(InMemoryStore store, IndexDescriptor desc) {
+        return new TextIndexMap(
+                store.openMap(deriveCompositeIndexMapName(desc), IndexEntryKey.class, Integer.class),
+                store.openMap(deriveTextLengthMapName(desc), NitriteId.class, Integer.class),
+                store.openMap(deriveTextStatisticsMapName(desc), String.class, Long.class));
+    }
+
+    private FieldValues fieldValues(NitriteId nitriteId, Object value) {
+        FieldValues fieldValues = new FieldValues();
+        fieldValues.setNitriteId(nitriteId);
+        fieldValues.getValues().add(Pair.pair("body", value));
+        return fieldValues;
+    }
+
+    private FindPlan plan(IndexDescriptor desc, String value) {
+        FindPlan plan = new FindPlan();
+        plan.setIndexDescriptor(desc);
+        plan.setIndexScanFilter(new IndexScanFilter(Collections.singletonList(
+                (ComparableFilter) where("body").text(value))));
+        return plan;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.integration.collection;
+
+import org.dizitart.no2.collection.Accumulators;
+import org.dizitart.no2.collection.Aggregation;
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class AggregationTest extends BaseCollectionTest {
+
+    @Test
+    public void testAggregateWithoutIndex() {
+        insertOrders();
+
+        Aggregation aggregation = collection.aggregate();
+        assertEquals(100, aggregation.count());
+        assertEquals(4950L, aggregation.sum("amount"));
+        assertEquals(49.5, aggregation.average("amount"), 0.0);
+        assertEquals(0, aggregation.min("amount"));
+        assertEquals(99, aggregation.max("amount"));
+
+        Map<Object, Long> counts = aggregation.countBy("tenant");
+        assertEquals(3, counts.size());
+        assertEquals(34L, (long) counts.get("t0"));
+        assertEquals(33L, (long) counts.get("t1"));
+        assertEquals(33L, (long) counts.get("t2"));
+    }
+
+    @Test
+    public void testAggregateWithIndex() {
+        insertOrders();
+        Aggregation scan = collection.aggregate(where("amount").gte(10).and(where("amount").lt(20)));
+        Object min = scan.min("amount");
+        Object max = scan.max("amount");
+        Map<Object, Long> counts = scan.countBy("amount");
+
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "amount");
+        Aggregation indexed = collection.aggregate(where("amount").gte(10).and(where("amount").lt(20)));
+        assertEquals(10, indexed.count());
+        assertEquals(min, indexed.min("amount"));
+        assertEquals(max, indexed.max("amount"));
+        assertEquals(counts, indexed.countBy("amount"));
+
+        // the typed value is read from the document, not from the index key
+        assertEquals(Integer.class, indexed.min("amount").getClass());
+        assertEquals(10, indexed.min("amount"));
+        assertEquals(19, indexed.max("amount"));
+    }
+
+    @Test
+    public void testCountByIndex() {
+        insertOrders();
+        collection.insert(createDocument("amount", 100));
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenant");
+
+        Map<Object, Long> counts = collection.aggregate().countBy("tenant");
+        assertEquals(4, counts.size());
+        assertEquals(1L, (long) counts.get(null));
+        assertEquals(34L, (long) counts.get("t0"));
+        assertEquals(33L, (long) counts.get("t1"));
+        assertEquals(33L, (long) counts.get("t2"));
+
+        assertEquals("t0", collection.aggregate().min("tenant"));
+        assertEquals("t2", collection.aggregate().max("tenant"));
+        assertEquals(34L, (long) collection.aggregate(where("tenant").eq("t0")).countBy("tenant").get("t0"));
+    }
+
+    @Test
+    public void testMultiValuedIndex() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tags");
+        collection.insert(createDocument("tags", new String[]{"a", "b"}));
+        collection.insert(createDocument("tags", new String[]{"b", "c"}));
+
+        // the keys of an array field do not describe the documents, the documents are streamed
+        Map<Object, Long> counts = collection.aggregate().countBy("tags");
+        assertEquals(2, counts.size());
+    }
+
+    @Test
+    public void testGroupBy() {
+        insertOrders();
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenant");
+
+        Map<Object, Number> sums = collection.aggregate(where("amount").lt(6))
+            .groupBy("tenant", Accumulators.sum("amount"));
+        assertEquals(3, sums.size());
+        assertEquals(3L, sums.get("t0"));
+        assertEquals(5L, sums.get("t1"));
+        assertEquals(7L, sums.get("t2"));
+
+        Map<Object, Double> averages = collection.aggregate()
+            .groupBy("tenant", Accumulators.average("amount"));
+        assertEquals(49.5, averages.get("t0"), 0.0);
+    }
+
+    @Test
+    public void testNumericGroups() {
+        collection.insert(createDocument("value", 1).put("amount", 1.5));
+        collection.insert(createDocument("value", 1L).put("amount", 2));
+        collection.insert(createDocument("value", 2.0));
+
+        Map<Object, Number> sums = collection.aggregate().groupBy("value", Accumulators.sum("amount"));
+        assertEquals(2, sums.size());
+        assertEquals(3.5, sums.get(1));
+        assertEquals(0L, sums.get(2.0));
+    }
+
+    @Test
+    public void testEmptyAggregation() {
+        Aggregation aggregation = collection.aggregate(where("amount").gt(10));
+        assertEquals(0, aggregation.count());
+        assertEquals(0L, aggregation.sum("amount"));
+        assertNull(aggregation.average("amount"));
+        assertNull(aggregation.min("amount"));
+        assertNull(aggregation.max("amount"));
+        assertTrue(aggregation.countBy("amount").isEmpty());
+    }
+
+    @Test
+    public void testAggregationDoesNotModifyDocuments() {
+        insertOrders();
+        collection.aggregate().groupBy("tenant", Accumulators.max("amount"));
+        Document document = collection.find(where("amount").eq(5)).firstOrNull();
+        assertEquals("t2", document.get("tenant"));
+        assertEquals(5, (int) document.get("amount", Integer.class));
+    }
+}
@@ -120,4 +120,17 @@ public abstract class BaseCollectionTest {
     protected WriteResult insert() {
         return collection.insert(doc1, doc2, doc3);
     }
+
+    protected void insertOrders() {
+        insertOrders(100);
+    }
+
+    protected void insertOrders(int count) {
+        for (int i = 0; i < count; i++) {
+            collection.insert(createDocument("tenant", "t" + (i % 3))
+                    .put("amount", i)
+                    .put("group", i % 5)
+                    .put("note", "n" + (i % 2)));
+        }
+    }
 }
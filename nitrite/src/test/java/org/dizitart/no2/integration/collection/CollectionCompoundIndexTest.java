@@ -321,4 +321,23 @@ public class CollectionCompoundIndexTest extends BaseCollectionTest {
 
         assertEquals(collection.find(where("third").eq(null)).size(), 2);
     }
+
+    @Test
+    public void testUpdateAndClearWithUniqueIndex() {
+        collection.createIndex(indexOptions(IndexType.UNIQUE), "city", "zip");
+        collection.insert(createDocument("city", "a").put("zip", 1));
+        collection.insert(createDocument("city", "a").put("zip", 2));
+
+        // moving a document frees its old key
+        collection.update(where("zip").eq(2), createDocument("zip", 3));
+        collection.insert(createDocument("city", "a").put("zip", 2));
+        assertEquals(3, collection.find(where("city").eq("a")).size());
+        assertEquals(2, collection.find(and(where("city").eq("a"), where("zip").gte(2))).size());
+
+        // the index rows are cleared with the documents
+        collection.clear();
+        collection.insert(createDocument("city", "a").put("zip", 1));
+        assertEquals(1, collection.find(and(where("city").eq("a"), where("zip").eq(1))).size());
+        assertEquals(0, collection.find(and(where("city").eq("a"), where("zip").eq(3))).size());
+    }
 }
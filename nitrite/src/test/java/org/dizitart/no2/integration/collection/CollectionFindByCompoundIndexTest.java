@@ -21,6 +21,7 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.FindOptions;
 import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.collection.NitriteCollection;
 import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.common.tuples.Pair;
 import org.dizitart.no2.filters.AndFilter;
@@ -29,6 +30,7 @@ import org.dizitart.no2.index.IndexType;
 import org.junit.Test;
 
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.dizitart.no2.collection.Document.createDocument;
@@ -568,4 +570,75 @@ public class CollectionFindByCompoundIndexTest extends BaseCollectionTest {
         // reverse scan
         assertTrue(findPlan.getIndexScanOrder().get("birthDay"));
     }
+
+    @Test
+    public void testCoveredProjection() {
+        NitriteCollection coll = db.getCollection("covered");
+        for (int i = 0; i < 100; i++) {
+            coll.insert(createDocument("a", i % 5).put("b", i).put("c", "c" + i).put("d", i * 2));
+        }
+        // a null key is either a missing field or an explicit null
+        coll.insert(createDocument("a", 1).put("b", 1000));
+        coll.insert(createDocument("a", 1).put("b", 1001).put("c", null));
+        coll.createIndex(indexOptions(IndexType.NON_UNIQUE), "a", "b", "c");
+
+        Document projection = createDocument("a", null).put("b", null).put("c", null);
+        DocumentCursor cursor = coll.find(and(where("a").eq(1), where("b").gt(2)));
+        assertTrue(cursor.getFindPlan().isCovered());
+
+        List<Document> projected = cursor.project(projection).toList();
+        assertEquals(expectedProjection(cursor, projection), projected);
+        assertEquals(21, projected.size());
+        assertFalse(projected.get(19).containsKey("c"));
+        assertTrue(projected.get(20).containsKey("c"));
+        assertNull(projected.get(20).get("c"));
+
+        // sorted on an index field, in reverse
+        cursor = coll.find(where("a").eq(1), orderBy("b", SortOrder.Descending));
+        assertTrue(cursor.getFindPlan().isCovered());
+        projected = cursor.project(createDocument("b", null)).toList();
+        assertEquals(expectedProjection(cursor, createDocument("b", null)), projected);
+        assertEquals(1001, projected.get(0).get("b"));
+
+        // a field outside the index is read from the documents
+        projected = cursor.project(createDocument("b", null).put("d", null)).toList();
+        assertEquals(expectedProjection(cursor, createDocument("b", null).put("d", null)), projected);
+        assertEquals(12, projected.get(projected.size() - 2).get("d"));
+
+        // not covered once an indexed field holds an array
+        coll.insert(createDocument("a", new Integer[]{1, 2}).put("b", 5).put("c", "c5"));
+        cursor = coll.find(and(where("a").eq(1), where("b").gt(2)));
+        assertFalse(cursor.getFindPlan().isCovered());
+        projected = cursor.project(projection).toList();
+        assertEquals(expectedProjection(cursor, projection), projected);
+        assertEquals(22, projected.size());
+
+        // a rebuild starts over
+        coll.remove(where("a").eq(2).and(where("b").eq(5)));
+        coll.rebuildIndex("a", "b", "c");
+        assertTrue(coll.find(and(where("a").eq(1), where("b").gt(2))).getFindPlan().isCovered());
+
+        // numbers of different types in a field are read from the documents
+        coll.insert(createDocument("a", 1).put("b", 2000L).put("c", "c2000"));
+        cursor = coll.find(and(where("a").eq(1), where("b").gt(2)));
+        assertTrue(cursor.getFindPlan().isCovered());
+        projected = cursor.project(projection).toList();
+        assertEquals(expectedProjection(cursor, projection), projected);
+        assertEquals(2000L, projected.get(projected.size() - 1).get("b"));
+        assertEquals(1001, projected.get(projected.size() - 2).get("b"));
+    }
+
+    private List<Document> expectedProjection(DocumentCursor cursor, Document projection) {
+        List<Document> expected = new ArrayList<>();
+        for (Document document : cursor) {
+            Document projected = createDocument();
+            for (String field : projection.getFields()) {
+                if (document.containsField(field)) {
+                    projected.put(field, document.get(field));
+                }
+            }
+            expected.add(projected);
+        }
+        return expected;
+    }
 }
@@ -22,6 +22,7 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.DocumentCursor;
 import org.dizitart.no2.collection.FindPlan;
 import org.dizitart.no2.collection.NitriteCollection;
+import org.dizitart.no2.collection.NitriteId;
 import org.dizitart.no2.common.SortOrder;
 import org.dizitart.no2.exceptions.FilterException;
 import org.dizitart.no2.index.IndexOptions;
@@ -32,9 +33,12 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import static org.dizitart.no2.integration.TestUtil.isSorted;
+import static org.dizitart.no2.collection.FindOptions.limitBy;
 import static org.dizitart.no2.collection.FindOptions.orderBy;
 import static org.dizitart.no2.filters.Filter.and;
 import static org.dizitart.no2.filters.Filter.or;
@@ -214,6 +218,41 @@ public class CollectionFindBySingleFieldIndexTest extends BaseCollectionTest {
             where("age").between(30, 50, true).and(where("age").gt(40))).size()); // ages 41..=50
     }
 
+    @Test
+    public void testIndexIntersectionMatchesFullScan() {
+        NitriteCollection coll = db.getCollection("intersection");
+        for (int i = 0; i < 200; i++) {
+            coll.insert(Document.createDocument("tenantId", "t" + (i % 4)).put("createdAt", i));
+        }
+
+        // ground truth from an unindexed full scan: 50..=150 of tenant t2
+        assertEquals(26, coll.find(and(where("tenantId").eq("t2"),
+            where("createdAt").gte(50), where("createdAt").lte(150))).size());
+
+        coll.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenantId");
+        coll.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "createdAt");
+
+        DocumentCursor cursor = coll.find(and(where("tenantId").eq("t2"),
+            where("createdAt").gte(50), where("createdAt").lte(150)));
+        FindPlan plan = cursor.getFindPlan();
+        assertEquals(1, plan.getIntersectedPlans().size());
+        assertNull(plan.getCollectionScanFilter());
+        assertEquals(26, cursor.size());
+
+        List<Integer> createdAt = new ArrayList<>();
+        for (Document doc : cursor) {
+            assertEquals("t2", doc.get("tenantId"));
+            createdAt.add(doc.get("createdAt", Integer.class));
+        }
+        createdAt.sort(null);
+        assertEquals(50, (int) createdAt.get(0));
+        assertEquals(150, (int) createdAt.get(createdAt.size() - 1));
+
+        // an empty side short-circuits the whole intersection
+        assertEquals(0, coll.find(and(where("tenantId").eq("t9"),
+            where("createdAt").gte(50), where("createdAt").lte(150))).size());
+    }
+
     @Test
     public void testCompoundIndexTerminalRangeMatchesFullScan() {
         // A compound index `[folder, date]` queried with an equality prefix and a range on the
@@ -430,6 +469,33 @@ public class CollectionFindBySingleFieldIndexTest extends BaseCollectionTest {
         }
     }
 
+    @Test
+    public void testFindByFullTextIndexRanked() {
+        NitriteCollection collection = db.getCollection("testFindByFullTextIndexRanked");
+        Document doc1 = Document.createDocument("body", "delivery of books and magazines");
+        Document doc2 = Document.createDocument("body", "fast delivery delivery delivery");
+        Document doc3 = Document.createDocument("body", "express shipping");
+        collection.createIndex(IndexOptions.indexOptions(IndexType.FULL_TEXT), "body");
+        collection.insert(doc1, doc2, doc3);
+
+        // the document mentioning the word most often ranks first
+        DocumentCursor cursor = collection.find(where("body").text("delivery"));
+        List<Document> documents = cursor.toList();
+        assertEquals(2, documents.size());
+        assertEquals("fast delivery delivery delivery", documents.get(0).get("body"));
+
+        Map<NitriteId, Double> scores = cursor.getFindPlan().getTextScores();
+        assertEquals(2, scores.size());
+        assertTrue(scores.get(documents.get(0).getId()) > scores.get(documents.get(1).getId()));
+
+        // a limit keeps the best ranked documents only
+        cursor = collection.find(where("body").text("delivery"), limitBy(1));
+        documents = cursor.toList();
+        assertEquals(1, documents.size());
+        assertEquals("fast delivery delivery delivery", documents.get(0).get("body"));
+        assertEquals(1, cursor.getFindPlan().getTextScores().size());
+    }
+
     @Test
     public void testFindByIndexSortAscending() {
         insert();
@@ -1095,4 +1161,84 @@ public class CollectionFindBySingleFieldIndexTest extends BaseCollectionTest {
         assertEquals(1, coll.find(where("tag").eq("a")).size());
         assertEquals(1, coll.find(where("tag").eq("c")).size());
     }
+
+    @Test
+    public void testNotEqualsAndNotInScanAroundExcludedKeys() {
+        NitriteCollection coll = db.getCollection("not_equals_ranges");
+        for (int v = 0; v < 10; v++) {
+            for (int dup = 0; dup < 3; dup++) {
+                coll.insert(Document.createDocument("v", v).put("dup", dup));
+            }
+        }
+        coll.insert(Document.createDocument("v", null).put("dup", 0));
+        coll.insert(Document.createDocument("dup", 1));
+
+        for (String indexType : Arrays.asList(IndexType.NON_UNIQUE, IndexType.UNIQUE)) {
+            if (IndexType.UNIQUE.equals(indexType)) {
+                coll.remove(where("dup").gt(0));
+                coll.createIndex(IndexOptions.indexOptions(IndexType.UNIQUE), "v");
+            } else {
+                coll.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "v");
+            }
+            int perKey = IndexType.UNIQUE.equals(indexType) ? 1 : 3;
+
+            // the null key matches a not equals of a value, but not a not equals of null
+            DocumentCursor cursor = coll.find(where("v").notEq(4));
+            assertNotNull(cursor.getFindPlan().getIndexScanFilter());
+            assertNull(cursor.getFindPlan().getCollectionScanFilter());
+            assertEquals(9 * perKey + (perKey == 1 ? 1 : 2), cursor.size());
+            assertEquals(10 * perKey, coll.find(where("v").notEq(null)).size());
+
+            // the excluded keys may be absent from the index
+            assertEquals(7 * perKey, coll.find(where("v").notIn(0, 5, 9, 42)
+                .and(where("v").notEq(null))).size());
+
+            // the ranges are walked in reverse for a descending sort
+            List<Integer> values = new ArrayList<>();
+            for (Document document : coll.find(where("v").notIn(3, 7),
+                orderBy("v", SortOrder.Descending))) {
+                values.add(document.get("v", Integer.class));
+            }
+            assertEquals(8 * perKey + (perKey == 1 ? 1 : 2), values.size());
+            assertEquals(9, (int) values.get(0));
+            assertFalse(values.contains(3));
+            assertFalse(values.contains(7));
+            for (int i = 1; i < values.size() && values.get(i) != null; i++) {
+                assertTrue(values.get(i - 1) >= values.get(i));
+            }
+
+            assertEquals(9 * perKey, coll.aggregate(where("v").notEq(5)).countBy("v").entrySet().stream()
+                .filter(entry -> entry.getKey() != null).mapToLong(entry -> entry.getValue()).sum());
+            coll.dropIndex("v");
+        }
+    }
+
+    @Test
+    public void testFindByAnchoredRegex() {
+        NitriteCollection coll = db.getCollection("anchored_regex");
+        for (int i = 0; i < 30; i++) {
+            coll.insert(Document.createDocument("sku", (i % 3 == 0 ? "ABC-" : "ABD-") + i));
+        }
+        coll.insert(Document.createDocument("sku", "ABC"));
+        coll.insert(Document.createDocument("sku", "ABC-x"));
+        coll.insert(Document.createDocument("sku", null));
+
+        List<Document> expected = coll.find(where("sku").regex("^ABC-\\d+$")).toList();
+        assertEquals(10, expected.size());
+
+        coll.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "sku");
+        DocumentCursor cursor = coll.find(where("sku").regex("^ABC-\\d+$"));
+        assertNotNull(cursor.getFindPlan().getIndexDescriptor());
+        assertNotNull(cursor.getFindPlan().getCollectionScanFilter());
+        assertEquals(10, cursor.size());
+        assertEquals(new HashSet<>(expected), new HashSet<>(cursor.toList()));
+
+        // an empty range and an unanchored regex
+        assertEquals(0, coll.find(where("sku").regex("^XYZ")).size());
+        assertEquals(1, coll.find(where("sku").regex("C-x")).size());
+
+        // a plan with a prefix range is not shared with another prefix
+        assertEquals(20, coll.find(where("sku").regex("^ABD-")).size());
+        assertEquals(12, coll.find(where("sku").regex("^ABC")).size());
+    }
 }
@@ -33,6 +33,9 @@ import org.junit.Test;
 import java.text.Collator;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.dizitart.no2.collection.Document.createDocument;
@@ -880,4 +883,47 @@ public class CollectionFindTest extends BaseCollectionTest {
         assertFalse(idIter.hasNext());
         assertEquals(cursor.size(), 0);
     }
+
+    @Test
+    public void testFindAsync() throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            collection.insert(createDocument("n", i));
+        }
+
+        List<Document> documents = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(1);
+        collection.findAsync(where("n").gte(10), orderBy("n", SortOrder.Descending))
+            .subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription subscription;
+                private int received;
+
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(5);
+                }
+
+                @Override
+                public void onNext(Document item) {
+                    documents.add(item);
+                    if (++received % 5 == 0) {
+                        subscription.request(5);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    done.countDown();
+                }
+            });
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(collection.find(where("n").gte(10), orderBy("n", SortOrder.Descending)).toList(),
+            documents);
+    }
 }
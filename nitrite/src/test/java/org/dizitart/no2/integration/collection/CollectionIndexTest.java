@@ -240,4 +240,27 @@ public class CollectionIndexTest extends BaseCollectionTest {
         collection.createIndex(indexOptions(IndexType.NON_UNIQUE), "third");
         assertEquals(collection.find(where("third").eq(null)).size(), 2);
     }
+
+    @Test
+    public void testAnalyzeWalksIndexes() {
+        NitriteCollection collection = db.getCollection("orders-to-analyze");
+        for (int i = 0; i < 1000; i++) {
+            collection.insert(createDocument("status", i < 900 ? "ACTIVE" : "CLOSED")
+                .put("customerId", i / 2)
+                .put("tags", new String[]{"t" + (i % 3), "t" + (i % 5)}));
+        }
+        collection.createIndex(indexOptions(IndexType.NON_UNIQUE), "status");
+        collection.createIndex(indexOptions(IndexType.NON_UNIQUE), "customerId");
+        collection.createIndex(indexOptions(IndexType.NON_UNIQUE), "tags");
+        collection.createIndex(indexOptions(IndexType.FULL_TEXT), "note");
+        collection.analyze();
+
+        // the selective index wins, a filter selecting most documents scans the collection
+        DocumentCursor cursor = collection.find(Filter.and(where("status").eq("ACTIVE"),
+            where("customerId").eq(42)));
+        assertEquals(2, cursor.size());
+        assertEquals("[customerId]", cursor.getFindPlan().getIndexDescriptor().getFields().toString());
+        assertNull(collection.find(where("status").eq("ACTIVE")).getFindPlan().getIndexDescriptor());
+        assertEquals(100, collection.find(where("status").eq("CLOSED")).size());
+    }
 }
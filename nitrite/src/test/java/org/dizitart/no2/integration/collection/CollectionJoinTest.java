@@ -22,13 +22,18 @@ import org.dizitart.no2.collection.Document;
 import org.dizitart.no2.collection.NitriteCollection;
 import org.dizitart.no2.common.Lookup;
 import org.dizitart.no2.common.RecordStream;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import static org.dizitart.no2.collection.Document.createDocument;
 import static org.dizitart.no2.filters.Filter.ALL;
+import static org.dizitart.no2.filters.FluentFilter.where;
 import static org.junit.Assert.*;
 
 /**
@@ -102,4 +107,70 @@ public class CollectionJoinTest extends BaseCollectionTest {
             }
         }
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJoinWithForeignIndex() {
+        insert();
+        foreignCollection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "fName");
+
+        Lookup lookup = new Lookup();
+        lookup.setLocalField("firstName");
+        lookup.setForeignField("fName");
+        lookup.setTargetField("personalDetails");
+
+        // the filter of the foreign cursor still applies to the probed documents
+        RecordStream<Document> result = collection.find().join(
+            foreignCollection.find(where("address").notEq("XYZ Street")), lookup);
+        assertEquals(3, result.size());
+
+        for (Document document : result) {
+            Collection<Document> personalDetails = (Collection<Document>) document.get("personalDetails");
+            if ("fn3".equals(document.get("firstName"))) {
+                assertNull(personalDetails);
+            } else {
+                assertNotNull(personalDetails);
+                assertEquals(1, personalDetails.size());
+                Document details = personalDetails.iterator().next();
+                assertEquals("fn1".equals(document.get("firstName")) ? "123456789" : "7893141321",
+                    details.get("telephone"));
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJoinNumericKeys() {
+        NitriteCollection orders = db.getCollection("orders");
+        NitriteCollection customers = db.getCollection("customers");
+        for (int i = 0; i < 50; i++) {
+            orders.insert(createDocument("order", i).put("customer", i % 10));
+        }
+        for (long i = 0; i < 5; i++) {
+            customers.insert(createDocument("id", i).put("name", "c" + i));
+        }
+
+        Lookup lookup = new Lookup();
+        lookup.setLocalField("customer");
+        lookup.setForeignField("id");
+        lookup.setTargetField("customers");
+
+        List<Document> hashJoined = orders.find().join(customers.find(), lookup).toList();
+        customers.createIndex("id");
+        List<Document> indexJoined = orders.find().join(customers.find(), lookup).toList();
+
+        for (List<Document> joined : Arrays.asList(hashJoined, indexJoined)) {
+            assertEquals(50, joined.size());
+            for (Document document : joined) {
+                int customer = document.get("customer", Integer.class);
+                Collection<Document> matches = (Collection<Document>) document.get("customers");
+                if (customer < 5) {
+                    assertEquals(1, matches.size());
+                    assertEquals("c" + customer, matches.iterator().next().get("name"));
+                } else {
+                    assertNull(matches);
+                }
+            }
+        }
+    }
 }
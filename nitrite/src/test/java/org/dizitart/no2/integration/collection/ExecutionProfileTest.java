@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.integration.collection;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.collection.FindOptions;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class ExecutionProfileTest extends BaseCollectionTest {
+
+    @Test
+    public void testIndexScanProfile() {
+        insertOrders();
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenant");
+
+        FindOptions findOptions = FindOptions.orderBy("amount", SortOrder.Descending).limit(5).analyze(true);
+        DocumentCursor cursor = collection.find(where("tenant").eq("t1")
+            .and(where("amount").gte(50)), findOptions);
+        List<Document> documents = cursor.toList();
+        assertEquals(5, documents.size());
+        assertEquals(97, (int) documents.get(0).get("amount", Integer.class));
+
+        ExecutionProfile profile = cursor.getFindPlan().getExecutionProfile();
+        assertNotNull(profile);
+        assertTrue(profile.getIndexKeysVisited() > 0);
+        assertEquals(33, profile.getIdsProduced());
+        assertEquals(33, profile.getDocumentsFetched());
+        // t1 has 17 amounts below 50
+        assertEquals(17, profile.getDocumentsRejected());
+        assertEquals(16, profile.getSortInputSize());
+        assertTrue(profile.getElapsedNanos() > 0);
+
+        List<ExecutionProfile.Stage> stages = profile.getStages();
+        assertEquals(ExecutionProfile.StageType.INDEX_SCAN, stages.get(0).getType());
+        ExecutionProfile.Stage output = stages.get(stages.size() - 1);
+        assertEquals(ExecutionProfile.StageType.BOUND, output.getType());
+        assertEquals(5, output.getRecords());
+        // the top-k sort only hands the first 5 documents on
+        assertEquals(5, output.getInputRecords());
+        assertTrue(output.getElapsedNanos() >= output.getSelfNanos());
+    }
+
+    @Test
+    public void testCollectionScanProfile() {
+        insertOrders();
+
+        DocumentCursor cursor = collection.find(where("amount").lt(10), new FindOptions().analyze(true));
+        assertEquals(10, cursor.toList().size());
+
+        ExecutionProfile profile = cursor.getFindPlan().getExecutionProfile();
+        assertEquals(0, profile.getIndexKeysVisited());
+        assertEquals(0, profile.getIdsProduced());
+        assertEquals(100, profile.getDocumentsFetched());
+        assertEquals(90, profile.getDocumentsRejected());
+        assertEquals(0, profile.getSortInputSize());
+    }
+
+    @Test
+    public void testOrProfile() {
+        insertOrders();
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenant");
+        collection.createIndex("amount");
+
+        DocumentCursor cursor = collection.find(where("tenant").eq("t0")
+            .or(where("amount").lt(10)), new FindOptions().analyze(true));
+        // 34 documents of t0, and 6 more below 10
+        assertEquals(40, cursor.toList().size());
+
+        ExecutionProfile profile = cursor.getFindPlan().getExecutionProfile();
+        assertEquals(44, profile.getIdsProduced());
+        // the ids are merged before the documents are read, each one is read once
+        assertEquals(40, profile.getDocumentsFetched());
+
+        ExecutionProfile.Stage union = null;
+        for (ExecutionProfile.Stage stage : profile.getStages()) {
+            if (stage.getType() == ExecutionProfile.StageType.UNION) {
+                union = stage;
+            }
+        }
+        assertNotNull(union);
+        assertEquals(40, union.getRecords());
+        assertEquals(44, union.getInputRecords());
+
+        ExecutionProfile.Stage output = profile.getStages().get(profile.getStages().size() - 1);
+        assertEquals(ExecutionProfile.StageType.FILTER, output.getType());
+        assertEquals(40, output.getRecords());
+    }
+
+    @Test
+    public void testNotAnalyzed() {
+        insertOrders();
+        DocumentCursor cursor = collection.find(where("amount").lt(10));
+        assertEquals(10, cursor.toList().size());
+        assertNull(cursor.getFindPlan().getExecutionProfile());
+    }
+}
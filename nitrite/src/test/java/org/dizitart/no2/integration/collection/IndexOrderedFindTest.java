@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.integration.collection;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.collection.FindOptions;
+import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class IndexOrderedFindTest extends BaseCollectionTest {
+
+    @Test
+    public void testOrderByIndexWithoutFilter() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "createdAt");
+        insertDocuments(100);
+
+        DocumentCursor cursor = collection.find(Filter.ALL,
+            FindOptions.orderBy("createdAt", SortOrder.Descending).limit(10).analyze(true));
+        List<Document> documents = cursor.toList();
+        assertEquals(10, documents.size());
+        assertEquals(expectedValues(Filter.ALL, SortOrder.Descending, 10), values(documents));
+
+        FindPlan findPlan = cursor.getFindPlan();
+        assertNotNull(findPlan.getIndexDescriptor());
+        assertTrue(findPlan.getBlockingSortOrder().isEmpty());
+        assertTrue(findPlan.getIndexScanOrder().get("createdAt"));
+
+        ExecutionProfile profile = findPlan.getExecutionProfile();
+        assertEquals(0, profile.getSortInputSize());
+        assertEquals(10, profile.getDocumentsFetched());
+    }
+
+    @Test
+    public void testOrderByIndexWithResidualFilter() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "createdAt");
+        insertDocuments(100);
+
+        Filter filter = where("value").gte(50);
+        DocumentCursor cursor = collection.find(filter,
+            FindOptions.orderBy("createdAt", SortOrder.Ascending).limit(20));
+        List<Document> documents = cursor.toList();
+        assertEquals(20, documents.size());
+        assertEquals(expectedValues(filter, SortOrder.Ascending, 20), values(documents));
+        for (Document document : documents) {
+            assertTrue(document.get("value", Integer.class) >= 50);
+        }
+
+        FindPlan findPlan = cursor.getFindPlan();
+        assertNotNull(findPlan.getIndexDescriptor());
+        assertNotNull(findPlan.getCollectionScanFilter());
+        assertTrue(findPlan.getBlockingSortOrder().isEmpty());
+
+        assertEquals(50, collection.find(filter, FindOptions.orderBy("createdAt", SortOrder.Ascending)).size());
+    }
+
+    @Test
+    public void testOrderByIndexWithNullValues() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "createdAt");
+        insertDocuments(20);
+        collection.insert(createDocument("value", 100));
+        collection.insert(createDocument("createdAt", null).put("value", 101));
+
+        List<Document> ascending = collection.find(Filter.ALL,
+            FindOptions.orderBy("createdAt", SortOrder.Ascending)).toList();
+        assertEquals(22, ascending.size());
+        assertNull(ascending.get(0).get("createdAt"));
+        assertNull(ascending.get(1).get("createdAt"));
+        assertEquals(expectedValues(Filter.ALL, SortOrder.Ascending, 22), values(ascending));
+
+        List<Document> descending = collection.find(Filter.ALL,
+            FindOptions.orderBy("createdAt", SortOrder.Descending)).toList();
+        assertEquals(22, descending.size());
+        assertNull(descending.get(21).get("createdAt"));
+        assertEquals(expectedValues(Filter.ALL, SortOrder.Descending, 22), values(descending));
+    }
+
+    @Test
+    public void testOrderByCompoundIndex() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "createdAt", "value");
+        insertDocuments(60);
+
+        DocumentCursor cursor = collection.find(Filter.ALL,
+            FindOptions.orderBy("createdAt", SortOrder.Ascending)
+                .thenOrderBy("value", SortOrder.Descending).limit(15));
+        List<Document> documents = cursor.toList();
+        assertEquals(15, documents.size());
+        assertTrue(cursor.getFindPlan().getBlockingSortOrder().isEmpty());
+
+        for (int i = 1; i < documents.size(); i++) {
+            int previous = documents.get(i - 1).get("createdAt", Integer.class);
+            int current = documents.get(i).get("createdAt", Integer.class);
+            assertTrue(previous <= current);
+            if (previous == current) {
+                assertTrue(documents.get(i - 1).get("value", Integer.class)
+                    > documents.get(i).get("value", Integer.class));
+            }
+        }
+    }
+
+    @Test
+    public void testFilterIndexIsKeptWithoutStatistics() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "createdAt");
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "value");
+        insertDocuments(50);
+
+        DocumentCursor cursor = collection.find(where("value").lt(10),
+            FindOptions.orderBy("createdAt", SortOrder.Ascending).limit(5));
+        assertEquals(5, cursor.toList().size());
+
+        FindPlan findPlan = cursor.getFindPlan();
+        assertEquals("value", findPlan.getIndexDescriptor().getFields().getFieldNames().get(0));
+        assertFalse(findPlan.getBlockingSortOrder().isEmpty());
+    }
+
+    @Test
+    public void testMultiValuedIndexIsNotWalked() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "createdAt");
+        insertDocuments(10);
+        collection.insert(createDocument("createdAt", new Integer[]{3, 40}).put("value", 10));
+
+        // a document with an array value is stored under every element
+        DocumentCursor cursor = collection.find(where("value").lt(10),
+            FindOptions.orderBy("createdAt", SortOrder.Ascending));
+        assertEquals(10, cursor.toList().size());
+        assertNull(cursor.getFindPlan().getIndexDescriptor());
+        assertFalse(cursor.getFindPlan().getBlockingSortOrder().isEmpty());
+    }
+
+    private List<Object> expectedValues(Filter filter, SortOrder sortOrder, int limit) {
+        // the same find on a collection without index, sorted in memory
+        List<Document> documents = db.getCollection("unindexed").find(Filter.ALL).toList();
+        if (documents.isEmpty()) {
+            for (Document document : collection.find().toList()) {
+                Document copy = document.clone();
+                copy.remove("_id");
+                db.getCollection("unindexed").insert(copy);
+            }
+        }
+
+        return values(db.getCollection("unindexed").find(filter,
+            FindOptions.orderBy("createdAt", sortOrder).limit(limit)).toList());
+    }
+
+    private List<Object> values(List<Document> documents) {
+        List<Object> values = new ArrayList<>();
+        for (Document document : documents) {
+            values.add(document.get("createdAt"));
+        }
+        return values;
+    }
+
+    private void insertDocuments(int count) {
+        for (int i = 0; i < count; i++) {
+            collection.insert(createDocument("createdAt", (i * 7) % 23).put("value", i));
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.integration.collection;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.FindOptions;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.exceptions.InvalidOperationException;
+import org.dizitart.no2.exceptions.ValidationException;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class KeysetPaginationTest extends BaseCollectionTest {
+
+    @Test
+    public void testPagesWithoutIndex() {
+        insertDocuments(53);
+        List<Document> pages = readAllPages(Filter.ALL, SortOrder.Ascending, 7);
+
+        assertEquals(53, pages.size());
+        assertOrdered(pages, SortOrder.Ascending);
+    }
+
+    @Test
+    public void testPagesWithIndex() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "group");
+        insertDocuments(53);
+        List<Document> pages = readAllPages(where("value").gte(10), SortOrder.Ascending, 5);
+
+        assertEquals(43, pages.size());
+        assertOrdered(pages, SortOrder.Ascending);
+    }
+
+    @Test
+    public void testDescendingPagesWithNullValues() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "group");
+        insertDocuments(40);
+        collection.insert(createDocument("value", 100));
+        collection.insert(createDocument("group", null).put("value", 101));
+
+        List<Document> pages = readAllPages(Filter.ALL, SortOrder.Descending, 6);
+        assertEquals(42, pages.size());
+        assertOrdered(pages, SortOrder.Descending);
+    }
+
+    @Test
+    public void testDescendingPagesOfNullValuesIndexedLater() {
+        insertDocuments(40);
+        collection.insert(createDocument("group", null).put("value", 100));
+        // the index build finds the null key
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "group");
+
+        List<Document> pages = readAllPages(Filter.ALL, SortOrder.Descending, 6);
+        assertEquals(41, pages.size());
+        assertOrdered(pages, SortOrder.Descending);
+    }
+
+    @Test
+    public void testPageMatchesSkip() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "group");
+        insertDocuments(30);
+
+        FindOptions firstPage = FindOptions.orderBy("group", SortOrder.Ascending).keyset(true).limit(10);
+        DocumentCursor cursor = collection.find(Filter.ALL, firstPage);
+        assertEquals(10, cursor.toList().size());
+
+        FindOptions nextPage = FindOptions.orderBy("group", SortOrder.Ascending).keyset(true)
+            .continuationToken(cursor.getContinuationToken()).limit(10);
+        FindOptions skipped = FindOptions.orderBy("group", SortOrder.Ascending).keyset(true)
+            .skip(10).limit(10);
+        assertEquals(collection.find(Filter.ALL, skipped).toList(),
+            collection.find(Filter.ALL, nextPage).toList());
+    }
+
+    @Test
+    public void testNoTokenBeforeIteration() {
+        insertDocuments(5);
+        DocumentCursor cursor = collection.find(Filter.ALL,
+            FindOptions.orderBy("group", SortOrder.Ascending).keyset(true));
+        assertNull(cursor.getContinuationToken());
+    }
+
+    @Test(expected = InvalidOperationException.class)
+    public void testTokenWithoutKeyset() {
+        insertDocuments(5);
+        DocumentCursor cursor = collection.find(Filter.ALL, FindOptions.orderBy("group", SortOrder.Ascending));
+        cursor.toList();
+        cursor.getContinuationToken();
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testKeysetWithoutSortOrder() {
+        insertDocuments(5);
+        collection.find(Filter.ALL, new FindOptions().keyset(true));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testKeysetWithCollator() {
+        insertDocuments(5);
+        collection.find(Filter.ALL, FindOptions.orderBy("group", SortOrder.Ascending)
+            .collator(Collator.getInstance()).keyset(true));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testTokenOfAnotherSortOrder() {
+        insertDocuments(5);
+        DocumentCursor cursor = collection.find(Filter.ALL,
+            FindOptions.orderBy("group", SortOrder.Ascending).keyset(true).limit(2));
+        cursor.toList();
+
+        collection.find(Filter.ALL, FindOptions.orderBy("group", SortOrder.Descending)
+            .continuationToken(cursor.getContinuationToken()));
+    }
+
+    @Test(expected = ValidationException.class)
+    public void testInvalidToken() {
+        insertDocuments(5);
+        collection.find(Filter.ALL, FindOptions.orderBy("group", SortOrder.Ascending)
+            .continuationToken("not a token"));
+    }
+
+    private List<Document> readAllPages(Filter filter, SortOrder sortOrder, int pageSize) {
+        List<Document> documents = new ArrayList<>();
+        String token = null;
+        while (true) {
+            FindOptions findOptions = FindOptions.orderBy("group", sortOrder)
+                .continuationToken(token).limit(pageSize);
+            DocumentCursor cursor = collection.find(filter, findOptions);
+            List<Document> page = cursor.toList();
+            if (page.isEmpty()) {
+                return documents;
+            }
+
+            assertTrue(page.size() <= pageSize);
+            documents.addAll(page);
+            token = cursor.getContinuationToken();
+            assertNotNull(token);
+        }
+    }
+
+    private void assertOrdered(List<Document> documents, SortOrder sortOrder) {
+        Set<NitriteId> ids = new HashSet<>();
+        for (int i = 0; i < documents.size(); i++) {
+            assertTrue("duplicate document", ids.add(documents.get(i).getId()));
+            if (i == 0) continue;
+
+            Integer previous = documents.get(i - 1).get("group", Integer.class);
+            Integer current = documents.get(i).get("group", Integer.class);
+            int result;
+            if (previous == null || current == null) {
+                result = previous == current ? 0 : (previous == null ? -1 : 1);
+            } else {
+                result = previous.compareTo(current);
+            }
+            if (sortOrder == SortOrder.Descending) {
+                result = -result;
+            }
+
+            assertTrue(result <= 0);
+            if (result == 0) {
+                // ties are ordered by id
+                assertTrue(documents.get(i - 1).getId().compareTo(documents.get(i).getId()) < 0);
+            }
+        }
+    }
+
+    private void insertDocuments(int count) {
+        for (int i = 0; i < count; i++) {
+            collection.insert(createDocument("group", i % 4).put("value", i));
+        }
+    }
+}
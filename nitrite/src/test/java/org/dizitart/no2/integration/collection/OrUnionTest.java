@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.integration.collection;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.collection.FindOptions;
+import org.dizitart.no2.collection.FindPlan;
+import org.dizitart.no2.collection.NitriteId;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.common.tuples.Pair;
+import org.dizitart.no2.filters.Filter;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.dizitart.no2.common.Constants.DOC_ID;
+import static org.dizitart.no2.filters.Filter.or;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class OrUnionTest extends BaseCollectionTest {
+
+    @Test
+    public void testOrOverTwoIndexes() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenant");
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "amount");
+        insertOrders();
+
+        Filter filter = or(where("tenant").eq("t0"), where("amount").lt(10));
+        DocumentCursor cursor = collection.find(filter, new FindOptions().analyze(true));
+        List<Document> documents = cursor.toList();
+        assertEquals(40, documents.size());
+        assertDistinct(documents);
+        for (Document document : documents) {
+            assertTrue("t0".equals(document.get("tenant")) || document.get("amount", Integer.class) < 10);
+        }
+
+        ExecutionProfile profile = cursor.getFindPlan().getExecutionProfile();
+        assertEquals(44, profile.getIdsProduced());
+        assertEquals(40, profile.getDocumentsFetched());
+        assertEquals(0, profile.getDocumentsRejected());
+    }
+
+    @Test
+    public void testResidualFilterOfSubPlan() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenant");
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "amount");
+        insertOrders();
+
+        // the note is not indexed, it only filters the documents of the tenant
+        Filter filter = or(where("tenant").eq("t1").and(where("note").eq("n0")),
+            where("amount").lt(10));
+        List<Document> documents = collection.find(filter).toList();
+        assertDistinct(documents);
+
+        int expected = 0;
+        for (Document document : collection.find().toList()) {
+            if (("t1".equals(document.get("tenant")) && "n0".equals(document.get("note")))
+                || document.get("amount", Integer.class) < 10) {
+                expected++;
+            }
+        }
+        assertEquals(expected, documents.size());
+        assertEquals(expected, collection.find(filter).size());
+    }
+
+    @Test
+    public void testOrderedUnionOfSameIndex() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "amount");
+        insertOrders();
+
+        Filter filter = or(where("amount").lt(10),
+            where("amount").gt(5).and(where("amount").lt(15)),
+            where("amount").gte(90));
+        DocumentCursor cursor = collection.find(filter,
+            FindOptions.orderBy("amount", SortOrder.Descending).analyze(true));
+        List<Document> documents = cursor.toList();
+        assertEquals(25, documents.size());
+        assertDistinct(documents);
+        for (int i = 1; i < documents.size(); i++) {
+            assertTrue(documents.get(i - 1).get("amount", Integer.class)
+                > documents.get(i).get("amount", Integer.class));
+        }
+
+        FindPlan findPlan = cursor.getFindPlan();
+        assertTrue(findPlan.getBlockingSortOrder().isEmpty());
+        ExecutionProfile profile = findPlan.getExecutionProfile();
+        assertEquals(0, profile.getSortInputSize());
+        assertEquals(25, profile.getDocumentsFetched());
+
+        List<Document> firstPage = collection.find(filter,
+            FindOptions.orderBy("amount", SortOrder.Descending).limit(3)).toList();
+        assertEquals(documents.subList(0, 3), firstPage);
+    }
+
+    @Test
+    public void testOrderedUnionWithEqualKeys() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "group");
+        insertOrders(60);
+
+        Filter filter = or(where("group").lte(2), where("group").gte(1).and(where("group").lte(3)));
+        List<Document> documents = collection.find(filter,
+            FindOptions.orderBy("group", SortOrder.Ascending).keyset(true)).toList();
+        assertEquals(48, documents.size());
+        assertDistinct(documents);
+        for (int i = 1; i < documents.size(); i++) {
+            int previous = documents.get(i - 1).get("group", Integer.class);
+            int current = documents.get(i).get("group", Integer.class);
+            assertTrue(previous <= current);
+            if (previous == current) {
+                // ties are ordered by id
+                assertTrue(documents.get(i - 1).getId().compareTo(documents.get(i).getId()) < 0);
+            }
+        }
+    }
+
+    @Test
+    public void testOrderedUnionFallsBackToSort() {
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "amount");
+        insertOrders();
+
+        // the index does not walk the entries of an in filter
+        Filter filter = or(where("amount").in(50, 3, 7), where("amount").gte(95));
+        DocumentCursor cursor = collection.find(filter, FindOptions.orderBy("amount", SortOrder.Ascending));
+        // the planner picks the sort, before the cursor is iterated
+        assertNull(cursor.getFindPlan().getIndexScanOrder());
+        assertFalse(cursor.getFindPlan().getBlockingSortOrder().isEmpty());
+
+        List<Document> documents = cursor.toList();
+        assertEquals(8, documents.size());
+        assertDistinct(documents);
+        for (int i = 1; i < documents.size(); i++) {
+            assertTrue(documents.get(i - 1).get("amount", Integer.class)
+                < documents.get(i).get("amount", Integer.class));
+        }
+
+        // a keyset sort breaks its ties by id
+        cursor = collection.find(filter, FindOptions.orderBy("amount", SortOrder.Ascending).keyset(true));
+        List<Pair<String, SortOrder>> sortOrder = cursor.getFindPlan().getBlockingSortOrder();
+        assertEquals(DOC_ID, sortOrder.get(sortOrder.size() - 1).getFirst());
+        assertEquals(documents, cursor.toList());
+    }
+
+    private void assertDistinct(List<Document> documents) {
+        Set<NitriteId> ids = new HashSet<>();
+        for (Document document : documents) {
+            assertTrue("duplicate document", ids.add(document.getId()));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.integration.collection;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.ExecutionProfile;
+import org.dizitart.no2.collection.FindOptions;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.filters.Filter;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.dizitart.no2.collection.Document.createDocument;
+import static org.dizitart.no2.filters.FluentFilter.$;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.junit.Assert.*;
+
+public class ParallelScanTest extends BaseCollectionTest {
+
+    @Test
+    public void testParallelScanMatchesSequentialScan() {
+        insertDocuments(1000);
+        Filter filter = where("name").regex("^n[0-9]*7$")
+            .or(where("tags").elemMatch($.eq("t3")));
+
+        List<Document> sequential = collection.find(filter).toList();
+        List<Document> parallel = collection.find(filter, new FindOptions().parallelism(4)).toList();
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testParallelScanWithSortAndLimit() {
+        insertDocuments(500);
+        Filter filter = where("name").regex("1");
+
+        FindOptions findOptions = FindOptions.orderBy("value", SortOrder.Descending)
+            .skip(5).limit(20).parallelism(8);
+        List<Document> parallel = collection.find(filter, findOptions).toList();
+        List<Document> sequential = collection.find(filter,
+            FindOptions.orderBy("value", SortOrder.Descending).skip(5).limit(20)).toList();
+
+        assertEquals(20, parallel.size());
+        assertEquals(sequential, parallel);
+        for (int i = 1; i < parallel.size(); i++) {
+            assertTrue(parallel.get(i - 1).get("value", Integer.class)
+                > parallel.get(i).get("value", Integer.class));
+        }
+    }
+
+    @Test
+    public void testParallelScanOfSmallCollection() {
+        insertDocuments(3);
+        List<Document> documents = collection.find(where("value").gt(0),
+            new FindOptions().parallelism(16)).toList();
+        assertEquals(2, documents.size());
+    }
+
+    @Test
+    public void testParallelScanProfile() {
+        insertDocuments(100);
+        DocumentCursor cursor = collection.find(where("value").lt(10),
+            new FindOptions().parallelism(4).analyze(true));
+        assertEquals(10, cursor.toList().size());
+
+        ExecutionProfile profile = cursor.getFindPlan().getExecutionProfile();
+        assertEquals(100, profile.getDocumentsFetched());
+        assertEquals(90, profile.getDocumentsRejected());
+    }
+
+    @Test
+    public void testIndexedFindIgnoresParallelism() {
+        insertDocuments(100);
+        collection.createIndex("value");
+        DocumentCursor cursor = collection.find(where("value").lt(10),
+            new FindOptions().parallelism(4).analyze(true));
+        assertEquals(10, cursor.toList().size());
+        assertEquals(10, cursor.getFindPlan().getExecutionProfile().getDocumentsFetched());
+    }
+
+    @Test
+    public void testParallelScanStopsAtLimit() {
+        insertDocuments(5000);
+        AtomicInteger filtered = new AtomicInteger();
+        Filter filter = element -> {
+            filtered.incrementAndGet();
+            return true;
+        };
+
+        // 1000 ranges of 5 documents, only a few of them are scanned ahead
+        List<Document> documents = collection.find(filter,
+            new FindOptions().parallelism(1000).limit(3)).toList();
+        assertEquals(3, documents.size());
+        assertTrue(ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS));
+        assertTrue(filtered.get() < 5000);
+        assertEquals(collection.find().toList().subList(0, 3), documents);
+    }
+
+    private void insertDocuments(int count) {
+        for (int i = 0; i < count; i++) {
+            collection.insert(createDocument("name", "n" + i)
+                .put("value", i)
+                .put("tags", new String[]{"t" + (i % 5), "t" + (i % 7)}));
+        }
+    }
+}
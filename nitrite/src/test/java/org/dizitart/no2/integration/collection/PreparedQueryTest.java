@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017-2021 Nitrite author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.dizitart.no2.integration.collection;
+
+import org.dizitart.no2.collection.Document;
+import org.dizitart.no2.collection.DocumentCursor;
+import org.dizitart.no2.collection.PreparedQuery;
+import org.dizitart.no2.common.SortOrder;
+import org.dizitart.no2.exceptions.FilterException;
+import org.dizitart.no2.index.IndexOptions;
+import org.dizitart.no2.index.IndexType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.dizitart.no2.collection.FindOptions.orderBy;
+import static org.dizitart.no2.filters.FluentFilter.where;
+import static org.dizitart.no2.filters.QueryParameter.param;
+import static org.junit.Assert.*;
+
+public class PreparedQueryTest extends BaseCollectionTest {
+
+    @Test
+    public void testPreparedQuery() {
+        insertOrders();
+
+        PreparedQuery query = collection.prepare(where("tenant").eq(param("tenant"))
+            .and(where("amount").between(param("min"), param("max"))), orderBy("amount", SortOrder.Ascending));
+
+        for (int tenant = 0; tenant < 3; tenant++) {
+            DocumentCursor cursor = query.find(values("t" + tenant, 10, 40));
+            DocumentCursor expected = collection.find(where("tenant").eq("t" + tenant)
+                .and(where("amount").between(10, 40)), orderBy("amount", SortOrder.Ascending));
+            assertEquals(expected.toList(), cursor.toList());
+            assertFalse(cursor.toList().isEmpty());
+        }
+
+        // a plan created before an index is not reused after it
+        assertNull(query.find(values("t1", 0, 100)).getFindPlan().getIndexDescriptor());
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "tenant");
+        DocumentCursor cursor = query.find(values("t1", 0, 100));
+        assertNotNull(cursor.getFindPlan().getIndexDescriptor());
+        assertEquals(33, cursor.size());
+
+        collection.dropIndex("tenant");
+        cursor = query.find(values("t1", 0, 100));
+        assertNull(cursor.getFindPlan().getIndexDescriptor());
+        assertEquals(33, cursor.size());
+    }
+
+    @Test
+    public void testRepeatedQueriesWithIndex() {
+        insertOrders();
+        collection.createIndex(IndexOptions.indexOptions(IndexType.NON_UNIQUE), "amount");
+
+        // queries of the same shape share a plan, but every one sees its own values
+        for (int amount = 0; amount < 100; amount += 7) {
+            List<Document> documents = collection.find(where("amount").gte(amount)
+                .and(where("tenant").notEq("t0"))).toList();
+            for (Document document : documents) {
+                assertTrue(document.get("amount", Integer.class) >= amount);
+                assertNotEquals("t0", document.get("tenant"));
+            }
+
+            long expected = 0;
+            for (int i = 0; i < 100; i++) {
+                if (i >= amount && i % 3 != 0) expected++;
+            }
+            assertEquals(expected, documents.size());
+        }
+    }
+
+    @Test(expected = FilterException.class)
+    public void testMissingParameter() {
+        insertOrders();
+        PreparedQuery query = collection.prepare(where("tenant").eq(param("tenant")));
+        query.find(Collections.emptyMap());
+    }
+
+    @Test(expected = FilterException.class)
+    public void testUnboundParameter() {
+        insertOrders();
+        collection.find(where("amount").gt(param("min"))).toList();
+    }
+
+    private Map<String, Object> values(String tenant, int min, int max) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("tenant", tenant);
+        values.put("min", min);
+        values.put("max", max);
+        return values;
+    }
+}
@@ -4,6 +4,8 @@ import org.dizitart.no2.exceptions.InvalidOperationException;
 import org.dizitart.no2.exceptions.ValidationException;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 public class InMemoryMapTest {
@@ -380,5 +382,48 @@ public class InMemoryMapTest {
         assertNull(actualInMemoryMap.getStore());
     }
 
-}
+    @Test
+    public void testKeysFrom() {
+        InMemoryMap<Integer, String> inMemoryMap = new InMemoryMap<>("", null);
+        inMemoryMap.put(1, "a");
+        inMemoryMap.put(3, "b");
+        inMemoryMap.put(5, "c");
+
+        assertEquals(Arrays.asList(1, 3, 5), inMemoryMap.keys(null, false).toList());
+        assertEquals(Arrays.asList(5, 3, 1), inMemoryMap.keys(null, true).toList());
+        assertEquals(Arrays.asList(3, 5), inMemoryMap.keys(2, false).toList());
+        assertEquals(Arrays.asList(3, 1), inMemoryMap.keys(3, true).toList());
+        assertTrue(inMemoryMap.keys(6, false).toList().isEmpty());
+    }
+
+    @Test
+    public void testCountKeys() {
+        InMemoryMap<Integer, String> inMemoryMap = new InMemoryMap<>("", null);
+        for (int i = 0; i < 10; i++) {
+            inMemoryMap.put(i * 2, "v" + i);
+        }
 
+        assertEquals(10, inMemoryMap.countKeys(null, false, null, false));
+        assertEquals(5, inMemoryMap.countKeys(10, true, null, false));
+        assertEquals(4, inMemoryMap.countKeys(10, false, null, false));
+        assertEquals(3, inMemoryMap.countKeys(null, false, 4, true));
+        assertEquals(3, inMemoryMap.countKeys(4, true, 8, true));
+        assertEquals(1, inMemoryMap.countKeys(4, false, 8, false));
+        assertEquals(2, inMemoryMap.countKeys(3, true, 7, true));
+        assertEquals(0, inMemoryMap.countKeys(8, true, 4, true));
+    }
+
+    @Test
+    public void testSplitKeys() {
+        InMemoryMap<Integer, String> inMemoryMap = new InMemoryMap<>("", null);
+        assertTrue(inMemoryMap.splitKeys(4).isEmpty());
+        for (int i = 0; i < 10; i++) {
+            inMemoryMap.put(i * 2, "v" + i);
+        }
+
+        assertEquals(Arrays.asList(6, 12), inMemoryMap.splitKeys(3));
+        assertEquals(Arrays.asList(10), inMemoryMap.splitKeys(2));
+        assertTrue(inMemoryMap.splitKeys(1).isEmpty());
+        assertTrue(inMemoryMap.splitKeys(11).isEmpty());
+    }
+}